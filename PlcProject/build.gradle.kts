@@ -1,5 +1,6 @@
 plugins {
     id("java")
+    id("me.champeau.jmh") version "0.7.2"
 }
 
 group = "plc.project"
@@ -22,3 +23,8 @@ java {
 tasks.test {
     useJUnitPlatform()
 }
+
+jmh {
+    //Reports allocation rates (gc.alloc.rate.norm is bytes per operation).
+    profilers = listOf("gc")
+}
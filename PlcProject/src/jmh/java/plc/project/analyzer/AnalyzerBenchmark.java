@@ -0,0 +1,65 @@
+package plc.project.analyzer;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import plc.project.lexer.LexException;
+import plc.project.lexer.Lexer;
+import plc.project.parser.Ast;
+import plc.project.parser.ParseException;
+import plc.project.parser.Parser;
+import plc.project.workload.ProgramGenerator;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Analyzer throughput on generated programs, in statements/s (see
+ * ParserBenchmark). Programs are parsed once during setup. The parallel
+ * analyzer runs on the common pool, so its scaling is determined by the
+ * number of available cores.
+ */
+@State(org.openjdk.jmh.annotations.Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AnalyzerBenchmark {
+
+    public static final int STATEMENTS = 1000;
+
+    @Param({"1", "3", "5"})
+    public int depth;
+
+    private Ast.Source ast;
+
+    @Setup(Level.Trial)
+    public void setup() throws LexException, ParseException {
+        var options = ProgramGenerator.Options.defaults()
+            .withStatements(STATEMENTS)
+            .withDepth(depth);
+        ast = new Parser(new Lexer(new ProgramGenerator(options).generate()).lex()).parseSource();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(STATEMENTS)
+    public Ir.Source analyze() throws AnalyzeException {
+        return new Analyzer(new Scope(Environment.scope())).visit(ast);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(STATEMENTS)
+    public Ir.Source analyzeParallel() throws AnalyzeException {
+        return new ParallelAnalyzer(new Scope(Environment.scope())).analyze(ast);
+    }
+
+}
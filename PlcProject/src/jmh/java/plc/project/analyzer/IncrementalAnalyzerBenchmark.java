@@ -0,0 +1,70 @@
+package plc.project.analyzer;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import plc.project.lexer.LexException;
+import plc.project.lexer.Lexer;
+import plc.project.parser.Ast;
+import plc.project.parser.ParseException;
+import plc.project.parser.Parser;
+import plc.project.workload.ProgramGenerator;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Edit-to-diagnostics latency: the time to analyze a program again after one
+ * DEF (the middle one) has been replaced, fully versus incrementally. The
+ * replacement is the same statement, which keeps the program valid and the
+ * signature unchanged (the common case of editing a body). Incremental times
+ * should stay roughly flat as the program grows.
+ */
+@State(org.openjdk.jmh.annotations.Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class IncrementalAnalyzerBenchmark {
+
+    @Param({"100", "1000", "10000"})
+    public int statements;
+
+    private Ast.Source ast;
+    private Map<Integer, Ast.Stmt> change;
+    private IncrementalAnalyzer analyzer;
+    private Ir.Source ir;
+
+    @Setup(Level.Trial)
+    public void setup() throws LexException, ParseException, AnalyzeException {
+        ast = new Parser(new Lexer(ProgramGenerator.generate(statements, 0)).lex()).parseSource();
+        var index = ast.statements().size() / 2;
+        while (!(ast.statements().get(index) instanceof Ast.Stmt.Def)) {
+            index++;
+        }
+        change = Map.of(index, ast.statements().get(index));
+        analyzer = new IncrementalAnalyzer(Environment.scope());
+        ir = analyzer.analyze(ast);
+    }
+
+    @Benchmark
+    public Ir.Source analyze() throws AnalyzeException {
+        return new Analyzer(new Scope(Environment.scope())).visit(ast);
+    }
+
+    @Benchmark
+    public Ir.Source reanalyze() throws AnalyzeException {
+        ir = analyzer.reanalyze(ir, change);
+        return ir;
+    }
+
+}
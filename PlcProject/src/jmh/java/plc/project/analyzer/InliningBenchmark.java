@@ -0,0 +1,81 @@
+package plc.project.analyzer;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import plc.project.evaluator.EvaluateException;
+import plc.project.evaluator.IrEvaluator;
+import plc.project.evaluator.RuntimeValue;
+import plc.project.lexer.LexException;
+import plc.project.lexer.Lexer;
+import plc.project.parser.ParseException;
+import plc.project.parser.Parser;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * IrEvaluator time on a call-heavy script (small helper functions called in
+ * a loop, five calls per iteration), with and without {@link Inlining}. Both
+ * programs are analyzed and resolved once during setup.
+ */
+@State(org.openjdk.jmh.annotations.Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class InliningBenchmark {
+
+    private static final String SCRIPT = """
+        DEF square(x: Integer): Integer DO
+            RETURN x * x;
+        END
+        DEF add(a: Integer, b: Integer): Integer DO
+            RETURN a + b;
+        END
+        DEF distance(x: Integer, y: Integer): Integer DO
+            RETURN add(square(x), square(y));
+        END
+        LET total = 0;
+        FOR i IN range(0, %d) DO
+            total = add(total, distance(i, i + 1));
+        END
+        total;
+        """;
+
+    @Param({"1000", "10000"})
+    public int iterations;
+
+    private Ir.Source ir;
+    private Resolver.Resolution resolution;
+    private Ir.Source inlined;
+    private Resolver.Resolution inlinedResolution;
+
+    @Setup(Level.Trial)
+    public void setup() throws LexException, ParseException, AnalyzeException {
+        var ast = new Parser(new Lexer(SCRIPT.formatted(iterations)).lex()).parseSource();
+        ir = new Analyzer(new Scope(Environment.scope())).visit(ast);
+        resolution = Resolver.resolve(ir);
+        inlined = new Inlining().apply(ir);
+        inlinedResolution = Resolver.resolve(inlined);
+    }
+
+    @Benchmark
+    public RuntimeValue evaluate() throws EvaluateException {
+        return new IrEvaluator(new plc.project.evaluator.Scope(plc.project.evaluator.Environment.scope()), resolution).visit(ir);
+    }
+
+    @Benchmark
+    public RuntimeValue evaluateInlined() throws EvaluateException {
+        return new IrEvaluator(new plc.project.evaluator.Scope(plc.project.evaluator.Environment.scope()), inlinedResolution).visit(inlined);
+    }
+
+}
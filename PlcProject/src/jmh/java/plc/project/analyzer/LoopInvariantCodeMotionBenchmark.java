@@ -0,0 +1,120 @@
+package plc.project.analyzer;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import plc.project.evaluator.EvaluateException;
+import plc.project.evaluator.IrEvaluator;
+import plc.project.evaluator.RuntimeValue;
+import plc.project.generator.Generator;
+import plc.project.lexer.Lexer;
+import plc.project.parser.Parser;
+
+import javax.tools.ToolProvider;
+import java.io.IOException;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.net.URLClassLoader;
+import java.nio.file.Files;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Time on a loop-heavy script (nested loops whose bodies recompute
+ * arithmetic on the function's parameters), with and without
+ * {@link LoopInvariantCodeMotion}, both evaluated by the IrEvaluator and as
+ * Java from the Generator (compiled and loaded during setup, like the
+ * analysis and resolution).
+ *
+ * <p>The loops are {@link CountedLoops}, so the generated source counts with
+ * an int instead of calling the Generator's (stubbed) range.
+ */
+@State(org.openjdk.jmh.annotations.Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class LoopInvariantCodeMotionBenchmark {
+
+    private static final String SCRIPT = """
+        DEF run(rows: Integer, width: Integer, height: Integer, scale: Integer): Integer DO
+            LET total = 0;
+            FOR y IN range(0, rows) DO
+                FOR x IN range(0, width) DO
+                    total = total + (width * height - scale * scale) * x + (height - 1) * y / 2;
+                END
+            END
+            RETURN total;
+        END
+        run(%d, 50, 20, 3);
+        """;
+
+    @Param({"20", "200"})
+    public int rows;
+
+    private Ir.Source ir;
+    private Resolver.Resolution resolution;
+    private Ir.Source hoisted;
+    private Resolver.Resolution hoistedResolution;
+    private MethodHandle generated;
+    private MethodHandle generatedHoisted;
+
+    @Setup(Level.Trial)
+    public void setup() throws Exception {
+        var ast = new Parser(new Lexer(SCRIPT.formatted(rows)).lex()).parseSource();
+        ir = new Analyzer(new Scope(Environment.scope())).visit(ast);
+        resolution = Resolver.resolve(ir);
+        hoisted = new LoopInvariantCodeMotion().apply(ir);
+        hoistedResolution = Resolver.resolve(hoisted);
+        generated = compile(ir);
+        generatedHoisted = compile(hoisted);
+    }
+
+    /**
+     * Generates, compiles and loads a program, returning its main method.
+     */
+    private static MethodHandle compile(Ir.Source ir) throws IOException, ReflectiveOperationException {
+        var source = new Generator().visit(ir).toString();
+        var directory = Files.createTempDirectory("licm");
+        var file = directory.resolve("Main.java");
+        Files.writeString(file, source);
+        var compiler = ToolProvider.getSystemJavaCompiler();
+        if (compiler.run(null, null, null, "-d", directory.toString(), file.toString()) != 0) {
+            throw new IllegalStateException("Generated program doesn't compile:\n" + source);
+        }
+        var loader = new URLClassLoader(new java.net.URL[] {directory.toUri().toURL()});
+        var main = loader.loadClass("Main");
+        return MethodHandles.publicLookup()
+            .findStatic(main, "main", MethodType.methodType(void.class, String[].class));
+    }
+
+    @Benchmark
+    public RuntimeValue evaluate() throws EvaluateException {
+        return new IrEvaluator(new plc.project.evaluator.Scope(plc.project.evaluator.Environment.scope()), resolution).visit(ir);
+    }
+
+    @Benchmark
+    public RuntimeValue evaluateHoisted() throws EvaluateException {
+        return new IrEvaluator(new plc.project.evaluator.Scope(plc.project.evaluator.Environment.scope()), hoistedResolution).visit(hoisted);
+    }
+
+    @Benchmark
+    public void generate() throws Throwable {
+        generated.invokeExact(new String[0]);
+    }
+
+    @Benchmark
+    public void generateHoisted() throws Throwable {
+        generatedHoisted.invokeExact(new String[0]);
+    }
+
+}
@@ -0,0 +1,53 @@
+package plc.project.analyzer;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import plc.project.lexer.LexException;
+import plc.project.lexer.Lexer;
+import plc.project.parser.Ast;
+import plc.project.parser.ParseException;
+import plc.project.parser.Parser;
+import plc.project.workload.ProgramGenerator;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Time to analyze a generated program of about 100k lines, where the
+ * Analyzer creates a scope for every block, function, loop and object type
+ * (see {@link SymbolTable}). Run with {@code -prof gc} for the memory
+ * allocated per analysis (gc.alloc.rate.norm).
+ */
+@State(org.openjdk.jmh.annotations.Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SymbolTableBenchmark {
+
+    /**
+     * The number of top-level statements, which generate about 7 lines each.
+     */
+    public static final int STATEMENTS = 14500;
+
+    private Ast.Source ast;
+
+    @Setup(Level.Trial)
+    public void setup() throws LexException, ParseException {
+        ast = new Parser(new Lexer(ProgramGenerator.generate(STATEMENTS, 0)).lex()).parseSource();
+    }
+
+    @Benchmark
+    public Ir.Source analyze() throws AnalyzeException {
+        return new Analyzer(new Scope(Environment.scope())).visit(ast);
+    }
+
+}
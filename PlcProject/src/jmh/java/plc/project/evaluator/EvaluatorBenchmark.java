@@ -0,0 +1,71 @@
+package plc.project.evaluator;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import plc.project.analyzer.AnalyzeException;
+import plc.project.analyzer.Analyzer;
+import plc.project.analyzer.Ir;
+import plc.project.analyzer.Resolver;
+import plc.project.lexer.LexException;
+import plc.project.lexer.Lexer;
+import plc.project.parser.Ast;
+import plc.project.parser.ParseException;
+import plc.project.parser.Parser;
+import plc.project.workload.ProgramGenerator;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Evaluator throughput on generated programs, in programs/s. Programs are
+ * parsed (and analyzed/resolved for the IrEvaluator) once during setup; the
+ * seed varies the workload shape (the amount of loops and calls) at a fixed
+ * size.
+ */
+@State(org.openjdk.jmh.annotations.Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class EvaluatorBenchmark {
+
+    @Param({"0", "1", "2"})
+    public long seed;
+
+    @Param({"1000"})
+    public int statements;
+
+    private Ast.Source ast;
+    private Ir.Source ir;
+    private Resolver.Resolution resolution;
+
+    @Setup(Level.Trial)
+    public void setup() throws LexException, ParseException, AnalyzeException {
+        var options = ProgramGenerator.Options.defaults()
+            .withStatements(statements)
+            .withSeed(seed);
+        ast = new Parser(new Lexer(new ProgramGenerator(options).generate()).lex()).parseSource();
+        ir = new Analyzer(new plc.project.analyzer.Scope(plc.project.analyzer.Environment.scope())).visit(ast);
+        resolution = Resolver.resolve(ir);
+    }
+
+    @Benchmark
+    public RuntimeValue evaluate() throws EvaluateException {
+        return new Evaluator(new Scope(Environment.scope())).visit(ast);
+    }
+
+    @Benchmark
+    public RuntimeValue evaluateIr() throws EvaluateException {
+        return new IrEvaluator(new Scope(Environment.scope()), resolution).visit(ir);
+    }
+
+}
@@ -0,0 +1,111 @@
+package plc.project.parser;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import plc.project.lexer.LexException;
+import plc.project.lexer.Lexer;
+import plc.project.lexer.Token;
+import plc.project.workload.ProgramGenerator;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntFunction;
+
+/**
+ * Parser throughput on generated programs. Each invocation parses a program
+ * of {@link #STATEMENTS} top-level statements and is counted as that many
+ * operations, so the score is statements/s and the gc profiler's
+ * {@code gc.alloc.rate.norm} is the allocation per statement.
+ *
+ * <p>The maximum nesting depth the (recursive descent) parser handles before
+ * overflowing the stack is probed once per fork and printed with the results.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ParserBenchmark {
+
+    public static final int STATEMENTS = 1000;
+
+    @Param({"1", "3", "5"})
+    public int depth;
+
+    private String source;
+    private List<Token> tokens;
+
+    @Setup(Level.Trial)
+    public void setup() throws LexException {
+        var options = ProgramGenerator.Options.defaults()
+            .withStatements(STATEMENTS)
+            .withDepth(depth);
+        source = new ProgramGenerator(options).generate();
+        tokens = new Lexer(source).lex();
+        System.out.println();
+        System.out.println("max nesting depth handled: blocks " + probe(n -> "IF TRUE DO\n".repeat(n) + "END\n".repeat(n))
+            + ", expressions " + probe(n -> "(".repeat(n) + "1" + ")".repeat(n) + ";"));
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(STATEMENTS)
+    public Ast.Source parse() throws ParseException {
+        return new Parser(tokens).parseSource();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(STATEMENTS)
+    public Ast.Source lexAndParse() throws LexException, ParseException {
+        return new Parser(new Lexer(source).lex()).parseSource();
+    }
+
+    /**
+     * Returns the largest nesting depth n for which the program built by
+     * source parses without a StackOverflowError, searching by doubling and
+     * then bisecting (up to a cap, since deeper programs take long to build).
+     */
+    private static int probe(IntFunction<String> source) {
+        int low = 0;
+        int high = 1;
+        while (high <= 1 << 20 && parses(source.apply(high))) {
+            low = high;
+            high *= 2;
+        }
+        if (high > 1 << 20) {
+            return low;
+        }
+        while (high - low > 1) {
+            var middle = (low + high) >>> 1;
+            if (parses(source.apply(middle))) {
+                low = middle;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    private static boolean parses(String source) {
+        try {
+            new Parser(new Lexer(source).lex()).parseSource();
+            return true;
+        } catch (StackOverflowError e) {
+            return false;
+        } catch (LexException | ParseException e) {
+            throw new AssertionError(e);
+        }
+    }
+
+}
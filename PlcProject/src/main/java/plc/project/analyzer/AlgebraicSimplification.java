@@ -0,0 +1,160 @@
+package plc.project.analyzer;
+
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+
+/**
+ * Simplifies binary expressions with an identity, absorbing or repeated
+ * operand, and reduces multiplication by two to addition, so they no longer
+ * allocate a BigInteger/BigDecimal (or allocate a cheaper one).
+ *
+ * <p>Rewrites only apply where the result is exactly the same value as the
+ * Evaluator would produce, dispatching on the {@link Operations.Kind}:
+ *
+ * <ul>
+ *     <li>Integer: {@code x + 0}, {@code 0 + x}, {@code x - 0}, {@code x * 1},
+ *     {@code 1 * x} and {@code x / 1} are {@code x}, {@code x * 0},
+ *     {@code 0 * x} and {@code x - x} are {@code 0}, and {@code x * 2} and
+ *     {@code 2 * x} are {@code x + x}. Division truncates, so nothing else
+ *     is rewritten.</li>
+ *     <li>Decimal: the scale of the result depends on the scales of the
+ *     operands, which aren't known statically, so only {@code x * 1},
+ *     {@code 1 * x} and {@code x * 2} (with a literal of scale 0, e.g.
+ *     {@code 0.1e1}) and {@code x / 1} (any scale, since division rounds at
+ *     the scale of the left operand) are rewritten. In particular
+ *     {@code x + 0.0} and {@code x * 1.0} may change the scale of x.</li>
+ *     <li>String: {@code x + ""} and {@code "" + x} are {@code x} if x is a
+ *     String.</li>
+ *     <li>Boolean: {@code x == TRUE}, {@code TRUE == x}, {@code x != FALSE},
+ *     {@code x AND TRUE}, {@code x OR FALSE}, {@code x AND x} and
+ *     {@code x OR x} are {@code x}, and {@code x AND FALSE} and
+ *     {@code x OR TRUE} are the literal.</li>
+ *     <li>Any type: {@code x == x} is TRUE and {@code x != x} is FALSE, and
+ *     comparisons of x with itself are their result if x has a concrete
+ *     type.</li>
+ * </ul>
+ *
+ * <p>The operand x must be defined (see {@link Definedness}), since other
+ * variables, properties and calls may be NIL, in which case evaluating the
+ * original expression would fail. Rewrites which remove (or duplicate) an evaluation of x additionally
+ * require it to be pure (see {@link DeadCodeElimination#pure}), and
+ * duplicating requires it to be a literal or variable. The language has no
+ * unary operators, so there is no double negation to remove.
+ */
+public final class AlgebraicSimplification implements Pass {
+
+    @Override
+    public Ir.Source apply(Ir.Source ir) {
+        return new Simplifier(Definedness.analyze(ir)).visit(ir);
+    }
+
+    private static final class Simplifier extends IrTransformer {
+
+        private final Definedness definedness;
+
+        private Simplifier(Definedness definedness) {
+            this.definedness = definedness;
+        }
+
+        @Override
+        public Ir.Expr visit(Ir.Expr.Binary ir) {
+            var binary = super.visit(ir);
+            if (!(binary instanceof Ir.Expr.Binary expr)) {
+                return binary;
+            }
+            var simplified = simplify(expr);
+            return simplified != null ? simplified : expr;
+        }
+
+        private Ir.@Nullable Expr simplify(Ir.Expr.Binary ir) {
+            var left = ir.left();
+            var right = ir.right();
+            return switch (Operations.resolve(ir)) {
+                case INT_ADD -> integer(right, 0) ? operand(left) : integer(left, 0) ? operand(right) : null;
+                case INT_SUB -> integer(right, 0) ? operand(left)
+                    : left.equals(right) && removable(left) ? new Ir.Expr.Literal(BigInteger.ZERO, ir.type()) : null;
+                case INT_MUL -> integer(right, 1) ? operand(left) : integer(left, 1) ? operand(right)
+                    : integer(right, 0) && removable(left) ? right : integer(left, 0) && removable(right) ? left
+                    : integer(right, 2) ? doubled(left, ir.type()) : integer(left, 2) ? doubled(right, ir.type()) : null;
+                case INT_DIV -> integer(right, 1) ? operand(left) : null;
+                case DEC_MUL -> decimal(right, 1) ? operand(left) : decimal(left, 1) ? operand(right)
+                    : decimal(right, 2) ? doubled(left, ir.type()) : decimal(left, 2) ? doubled(right, ir.type()) : null;
+                case DEC_DIV -> right instanceof Ir.Expr.Literal(BigDecimal value, var _) && value.compareTo(BigDecimal.ONE) == 0
+                    ? operand(left) : null;
+                case STR_CONCAT -> literal(right, "") && left.type().equals(Type.STRING) ? operand(left)
+                    : literal(left, "") && right.type().equals(Type.STRING) ? operand(right) : null;
+                case EQ -> literal(right, true) && condition(left) ? operand(left)
+                    : literal(left, true) && condition(right) ? operand(right)
+                    : left.equals(right) && removable(left) ? new Ir.Expr.Literal(true, ir.type()) : null;
+                case NE -> literal(right, false) && condition(left) ? operand(left)
+                    : literal(left, false) && condition(right) ? operand(right)
+                    : left.equals(right) && removable(left) ? new Ir.Expr.Literal(false, ir.type()) : null;
+                case BOOL_AND -> literal(right, true) && condition(left) ? operand(left)
+                    : literal(right, false) && condition(left) && removable(left) ? right
+                    : left.equals(right) && condition(left) && removable(left) ? operand(left) : null;
+                case BOOL_OR -> literal(right, false) && condition(left) ? operand(left)
+                    : literal(right, true) && condition(left) && removable(left) ? right
+                    : left.equals(right) && condition(left) && removable(left) ? operand(left) : null;
+                case INT_LT, INT_GT, DEC_LT, DEC_GT, STR_LT, STR_GT -> left.equals(right) && removable(left)
+                    ? new Ir.Expr.Literal(false, ir.type()) : null;
+                case INT_LE, INT_GE, DEC_LE, DEC_GE, STR_LE, STR_GE -> left.equals(right) && removable(left)
+                    ? new Ir.Expr.Literal(true, ir.type()) : null;
+                default -> null;
+            };
+        }
+
+        /**
+         * Returns the operand an expression simplifies to, if it is defined.
+         */
+        private Ir.@Nullable Expr operand(Ir.Expr operand) {
+            return defined(operand) ? operand : null;
+        }
+
+        /**
+         * Returns {@code x + x} for {@code x * 2}, if x is a defined literal
+         * or variable which can be evaluated twice.
+         */
+        private Ir.@Nullable Expr doubled(Ir.Expr operand, Type type) {
+            if (!(operand instanceof Ir.Expr.Literal || operand instanceof Ir.Expr.Variable) || !defined(operand)) {
+                return null;
+            }
+            return new Ir.Expr.Binary("+", operand, operand, type);
+        }
+
+        private boolean condition(Ir.Expr expression) {
+            return expression.type().equals(Type.BOOLEAN) && defined(expression);
+        }
+
+        /**
+         * Returns whether an expression can be removed, since it is defined
+         * and pure.
+         */
+        private boolean removable(Ir.Expr expression) {
+            return defined(expression) && DeadCodeElimination.pure(expression, definedness);
+        }
+
+        private boolean defined(Ir.Expr expression) {
+            return definedness.defined(expression);
+        }
+
+    }
+
+    private static boolean integer(Ir.Expr expression, int value) {
+        return expression instanceof Ir.Expr.Literal(BigInteger literal, var _) && literal.equals(BigInteger.valueOf(value));
+    }
+
+    /**
+     * Returns whether an expression is a Decimal literal with the given value
+     * and scale 0, so multiplying by it doesn't change the scale.
+     */
+    private static boolean decimal(Ir.Expr expression, int value) {
+        return expression instanceof Ir.Expr.Literal(BigDecimal literal, var _) && literal.equals(BigDecimal.valueOf(value));
+    }
+
+    private static boolean literal(Ir.Expr expression, Object value) {
+        return expression instanceof Ir.Expr.Literal literal && value.equals(literal.value());
+    }
+
+}
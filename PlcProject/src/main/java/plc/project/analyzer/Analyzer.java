@@ -12,9 +12,19 @@ import java.util.*;
 public final class Analyzer implements Ast.Visitor<Ir, AnalyzeException> {
 
     private Scope scope;
+    private final TypeInterner types;
 
     public Analyzer(Scope scope) {
+        this(scope, new TypeInterner());
+    }
+
+    /**
+     * Creates an analyzer sharing object types with other analyzers of the
+     * same program, see {@link ParallelAnalyzer}.
+     */
+    Analyzer(Scope scope, TypeInterner types) {
         this.scope = scope;
+        this.types = types;
     }
 
     @Override
@@ -85,6 +95,16 @@ public final class Analyzer implements Ast.Visitor<Ir, AnalyzeException> {
                         to store the return type (see Stmt.Return).
                     3. Analyze all body statements sequentially.
          **/
+        var type = signature(ast);
+        return body(ast, type);
+    }
+
+    /**
+     * Defines the function name of a DEF statement in the current scope and
+     * returns its type (step 1 of visit(Ast.Stmt.Def)). Split from the body so
+     * bodies can be analyzed separately, see {@link ParallelAnalyzer}.
+     */
+    Type.Function signature(Ast.Stmt.Def ast) throws AnalyzeException {
         if(scope.get(ast.name(), true).isPresent()) {
             throw new AnalyzeException("Function Name: " + ast.name() + " is already defined in scope");
         }
@@ -93,7 +113,6 @@ public final class Analyzer implements Ast.Visitor<Ir, AnalyzeException> {
             // not provided explicitly the type is Any.
         Set<String> uniqueNames = new HashSet<>();
         List<Type> prameterTypes = new ArrayList<>();
-        List<Ir.Stmt.Def.Parameter> prameters = new ArrayList<>();
         for(int i = 0; i < ast.parameters().size(); i++) {
             Type type;
             if(!uniqueNames.add(ast.parameters().get(i)))
@@ -108,7 +127,6 @@ public final class Analyzer implements Ast.Visitor<Ir, AnalyzeException> {
                 type = Type.ANY;
             }
             prameterTypes.add(type);
-            prameters.add(new Ir.Stmt.Def.Parameter(ast.parameters().get(i),type));
         }
 
         //Return
@@ -123,7 +141,23 @@ public final class Analyzer implements Ast.Visitor<Ir, AnalyzeException> {
             returnType = Type.ANY;
         }
 
-        scope.define(ast.name(), new Type.Function(prameterTypes, returnType));
+        var type = new Type.Function(prameterTypes, returnType);
+        scope.define(ast.name(), type);
+        return type;
+    }
+
+    /**
+     * Analyzes the body of a DEF statement whose signature has already been
+     * defined (step 2 of visit(Ast.Stmt.Def)). This only reads the current
+     * scope; all definitions are made in the new child scope.
+     */
+    Ir.Stmt.Def body(Ast.Stmt.Def ast, Type.Function type) throws AnalyzeException {
+        var prameterTypes = type.parameters();
+        var returnType = type.returns();
+        List<Ir.Stmt.Def.Parameter> prameters = new ArrayList<>();
+        for (int i = 0; i < ast.parameters().size(); i++) {
+            prameters.add(new Ir.Stmt.Def.Parameter(ast.parameters().get(i), prameterTypes.get(i)));
+        }
 
         //In a new child scope:
         var parent = scope;
@@ -315,7 +349,7 @@ public final class Analyzer implements Ast.Visitor<Ir, AnalyzeException> {
                     return new Ir.Expr.Binary(ast.operator(), left, right, Type.STRING);
                 } else if (left.type().equals(Type.INTEGER) || left.type().equals(Type.DECIMAL)) {
                     if(left.type().equals(Type.INTEGER) || left.type().equals(Type.DECIMAL)) {
-                        if(right.type().equals(left.type())) {
+                        if(TypeInterner.equal(right.type(), left.type())) {
                             return new Ir.Expr.Binary(ast.operator(), left, right, left.type());
                         }else
                             throw new AnalyzeException("Not same type as left");
@@ -332,7 +366,7 @@ public final class Analyzer implements Ast.Visitor<Ir, AnalyzeException> {
                 var left = visit(ast.left());
                 if(left.type().equals(Type.INTEGER) || left.type().equals(Type.DECIMAL)) {
                     var right = visit(ast.right());
-                    if(right.type().equals(left.type())) {
+                    if(TypeInterner.equal(right.type(), left.type())) {
                         return new Ir.Expr.Binary(ast.operator(), left, right, left.type());
                     }else
                         throw new AnalyzeException("Not same type as left");
@@ -348,7 +382,7 @@ public final class Analyzer implements Ast.Visitor<Ir, AnalyzeException> {
                 var left = visit(ast.left());
                 requireSubtype(left.type(), Type.COMPARABLE);
                 var right = visit(ast.right());
-                if(right.type().equals(left.type()))
+                if(TypeInterner.equal(right.type(), left.type()))
                     return new Ir.Expr.Binary(ast.operator(), left, right, Type.BOOLEAN);
                 else
                     throw new AnalyzeException("Not of Same Type");
@@ -557,6 +591,9 @@ public final class Analyzer implements Ast.Visitor<Ir, AnalyzeException> {
 
             objScope.scope().define(method.name(), new Type.Function(prameterTypes, returnType.get()));
         }
+        // The type is complete once all members are defined, so structurally
+        // equal objects can share the same instance (including for "this").
+        var objType = types.intern(objScope);
         // Analyze Body
         for(var method: ast.methods()){
             // In a new child scope:
@@ -566,7 +603,7 @@ public final class Analyzer implements Ast.Visitor<Ir, AnalyzeException> {
             try {
                 scope = methodScope;
                 //1. Define variables for all parameters and implicit "this" parameter.
-                scope.define("this", objScope);
+                scope.define("this", objType);
                 for (int j = 0; j < method.parameters().size(); j++) {
                     scope.define(method.parameters().get(j), prameterTypes.get(j));
                 }
@@ -585,40 +622,20 @@ public final class Analyzer implements Ast.Visitor<Ir, AnalyzeException> {
             methods.add(new Ir.Stmt.Def(method.name(), prameters, returnType.get(), body));
         }
 
-        return new Ir.Expr.ObjectExpr(ast.name(), feilds, methods, objScope);
+        return new Ir.Expr.ObjectExpr(ast.name(), feilds, methods, objType);
     }
 
     public static void requireSubtype(Type type, Type other) throws AnalyzeException {
-        // All types are subtypes of Any (similar to Java's Object).
-        if(type.equals(other) || other.equals(Type.ANY)) {
-            return;
-        }
-        // Nil, Comparable (and all subtypes), Iterable are subtypes of Equatable.
-        if(other.equals(Type.COMPARABLE)) {
-            if(isComparable(type)) {
-                return;
-            }
+        if (!isSubtype(type, other)) {
+            throw new AnalyzeException("Type " +  type + " is not a subtype of " + other);
         }
-        // Boolean, Integer, Decimal, String are subtypes of Comparable.
-        if(other.equals(Type.EQUATABLE)) {
-            if(isEquatable(type)){
-                return;
-            }
-        }
-        throw new AnalyzeException("Type " +  type + " is not a subtype of " + other);
-    }
-
-    private static boolean isComparable(Type type) {
-        return type.equals(Type.BOOLEAN)
-                || type.equals(Type.INTEGER)
-                || type.equals(Type.DECIMAL)
-                || type.equals(Type.STRING);
     }
 
-    private static boolean isEquatable(Type type) {
-        return type.equals(Type.NIL)
-                || type.equals(Type.COMPARABLE)
-                || type.equals(Type.ITERABLE)
-                || isComparable(type);  // Because Comparable subtypes are Equatable
+    /**
+     * Returns whether type is a subtype of other, like {@link #requireSubtype}
+     * but without throwing (and allocating) an exception.
+     */
+    public static boolean isSubtype(Type type, Type other) {
+        return SubtypeLattice.isSubtype(type, other);
     }
 }
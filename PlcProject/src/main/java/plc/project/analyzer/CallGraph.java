@@ -0,0 +1,182 @@
+package plc.project.analyzer;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * The whole-program call graph of an analyzed program. Nodes are the source
+ * itself (its top-level code) and every DEF, including nested functions and
+ * methods, whose code is their body excluding nested DEFs and methods (but
+ * including the fields of objects, which are evaluated in place).
+ *
+ * <p>A node references a DEF if its code calls it or reads it as a value,
+ * resolved by scope. Method calls reference their target if it is known (see
+ * {@link Devirtualization}), and otherwise every method of that name in the
+ * program, as do property reads (which may read a method as a value). Names
+ * which aren't defined by the program are references to the environment,
+ * see {@link #globals(Ir)}.
+ */
+public final class CallGraph {
+
+    private final Map<Ir, Set<Ir.Stmt.Def>> callees;
+    private final Map<Ir, Set<String>> globals;
+    private final Set<Ir> reachable;
+
+    private CallGraph(Ir.Source source, Map<Ir, Set<Ir.Stmt.Def>> callees, Map<Ir, Set<String>> globals) {
+        this.callees = callees;
+        this.globals = globals;
+        this.reachable = reachable(List.of(source));
+    }
+
+    /**
+     * Returns the DEFs referenced by a node (the source or a DEF).
+     */
+    public Set<Ir.Stmt.Def> callees(Ir node) {
+        return callees.getOrDefault(node, Set.of());
+    }
+
+    /**
+     * Returns the names of the environment referenced by a node (the source
+     * or a DEF).
+     */
+    public Set<String> globals(Ir node) {
+        return globals.getOrDefault(node, Set.of());
+    }
+
+    /**
+     * Returns whether a DEF is reachable from the source, i.e. may be called
+     * (or read) when the program is evaluated.
+     */
+    public boolean reachable(Ir.Stmt.Def def) {
+        return reachable.contains(def);
+    }
+
+    /**
+     * Returns the nodes reachable from the given nodes (including them).
+     */
+    public Set<Ir> reachable(List<? extends Ir> roots) {
+        var reachable = Collections.<Ir>newSetFromMap(new IdentityHashMap<>());
+        var worklist = new ArrayDeque<Ir>(roots);
+        while (!worklist.isEmpty()) {
+            var node = worklist.removeFirst();
+            if (reachable.add(node)) {
+                worklist.addAll(callees(node));
+            }
+        }
+        return reachable;
+    }
+
+    /**
+     * Returns the names of the environment referenced anywhere in the
+     * program, including unreachable code (which a backend may still emit).
+     */
+    public Set<String> globals() {
+        var names = new HashSet<String>();
+        globals.values().forEach(names::addAll);
+        return names;
+    }
+
+    public static CallGraph build(Ir.Source ir) {
+        var methods = new HashMap<String, List<Ir.Stmt.Def>>();
+        new IrTransformer() {
+            @Override
+            protected Ir.Stmt.Def method(Ir.Stmt.Def ir) {
+                methods.computeIfAbsent(ir.name(), _ -> new ArrayList<>()).add(ir);
+                return super.method(ir);
+            }
+        }.visit(ir);
+        var builder = new Builder(methods, Devirtualization.Assigned.of(ir));
+        builder.visit(ir);
+        return new CallGraph(ir, builder.callees, builder.globals);
+    }
+
+    private static final class Builder extends ScopedTransformer {
+
+        private final Map<String, List<Ir.Stmt.Def>> methods;
+        private final Devirtualization.Assigned assigned;
+        private final Map<Ir, Set<Ir.Stmt.Def>> callees = new IdentityHashMap<>();
+        private final Map<Ir, Set<String>> globals = new IdentityHashMap<>();
+        private final List<Ir> nodes = new ArrayList<>();
+
+        private Builder(Map<String, List<Ir.Stmt.Def>> methods, Devirtualization.Assigned assigned) {
+            this.methods = methods;
+            this.assigned = assigned;
+        }
+
+        @Override
+        public Ir.Source visit(Ir.Source ir) {
+            nodes.add(ir);
+            try {
+                return super.visit(ir);
+            } finally {
+                nodes.removeLast();
+            }
+        }
+
+        @Override
+        protected Ir.Stmt.Def function(Ir.Stmt.Def ir, List<String> implicit) {
+            nodes.add(ir);
+            try {
+                return super.function(ir, implicit);
+            } finally {
+                nodes.removeLast();
+            }
+        }
+
+        @Override
+        public Ir.Stmt visit(Ir.Stmt.Assignment.Variable ir) {
+            reference(ir.variable().name());
+            return super.visit(ir);
+        }
+
+        @Override
+        public Ir.Expr visit(Ir.Expr.Variable ir) {
+            reference(ir.name());
+            return super.visit(ir);
+        }
+
+        @Override
+        public Ir.Expr visit(Ir.Expr.Function ir) {
+            reference(ir.name());
+            return super.visit(ir);
+        }
+
+        @Override
+        public Ir.Expr visit(Ir.Expr.Method ir) {
+            var target = Devirtualization.target(this, assigned, ir);
+            if (target != null) {
+                call(target);
+            } else {
+                methods.getOrDefault(ir.name(), List.of()).forEach(this::call);
+            }
+            return super.visit(ir);
+        }
+
+        @Override
+        public Ir.Expr visit(Ir.Expr.Property ir) {
+            methods.getOrDefault(ir.name(), List.of()).forEach(this::call);
+            return super.visit(ir);
+        }
+
+        private void reference(String name) {
+            switch (lookup(name)) {
+                case Ir.Stmt.Def def -> call(def);
+                case null -> globals.computeIfAbsent(nodes.getLast(), _ -> new HashSet<>()).add(name);
+                default -> {}
+            }
+        }
+
+        private void call(Ir.Stmt.Def def) {
+            callees.computeIfAbsent(nodes.getLast(), _ -> Collections.newSetFromMap(new IdentityHashMap<>())).add(def);
+        }
+
+    }
+
+}
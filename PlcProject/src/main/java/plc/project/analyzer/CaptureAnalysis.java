@@ -0,0 +1,93 @@
+package plc.project.analyzer;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Supplier;
+
+/**
+ * Finds the block scopes which are captured by a closure, so they have to
+ * outlive the block. The scopes are the source, function/method bodies, IF
+ * statements (both branches) and FOR bodies, as for the Analyzer.
+ *
+ * <p>A scope is captured if a function or method is defined anywhere within
+ * it (including nested scopes): the closure keeps its defining scope, which
+ * reaches every enclosing scope through its parents, whether or not the
+ * closure actually references their variables. Objects without methods don't
+ * capture anything, since their fields are evaluated when they are created.
+ *
+ * <p>Scopes which aren't captured are never referenced once the block is
+ * exited, so a runtime can reuse their frames: a FOR body doesn't need a new
+ * frame per iteration, nor a function a new frame per call (unless it is
+ * still active, i.e. recursion).
+ */
+public final class CaptureAnalysis {
+
+    /**
+     * The captured scopes, by identity of the node introducing them.
+     */
+    public record Result(Set<Ir> captured) {
+
+        /**
+         * Returns whether the scope of a {@link Ir.Source}, {@link Ir.Stmt.Def}
+         * (including methods), {@link Ir.Stmt.If} or {@link Ir.Stmt.For} is
+         * captured.
+         */
+        public boolean captured(Ir ir) {
+            return captured.contains(ir);
+        }
+
+    }
+
+    private CaptureAnalysis() {}
+
+    public static Result analyze(Ir.Source ir) {
+        var analyzer = new Analyzer();
+        analyzer.visit(ir);
+        return new Result(analyzer.captured);
+    }
+
+    private static final class Analyzer extends IrTransformer {
+
+        private final Set<Ir> captured = Collections.newSetFromMap(new IdentityHashMap<>());
+        private final List<Ir> scopes = new ArrayList<>();
+
+        @Override
+        public Ir.Source visit(Ir.Source ir) {
+            return scoped(ir, () -> super.visit(ir));
+        }
+
+        @Override
+        public Ir.Stmt visit(Ir.Stmt.Def ir) {
+            //Every enclosing scope is captured, even if already captured by an
+            //earlier closure, since nested scopes may not be.
+            captured.addAll(scopes);
+            return scoped(ir, () -> super.visit(ir));
+        }
+
+        @Override
+        public Ir.Stmt visit(Ir.Stmt.If ir) {
+            return scoped(ir, () -> super.visit(ir));
+        }
+
+        @Override
+        public Ir.Stmt visit(Ir.Stmt.For ir) {
+            //The expression is evaluated in the enclosing scope, so a method
+            //of an object there (conservatively) captures the body as well.
+            return scoped(ir, () -> super.visit(ir));
+        }
+
+        private <T> T scoped(Ir ir, Supplier<T> visit) {
+            scopes.add(ir);
+            try {
+                return visit.get();
+            } finally {
+                scopes.removeLast();
+            }
+        }
+
+    }
+
+}
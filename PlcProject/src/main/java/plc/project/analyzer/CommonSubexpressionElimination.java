@@ -0,0 +1,329 @@
+package plc.project.analyzer;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Eliminates common subexpressions within a block using (local) value
+ * numbering: a pure binary expression or property read (see
+ * {@link DeadCodeElimination#pure}) which is evaluated more than once with
+ * the same value is evaluated once into a temporary LET, inserted before the
+ * statement first evaluating it, and every evaluation is replaced by a read
+ * of the temporary.
+ *
+ * <p>Expressions are numbered by structure, in evaluation order, and stay
+ * available until a statement may change their value:
+ *
+ * <ul>
+ *     <li>Assigning or defining (LET/DEF) a variable kills expressions which
+ *     read it, including in nested blocks (checked by name, which is
+ *     conservative).</li>
+ *     <li>Assigning any property kills expressions which read a property,
+ *     since objects can be aliased.</li>
+ *     <li>Calling a function or method kills expressions which read a
+ *     property, or a variable assigned in any function or method body.</li>
+ * </ul>
+ *
+ * <p>Since the temporary is evaluated before its statement, expressions
+ * evaluated after a call in the same statement aren't numbered, nor are
+ * expressions in the right operand of AND/OR, which may not be evaluated at
+ * all. Each block (including function and loop bodies) is numbered
+ * separately.
+ */
+public final class CommonSubexpressionElimination implements Pass {
+
+    @Override
+    public Ir.Source apply(Ir.Source ir) {
+        return new Eliminator(new FreshNames(ir), assignedInFunctions(ir), Definedness.analyze(ir)).visit(ir);
+    }
+
+    /**
+     * Returns the names of variables assigned in any function or method
+     * body, whose values may change when anything is called.
+     */
+    static Set<String> assignedInFunctions(Ir.Source ir) {
+        var assigned = new HashSet<String>();
+        new IrTransformer() {
+            private int functions = 0;
+
+            @Override
+            public Ir.Stmt visit(Ir.Stmt.Def ir) {
+                functions++;
+                try {
+                    return super.visit(ir);
+                } finally {
+                    functions--;
+                }
+            }
+
+            @Override
+            public Ir.Stmt visit(Ir.Stmt.Assignment.Variable ir) {
+                if (functions > 0) {
+                    assigned.add(ir.variable().name());
+                }
+                return super.visit(ir);
+            }
+        }.visit(ir);
+        return assigned;
+    }
+
+    /**
+     * A value number: an available expression (its first evaluation), what
+     * it reads, and the number of times it is evaluated.
+     */
+    private static final class Value {
+
+        private final Ir.Expr expression;
+        private final Set<String> variables = new HashSet<>();
+        private boolean properties = false;
+        private int count = 1;
+        private String temporary = null;
+
+        private Value(Ir.Expr expression) {
+            this.expression = expression;
+            new IrTransformer() {
+                @Override
+                public Ir.Expr visit(Ir.Expr.Variable ir) {
+                    variables.add(ir.name());
+                    return ir;
+                }
+
+                @Override
+                public Ir.Expr visit(Ir.Expr.Property ir) {
+                    properties = true;
+                    return super.visit(ir);
+                }
+            }.visit(expression);
+        }
+
+    }
+
+    private static final class Eliminator extends IrTransformer {
+
+        private final FreshNames names;
+        private final Set<String> assigned;
+        private final Definedness definedness;
+
+        private Eliminator(FreshNames names, Set<String> assigned, Definedness definedness) {
+            this.names = names;
+            this.assigned = assigned;
+            this.definedness = definedness;
+        }
+
+        @Override
+        protected List<Ir.Stmt> block(List<Ir.Stmt> statements) {
+            var transformed = super.block(statements);
+            var eliminated = eliminate(transformed);
+            return eliminated == transformed ? transformed : same(statements, eliminated);
+        }
+
+        private List<Ir.Stmt> eliminate(List<Ir.Stmt> statements) {
+            var available = new HashMap<Ir.Expr, Value>();
+            var numberings = new ArrayList<Numbering>(statements.size());
+            var repeated = false;
+            for (var statement : statements) {
+                var numbering = new Numbering(available, definedness);
+                var head = head(statement);
+                if (head != null) {
+                    numbering.number(head, statement instanceof Ir.Stmt.Expression);
+                }
+                numberings.add(numbering);
+                kill(available, statement);
+                repeated |= numbering.occurrences.values().stream().anyMatch(v -> v.count > 1);
+            }
+            if (!repeated) {
+                return statements;
+            }
+            var eliminated = new ArrayList<Ir.Stmt>(statements.size());
+            for (int i = 0; i < statements.size(); i++) {
+                var statement = statements.get(i);
+                var occurrences = numberings.get(i).occurrences;
+                for (var value : numberings.get(i).values) {
+                    if (value.count > 1) {
+                        value.temporary = names.fresh("cse");
+                        var expression = replace(value.expression, occurrences, value);
+                        eliminated.add(new Ir.Stmt.Let(value.temporary, value.expression.type(), Optional.of(expression)));
+                    }
+                }
+                var head = head(statement);
+                if (head != null) {
+                    var replaced = replace(head, occurrences, null);
+                    statement = replaced == head ? statement : with(statement, replaced);
+                }
+                eliminated.add(statement);
+            }
+            return eliminated;
+        }
+
+        /**
+         * Removes the values which may be changed by a statement from the
+         * available values.
+         */
+        private void kill(Map<Ir.Expr, Value> available, Ir.Stmt statement) {
+            var effects = new Effects();
+            effects.visit(statement);
+            switch (statement) {
+                case Ir.Stmt.Let ir -> effects.variables.add(ir.name());
+                case Ir.Stmt.Def ir -> effects.variables.add(ir.name());
+                default -> {}
+            }
+            available.values().removeIf(value ->
+                value.variables.stream().anyMatch(effects.variables::contains)
+                    || value.properties && (effects.properties || effects.calls)
+                    || effects.calls && value.variables.stream().anyMatch(assigned::contains));
+        }
+
+        /**
+         * Replaces the occurrences of values which have a temporary in an
+         * expression, except for the given value (whose temporary is being
+         * defined).
+         */
+        private Ir.Expr replace(Ir.Expr expression, Map<Ir.Expr, Value> occurrences, Value except) {
+            return new IrTransformer() {
+                @Override
+                public Ir.Expr visit(Ir.Expr ir) {
+                    var value = occurrences.get(ir);
+                    if (value != null && value != except && value.temporary != null) {
+                        return new Ir.Expr.Variable(value.temporary, ir.type());
+                    }
+                    return super.visit(ir);
+                }
+            }.visit(expression);
+        }
+
+    }
+
+    /**
+     * The numbering of the expressions of a statement, in evaluation order.
+     */
+    private static final class Numbering {
+
+        private final Map<Ir.Expr, Value> available;
+        private final Definedness definedness;
+        private final Map<Ir.Expr, Value> occurrences = new IdentityHashMap<>();
+
+        /**
+         * The values first evaluated by the statement, with subexpressions
+         * before the expressions containing them.
+         */
+        private final List<Value> values = new ArrayList<>();
+
+        /**
+         * Whether a call has been evaluated, after which the values of
+         * expressions may differ from before the statement.
+         */
+        private boolean called = false;
+
+        private Numbering(Map<Ir.Expr, Value> available, Definedness definedness) {
+            this.available = available;
+            this.definedness = definedness;
+        }
+
+        /**
+         * Numbers an expression, unless it is the whole expression of an
+         * expression statement (which has to stay an expression).
+         */
+        private void number(Ir.Expr expression, boolean statement) {
+            if (!called && !statement && (expression instanceof Ir.Expr.Binary || expression instanceof Ir.Expr.Property)
+                    && DeadCodeElimination.pure(expression, definedness)) {
+                var value = available.get(expression);
+                if (value != null) {
+                    value.count++;
+                    occurrences.put(expression, value);
+                    return;
+                }
+                value = new Value(expression);
+                available.put(expression, value);
+                occurrences.put(expression, value);
+                children(expression);
+                values.add(value);
+                return;
+            }
+            switch (expression) {
+                case Ir.Expr.Group ir -> number(ir.expression(), statement);
+                default -> children(expression);
+            }
+        }
+
+        private void children(Ir.Expr expression) {
+            switch (expression) {
+                case Ir.Expr.Literal _, Ir.Expr.Variable _ -> {}
+                case Ir.Expr.Group ir -> number(ir.expression(), false);
+                case Ir.Expr.Binary ir -> {
+                    number(ir.left(), false);
+                    //The right operand of AND/OR is only evaluated depending
+                    //on the left, so it can't be evaluated into a temporary.
+                    if (!ir.operator().equals("AND") && !ir.operator().equals("OR")) {
+                        number(ir.right(), false);
+                    }
+                }
+                case Ir.Expr.Property ir -> number(ir.receiver(), false);
+                case Ir.Expr.Function ir -> {
+                    ir.arguments().forEach(a -> number(a, false));
+                    called = true;
+                }
+                case Ir.Expr.Method ir -> {
+                    number(ir.receiver(), false);
+                    ir.arguments().forEach(a -> number(a, false));
+                    called = true;
+                }
+                case Ir.Expr.ObjectExpr ir -> ir.fields().forEach(f -> f.value().ifPresent(v -> number(v, false)));
+            }
+        }
+
+    }
+
+    /**
+     * The effects of a statement (not counting the bodies of functions it
+     * defines, which only run when called): the variables it assigns, and
+     * whether it assigns properties or calls anything.
+     */
+    private static final class Effects extends IrTransformer {
+
+        private final Set<String> variables = new HashSet<>();
+        private boolean properties = false;
+        private boolean calls = false;
+
+        @Override
+        public Ir.Stmt visit(Ir.Stmt.Def ir) {
+            return ir;
+        }
+
+        @Override
+        protected Ir.Stmt.Def method(Ir.Stmt.Def ir) {
+            return ir;
+        }
+
+        @Override
+        public Ir.Stmt visit(Ir.Stmt.Assignment.Variable ir) {
+            variables.add(ir.variable().name());
+            return super.visit(ir);
+        }
+
+        @Override
+        public Ir.Stmt visit(Ir.Stmt.Assignment.Property ir) {
+            properties = true;
+            return super.visit(ir);
+        }
+
+        @Override
+        public Ir.Expr visit(Ir.Expr.Function ir) {
+            calls = true;
+            return super.visit(ir);
+        }
+
+        @Override
+        public Ir.Expr visit(Ir.Expr.Method ir) {
+            calls = true;
+            return super.visit(ir);
+        }
+
+    }
+
+}
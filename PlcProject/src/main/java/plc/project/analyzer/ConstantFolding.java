@@ -0,0 +1,177 @@
+package plc.project.analyzer;
+
+import org.checkerframework.checker.nullness.qual.Nullable;
+import plc.project.evaluator.RuntimeValue;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.math.RoundingMode;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * Folds binary expressions over literals and propagates constants.
+ *
+ * <p>Folding follows the Evaluator's semantics exactly: Integer/Decimal
+ * arithmetic with BigInteger/BigDecimal (Decimal division rounding HALF_EVEN
+ * at the scale of the left operand), String concatenation of printed values
+ * (so {@code "a" + TRUE} is {@code "aTRUE"}), comparisons, equality and
+ * short-circuiting AND/OR. Operations which fail at runtime (division by
+ * zero, comparing different types, AND/OR of an operand which may be NIL, see
+ * {@link Definedness}) are left as is so the error still
+ * happens when (and if) they're evaluated.
+ *
+ * <p>A LET whose value folds to a literal is a constant if its name is never
+ * assigned anywhere in the program (checked by name, so this is
+ * conservative), in which case reads of the variable are replaced by the
+ * literal. The LET itself is kept. Variables are resolved with the same
+ * scoping rules as the Analyzer, so shadowed names aren't replaced.
+ */
+public final class ConstantFolding implements Pass {
+
+    @Override
+    public Ir.Source apply(Ir.Source ir) {
+        var assigned = new HashSet<String>();
+        new IrTransformer() {
+            @Override
+            public Ir.Stmt visit(Ir.Stmt.Assignment.Variable ir) {
+                assigned.add(ir.variable().name());
+                return super.visit(ir);
+            }
+        }.visit(ir);
+        return new Folder(assigned, Definedness.analyze(ir)).visit(ir);
+    }
+
+    private static final class Folder extends ScopedTransformer {
+
+        private final Set<String> assigned;
+        private final Definedness definedness;
+
+        /**
+         * The LETs which are constants, mapped to their value.
+         */
+        private final Map<Ir.Stmt.Let, Ir.Expr.Literal> constants = new IdentityHashMap<>();
+
+        private Folder(Set<String> assigned, Definedness definedness) {
+            this.assigned = assigned;
+            this.definedness = definedness;
+        }
+
+        @Override
+        public Ir.Stmt visit(Ir.Stmt.Let ir) {
+            var let = (Ir.Stmt.Let) super.visit(ir);
+            if (let.value().isPresent() && let.value().get() instanceof Ir.Expr.Literal literal
+                    && !assigned.contains(let.name()) && TypeInterner.equal(literal.type(), let.type())) {
+                constants.put(let, literal);
+            }
+            return let;
+        }
+
+        @Override
+        public Ir.Expr visit(Ir.Expr.Group ir) {
+            var group = super.visit(ir);
+            if (group instanceof Ir.Expr.Group(Ir.Expr.Literal literal)) {
+                return literal;
+            }
+            return group;
+        }
+
+        @Override
+        public Ir.Expr visit(Ir.Expr.Binary ir) {
+            var binary = super.visit(ir);
+            if (!(binary instanceof Ir.Expr.Binary(var operator, var left, var right, var type))
+                    || !(left instanceof Ir.Expr.Literal literal)) {
+                return binary;
+            }
+            if (operator.equals("AND") || operator.equals("OR")) {
+                //The right operand is only evaluated if the left doesn't
+                //already determine the result, in which case it is the result
+                //if it is defined (otherwise evaluating it fails on NIL).
+                if (!(literal.value() instanceof Boolean value)) {
+                    return binary;
+                }
+                return value == operator.equals("OR") ? literal : definedness.defined(right) ? right : binary;
+            }
+            if (right instanceof Ir.Expr.Literal other) {
+                var folded = fold(operator, literal.value(), other.value(), type);
+                if (folded != null) {
+                    return folded;
+                }
+            }
+            return binary;
+        }
+
+        @Override
+        public Ir.Expr visit(Ir.Expr.Variable ir) {
+            if (lookup(ir.name()) instanceof Ir.Stmt.Let let) {
+                var constant = constants.get(let);
+                if (constant != null && TypeInterner.equal(constant.type(), ir.type())) {
+                    return constant;
+                }
+            }
+            return ir;
+        }
+
+    }
+
+    /**
+     * Returns the result of a binary operation (other than AND/OR) on two
+     * literal values as a literal of the given type, or null if it can't be
+     * folded because evaluating it would fail.
+     */
+    static Ir.Expr.@Nullable Literal fold(String operator, @Nullable Object left, @Nullable Object right, Type type) {
+        var value = switch (operator) {
+            case "+" -> left instanceof String || right instanceof String
+                ? new RuntimeValue.Primitive(left).print() + new RuntimeValue.Primitive(right).print()
+                : arithmetic(operator, left, right);
+            case "-", "*", "/" -> arithmetic(operator, left, right);
+            case "==" -> Objects.equals(left, right);
+            case "!=" -> !Objects.equals(left, right);
+            case "<", "<=", ">", ">=" -> {
+                var comparison = compare(left, right);
+                if (comparison == null) {
+                    yield null;
+                }
+                yield switch (operator) {
+                    case "<" -> comparison < 0;
+                    case "<=" -> comparison <= 0;
+                    case ">" -> comparison > 0;
+                    default -> comparison >= 0;
+                };
+            }
+            default -> null;
+        };
+        return value != null ? new Ir.Expr.Literal(value, type) : null;
+    }
+
+    private static @Nullable Object arithmetic(String operator, @Nullable Object left, @Nullable Object right) {
+        if (left instanceof BigInteger a && right instanceof BigInteger b) {
+            return switch (operator) {
+                case "+" -> a.add(b);
+                case "-" -> a.subtract(b);
+                case "*" -> a.multiply(b);
+                default -> b.signum() != 0 ? a.divide(b) : null;
+            };
+        } else if (left instanceof BigDecimal a && right instanceof BigDecimal b) {
+            return switch (operator) {
+                case "+" -> a.add(b);
+                case "-" -> a.subtract(b);
+                case "*" -> a.multiply(b);
+                default -> b.compareTo(BigDecimal.ZERO) != 0 ? a.divide(b, RoundingMode.HALF_EVEN) : null;
+            };
+        }
+        return null;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static @Nullable Integer compare(@Nullable Object left, @Nullable Object right) {
+        if (!(left instanceof Comparable<?>) || right == null || !left.getClass().equals(right.getClass())) {
+            return null;
+        }
+        return ((Comparable<Object>) left).compareTo(right);
+    }
+
+}
@@ -0,0 +1,53 @@
+package plc.project.analyzer;
+
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+/**
+ * Recognizes counted loops, {@code FOR i IN range(start, end)} where range is
+ * the environment's native (not shadowed by the program), so backends can run
+ * them as a primitive counter instead of iterating over a list of values.
+ *
+ * <p>Counted loops map each FOR statement over range to its call and bounds.
+ * The native range requires its bounds to fit in an int, so a counted loop
+ * converts them exactly (failing the same way) and counts with an int.
+ */
+public final class CountedLoops {
+
+    /**
+     * A counted loop: the call to range, and its bounds.
+     */
+    public record Loop(Ir.Expr.Function range, Ir.Expr start, Ir.Expr end) {}
+
+    private final Map<Ir.Stmt.For, Loop> loops;
+
+    private CountedLoops(Map<Ir.Stmt.For, Loop> loops) {
+        this.loops = loops;
+    }
+
+    /**
+     * Returns the counted loop of a FOR statement, or null if it isn't one.
+     */
+    public @Nullable Loop loop(Ir.Stmt.For ir) {
+        return loops.get(ir);
+    }
+
+    public static CountedLoops analyze(Ir.Source ir) {
+        var loops = new IdentityHashMap<Ir.Stmt.For, Loop>();
+        new ScopedTransformer() {
+            @Override
+            public Ir.Stmt visit(Ir.Stmt.For ir) {
+                if (ir.expression() instanceof Ir.Expr.Function function && function.name().equals("range")
+                        && function.arguments().size() == 2 && lookup("range") == null
+                        && TypeInterner.equal(ir.type(), Type.INTEGER)) {
+                    loops.put(ir, new Loop(function, function.arguments().get(0), function.arguments().get(1)));
+                }
+                return super.visit(ir);
+            }
+        }.visit(ir);
+        return new CountedLoops(loops);
+    }
+
+}
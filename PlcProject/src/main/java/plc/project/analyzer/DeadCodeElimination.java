@@ -0,0 +1,261 @@
+package plc.project.analyzer;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Removes code which is never executed or has no effect:
+ *
+ * <ul>
+ *     <li>Statements after a RETURN (or an IF whose branches both return)
+ *     in the same block, which are unreachable.</li>
+ *     <li>IF statements with a literal condition (see
+ *     {@link ConstantFolding}), which are replaced by the branch taken. The
+ *     branch is spliced into the enclosing block unless it defines
+ *     variables, which would then be visible outside of it.</li>
+ *     <li>LET statements whose value has no side effects and can't fail (see
+ *     {@link #pure}) and DEF statements, if their name is never referenced
+ *     (read or called) nor assigned anywhere. References to a DEF from its own body don't count.</li>
+ * </ul>
+ *
+ * <p>Names are matched without regard for scoping, which is conservative:
+ * a variable is only removed if no variable of that name is used. Removing
+ * code can make other code unused, so this is repeated until nothing
+ * changes. The last top-level statement is always kept, since its value is
+ * the value of the program (as are the last statements of its branches if
+ * it is an IF, which determine its value).
+ */
+public final class DeadCodeElimination implements Pass {
+
+    /**
+     * The result of eliminating dead code, where removed is the number of
+     * nodes removed (see {@link Optimizer#size(Ir)}).
+     */
+    public record Result(Ir.Source source, int removed) {}
+
+    @Override
+    public Ir.Source apply(Ir.Source ir) {
+        return eliminate(ir).source();
+    }
+
+    public Result eliminate(Ir.Source ir) {
+        var size = Optimizer.size(ir);
+        var removed = 0;
+        while (true) {
+            var eliminated = new Eliminator(References.collect(ir), Definedness.analyze(ir)).visit(ir);
+            if (eliminated == ir) {
+                return new Result(ir, removed);
+            }
+            var eliminatedSize = Optimizer.size(eliminated);
+            removed += size - eliminatedSize;
+            size = eliminatedSize;
+            ir = eliminated;
+        }
+    }
+
+    /**
+     * The names referenced and assigned in a program, and the number of
+     * references to each DEF from within its own body.
+     */
+    private static final class References extends IrTransformer {
+
+        private final Map<String, Integer> references = new HashMap<>();
+        private final Set<String> assigned = new HashSet<>();
+        private final Map<Ir.Stmt.Def, Integer> recursive = new IdentityHashMap<>();
+        private final List<Ir.Stmt.Def> functions = new ArrayList<>();
+
+        private static References collect(Ir.Source ir) {
+            var references = new References();
+            references.visit(ir);
+            return references;
+        }
+
+        @Override
+        public Ir.Stmt visit(Ir.Stmt.Def ir) {
+            recursive.put(ir, 0);
+            functions.add(ir);
+            try {
+                return super.visit(ir);
+            } finally {
+                functions.removeLast();
+            }
+        }
+
+        @Override
+        public Ir.Stmt visit(Ir.Stmt.Assignment.Variable ir) {
+            assigned.add(ir.variable().name());
+            return super.visit(ir);
+        }
+
+        @Override
+        public Ir.Expr visit(Ir.Expr.Variable ir) {
+            reference(ir.name());
+            return super.visit(ir);
+        }
+
+        @Override
+        public Ir.Expr visit(Ir.Expr.Function ir) {
+            reference(ir.name());
+            return super.visit(ir);
+        }
+
+        private void reference(String name) {
+            references.merge(name, 1, Integer::sum);
+            for (var function : functions) {
+                if (function.name().equals(name)) {
+                    recursive.merge(function, 1, Integer::sum);
+                }
+            }
+        }
+
+        private boolean unused(String name) {
+            return !references.containsKey(name) && !assigned.contains(name);
+        }
+
+        private boolean unused(Ir.Stmt.Def ir) {
+            return references.getOrDefault(ir.name(), 0) == recursive.getOrDefault(ir, 0)
+                && !assigned.contains(ir.name());
+        }
+
+    }
+
+    private static final class Eliminator extends IrTransformer {
+
+        private final References references;
+        private final Definedness definedness;
+
+        /**
+         * Whether the next statement visited is in tail position, i.e. its
+         * value is the value of the program: the last top-level statement,
+         * and the last statements of an IF in tail position.
+         */
+        private boolean tail = false;
+
+        private Eliminator(References references, Definedness definedness) {
+            this.references = references;
+            this.definedness = definedness;
+        }
+
+        @Override
+        public Ir.Source visit(Ir.Source ir) {
+            var statements = tail(ir.statements());
+            return statements == ir.statements() ? ir : new Ir.Source(statements);
+        }
+
+        @Override
+        public Ir.Stmt visit(Ir.Stmt ir) {
+            var tail = this.tail;
+            this.tail = false;
+            if (tail && ir instanceof Ir.Stmt.If stmt) {
+                var condition = visit(stmt.condition());
+                var thenBody = tail(stmt.thenBody());
+                var elseBody = tail(stmt.elseBody());
+                if (condition == stmt.condition() && thenBody == stmt.thenBody() && elseBody == stmt.elseBody()) {
+                    return stmt;
+                }
+                return new Ir.Stmt.If(condition, thenBody, elseBody);
+            }
+            return super.visit(ir);
+        }
+
+        /**
+         * Transforms a block whose last statement is in tail position, which
+         * is kept (only its children are transformed), see {@link #tail}.
+         */
+        private List<Ir.Stmt> tail(List<Ir.Stmt> statements) {
+            if (statements.isEmpty()) {
+                return statements;
+            }
+            var transformed = new ArrayList<>(block(statements.subList(0, statements.size() - 1)));
+            if (transformed.isEmpty() || !terminates(transformed.getLast())) {
+                tail = true;
+                transformed.add(visit(statements.getLast()));
+            }
+            return same(statements, transformed);
+        }
+
+        @Override
+        protected List<Ir.Stmt> block(List<Ir.Stmt> statements) {
+            var transformed = new ArrayList<Ir.Stmt>(statements.size());
+            for (var statement : statements) {
+                statement(statement, transformed);
+                if (!transformed.isEmpty() && terminates(transformed.getLast())) {
+                    break;
+                }
+            }
+            return same(statements, transformed);
+        }
+
+        @Override
+        protected void statement(Ir.Stmt statement, List<Ir.Stmt> block) {
+            switch (statement) {
+                case Ir.Stmt.If ir when ir.condition() instanceof Ir.Expr.Literal(Boolean condition, var _) -> {
+                    var taken = block(condition ? ir.thenBody() : ir.elseBody());
+                    if (taken.stream().noneMatch(s -> s instanceof Ir.Stmt.Let || s instanceof Ir.Stmt.Def)) {
+                        block.addAll(taken);
+                    } else if (condition && taken == ir.thenBody() && ir.elseBody().isEmpty()) {
+                        block.add(ir);
+                    } else {
+                        block.add(new Ir.Stmt.If(new Ir.Expr.Literal(true, Type.BOOLEAN), taken, List.of()));
+                    }
+                }
+                case Ir.Stmt.Let ir when references.unused(ir.name())
+                    && (ir.value().isEmpty() || pure(ir.value().get(), definedness)) -> {}
+                case Ir.Stmt.Def ir when references.unused(ir) -> {}
+                default -> block.add(visit(statement));
+            }
+        }
+
+    }
+
+    /**
+     * Returns whether control never continues after a statement.
+     */
+    static boolean terminates(Ir.Stmt statement) {
+        return switch (statement) {
+            case Ir.Stmt.Return _ -> true;
+            case Ir.Stmt.If ir -> !ir.thenBody().isEmpty() && terminates(ir.thenBody().getLast())
+                && !ir.elseBody().isEmpty() && terminates(ir.elseBody().getLast());
+            default -> false;
+        };
+    }
+
+    /**
+     * Returns whether evaluating an expression has no side effects and can't
+     * fail, so it can be removed if its value isn't used. Calls are never
+     * pure, nor are divisions (by zero) and comparisons of types which aren't
+     * known to be the same at runtime. Operators other than equality fail on
+     * NIL, as does reading a property of it, so their operands (and the
+     * receiver) must be defined (see {@link Definedness}).
+     */
+    static boolean pure(Ir.Expr expression, Definedness definedness) {
+        return switch (expression) {
+            case Ir.Expr.Literal _, Ir.Expr.Variable _ -> true;
+            case Ir.Expr.Group ir -> pure(ir.expression(), definedness);
+            case Ir.Expr.Binary ir -> pure(ir.left(), definedness) && pure(ir.right(), definedness) && switch (ir.operator()) {
+                case "==", "!=" -> true;
+                case "/" -> definedness.defined(ir.left()) && ir.right() instanceof Ir.Expr.Literal(var value, var _)
+                    && (value instanceof BigInteger integer && integer.signum() != 0
+                        || value instanceof BigDecimal decimal && decimal.signum() != 0);
+                case "<", "<=", ">", ">=" -> concrete(ir.left().type()) && concrete(ir.right().type())
+                    && definedness.defined(ir.left()) && definedness.defined(ir.right());
+                default -> definedness.defined(ir.left()) && definedness.defined(ir.right());
+            };
+            case Ir.Expr.Property ir -> pure(ir.receiver(), definedness) && definedness.defined(ir.receiver());
+            case Ir.Expr.Function _, Ir.Expr.Method _ -> false;
+            case Ir.Expr.ObjectExpr ir -> ir.fields().stream().allMatch(f -> f.value().isEmpty() || pure(f.value().get(), definedness));
+        };
+    }
+
+    private static boolean concrete(Type type) {
+        return type.equals(Type.BOOLEAN) || type.equals(Type.INTEGER) || type.equals(Type.DECIMAL) || type.equals(Type.STRING);
+    }
+
+}
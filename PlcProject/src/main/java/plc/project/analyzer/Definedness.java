@@ -0,0 +1,117 @@
+package plc.project.analyzer;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * The variables of a program which are defined, i.e. never NIL when read,
+ * since the Analyzer allows NIL in typed variables through LETs without a
+ * value and functions which don't RETURN. A variable is defined if every LET
+ * of its name has a defined value and every assignment to it assigns one
+ * (by name, so this is conservative). Functions, this and the variables of
+ * loops over the environment's range are defined, while parameters may be
+ * NIL.
+ *
+ * <p>Literals other than NIL, binary expressions and objects are defined, as
+ * are reads of defined variables: a binary expression either fails or
+ * evaluates to a value. Properties and calls may be NIL. Names introduced by
+ * passes after the analysis (see {@link FreshNames}) are undefined.
+ */
+final class Definedness {
+
+    private final Set<String> variables;
+
+    private Definedness(Set<String> variables) {
+        this.variables = variables;
+    }
+
+    static Definedness analyze(Ir.Source ir) {
+        var values = new HashMap<String, List<Ir.Expr>>();
+        var undefined = new HashSet<String>();
+        var defined = new HashSet<String>();
+        var ranges = new HashSet<String>();
+        new IrTransformer() {
+            @Override
+            public Ir.Stmt visit(Ir.Stmt.Let ir) {
+                ir.value().ifPresentOrElse(value -> value(values, ir.name(), value), () -> undefined.add(ir.name()));
+                return super.visit(ir);
+            }
+
+            @Override
+            protected Ir.Stmt.Let field(Ir.Stmt.Let ir) {
+                //Fields aren't variables, only their values are visited.
+                optional(ir.value());
+                return ir;
+            }
+
+            @Override
+            public Ir.Stmt visit(Ir.Stmt.Def ir) {
+                defined.add(ir.name());
+                ir.parameters().forEach(p -> undefined.add(p.name()));
+                return super.visit(ir);
+            }
+
+            @Override
+            protected Ir.Stmt.Def method(Ir.Stmt.Def ir) {
+                //Methods don't define their name as a variable.
+                ir.parameters().forEach(p -> undefined.add(p.name()));
+                block(ir.body());
+                return ir;
+            }
+
+            @Override
+            public Ir.Stmt visit(Ir.Stmt.For ir) {
+                if (ir.expression() instanceof Ir.Expr.Function function && function.name().equals("range")) {
+                    ranges.add(ir.name());
+                } else {
+                    undefined.add(ir.name());
+                }
+                return super.visit(ir);
+            }
+
+            @Override
+            public Ir.Stmt visit(Ir.Stmt.Assignment.Variable ir) {
+                value(values, ir.variable().name(), ir.value());
+                return super.visit(ir);
+            }
+        }.visit(ir);
+        //The range called by loops is only the environment's if the program
+        //doesn't define its own.
+        if (values.containsKey("range") || undefined.contains("range") || defined.contains("range")) {
+            undefined.addAll(ranges);
+        }
+        var variables = new HashSet<String>(values.keySet());
+        variables.addAll(defined);
+        variables.addAll(ranges);
+        variables.add("this");
+        variables.removeAll(undefined);
+        var definedness = new Definedness(variables);
+        //Removing a variable can make variables assigned from it undefined,
+        //so this is repeated until nothing changes.
+        while (variables.removeIf(name -> !values.getOrDefault(name, List.of()).stream().allMatch(definedness::defined))) {}
+        return definedness;
+    }
+
+    private static void value(Map<String, List<Ir.Expr>> values, String name, Ir.Expr value) {
+        values.computeIfAbsent(name, _ -> new ArrayList<>()).add(value);
+    }
+
+    /**
+     * Returns whether an expression is defined, i.e. evaluates to a value of
+     * its type rather than NIL if it doesn't fail.
+     */
+    boolean defined(Ir.Expr expression) {
+        return switch (expression) {
+            case Ir.Expr.Literal ir -> ir.value() != null;
+            case Ir.Expr.Group ir -> defined(ir.expression());
+            case Ir.Expr.Binary _, Ir.Expr.ObjectExpr _ -> true;
+            case Ir.Expr.Variable ir -> variables.contains(ir.name());
+            case Ir.Expr.Property _, Ir.Expr.Function _, Ir.Expr.Method _ -> false;
+        };
+    }
+
+}
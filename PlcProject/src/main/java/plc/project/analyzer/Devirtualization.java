@@ -0,0 +1,143 @@
+package plc.project.analyzer;
+
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Resolves method calls to the DEF of the method they invoke, where the
+ * receiver is statically known to be the object created by a specific
+ * {@link Ir.Expr.ObjectExpr}. Since object types are structural (and
+ * interned), the type alone doesn't determine the method, so the receiver
+ * must be:
+ *
+ * <ul>
+ *     <li>The object expression itself (possibly grouped),</li>
+ *     <li>A variable whose LET is initialized with the object expression,
+ *     and which is never assigned anywhere in the program, or</li>
+ *     <li>{@code this} within one of the object's methods, if none of its
+ *     methods escape: a method read as a value (e.g. copied into a field or
+ *     assigned to a property) can be called on another object, which is then
+ *     its this.</li>
+ * </ul>
+ *
+ * <p>Additionally, no property with the name of the method may be assigned
+ * anywhere in the program, so the method can't be replaced. These checks are
+ * by name, so this is conservative. Backends can then call the method
+ * directly, and {@link Inlining} can inline it.
+ *
+ * <p>Targets map each devirtualized {@link Ir.Expr.Method} to the DEF of the
+ * method it invokes.
+ */
+public final class Devirtualization {
+
+    private final Map<Ir.Expr.Method, Ir.Stmt.Def> targets;
+
+    private Devirtualization(Map<Ir.Expr.Method, Ir.Stmt.Def> targets) {
+        this.targets = targets;
+    }
+
+    /**
+     * Returns the method invoked by a call, or null if it isn't statically
+     * known.
+     */
+    public Ir.Stmt.@Nullable Def target(Ir.Expr.Method ir) {
+        return targets.get(ir);
+    }
+
+    public static Devirtualization analyze(Ir.Source ir) {
+        var assigned = Assigned.of(ir);
+        var targets = new IdentityHashMap<Ir.Expr.Method, Ir.Stmt.Def>();
+        new ScopedTransformer() {
+            @Override
+            public Ir.Expr visit(Ir.Expr.Method ir) {
+                var target = target(this, assigned, ir);
+                if (target != null) {
+                    targets.put(ir, target);
+                }
+                return super.visit(ir);
+            }
+        }.visit(ir);
+        return new Devirtualization(targets);
+    }
+
+    /**
+     * The names assigned anywhere in a program, as variables and as
+     * properties, and the names of properties read as values (rather than
+     * called), which may read a method.
+     */
+    record Assigned(Set<String> variables, Set<String> properties, Set<String> values) {
+
+        static Assigned of(Ir.Source ir) {
+            var assigned = new Assigned(new HashSet<>(), new HashSet<>(), new HashSet<>());
+            new IrTransformer() {
+                @Override
+                public Ir.Stmt visit(Ir.Stmt.Assignment.Variable ir) {
+                    assigned.variables.add(ir.variable().name());
+                    return super.visit(ir);
+                }
+
+                @Override
+                public Ir.Stmt visit(Ir.Stmt.Assignment.Property ir) {
+                    assigned.properties.add(ir.property().name());
+                    return super.visit(ir);
+                }
+
+                @Override
+                public Ir.Expr visit(Ir.Expr.Property ir) {
+                    assigned.values.add(ir.name());
+                    return super.visit(ir);
+                }
+            }.visit(ir);
+            return assigned;
+        }
+
+        /**
+         * Returns whether a method of an object may be read as a value, and
+         * thus called with another object as this.
+         */
+        boolean escapes(Ir.Expr.ObjectExpr object) {
+            return object.methods().stream().anyMatch(method -> values.contains(method.name()));
+        }
+
+    }
+
+    /**
+     * Returns the method invoked by a call in the current scope of a
+     * transformer, or null if it isn't statically known. For a LET, this is
+     * the method of the (transformed) object the LET is bound to, and for
+     * this the method of the original object (see
+     * {@link ScopedTransformer.This}) unless its methods escape.
+     */
+    static Ir.Stmt.@Nullable Def target(ScopedTransformer scope, Assigned assigned, Ir.Expr.Method ir) {
+        if (assigned.properties().contains(ir.name())) {
+            return null;
+        }
+        var receiver = ir.receiver();
+        while (receiver instanceof Ir.Expr.Group group) {
+            receiver = group.expression();
+        }
+        var object = switch (receiver) {
+            case Ir.Expr.ObjectExpr expr -> expr;
+            case Ir.Expr.Variable variable when !assigned.variables().contains(variable.name()) -> switch (scope.lookup(variable.name())) {
+                case Ir.Stmt.Let let when let.value().orElse(null) instanceof Ir.Expr.ObjectExpr expr -> expr;
+                case ScopedTransformer.This binding when !assigned.escapes(binding.object()) -> binding.object();
+                case null, default -> null;
+            };
+            default -> null;
+        };
+        if (object == null) {
+            return null;
+        }
+        for (var method : object.methods()) {
+            if (method.name().equals(ir.name())) {
+                return method;
+            }
+        }
+        return null;
+    }
+
+}
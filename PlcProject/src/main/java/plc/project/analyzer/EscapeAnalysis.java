@@ -0,0 +1,153 @@
+package plc.project.analyzer;
+
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Finds objects which don't escape the function (or source) creating them,
+ * so their fields can be replaced by local variables (see
+ * {@link ScalarReplacement}) rather than allocating an object.
+ *
+ * <p>An object is local if it is the value of a LET and the variable is only
+ * ever used as the receiver of reads and assignments of its fields, in the
+ * same function. Any other use escapes: reading the variable itself (passing
+ * it, returning it, storing it, ...), assigning it, calling its methods, or
+ * using it from a nested function or method, which could outlive it. Objects
+ * with methods are never local, since methods capture the object as this,
+ * nor are LETs which are the last statement of a block, whose value can be
+ * the value of the program.
+ */
+public final class EscapeAnalysis {
+
+    /**
+     * The objects which don't escape, by identity.
+     */
+    public record Result(Set<Ir.Expr.ObjectExpr> local) {
+
+        public boolean escapes(Ir.Expr.ObjectExpr ir) {
+            return !local.contains(ir);
+        }
+
+    }
+
+    private EscapeAnalysis() {}
+
+    public static Result analyze(Ir.Source ir) {
+        var analyzer = new Analyzer();
+        analyzer.visit(ir);
+        var local = Collections.newSetFromMap(new IdentityHashMap<Ir.Expr.ObjectExpr, Boolean>());
+        for (var candidate : analyzer.candidates.keySet()) {
+            if (!analyzer.escaped.contains(candidate)) {
+                local.add((Ir.Expr.ObjectExpr) candidate.value().orElseThrow());
+            }
+        }
+        return new Result(local);
+    }
+
+    private static final class Analyzer extends ScopedTransformer {
+
+        /**
+         * The LETs of candidate objects, mapped to the depth of the function
+         * defining them.
+         */
+        private final Map<Ir.Stmt.Let, Integer> candidates = new IdentityHashMap<>();
+        private final Set<Ir.Stmt.Let> escaped = Collections.newSetFromMap(new IdentityHashMap<>());
+        private int functions = 0;
+        private Ir.@Nullable Stmt last = null;
+
+        @Override
+        public Ir.Stmt visit(Ir.Stmt.Let ir) {
+            var let = super.visit(ir);
+            if (ir != last && ir.value().isPresent() && ir.value().get() instanceof Ir.Expr.ObjectExpr object
+                    && object.methods().isEmpty() && unique(object.fields())) {
+                candidates.put(ir, functions);
+            }
+            return let;
+        }
+
+        @Override
+        public Ir.Stmt visit(Ir.Stmt.Assignment.Variable ir) {
+            escape(ir.variable().name());
+            return super.visit(ir);
+        }
+
+        @Override
+        public Ir.Stmt visit(Ir.Stmt.Assignment.Property ir) {
+            if (ir.property().receiver() instanceof Ir.Expr.Variable receiver && field(receiver, ir.property().name())) {
+                visit(ir.value());
+                return ir;
+            }
+            return super.visit(ir);
+        }
+
+        @Override
+        public Ir.Expr visit(Ir.Expr.Variable ir) {
+            escape(ir.name());
+            return ir;
+        }
+
+        @Override
+        public Ir.Expr visit(Ir.Expr.Property ir) {
+            if (ir.receiver() instanceof Ir.Expr.Variable receiver && field(receiver, ir.name())) {
+                return ir;
+            }
+            return super.visit(ir);
+        }
+
+        @Override
+        public Ir.Expr visit(Ir.Expr.Function ir) {
+            escape(ir.name());
+            return super.visit(ir);
+        }
+
+        @Override
+        protected Ir.Stmt.Def function(Ir.Stmt.Def ir, List<String> implicit) {
+            functions++;
+            try {
+                return super.function(ir, implicit);
+            } finally {
+                functions--;
+            }
+        }
+
+        @Override
+        protected List<Ir.Stmt> block(List<Ir.Stmt> statements) {
+            var last = this.last;
+            this.last = statements.isEmpty() ? null : statements.getLast();
+            try {
+                return super.block(statements);
+            } finally {
+                this.last = last;
+            }
+        }
+
+        /**
+         * Returns whether a variable is a candidate object accessed from the
+         * same function, with the given field.
+         */
+        private boolean field(Ir.Expr.Variable receiver, String name) {
+            return lookup(receiver.name()) instanceof Ir.Stmt.Let let
+                && candidates.get(let) instanceof Integer depth && depth == functions
+                && ((Ir.Expr.ObjectExpr) let.value().orElseThrow()).fields().stream().anyMatch(f -> f.name().equals(name));
+        }
+
+        private void escape(String name) {
+            if (lookup(name) instanceof Ir.Stmt.Let let && candidates.containsKey(let)) {
+                escaped.add(let);
+            }
+        }
+
+    }
+
+    private static boolean unique(List<Ir.Stmt.Let> fields) {
+        var names = new HashSet<String>();
+        return fields.stream().allMatch(f -> names.add(f.name()));
+    }
+
+}
@@ -0,0 +1,73 @@
+package plc.project.analyzer;
+
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Generates names for variables introduced by a {@link Pass} which aren't
+ * used anywhere in a program (as a variable, function or parameter), so they
+ * can't capture or shadow existing variables. Generated names contain a
+ * {@code $}, which source identifiers can't, and are valid Java identifiers
+ * for the Generator.
+ */
+final class FreshNames {
+
+    private final Set<String> names = new HashSet<>();
+    private int counter = 0;
+
+    FreshNames(Ir.Source ir) {
+        new IrTransformer() {
+            @Override
+            public Ir.Stmt visit(Ir.Stmt.Let ir) {
+                names.add(ir.name());
+                return super.visit(ir);
+            }
+
+            @Override
+            public Ir.Stmt visit(Ir.Stmt.Def ir) {
+                names.add(ir.name());
+                ir.parameters().forEach(p -> names.add(p.name()));
+                return super.visit(ir);
+            }
+
+            @Override
+            public Ir.Stmt visit(Ir.Stmt.For ir) {
+                names.add(ir.name());
+                return super.visit(ir);
+            }
+
+            @Override
+            public Ir.Stmt visit(Ir.Stmt.Assignment.Variable ir) {
+                names.add(ir.variable().name());
+                return super.visit(ir);
+            }
+
+            @Override
+            public Ir.Expr visit(Ir.Expr.Variable ir) {
+                names.add(ir.name());
+                return super.visit(ir);
+            }
+
+            @Override
+            public Ir.Expr visit(Ir.Expr.Function ir) {
+                names.add(ir.name());
+                return super.visit(ir);
+            }
+        }.visit(ir);
+    }
+
+    /**
+     * Returns a new unused name based on the given name: the name itself if
+     * it already contains a {@code $} and is unused, and otherwise the name
+     * followed by {@code $} and a number.
+     */
+    String fresh(String name) {
+        var fresh = name.contains("$") ? name : name + "$" + ++counter;
+        while (names.contains(fresh)) {
+            fresh = name + "$" + ++counter;
+        }
+        names.add(fresh);
+        return fresh;
+    }
+
+}
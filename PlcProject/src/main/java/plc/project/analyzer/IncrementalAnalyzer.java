@@ -0,0 +1,194 @@
+package plc.project.analyzer;
+
+import plc.project.parser.Ast;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Analyzes a program like the {@link Analyzer}, recording which top-level
+ * statements read (or define) which names so that after an edit only the
+ * changed statements and their dependents are analyzed again.
+ *
+ * <p>A top-level statement only interacts with the rest of the program
+ * through names: the types of the names it reads (as defined by earlier
+ * statements) and the type of the name it defines, if any (LET/DEF). The
+ * dependency graph maps each name to the statements referencing it. After an
+ * edit, the statements are walked in order: a statement is analyzed again if
+ * it was changed or references a name whose definition changed (including
+ * names which were added or removed). A re-analyzed statement only affects
+ * later statements if the name it defines changed type, so an edit to the
+ * body of a DEF which keeps its signature only re-analyzes that body.
+ *
+ * <p>All other statements reuse their previous {@link Ir}, and their names are
+ * defined in the top-level scope from the recorded types. This is still a
+ * walk over the program, but one which doesn't analyze anything, so the cost
+ * of an edit depends on the statements affected rather than program size.
+ * Errors are reported as the Analyzer would, i.e. the first error in program
+ * order (unaffected statements were valid and still are).
+ *
+ * <p>The state is only updated by successful analyses, so changes are always
+ * relative to the last valid program.
+ */
+public final class IncrementalAnalyzer {
+
+    /**
+     * A top-level statement, with the names it references (which includes
+     * the name it defines) and its definition, if any.
+     */
+    private record Node(Ast.Stmt ast, Set<String> names, String name, Type type) {}
+
+    private final Scope scope;
+    private final TypeInterner types = new TypeInterner();
+
+    private Ir.Source ir;
+    private List<Node> nodes = List.of();
+    private Map<String, BitSet> references = new HashMap<>();
+
+    /**
+     * Creates an analyzer for programs in the given scope, which is the
+     * parent of the (new) top-level scope for each analysis and is not
+     * modified.
+     */
+    public IncrementalAnalyzer(Scope scope) {
+        this.scope = scope;
+    }
+
+    /**
+     * Analyzes a complete program, discarding any previous state.
+     */
+    public Ir.Source analyze(Ast.Source ast) throws AnalyzeException {
+        ir = null;
+        nodes = List.of();
+        references = new HashMap<>();
+        var changes = new HashMap<Integer, Ast.Stmt>();
+        for (int i = 0; i < ast.statements().size(); i++) {
+            changes.put(i, ast.statements().get(i));
+        }
+        return analyze(ast.statements().size(), changes);
+    }
+
+    /**
+     * Analyzes the previous program with the statements at the given
+     * (top-level) indices replaced. The previous program must be the result
+     * of the last successful analysis.
+     */
+    public Ir.Source reanalyze(Ir.Source previous, Map<Integer, Ast.Stmt> changes) throws AnalyzeException {
+        if (previous != ir) {
+            throw new IllegalArgumentException("Program is not the result of the last analysis.");
+        }
+        for (var index : changes.keySet()) {
+            if (index < 0 || index >= nodes.size()) {
+                throw new IllegalArgumentException("Invalid statement index " + index + ".");
+            }
+        }
+        return analyze(nodes.size(), changes);
+    }
+
+    private Ir.Source analyze(int size, Map<Integer, Ast.Stmt> changes) throws AnalyzeException {
+        var nodes = new ArrayList<Node>(size);
+        //The sets are copied when modified, so the previous state is kept if
+        //analysis fails.
+        var references = new HashMap<>(this.references);
+        var copied = new HashSet<String>();
+        var affected = new BitSet(size);
+        for (int i = 0; i < size; i++) {
+            var change = changes.get(i);
+            if (change == null) {
+                nodes.add(this.nodes.get(i));
+                continue;
+            }
+            affected.set(i);
+            var name = name(change);
+            if (i < this.nodes.size()) {
+                //If the defined name changed, the previous name is no longer
+                //defined (a changed type is handled after analysis).
+                var previous = this.nodes.get(i);
+                if (previous.name() != null && !previous.name().equals(name)) {
+                    affect(previous.name(), i, references, affected);
+                }
+                for (var referenced : previous.names()) {
+                    modify(referenced, references, copied).clear(i);
+                }
+            }
+            var names = new HashSet<String>();
+            ParallelAnalyzer.names(change, names);
+            if (name != null) {
+                names.add(name);
+            }
+            for (var referenced : names) {
+                modify(referenced, references, copied).set(i);
+            }
+            nodes.add(new Node(change, names, name, null));
+        }
+        var statements = new ArrayList<Ir.Stmt>(size);
+        var top = new Scope(scope);
+        var analyzer = new Analyzer(top, types);
+        for (int i = 0; i < size; i++) {
+            var node = nodes.get(i);
+            if (!affected.get(i)) {
+                statements.add(ir.statements().get(i));
+                if (node.name() != null) {
+                    top.define(node.name(), node.type());
+                }
+                continue;
+            }
+            statements.add((Ir.Stmt) analyzer.visit(node.ast()));
+            if (node.name() != null) {
+                var type = top.get(node.name(), true).orElseThrow();
+                var previous = i < this.nodes.size() ? this.nodes.get(i) : null;
+                if (previous == null || !node.name().equals(previous.name()) || !TypeInterner.equal(type, previous.type())) {
+                    affect(node.name(), i, references, affected);
+                }
+                nodes.set(i, new Node(node.ast(), node.names(), node.name(), type));
+            }
+        }
+        this.ir = new Ir.Source(statements);
+        this.nodes = nodes;
+        this.references = references;
+        return ir;
+    }
+
+    /**
+     * Marks all statements after the given index which reference a name as
+     * affected. Earlier statements can't observe the definition at index.
+     */
+    private static void affect(String name, int index, Map<String, BitSet> references, BitSet affected) {
+        var statements = references.get(name);
+        if (statements != null) {
+            for (int i = statements.nextSetBit(index + 1); i >= 0; i = statements.nextSetBit(i + 1)) {
+                affected.set(i);
+            }
+        }
+    }
+
+    /**
+     * Returns the statements referencing a name for modification, copying
+     * the previous set the first time.
+     */
+    private static BitSet modify(String name, Map<String, BitSet> references, Set<String> copied) {
+        var statements = references.get(name);
+        if (copied.add(name)) {
+            statements = statements != null ? (BitSet) statements.clone() : new BitSet();
+            references.put(name, statements);
+        }
+        return statements;
+    }
+
+    /**
+     * Returns the name defined by a top-level statement, or null.
+     */
+    private static String name(Ast.Stmt ast) {
+        return switch (ast) {
+            case Ast.Stmt.Let let -> let.name();
+            case Ast.Stmt.Def def -> def.name();
+            default -> null;
+        };
+    }
+
+}
@@ -0,0 +1,506 @@
+package plc.project.analyzer;
+
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * Inlines calls to small, non-recursive functions, replacing the call with
+ * the body of the function. A DEF can be inlined if:
+ *
+ * <ul>
+ *     <li>Its size (see {@link Optimizer#size(Ir)}) is at most the threshold,
+ *     which bounds the growth of the program.</li>
+ *     <li>It never references itself, and its name is never assigned
+ *     anywhere in the program (checked by name, so this is conservative),
+ *     so calls always invoke it.</li>
+ *     <li>Its body only returns from its last top-level statement, so the
+ *     body can be spliced into a block without changing control flow, and
+ *     doesn't define functions at the top level (which would be renamed,
+ *     but a function value's name is visible).</li>
+ * </ul>
+ *
+ * <p>Method calls which are devirtualized (see {@link Devirtualization}) are
+ * inlined the same way, with this as an implicit first parameter: the
+ * receiver is evaluated into a LET before the arguments, and the method
+ * can't call any method with its own name (as it might be itself), nor have
+ * its name assigned as a property. Calls through this are only inlined if
+ * none of the object's methods escape as values, since an escaped method may
+ * be called with another object as this.
+ *
+ * <p>Calls are inlined by splicing the body into the block before the
+ * statement containing the call: a LET for each parameter (evaluating the
+ * arguments once, in order), the body, and a LET for the returned value (NIL
+ * without a RETURN), which replaces the call. Variables defined at the top
+ * level of the body (including parameters) are renamed to fresh names which
+ * aren't used anywhere else, and a call is only inlined if the free
+ * variables of the body resolve to the same variables at the call site as at
+ * the definition, so scoping is preserved.
+ *
+ * <p>Since the body is evaluated before the rest of the statement, a call is
+ * only inlined if everything evaluated before it can't be affected by the
+ * body: literals and variables which are never assigned, or also any other
+ * (pure) variable/property reads if the body has no side effects (no calls or
+ * assignments to non-local variables). Calls in the right operand of AND/OR
+ * and inside objects are never inlined, nor are calls in property
+ * assignments. Functions are processed in order, so calls in a body are
+ * inlined before the body itself is.
+ */
+public final class Inlining implements Pass {
+
+    public static final int DEFAULT_THRESHOLD = 20;
+
+    private final int threshold;
+
+    public Inlining() {
+        this(DEFAULT_THRESHOLD);
+    }
+
+    public Inlining(int threshold) {
+        this.threshold = threshold;
+    }
+
+    @Override
+    public Ir.Source apply(Ir.Source ir) {
+        return new Inliner(new FreshNames(ir), Devirtualization.Assigned.of(ir), Definedness.analyze(ir)).visit(ir);
+    }
+
+    /**
+     * A function which can be inlined, with the bindings of its free
+     * variables at the definition (null for the environment) and whether its
+     * body has side effects.
+     */
+    private record Candidate(Ir.Stmt.Def def, Map<String, @Nullable Object> free, boolean effects) {}
+
+    private final class Inliner extends ScopedTransformer {
+
+        private final FreshNames names;
+        private final Devirtualization.Assigned assigned;
+        private final Definedness definedness;
+        private final Map<Ir.Stmt.Def, Candidate> candidates = new IdentityHashMap<>();
+        private final Set<String> results = new HashSet<>();
+
+        /**
+         * The most restrictive kind of expression evaluated so far while
+         * searching a statement for a call to inline: 0 if everything is
+         * unaffected by any body, 1 if it is unaffected by bodies without
+         * side effects, and 2 if nothing can be inlined anymore.
+         */
+        private int level;
+
+        private Inliner(FreshNames names, Devirtualization.Assigned assigned, Definedness definedness) {
+            this.names = names;
+            this.assigned = assigned;
+            this.definedness = definedness;
+        }
+
+        @Override
+        public Ir.Stmt visit(Ir.Stmt.Def ir) {
+            var def = (Ir.Stmt.Def) super.visit(ir);
+            var candidate = candidate(def, false);
+            if (candidate != null) {
+                //Bindings refer to the original DEF, see ScopedTransformer.
+                candidates.put(ir, candidate);
+            }
+            return def;
+        }
+
+        @Override
+        protected Ir.Stmt.Def method(Ir.Stmt.Def ir) {
+            var def = super.method(ir);
+            var candidate = candidate(def, true);
+            if (candidate != null) {
+                //Devirtualized calls refer to the original DEF through this
+                //(if the object's methods don't escape, see Devirtualization),
+                //and to the transformed one through a LET.
+                candidates.put(ir, candidate);
+                candidates.put(def, candidate);
+            }
+            return def;
+        }
+
+        private @Nullable Candidate candidate(Ir.Stmt.Def def, boolean method) {
+            var names = method ? assigned.properties() : assigned.variables();
+            if (names.contains(def.name()) || Optimizer.size(def) > threshold) {
+                return null;
+            }
+            if (method && calls(def)) {
+                return null;
+            }
+            for (int i = 0; i < def.body().size(); i++) {
+                var statement = def.body().get(i);
+                if (statement instanceof Ir.Stmt.Def) {
+                    //Renaming it would change the name of the function value.
+                    return null;
+                }
+                var last = i == def.body().size() - 1 && statement instanceof Ir.Stmt.Return;
+                if (!last && returns(statement)) {
+                    return null;
+                }
+            }
+            var variables = new Variables();
+            variables.scoped(def.body(), parameters(def, method));
+            if (variables.free.contains(def.name())) {
+                return null;
+            }
+            var free = new HashMap<String, @Nullable Object>();
+            for (var name : variables.free) {
+                free.put(name, lookup(name));
+            }
+            return new Candidate(def, free, variables.effects);
+        }
+
+        @Override
+        protected void statement(Ir.Stmt statement, List<Ir.Stmt> block) {
+            var transformed = visit(statement);
+            while (true) {
+                var head = head(transformed);
+                level = 0;
+                var call = head != null ? search(head) : null;
+                if (call == null) {
+                    break;
+                }
+                var result = inline(call, block);
+                var replaced = new IrTransformer() {
+                    @Override
+                    public Ir.Expr visit(Ir.Expr.Function ir) {
+                        return ir == call ? result : super.visit(ir);
+                    }
+
+                    @Override
+                    public Ir.Expr visit(Ir.Expr.Method ir) {
+                        return ir == call ? result : super.visit(ir);
+                    }
+                }.visit(head);
+                transformed = with(transformed, replaced);
+            }
+            var expression = transformed instanceof Ir.Stmt.Expression stmt ? stmt.expression() : null;
+            while (expression instanceof Ir.Expr.Group group) {
+                expression = group.expression();
+            }
+            if (!(expression instanceof Ir.Expr.Variable variable && results.contains(variable.name()))) {
+                block.add(transformed);
+            }
+            //Otherwise the call was the whole expression statement, whose
+            //value is now the value of the result LET (the last statement).
+        }
+
+        /**
+         * Returns the first call evaluated by an expression which can be
+         * inlined, or null if there isn't one, updating {@link #level}.
+         */
+        private Ir.@Nullable Expr search(Ir.Expr expression) {
+            switch (expression) {
+                case Ir.Expr.Literal _ -> {}
+                case Ir.Expr.Group ir -> {
+                    return search(ir.expression());
+                }
+                case Ir.Expr.Binary ir -> {
+                    var call = search(ir.left());
+                    if (call != null) {
+                        return call;
+                    }
+                    if (ir.operator().equals("AND") || ir.operator().equals("OR")) {
+                        level = 2;
+                        return null;
+                    }
+                    call = search(ir.right());
+                    if (call != null) {
+                        return call;
+                    }
+                    level = Math.max(level, DeadCodeElimination.pure(ir, definedness) ? 0 : 2);
+                }
+                case Ir.Expr.Variable ir -> level = Math.max(level, assigned.variables().contains(ir.name()) ? 1 : 0);
+                case Ir.Expr.Property ir -> {
+                    var call = search(ir.receiver());
+                    if (call != null) {
+                        return call;
+                    }
+                    level = Math.max(level, DeadCodeElimination.pure(ir, definedness) ? 1 : 2);
+                }
+                case Ir.Expr.Function ir -> {
+                    level = Math.max(level, assigned.variables().contains(ir.name()) ? 1 : 0);
+                    var before = level;
+                    for (var argument : ir.arguments()) {
+                        var call = search(argument);
+                        if (call != null) {
+                            return call;
+                        }
+                    }
+                    if (inlinable(ir, before)) {
+                        return ir;
+                    }
+                    level = 2;
+                }
+                case Ir.Expr.Method ir -> {
+                    var before = level;
+                    var call = search(ir.receiver());
+                    for (int i = 0; call == null && i < ir.arguments().size(); i++) {
+                        call = search(ir.arguments().get(i));
+                    }
+                    if (call != null) {
+                        return call;
+                    }
+                    if (inlinable(ir, before)) {
+                        return ir;
+                    }
+                    level = 2;
+                }
+                case Ir.Expr.ObjectExpr _ -> level = 2;
+            }
+            return null;
+        }
+
+        /**
+         * Returns the DEF invoked by a call, or null if it isn't statically
+         * known.
+         */
+        private Ir.Stmt.@Nullable Def target(Ir.Expr call) {
+            return switch (call) {
+                case Ir.Expr.Function function -> lookup(function.name()) instanceof Ir.Stmt.Def def ? def : null;
+                case Ir.Expr.Method method -> Devirtualization.target(this, assigned, method);
+                default -> null;
+            };
+        }
+
+        private boolean inlinable(Ir.Expr call, int level) {
+            var def = target(call);
+            if (def == null || !candidates.containsKey(def)) {
+                return false;
+            }
+            var candidate = candidates.get(def);
+            for (var free : candidate.free().entrySet()) {
+                if (lookup(free.getKey()) != free.getValue()) {
+                    return false;
+                }
+            }
+            return level == 0 || level == 1 && !candidate.effects();
+        }
+
+        /**
+         * Adds the inlined body of a call to the block, returning the
+         * variable for the result.
+         */
+        private Ir.Expr.Variable inline(Ir.Expr call, List<Ir.Stmt> block) {
+            var def = candidates.get(target(call)).def();
+            var renamer = new Renamer(names::fresh);
+            var body = renamer.rename(def.body(), parameters(def, call instanceof Ir.Expr.Method));
+            List<Ir.Expr> arguments;
+            if (call instanceof Ir.Expr.Method method) {
+                block.add(new Ir.Stmt.Let(renamer.name("this"), method.receiver().type(), Optional.of(method.receiver())));
+                arguments = method.arguments();
+            } else {
+                arguments = ((Ir.Expr.Function) call).arguments();
+            }
+            for (int i = 0; i < def.parameters().size(); i++) {
+                var parameter = def.parameters().get(i);
+                block.add(new Ir.Stmt.Let(renamer.name(parameter.name()), parameter.type(), Optional.of(arguments.get(i))));
+            }
+            Ir.Expr value = new Ir.Expr.Literal(null, Type.NIL);
+            if (!body.isEmpty() && body.getLast() instanceof Ir.Stmt.Return stmt) {
+                body = body.subList(0, body.size() - 1);
+                value = stmt.value().orElse(value);
+            }
+            block.addAll(body);
+            var result = names.fresh(def.name());
+            results.add(result);
+            block.add(new Ir.Stmt.Let(result, def.returns(), Optional.of(value)));
+            return new Ir.Expr.Variable(result, call.type());
+        }
+
+    }
+
+    /**
+     * Collects the free variables of a function body (passed to
+     * {@link #scoped}) and whether it has side effects.
+     */
+    private static final class Variables extends ScopedTransformer {
+
+        private final Set<String> free = new HashSet<>();
+        private boolean effects = false;
+
+        @Override
+        public Ir.Stmt visit(Ir.Stmt.Assignment.Variable ir) {
+            if (lookup(ir.variable().name()) == null) {
+                free.add(ir.variable().name());
+                effects = true;
+            }
+            return super.visit(ir);
+        }
+
+        @Override
+        public Ir.Stmt visit(Ir.Stmt.Assignment.Property ir) {
+            effects = true;
+            return super.visit(ir);
+        }
+
+        @Override
+        public Ir.Expr visit(Ir.Expr.Variable ir) {
+            if (lookup(ir.name()) == null) {
+                free.add(ir.name());
+            }
+            return ir;
+        }
+
+        @Override
+        public Ir.Expr visit(Ir.Expr.Function ir) {
+            if (lookup(ir.name()) == null) {
+                free.add(ir.name());
+            }
+            effects = true;
+            return super.visit(ir);
+        }
+
+        @Override
+        public Ir.Expr visit(Ir.Expr.Method ir) {
+            effects = true;
+            return super.visit(ir);
+        }
+
+    }
+
+    /**
+     * Renames the variables defined at the top level of a function body
+     * (passed to {@link #rename}), including parameters, leaving variables
+     * of nested scopes which shadow them as is. Since a body can be inlined
+     * several times, the nodes resolved by the {@link Resolver} (which are
+     * identified by identity) are always copied.
+     */
+    private static final class Renamer extends ScopedTransformer {
+
+        private final Function<String, String> fresh;
+        private final Map<String, String> renamed = new HashMap<>();
+
+        private Renamer(Function<String, String> fresh) {
+            this.fresh = fresh;
+        }
+
+        private List<Ir.Stmt> rename(List<Ir.Stmt> body, List<String> parameters) {
+            return scoped(body, parameters);
+        }
+
+        private String name(String name) {
+            return renamed.computeIfAbsent(name, fresh);
+        }
+
+        private String resolve(String name) {
+            return depth(name) == 0 ? name(name) : name;
+        }
+
+        @Override
+        public Ir.Stmt visit(Ir.Stmt.Let ir) {
+            var let = (Ir.Stmt.Let) super.visit(ir);
+            return new Ir.Stmt.Let(resolve(ir.name()), let.type(), let.value());
+        }
+
+        @Override
+        public Ir.Stmt visit(Ir.Stmt.Def ir) {
+            //Top-level DEFs aren't inlined (see candidate), so this is nested.
+            var def = (Ir.Stmt.Def) super.visit(ir);
+            return new Ir.Stmt.Def(def.name(), def.parameters(), def.returns(), def.body());
+        }
+
+        @Override
+        public Ir.Stmt visit(Ir.Stmt.For ir) {
+            var stmt = (Ir.Stmt.For) super.visit(ir);
+            return new Ir.Stmt.For(stmt.name(), stmt.type(), stmt.expression(), stmt.body());
+        }
+
+        @Override
+        public Ir.Stmt visit(Ir.Stmt.Assignment.Variable ir) {
+            var variable = (Ir.Expr.Variable) visit(ir.variable());
+            return new Ir.Stmt.Assignment.Variable(variable, visit(ir.value()));
+        }
+
+        @Override
+        public Ir.Expr visit(Ir.Expr.Variable ir) {
+            return new Ir.Expr.Variable(resolve(ir.name()), ir.type());
+        }
+
+        @Override
+        public Ir.Expr visit(Ir.Expr.Function ir) {
+            var function = (Ir.Expr.Function) super.visit(ir);
+            return new Ir.Expr.Function(resolve(ir.name()), function.arguments(), function.type());
+        }
+
+        @Override
+        protected Ir.Stmt.Let field(Ir.Stmt.Let ir) {
+            var field = super.field(ir);
+            return new Ir.Stmt.Let(field.name(), field.type(), field.value());
+        }
+
+        @Override
+        protected Ir.Stmt.Def method(Ir.Stmt.Def ir) {
+            var method = super.method(ir);
+            return new Ir.Stmt.Def(method.name(), method.parameters(), method.returns(), method.body());
+        }
+
+    }
+
+    /**
+     * Returns the names of the parameters of a function, preceded by this for
+     * methods.
+     */
+    private static List<String> parameters(Ir.Stmt.Def def, boolean method) {
+        var names = new ArrayList<String>();
+        if (method) {
+            names.add("this");
+        }
+        def.parameters().forEach(p -> names.add(p.name()));
+        return names;
+    }
+
+    /**
+     * Returns whether a method's body calls a method with the same name,
+     * which might be a call to itself.
+     */
+    private static boolean calls(Ir.Stmt.Def method) {
+        var calls = new boolean[] {false};
+        var visitor = new IrTransformer() {
+            @Override
+            public Ir.Expr visit(Ir.Expr.Method ir) {
+                calls[0] |= ir.name().equals(method.name());
+                return super.visit(ir);
+            }
+        };
+        for (var statement : method.body()) {
+            visitor.visit(statement);
+        }
+        return calls[0];
+    }
+
+    /**
+     * Returns whether a statement contains a RETURN from the enclosing
+     * function (not one of a nested function or method).
+     */
+    private static boolean returns(Ir.Stmt statement) {
+        var returns = new boolean[] {false};
+        new IrTransformer() {
+            @Override
+            public Ir.Stmt visit(Ir.Stmt.Return ir) {
+                returns[0] = true;
+                return ir;
+            }
+
+            @Override
+            public Ir.Stmt visit(Ir.Stmt.Def ir) {
+                return ir;
+            }
+
+            @Override
+            protected Ir.Stmt.Def method(Ir.Stmt.Def ir) {
+                return ir;
+            }
+        }.visit(statement);
+        return returns[0];
+    }
+
+}
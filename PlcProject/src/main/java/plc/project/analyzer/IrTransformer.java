@@ -0,0 +1,281 @@
+package plc.project.analyzer;
+
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * A visitor which rebuilds an {@link Ir} tree, as the base of {@link Pass}
+ * implementations: each node is rebuilt from its transformed children, so
+ * subclasses only override the nodes they rewrite (typically calling super
+ * first to transform children).
+ *
+ * <p>Nodes whose children are unchanged are returned as is rather than
+ * copied, so a pass that doesn't change anything returns the same tree and
+ * unchanged subtrees keep their identity (see {@link Resolver}).
+ *
+ * <p>Since {@link Ir} is part of the project's API and can't be extended,
+ * analyses attach their results to nodes with side tables keyed by identity
+ * (e.g. {@link Operations}) rather than with new nodes, which is why the
+ * identity of unchanged subtrees matters.
+ *
+ * <p>Statement lists are transformed by {@link #block(List)}, one statement
+ * at a time via {@link #statement(Ir.Stmt, List)}, which can be overridden to
+ * remove a statement or replace it with several.
+ */
+public abstract class IrTransformer implements Ir.Visitor<Ir, RuntimeException> {
+
+    public Ir.Stmt visit(Ir.Stmt ir) {
+        return (Ir.Stmt) visit((Ir) ir);
+    }
+
+    public Ir.Expr visit(Ir.Expr ir) {
+        return (Ir.Expr) visit((Ir) ir);
+    }
+
+    @Override
+    public Ir.Source visit(Ir.Source ir) {
+        var statements = block(ir.statements());
+        return statements == ir.statements() ? ir : new Ir.Source(statements);
+    }
+
+    @Override
+    public Ir.Stmt visit(Ir.Stmt.Let ir) {
+        var value = optional(ir.value());
+        return value == ir.value() ? ir : new Ir.Stmt.Let(ir.name(), ir.type(), value);
+    }
+
+    @Override
+    public Ir.Stmt visit(Ir.Stmt.Def ir) {
+        var body = block(ir.body());
+        return body == ir.body() ? ir : new Ir.Stmt.Def(ir.name(), ir.parameters(), ir.returns(), body);
+    }
+
+    @Override
+    public Ir.Stmt visit(Ir.Stmt.If ir) {
+        var condition = visit(ir.condition());
+        var thenBody = block(ir.thenBody());
+        var elseBody = block(ir.elseBody());
+        if (condition == ir.condition() && thenBody == ir.thenBody() && elseBody == ir.elseBody()) {
+            return ir;
+        }
+        return new Ir.Stmt.If(condition, thenBody, elseBody);
+    }
+
+    @Override
+    public Ir.Stmt visit(Ir.Stmt.For ir) {
+        var expression = visit(ir.expression());
+        var body = block(ir.body());
+        if (expression == ir.expression() && body == ir.body()) {
+            return ir;
+        }
+        return new Ir.Stmt.For(ir.name(), ir.type(), expression, body);
+    }
+
+    @Override
+    public Ir.Stmt visit(Ir.Stmt.Return ir) {
+        var value = optional(ir.value());
+        return value == ir.value() ? ir : new Ir.Stmt.Return(value);
+    }
+
+    @Override
+    public Ir.Stmt visit(Ir.Stmt.Expression ir) {
+        var expression = visit(ir.expression());
+        return expression == ir.expression() ? ir : new Ir.Stmt.Expression(expression);
+    }
+
+    @Override
+    public Ir.Stmt visit(Ir.Stmt.Assignment.Variable ir) {
+        //The variable is a target, not a read, so it isn't transformed.
+        var value = visit(ir.value());
+        return value == ir.value() ? ir : new Ir.Stmt.Assignment.Variable(ir.variable(), value);
+    }
+
+    @Override
+    public Ir.Stmt visit(Ir.Stmt.Assignment.Property ir) {
+        var receiver = visit(ir.property().receiver());
+        var value = visit(ir.value());
+        if (receiver == ir.property().receiver() && value == ir.value()) {
+            return ir;
+        }
+        var property = receiver == ir.property().receiver()
+            ? ir.property()
+            : new Ir.Expr.Property(receiver, ir.property().name(), ir.property().type());
+        return new Ir.Stmt.Assignment.Property(property, value);
+    }
+
+    @Override
+    public Ir.Expr visit(Ir.Expr.Literal ir) {
+        return ir;
+    }
+
+    @Override
+    public Ir.Expr visit(Ir.Expr.Group ir) {
+        var expression = visit(ir.expression());
+        return expression == ir.expression() ? ir : new Ir.Expr.Group(expression);
+    }
+
+    @Override
+    public Ir.Expr visit(Ir.Expr.Binary ir) {
+        var left = visit(ir.left());
+        var right = visit(ir.right());
+        if (left == ir.left() && right == ir.right()) {
+            return ir;
+        }
+        return new Ir.Expr.Binary(ir.operator(), left, right, ir.type());
+    }
+
+    @Override
+    public Ir.Expr visit(Ir.Expr.Variable ir) {
+        return ir;
+    }
+
+    @Override
+    public Ir.Expr visit(Ir.Expr.Property ir) {
+        var receiver = visit(ir.receiver());
+        return receiver == ir.receiver() ? ir : new Ir.Expr.Property(receiver, ir.name(), ir.type());
+    }
+
+    @Override
+    public Ir.Expr visit(Ir.Expr.Function ir) {
+        var arguments = expressions(ir.arguments());
+        return arguments == ir.arguments() ? ir : new Ir.Expr.Function(ir.name(), arguments, ir.type());
+    }
+
+    @Override
+    public Ir.Expr visit(Ir.Expr.Method ir) {
+        var receiver = visit(ir.receiver());
+        var arguments = expressions(ir.arguments());
+        if (receiver == ir.receiver() && arguments == ir.arguments()) {
+            return ir;
+        }
+        return new Ir.Expr.Method(receiver, ir.name(), arguments, ir.type());
+    }
+
+    @Override
+    public Ir.Expr visit(Ir.Expr.ObjectExpr ir) {
+        var changed = false;
+        var fields = new ArrayList<Ir.Stmt.Let>(ir.fields().size());
+        for (var field : ir.fields()) {
+            var transformed = field(field);
+            changed |= transformed != field;
+            fields.add(transformed);
+        }
+        var methods = new ArrayList<Ir.Stmt.Def>(ir.methods().size());
+        for (var method : ir.methods()) {
+            var transformed = method(method);
+            changed |= transformed != method;
+            methods.add(transformed);
+        }
+        return changed ? new Ir.Expr.ObjectExpr(ir.name(), fields, methods, ir.type()) : ir;
+    }
+
+    /**
+     * Transforms a field of an object, which unlike a LET statement doesn't
+     * define a variable (its value is still evaluated in the enclosing
+     * scope). By default this is the same as {@link #visit(Ir.Stmt.Let)}.
+     */
+    protected Ir.Stmt.Let field(Ir.Stmt.Let ir) {
+        return (Ir.Stmt.Let) visit((Ir.Stmt) ir);
+    }
+
+    /**
+     * Transforms a method of an object, which unlike a DEF statement doesn't
+     * define its name in the enclosing scope and has an implicit this
+     * parameter. By default this is the same as {@link #visit(Ir.Stmt.Def)}.
+     */
+    protected Ir.Stmt.Def method(Ir.Stmt.Def ir) {
+        return (Ir.Stmt.Def) visit((Ir.Stmt) ir);
+    }
+
+    /**
+     * Transforms a list of statements, returning the same list if no
+     * statement changed.
+     */
+    protected List<Ir.Stmt> block(List<Ir.Stmt> statements) {
+        var transformed = new ArrayList<Ir.Stmt>(statements.size());
+        for (var statement : statements) {
+            statement(statement, transformed);
+        }
+        return same(statements, transformed);
+    }
+
+    /**
+     * Returns the original list if the transformed list has the same
+     * elements (by identity), and otherwise the transformed list.
+     */
+    protected static <T extends Ir> List<T> same(List<T> original, List<T> transformed) {
+        if (transformed.size() != original.size()) {
+            return transformed;
+        }
+        for (int i = 0; i < original.size(); i++) {
+            if (transformed.get(i) != original.get(i)) {
+                return transformed;
+            }
+        }
+        return original;
+    }
+
+    /**
+     * Transforms a statement of a block, adding the result (if any) to the
+     * transformed block.
+     */
+    protected void statement(Ir.Stmt statement, List<Ir.Stmt> block) {
+        block.add(visit(statement));
+    }
+
+    protected List<Ir.Expr> expressions(List<Ir.Expr> expressions) {
+        List<Ir.Expr> transformed = null;
+        for (int i = 0; i < expressions.size(); i++) {
+            var expression = visit(expressions.get(i));
+            if (transformed == null && expression != expressions.get(i)) {
+                transformed = new ArrayList<>(expressions.subList(0, i));
+            }
+            if (transformed != null) {
+                transformed.add(expression);
+            }
+        }
+        return transformed != null ? transformed : expressions;
+    }
+
+    protected Optional<Ir.Expr> optional(Optional<Ir.Expr> expression) {
+        if (expression.isEmpty()) {
+            return expression;
+        }
+        var transformed = visit(expression.get());
+        return transformed == expression.get() ? expression : Optional.of(transformed);
+    }
+
+    /**
+     * Returns the expression a statement evaluates before anything else
+     * (such as the value of a LET or the condition of an IF), which can be
+     * replaced with {@link #with}, or null if there isn't one. Property
+     * assignments have none since the receiver is evaluated first.
+     */
+    protected static Ir.@Nullable Expr head(Ir.Stmt statement) {
+        return switch (statement) {
+            case Ir.Stmt.Expression ir -> ir.expression();
+            case Ir.Stmt.Let ir -> ir.value().orElse(null);
+            case Ir.Stmt.Assignment.Variable ir -> ir.value();
+            case Ir.Stmt.Return ir -> ir.value().orElse(null);
+            case Ir.Stmt.If ir -> ir.condition();
+            case Ir.Stmt.For ir -> ir.expression();
+            case Ir.Stmt.Def _, Ir.Stmt.Assignment.Property _ -> null;
+        };
+    }
+
+    protected static Ir.Stmt with(Ir.Stmt statement, Ir.Expr head) {
+        return switch (statement) {
+            case Ir.Stmt.Expression _ -> new Ir.Stmt.Expression(head);
+            case Ir.Stmt.Let ir -> new Ir.Stmt.Let(ir.name(), ir.type(), Optional.of(head));
+            case Ir.Stmt.Assignment.Variable ir -> new Ir.Stmt.Assignment.Variable(ir.variable(), head);
+            case Ir.Stmt.Return _ -> new Ir.Stmt.Return(Optional.of(head));
+            case Ir.Stmt.If ir -> new Ir.Stmt.If(head, ir.thenBody(), ir.elseBody());
+            case Ir.Stmt.For ir -> new Ir.Stmt.For(ir.name(), ir.type(), head, ir.body());
+            case Ir.Stmt.Def _, Ir.Stmt.Assignment.Property _ -> throw new AssertionError(statement);
+        };
+    }
+
+}
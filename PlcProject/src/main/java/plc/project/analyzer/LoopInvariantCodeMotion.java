@@ -0,0 +1,210 @@
+package plc.project.analyzer;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Hoists loop-invariant expressions out of FOR bodies: a pure binary
+ * expression or property read (see {@link DeadCodeElimination#pure}) in the
+ * body whose value is the same on every iteration is evaluated once, into a
+ * temporary LET before the loop, and read from the temporary in the body.
+ * Structurally equal invariant expressions share a temporary.
+ *
+ * <p>An expression is invariant if none of the variables it reads are
+ * defined in the loop (the loop variable, LETs, DEFs and parameters, checked
+ * by name so they also resolve to the same variable before the loop) or
+ * assigned in it. If the loop calls anything, variables assigned in any
+ * function body aren't invariant, and property reads are only invariant if
+ * the loop neither calls anything nor assigns a property.
+ *
+ * <p>Pure expressions can't fail, since their operands must be defined (see
+ * {@link Definedness}), so hoisting them is safe even if they weren't
+ * evaluated before (the loop doesn't run, or they are in a branch). In
+ * particular, expressions reading a variable which may be NIL (declared
+ * without a value, or the result of a call) aren't hoisted. The bodies of
+ * functions and methods defined in the loop are left alone, since they may be
+ * called after the loop. Loops are processed outermost first, so nested
+ * loops hoist expressions as far out as they are invariant.
+ */
+public final class LoopInvariantCodeMotion implements Pass {
+
+    @Override
+    public Ir.Source apply(Ir.Source ir) {
+        var assigned = CommonSubexpressionElimination.assignedInFunctions(ir);
+        var names = new FreshNames(ir);
+        var definedness = Definedness.analyze(ir);
+        return new IrTransformer() {
+            @Override
+            protected void statement(Ir.Stmt statement, List<Ir.Stmt> block) {
+                if (statement instanceof Ir.Stmt.For loop) {
+                    var effects = new Effects();
+                    loop.body().forEach(effects::visit);
+                    var variant = new HashSet<>(effects.variables);
+                    variant.add(loop.name());
+                    if (effects.calls) {
+                        variant.addAll(assigned);
+                    }
+                    var hoister = new Hoister(names, definedness, variant, !effects.calls && !effects.properties);
+                    var body = hoister.block(loop.body());
+                    block.addAll(hoister.hoisted);
+                    if (body != loop.body()) {
+                        statement = new Ir.Stmt.For(loop.name(), loop.type(), loop.expression(), body);
+                    }
+                }
+                block.add(visit(statement));
+            }
+        }.visit(ir);
+    }
+
+    /**
+     * Replaces the invariant expressions of a loop body with temporaries,
+     * collecting their LETs.
+     */
+    private static final class Hoister extends IrTransformer {
+
+        private final FreshNames names;
+        private final Definedness definedness;
+        private final Set<String> variant;
+        private final boolean properties;
+        private final Map<Ir.Expr, Ir.Stmt.Let> temporaries = new HashMap<>();
+        private final List<Ir.Stmt> hoisted = new ArrayList<>();
+
+        private Hoister(FreshNames names, Definedness definedness, Set<String> variant, boolean properties) {
+            this.names = names;
+            this.definedness = definedness;
+            this.variant = variant;
+            this.properties = properties;
+        }
+
+        @Override
+        public Ir.Expr visit(Ir.Expr ir) {
+            if ((ir instanceof Ir.Expr.Binary || ir instanceof Ir.Expr.Property) && invariant(ir)) {
+                var temporary = temporaries.get(ir);
+                if (temporary == null) {
+                    temporary = new Ir.Stmt.Let(names.fresh("invariant"), ir.type(), Optional.of(ir));
+                    temporaries.put(ir, temporary);
+                    hoisted.add(temporary);
+                }
+                return new Ir.Expr.Variable(temporary.name(), ir.type());
+            }
+            return super.visit(ir);
+        }
+
+        @Override
+        public Ir.Stmt visit(Ir.Stmt.Expression ir) {
+            //The expression of an expression statement can't be a variable,
+            //so only its subexpressions are hoisted.
+            var expression = statement(ir.expression());
+            return expression == ir.expression() ? ir : new Ir.Stmt.Expression(expression);
+        }
+
+        private Ir.Expr statement(Ir.Expr expression) {
+            if (expression instanceof Ir.Expr.Group group) {
+                var inner = statement(group.expression());
+                return inner == group.expression() ? group : new Ir.Expr.Group(inner);
+            }
+            return (Ir.Expr) visit((Ir) expression);
+        }
+
+        @Override
+        public Ir.Stmt visit(Ir.Stmt.Def ir) {
+            return ir;
+        }
+
+        @Override
+        protected Ir.Stmt.Def method(Ir.Stmt.Def ir) {
+            return ir;
+        }
+
+        private boolean invariant(Ir.Expr expression) {
+            if (!DeadCodeElimination.pure(expression, definedness)) {
+                return false;
+            }
+            var invariant = new boolean[] {true};
+            new IrTransformer() {
+                @Override
+                public Ir.Expr visit(Ir.Expr.Variable ir) {
+                    invariant[0] &= !variant.contains(ir.name());
+                    return ir;
+                }
+
+                @Override
+                public Ir.Expr visit(Ir.Expr.Property ir) {
+                    invariant[0] &= properties;
+                    return super.visit(ir);
+                }
+            }.visit(expression);
+            return invariant[0];
+        }
+
+    }
+
+    /**
+     * The effects of a loop body: the variables it defines or assigns
+     * (including in nested functions, conservatively), and whether it calls
+     * anything or assigns properties.
+     */
+    private static final class Effects extends IrTransformer {
+
+        private final Set<String> variables = new HashSet<>();
+        private boolean calls = false;
+        private boolean properties = false;
+
+        @Override
+        public Ir.Stmt visit(Ir.Stmt.Let ir) {
+            variables.add(ir.name());
+            return super.visit(ir);
+        }
+
+        @Override
+        public Ir.Stmt visit(Ir.Stmt.Def ir) {
+            variables.add(ir.name());
+            ir.parameters().forEach(p -> variables.add(p.name()));
+            return super.visit(ir);
+        }
+
+        @Override
+        protected Ir.Stmt.Def method(Ir.Stmt.Def ir) {
+            variables.add("this");
+            ir.parameters().forEach(p -> variables.add(p.name()));
+            return super.method(ir);
+        }
+
+        @Override
+        public Ir.Stmt visit(Ir.Stmt.For ir) {
+            variables.add(ir.name());
+            return super.visit(ir);
+        }
+
+        @Override
+        public Ir.Stmt visit(Ir.Stmt.Assignment.Variable ir) {
+            variables.add(ir.variable().name());
+            return super.visit(ir);
+        }
+
+        @Override
+        public Ir.Stmt visit(Ir.Stmt.Assignment.Property ir) {
+            properties = true;
+            return super.visit(ir);
+        }
+
+        @Override
+        public Ir.Expr visit(Ir.Expr.Function ir) {
+            calls = true;
+            return super.visit(ir);
+        }
+
+        @Override
+        public Ir.Expr visit(Ir.Expr.Method ir) {
+            calls = true;
+            return super.visit(ir);
+        }
+
+    }
+
+}
@@ -0,0 +1,96 @@
+package plc.project.analyzer;
+
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+/**
+ * Resolves the operation performed by each binary expression from the
+ * operator and the operand types known to the analyzer, so backends can
+ * dispatch on a {@link Kind} instead of the operator string and the runtime
+ * types of the operands.
+ *
+ * <p>Kinds are resolved for every {@link Ir.Expr.Binary} of the program.
+ * Expressions with operand types the analyzer wouldn't produce (e.g. Ir
+ * built by hand) resolve to the generic kinds, which check the values at
+ * runtime like the Evaluator.
+ */
+public final class Operations {
+
+    public enum Kind {
+        INT_ADD, INT_SUB, INT_MUL, INT_DIV,
+        DEC_ADD, DEC_SUB, DEC_MUL, DEC_DIV,
+        STR_CONCAT,
+        INT_LT, INT_LE, INT_GT, INT_GE,
+        DEC_LT, DEC_LE, DEC_GT, DEC_GE,
+        STR_LT, STR_LE, STR_GT, STR_GE,
+        EQ, NE,
+        BOOL_AND, BOOL_OR,
+        /**
+         * Generic arithmetic, for operands of unknown types ("+" also
+         * concatenates if either operand is a String).
+         */
+        ADD, SUB, MUL, DIV,
+        /**
+         * Generic comparisons, for other Comparable types.
+         */
+        LT, LE, GT, GE
+    }
+
+    private final Map<Ir.Expr.Binary, Kind> kinds;
+
+    private Operations(Map<Ir.Expr.Binary, Kind> kinds) {
+        this.kinds = kinds;
+    }
+
+    /**
+     * Returns the kind of a binary expression, resolving it if it isn't part
+     * of the analyzed program.
+     */
+    public Kind kind(Ir.Expr.Binary ir) {
+        var kind = kinds.get(ir);
+        return kind != null ? kind : resolve(ir);
+    }
+
+    public static Operations analyze(Ir.Source ir) {
+        var kinds = new IdentityHashMap<Ir.Expr.Binary, Kind>();
+        new IrTransformer() {
+            @Override
+            public Ir.Expr visit(Ir.Expr.Binary ir) {
+                kinds.put(ir, resolve(ir));
+                return super.visit(ir);
+            }
+        }.visit(ir);
+        return new Operations(kinds);
+    }
+
+    /**
+     * Resolves the kind of a binary expression. Arithmetic is resolved by the
+     * result type (which the Analyzer requires both operands to have, or is
+     * String for concatenation), comparisons by the type of the left operand.
+     */
+    public static Kind resolve(Ir.Expr.Binary ir) {
+        var type = switch (ir.operator()) {
+            case "+", "-", "*", "/" -> ir.type();
+            default -> ir.left().type();
+        };
+        var integer = type.equals(Type.INTEGER);
+        var decimal = type.equals(Type.DECIMAL);
+        var string = type.equals(Type.STRING);
+        return switch (ir.operator()) {
+            case "+" -> string ? Kind.STR_CONCAT : integer ? Kind.INT_ADD : decimal ? Kind.DEC_ADD : Kind.ADD;
+            case "-" -> integer ? Kind.INT_SUB : decimal ? Kind.DEC_SUB : Kind.SUB;
+            case "*" -> integer ? Kind.INT_MUL : decimal ? Kind.DEC_MUL : Kind.MUL;
+            case "/" -> integer ? Kind.INT_DIV : decimal ? Kind.DEC_DIV : Kind.DIV;
+            case "<" -> integer ? Kind.INT_LT : decimal ? Kind.DEC_LT : string ? Kind.STR_LT : Kind.LT;
+            case "<=" -> integer ? Kind.INT_LE : decimal ? Kind.DEC_LE : string ? Kind.STR_LE : Kind.LE;
+            case ">" -> integer ? Kind.INT_GT : decimal ? Kind.DEC_GT : string ? Kind.STR_GT : Kind.GT;
+            case ">=" -> integer ? Kind.INT_GE : decimal ? Kind.DEC_GE : string ? Kind.STR_GE : Kind.GE;
+            case "==" -> Kind.EQ;
+            case "!=" -> Kind.NE;
+            case "AND" -> Kind.BOOL_AND;
+            case "OR" -> Kind.BOOL_OR;
+            default -> throw new IllegalArgumentException("Unknown operator " + ir.operator() + ".");
+        };
+    }
+
+}
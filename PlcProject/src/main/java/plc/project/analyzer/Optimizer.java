@@ -0,0 +1,71 @@
+package plc.project.analyzer;
+
+import java.util.List;
+
+/**
+ * Runs a pipeline of {@link Pass}es over an analyzed program, between the
+ * Analyzer and the Generator/Evaluator. The result is a valid analyzed
+ * program with the same behavior, but no longer necessarily the same result
+ * as analyzing the source: transformed programs must be resolved again (see
+ * {@link Resolver}).
+ */
+public final class Optimizer {
+
+    private final List<Pass> passes;
+
+    public Optimizer(List<Pass> passes) {
+        this.passes = List.copyOf(passes);
+    }
+
+    /**
+     * Returns an optimizer with the standard passes, in order. Constants are
+     * folded again after inlining, specialization and scalar replacement,
+     * since arguments and fields become (possibly constant) LETs, and then
+     * simplified algebraically (which needs literal operands). Invariants are
+     * hoisted out of loops and common subexpressions eliminated after
+     * folding, so constant expressions aren't given temporaries. Unreachable functions
+     * and object members are shaken out last.
+     */
+    public static Optimizer standard() {
+        return new Optimizer(List.of(
+            new ConstantFolding(),
+            new Inlining(),
+            new Specialization(),
+            new ScalarReplacement(),
+            new ConstantFolding(),
+            new AlgebraicSimplification(),
+            new LoopInvariantCodeMotion(),
+            new CommonSubexpressionElimination(),
+            new DeadCodeElimination(),
+            new TreeShaking()
+        ));
+    }
+
+    public List<Pass> passes() {
+        return passes;
+    }
+
+    public Ir.Source optimize(Ir.Source ir) {
+        for (var pass : passes) {
+            ir = pass.apply(ir);
+        }
+        return ir;
+    }
+
+    /**
+     * Returns the number of statements and expressions in an Ir tree
+     * (including object fields and methods), as a measure of program size.
+     */
+    public static int size(Ir ir) {
+        var size = new int[] {0};
+        new IrTransformer() {
+            @Override
+            public Ir visit(Ir ir) {
+                size[0]++;
+                return super.visit(ir);
+            }
+        }.visit(ir);
+        return size[0];
+    }
+
+}
@@ -0,0 +1,211 @@
+package plc.project.analyzer;
+
+import plc.project.parser.Ast;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Analyzes a program like the {@link Analyzer}, but with the bodies of
+ * top-level DEF statements analyzed in parallel on a {@link ForkJoinPool}.
+ *
+ * <p>Statements are first analyzed in order, defining the signature of each
+ * DEF (but not analyzing its body) so later statements can still reference
+ * it. Once the top-level scope is complete it is no longer modified, so the
+ * deferred bodies can be analyzed concurrently, each with its own Analyzer
+ * and child scope. The results are assembled in the original order.
+ *
+ * <p>Analyzing a body against the complete scope is only equivalent if the
+ * body doesn't reference a name which is defined later at the top level
+ * (the Analyzer would report it as undefined, or resolve it to a shadowed
+ * definition in the environment). This is checked syntactically, and such
+ * bodies are analyzed in order instead. Errors are also reported as the
+ * Analyzer would, i.e. the first error in program order.
+ *
+ * <p>All analyzers share one {@link TypeInterner}, so object types are
+ * canonical across bodies as they would be in a sequential analysis.
+ */
+public final class ParallelAnalyzer {
+
+    /**
+     * The number of bodies analyzed by a single task, since individual
+     * bodies are typically too small to be worth scheduling separately.
+     */
+    private static final int THRESHOLD = 8;
+
+    private record Deferred(int index, Ast.Stmt.Def ast, Type.Function type) {}
+
+    private final Scope scope;
+    private final ForkJoinPool pool;
+    private final TypeInterner types = new TypeInterner();
+
+    public ParallelAnalyzer(Scope scope) {
+        this(scope, ForkJoinPool.commonPool());
+    }
+
+    public ParallelAnalyzer(Scope scope, ForkJoinPool pool) {
+        this.scope = scope;
+        this.pool = pool;
+    }
+
+    public Ir.Source analyze(Ast.Source ast) throws AnalyzeException {
+        var statements = new Ir.Stmt[ast.statements().size()];
+        var deferred = new ArrayList<Deferred>();
+        var positions = new HashMap<String, Integer>();
+        for (int i = 0; i < ast.statements().size(); i++) {
+            switch (ast.statements().get(i)) {
+                case Ast.Stmt.Let let -> positions.putIfAbsent(let.name(), i);
+                case Ast.Stmt.Def def -> positions.putIfAbsent(def.name(), i);
+                default -> {}
+            }
+        }
+        var analyzer = new Analyzer(scope, types);
+        AnalyzeException error = null;
+        int failed = statements.length;
+        for (int i = 0; i < statements.length; i++) {
+            try {
+                if (ast.statements().get(i) instanceof Ast.Stmt.Def def) {
+                    var type = analyzer.signature(def);
+                    if (independent(def, i, positions)) {
+                        deferred.add(new Deferred(i, def, type));
+                    } else {
+                        statements[i] = analyzer.body(def, type);
+                    }
+                } else {
+                    statements[i] = (Ir.Stmt) analyzer.visit(ast.statements().get(i));
+                }
+            } catch (AnalyzeException e) {
+                error = e;
+                failed = i;
+                break;
+            }
+        }
+        //Only bodies before a failed statement are analyzed, since the
+        //Analyzer would have stopped at that statement.
+        var before = failed;
+        var bodies = deferred.stream().filter(d -> d.index() < before).toList();
+        var results = new Object[bodies.size()];
+        pool.invoke(new Bodies(bodies, results, 0, bodies.size()));
+        for (int i = 0; i < bodies.size(); i++) {
+            if (results[i] instanceof AnalyzeException e) {
+                throw e;
+            }
+            statements[bodies.get(i).index()] = (Ir.Stmt.Def) results[i];
+        }
+        if (error != null) {
+            throw error;
+        }
+        return new Ir.Source(Arrays.asList(statements));
+    }
+
+    /**
+     * Analyzes a range of deferred bodies, storing each result (or the
+     * exception) at the same index in results.
+     */
+    private final class Bodies extends RecursiveAction {
+
+        private final List<Deferred> bodies;
+        private final Object[] results;
+        private final int start;
+        private final int end;
+
+        private Bodies(List<Deferred> bodies, Object[] results, int start, int end) {
+            this.bodies = bodies;
+            this.results = results;
+            this.start = start;
+            this.end = end;
+        }
+
+        @Override
+        protected void compute() {
+            if (end - start <= THRESHOLD) {
+                for (int i = start; i < end; i++) {
+                    var body = bodies.get(i);
+                    try {
+                        results[i] = new Analyzer(scope, types).body(body.ast(), body.type());
+                    } catch (AnalyzeException e) {
+                        results[i] = e;
+                    }
+                }
+            } else {
+                var middle = (start + end) >>> 1;
+                invokeAll(new Bodies(bodies, results, start, middle), new Bodies(bodies, results, middle, end));
+            }
+        }
+
+    }
+
+    /**
+     * Returns whether the body of the DEF at the given top-level index can be
+     * analyzed against the complete top-level scope, i.e. it doesn't
+     * reference any name defined after it. This is conservative, as names
+     * are collected without regard for local definitions.
+     */
+    private static boolean independent(Ast.Stmt.Def def, int index, Map<String, Integer> positions) {
+        var names = new HashSet<String>();
+        for (var statement : def.body()) {
+            names(statement, names);
+        }
+        for (var name : names) {
+            var position = positions.get(name);
+            if (position != null && position > index) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Collects all variable and function names referenced by an AST.
+     */
+    static void names(Ast ast, Set<String> names) {
+        switch (ast) {
+            case Ast.Source source -> source.statements().forEach(s -> names(s, names));
+            case Ast.Stmt.Let stmt -> stmt.value().ifPresent(v -> names(v, names));
+            case Ast.Stmt.Def stmt -> stmt.body().forEach(s -> names(s, names));
+            case Ast.Stmt.If stmt -> {
+                names(stmt.condition(), names);
+                stmt.thenBody().forEach(s -> names(s, names));
+                stmt.elseBody().forEach(s -> names(s, names));
+            }
+            case Ast.Stmt.For stmt -> {
+                names(stmt.expression(), names);
+                stmt.body().forEach(s -> names(s, names));
+            }
+            case Ast.Stmt.Return stmt -> stmt.value().ifPresent(v -> names(v, names));
+            case Ast.Stmt.Expression stmt -> names(stmt.expression(), names);
+            case Ast.Stmt.Assignment stmt -> {
+                names(stmt.expression(), names);
+                names(stmt.value(), names);
+            }
+            case Ast.Expr.Literal _ -> {}
+            case Ast.Expr.Group expr -> names(expr.expression(), names);
+            case Ast.Expr.Binary expr -> {
+                names(expr.left(), names);
+                names(expr.right(), names);
+            }
+            case Ast.Expr.Variable expr -> names.add(expr.name());
+            case Ast.Expr.Property expr -> names(expr.receiver(), names);
+            case Ast.Expr.Function expr -> {
+                names.add(expr.name());
+                expr.arguments().forEach(a -> names(a, names));
+            }
+            case Ast.Expr.Method expr -> {
+                names(expr.receiver(), names);
+                expr.arguments().forEach(a -> names(a, names));
+            }
+            case Ast.Expr.ObjectExpr expr -> {
+                expr.fields().forEach(f -> names(f, names));
+                expr.methods().forEach(m -> names(m, names));
+            }
+        }
+    }
+
+}
@@ -0,0 +1,13 @@
+package plc.project.analyzer;
+
+/**
+ * An optimization pass, transforming an analyzed program into an equivalent
+ * one (see {@link Optimizer}). Passes must not modify the given program, and
+ * should return it unchanged (the same instance) if there is nothing to do.
+ */
+@FunctionalInterface
+public interface Pass {
+
+    Ir.Source apply(Ir.Source ir);
+
+}
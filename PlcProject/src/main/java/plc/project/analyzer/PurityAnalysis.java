@@ -0,0 +1,208 @@
+package plc.project.analyzer;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Classifies functions (DEF statements, not methods) as pure: calling a pure
+ * function has no side effects, and its result only depends on its
+ * arguments, so calls with equal arguments can be memoized.
+ *
+ * <p>A function is impure if its body (including nested functions, which
+ * are impure themselves):
+ *
+ * <ul>
+ *     <li>assigns a variable defined outside of it, or any property,</li>
+ *     <li>reads a property (objects are mutable), or a variable defined
+ *     outside of it which is assigned anywhere (variables which are never
+ *     assigned are fixed when the function is defined),</li>
+ *     <li>calls a method, a native other than {@link #NATIVES} (such as
+ *     print/debug/log) or a function value which isn't a DEF,</li>
+ *     <li>or calls an impure function.</li>
+ * </ul>
+ *
+ * <p>Calls between functions are resolved by finding the greatest fixpoint,
+ * so (mutually) recursive functions are pure unless something makes them
+ * impure. Failing (division by zero) and not terminating aren't effects.
+ */
+public final class PurityAnalysis {
+
+    /**
+     * Natives without side effects, when not shadowed by the program.
+     */
+    public static final Set<String> NATIVES = Set.of("range", "list");
+
+    /**
+     * The pure functions of a program, by identity.
+     */
+    public static final class Purity {
+
+        private final Set<Ir.Stmt.Def> pure;
+
+        private Purity(Set<Ir.Stmt.Def> pure) {
+            this.pure = pure;
+        }
+
+        public boolean pure(Ir.Stmt.Def ir) {
+            return pure.contains(ir);
+        }
+
+    }
+
+    private PurityAnalysis() {}
+
+    public static Purity analyze(Ir.Source ir) {
+        var analyzer = new Analyzer();
+        analyzer.visit(ir);
+        for (var function : analyzer.functions) {
+            function.impure |= function.reads.stream().anyMatch(analyzer.assigned::contains);
+        }
+        var changed = true;
+        while (changed) {
+            changed = false;
+            for (var function : analyzer.functions) {
+                if (!function.impure && function.calls.stream().anyMatch(c -> analyzer.definitions.get(c).impure)) {
+                    function.impure = true;
+                    changed = true;
+                }
+            }
+        }
+        var pure = Collections.newSetFromMap(new IdentityHashMap<Ir.Stmt.Def, Boolean>());
+        for (var function : analyzer.functions) {
+            if (!function.impure && analyzer.definitions.get(function.ir) == function) {
+                pure.add(function.ir);
+            }
+        }
+        return new Purity(pure);
+    }
+
+    /**
+     * The facts about a function (or method) body collected by the analyzer.
+     */
+    private static final class Function {
+
+        private final Ir.Stmt.Def ir;
+
+        /**
+         * The depth of the function's scope: names with a lower depth are
+         * defined outside of it.
+         */
+        private final int level;
+
+        private final Set<Object> reads = Collections.newSetFromMap(new IdentityHashMap<>());
+        private final Set<Ir.Stmt.Def> calls = Collections.newSetFromMap(new IdentityHashMap<>());
+        private boolean impure;
+
+        private Function(Ir.Stmt.Def ir, int level, boolean impure) {
+            this.ir = ir;
+            this.level = level;
+            this.impure = impure;
+        }
+
+    }
+
+    private static final class Analyzer extends ScopedTransformer {
+
+        private final List<Function> functions = new ArrayList<>();
+        private final Map<Ir.Stmt.Def, Function> definitions = new IdentityHashMap<>();
+        private final List<Function> stack = new ArrayList<>();
+        private final Set<Object> assigned = Collections.newSetFromMap(new IdentityHashMap<>());
+
+        @Override
+        protected Ir.Stmt.Def function(Ir.Stmt.Def ir, List<String> implicit) {
+            //Methods are always impure, but are still analyzed since their
+            //effects don't apply to the enclosing function.
+            var method = !implicit.isEmpty();
+            var function = new Function(ir, level(), method);
+            functions.add(function);
+            if (!method) {
+                definitions.put(ir, function);
+            }
+            stack.add(function);
+            try {
+                return super.function(ir, implicit);
+            } finally {
+                stack.removeLast();
+            }
+        }
+
+        @Override
+        public Ir.Stmt visit(Ir.Stmt.Assignment.Variable ir) {
+            var binding = lookup(ir.variable().name());
+            if (binding != null) {
+                assigned.add(binding);
+            }
+            if (outside(ir.variable().name())) {
+                impure();
+            }
+            return super.visit(ir);
+        }
+
+        @Override
+        public Ir.Stmt visit(Ir.Stmt.Assignment.Property ir) {
+            impure();
+            return super.visit(ir);
+        }
+
+        @Override
+        public Ir.Expr visit(Ir.Expr.Variable ir) {
+            if (outside(ir.name())) {
+                var binding = lookup(ir.name());
+                if (binding == null) {
+                    impure();
+                } else if (!(binding instanceof Ir.Stmt.Def)) {
+                    stack.getLast().reads.add(binding);
+                }
+            }
+            return ir;
+        }
+
+        @Override
+        public Ir.Expr visit(Ir.Expr.Property ir) {
+            impure();
+            return super.visit(ir);
+        }
+
+        @Override
+        public Ir.Expr visit(Ir.Expr.Function ir) {
+            if (!stack.isEmpty()) {
+                switch (lookup(ir.name())) {
+                    case null -> {
+                        if (!NATIVES.contains(ir.name())) {
+                            impure();
+                        }
+                    }
+                    case Ir.Stmt.Def def -> stack.getLast().calls.add(def);
+                    default -> impure();
+                }
+            }
+            return super.visit(ir);
+        }
+
+        @Override
+        public Ir.Expr visit(Ir.Expr.Method ir) {
+            impure();
+            return super.visit(ir);
+        }
+
+        /**
+         * Returns whether a name in the current function is defined outside of
+         * it (including by the environment).
+         */
+        private boolean outside(String name) {
+            return !stack.isEmpty() && depth(name) < stack.getLast().level;
+        }
+
+        private void impure() {
+            if (!stack.isEmpty()) {
+                stack.getLast().impure = true;
+            }
+        }
+
+    }
+
+}
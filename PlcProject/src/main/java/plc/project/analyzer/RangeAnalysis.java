@@ -0,0 +1,353 @@
+package plc.project.analyzer;
+
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.BinaryOperator;
+
+/**
+ * Computes the range of values of Integer expressions and variables, so
+ * backends can represent those which always fit in a long (or int) with
+ * primitive arithmetic instead of BigInteger.
+ *
+ * <p>Variables are analyzed flow-insensitively: the range of a variable (LET
+ * or FOR) is the union of the ranges of all values assigned to it anywhere,
+ * computed by iterating over the program until nothing changes. Bounds which
+ * are still changing after a few iterations (such as accumulators in loops)
+ * are widened to be unbounded, so this always terminates. Values which
+ * aren't known (parameters, calls, properties) are unbounded, except for the
+ * variable of a FOR loop over {@code range(a, b)}, which is between a and
+ * b - 1 and always fits in an int (the Evaluator's range requires int
+ * arguments).
+ *
+ * <p>A range bounds the value of an expression if evaluating it succeeds;
+ * operations which fail (division by zero, Integer variables which are NIL)
+ * don't produce a value. Each expression has its own range, so a backend
+ * using primitive arithmetic for an operation must check its operands too.
+ */
+public final class RangeAnalysis {
+
+    /**
+     * The number of iterations after which changing bounds are widened.
+     */
+    private static final int WIDENING = 3;
+
+    private static final BigInteger INT_MIN = BigInteger.valueOf(Integer.MIN_VALUE);
+    private static final BigInteger INT_MAX = BigInteger.valueOf(Integer.MAX_VALUE);
+    private static final BigInteger LONG_MIN = BigInteger.valueOf(Long.MIN_VALUE);
+    private static final BigInteger LONG_MAX = BigInteger.valueOf(Long.MAX_VALUE);
+
+    /**
+     * An inclusive range of integers, where a null bound is unbounded.
+     */
+    public record Range(@Nullable BigInteger min, @Nullable BigInteger max) {
+
+        public static final Range UNBOUNDED = new Range(null, null);
+
+        public static Range of(BigInteger value) {
+            return new Range(value, value);
+        }
+
+        public boolean fitsInt() {
+            return within(INT_MIN, INT_MAX);
+        }
+
+        public boolean fitsLong() {
+            return within(LONG_MIN, LONG_MAX);
+        }
+
+        private boolean within(BigInteger low, BigInteger high) {
+            return min != null && max != null && min.compareTo(low) >= 0 && max.compareTo(high) <= 0;
+        }
+
+        public Range join(Range other) {
+            return new Range(
+                min == null || other.min == null ? null : min.min(other.min),
+                max == null || other.max == null ? null : max.max(other.max)
+            );
+        }
+
+        private boolean finite() {
+            return min != null && max != null;
+        }
+
+    }
+
+    /**
+     * The ranges of Integer expressions, and of Integer variables keyed by
+     * their LET or FOR, by identity.
+     */
+    public static final class Ranges {
+
+        private final Map<Ir, Range> ranges;
+
+        private Ranges(Map<Ir, Range> ranges) {
+            this.ranges = ranges;
+        }
+
+        /**
+         * Returns the range of an expression or variable, which is unbounded
+         * if it isn't an Integer.
+         */
+        public Range range(Ir ir) {
+            return ranges.getOrDefault(ir, Range.UNBOUNDED);
+        }
+
+        public boolean fitsInt(Ir ir) {
+            return range(ir).fitsInt();
+        }
+
+        public boolean fitsLong(Ir ir) {
+            return range(ir).fitsLong();
+        }
+
+    }
+
+    private RangeAnalysis() {}
+
+    public static Ranges analyze(Ir.Source ir) {
+        var analyzer = new Analyzer();
+        do {
+            analyzer.changed = false;
+            analyzer.ranges.clear();
+            analyzer.visit(ir);
+            analyzer.iterations++;
+        } while (analyzer.changed);
+        return new Ranges(analyzer.ranges);
+    }
+
+    private static final class Analyzer extends ScopedTransformer {
+
+        /**
+         * The ranges of variables (by binding). A variable without a range
+         * hasn't been assigned a value yet, and neither have expressions
+         * without a range (in {@link #ranges}) been evaluated, which is
+         * resolved by iterating.
+         */
+        private final Map<Object, Range> variables = new IdentityHashMap<>();
+        private final Map<Ir, Range> ranges = new IdentityHashMap<>();
+        private boolean changed = false;
+        private int iterations = 0;
+
+        @Override
+        public Ir.Stmt visit(Ir.Stmt.Let ir) {
+            var let = super.visit(ir);
+            if (integer(ir.type())) {
+                if (ir.value().isEmpty()) {
+                    assign(let, Range.UNBOUNDED);
+                } else if (ranges.get(ir.value().get()) instanceof Range range) {
+                    assign(let, range);
+                }
+                if (variables.get(let) instanceof Range range) {
+                    ranges.put(let, range);
+                }
+            }
+            return let;
+        }
+
+        @Override
+        public Ir.Stmt visit(Ir.Stmt.For ir) {
+            visit(ir.expression());
+            if (integer(ir.type())) {
+                if (ir.expression() instanceof Ir.Expr.Function function && function.name().equals("range")
+                        && lookup("range") == null && function.arguments().size() == 2) {
+                    var start = ranges.get(function.arguments().get(0));
+                    var end = ranges.get(function.arguments().get(1));
+                    if (start != null && end != null) {
+                        var min = start.min() != null ? start.min().max(INT_MIN) : INT_MIN;
+                        var max = (end.max() != null ? end.max().min(INT_MAX) : INT_MAX).subtract(BigInteger.ONE);
+                        assign(ir, new Range(min, max));
+                    }
+                } else {
+                    assign(ir, Range.UNBOUNDED);
+                }
+                if (variables.get(ir) instanceof Range range) {
+                    ranges.put(ir, range);
+                }
+            }
+            scoped(ir.body(), Map.of(ir.name(), ir));
+            return ir;
+        }
+
+        @Override
+        public Ir.Stmt visit(Ir.Stmt.Assignment.Variable ir) {
+            var assignment = super.visit(ir);
+            var binding = lookup(ir.variable().name());
+            if ((binding instanceof Ir.Stmt.Let || binding instanceof Ir.Stmt.For)
+                    && ranges.get(ir.value()) instanceof Range range) {
+                assign(binding, range);
+            }
+            return assignment;
+        }
+
+        @Override
+        public Ir.Expr visit(Ir.Expr.Literal ir) {
+            if (ir.value() instanceof BigInteger value) {
+                ranges.put(ir, Range.of(value));
+            }
+            return ir;
+        }
+
+        @Override
+        public Ir.Expr visit(Ir.Expr.Group ir) {
+            var group = super.visit(ir);
+            if (ranges.get(ir.expression()) instanceof Range range) {
+                ranges.put(ir, range);
+            }
+            return group;
+        }
+
+        @Override
+        public Ir.Expr visit(Ir.Expr.Binary ir) {
+            var binary = super.visit(ir);
+            if (integer(ir.type())) {
+                var left = ranges.get(ir.left());
+                var right = ranges.get(ir.right());
+                if (left != null && right != null) {
+                    var range = switch (ir.operator()) {
+                        case "+" -> add(left, right);
+                        case "-" -> subtract(left, right);
+                        case "*" -> multiply(left, right);
+                        case "/" -> divide(left, right);
+                        default -> Range.UNBOUNDED;
+                    };
+                    if (range != null) {
+                        ranges.put(ir, range);
+                    }
+                }
+            }
+            return binary;
+        }
+
+        @Override
+        public Ir.Expr visit(Ir.Expr.Variable ir) {
+            if (integer(ir.type())) {
+                var binding = lookup(ir.name());
+                if (!(binding instanceof Ir.Stmt.Let || binding instanceof Ir.Stmt.For)) {
+                    ranges.put(ir, Range.UNBOUNDED);
+                } else if (variables.get(binding) instanceof Range range) {
+                    ranges.put(ir, range);
+                }
+            }
+            return ir;
+        }
+
+        @Override
+        public Ir.Expr visit(Ir.Expr.Property ir) {
+            return unbounded(super.visit(ir), ir.type());
+        }
+
+        @Override
+        public Ir.Expr visit(Ir.Expr.Function ir) {
+            return unbounded(super.visit(ir), ir.type());
+        }
+
+        @Override
+        public Ir.Expr visit(Ir.Expr.Method ir) {
+            return unbounded(super.visit(ir), ir.type());
+        }
+
+        private Ir.Expr unbounded(Ir.Expr ir, Type type) {
+            if (integer(type)) {
+                ranges.put(ir, Range.UNBOUNDED);
+            }
+            return ir;
+        }
+
+        /**
+         * Joins a range into the range of a variable, widening bounds which
+         * are still changing after {@link #WIDENING} iterations.
+         */
+        private void assign(Object binding, Range range) {
+            var previous = variables.get(binding);
+            if (previous == null) {
+                variables.put(binding, range);
+                changed = true;
+                return;
+            }
+            var joined = previous.join(range);
+            if (joined.equals(previous)) {
+                return;
+            }
+            if (iterations >= WIDENING) {
+                joined = new Range(
+                    Objects.equals(joined.min(), previous.min()) ? joined.min() : null,
+                    Objects.equals(joined.max(), previous.max()) ? joined.max() : null
+                );
+            }
+            variables.put(binding, joined);
+            changed = true;
+        }
+
+    }
+
+    private static boolean integer(Type type) {
+        return TypeInterner.equal(type, Type.INTEGER);
+    }
+
+    private static Range add(Range left, Range right) {
+        return new Range(
+            left.min() != null && right.min() != null ? left.min().add(right.min()) : null,
+            left.max() != null && right.max() != null ? left.max().add(right.max()) : null
+        );
+    }
+
+    private static Range subtract(Range left, Range right) {
+        return new Range(
+            left.min() != null && right.max() != null ? left.min().subtract(right.max()) : null,
+            left.max() != null && right.min() != null ? left.max().subtract(right.min()) : null
+        );
+    }
+
+    private static Range multiply(Range left, Range right) {
+        if (!left.finite() || !right.finite()) {
+            return Range.UNBOUNDED;
+        }
+        return corners(List.of(left.min(), left.max()), List.of(right.min(), right.max()), BigInteger::multiply);
+    }
+
+    /**
+     * Returns the range of truncating division (as BigInteger.divide), or
+     * null if the divisor is always zero so it never produces a value.
+     */
+    private static @Nullable Range divide(Range left, Range right) {
+        if (!left.finite()) {
+            return Range.UNBOUNDED;
+        } else if (!right.finite()) {
+            //The quotient's magnitude is at most the dividend's.
+            var magnitude = left.min().abs().max(left.max().abs());
+            return new Range(magnitude.negate(), magnitude);
+        }
+        //Extremes are at the ends of the negative and positive parts of the
+        //divisor's range.
+        var divisors = new ArrayList<BigInteger>();
+        for (var divisor : List.of(right.min(), right.max(), BigInteger.ONE.negate(), BigInteger.ONE)) {
+            if (divisor.signum() != 0 && divisor.compareTo(right.min()) >= 0 && divisor.compareTo(right.max()) <= 0) {
+                divisors.add(divisor);
+            }
+        }
+        if (divisors.isEmpty()) {
+            return null;
+        }
+        return corners(List.of(left.min(), left.max()), divisors, BigInteger::divide);
+    }
+
+    private static Range corners(List<BigInteger> left, List<BigInteger> right, BinaryOperator<BigInteger> operator) {
+        BigInteger min = null;
+        BigInteger max = null;
+        for (var a : left) {
+            for (var b : right) {
+                var value = operator.apply(a, b);
+                min = min == null ? value : min.min(value);
+                max = max == null ? value : max.max(value);
+            }
+        }
+        return new Range(min, max);
+    }
+
+}
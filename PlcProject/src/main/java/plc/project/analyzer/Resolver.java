@@ -0,0 +1,347 @@
+package plc.project.analyzer;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Resolves every variable reference, assignment and definition in an analyzed
+ * program to a static (depth, slot) coordinate, so variables can be stored in
+ * arrays instead of looked up by name through a chain of scopes.
+ *
+ * <p>Frames are only created where a scope is entered more than once: the
+ * source itself, function/method bodies (one frame per call) and FOR bodies
+ * (one frame per iteration, so closures capture each iteration's variable).
+ * IF branches don't get frames of their own; their variables get fresh slots
+ * in the enclosing frame instead, which keeps shadowing intact. Slots are
+ * never reused between blocks, since a function defined in one block may
+ * still reference its slots after the block has been exited.
+ *
+ * <p>Frame layouts are fixed: parameters of a function occupy slots
+ * {@code 0..n-1} and methods additionally have {@code this} in slot 0 (with
+ * parameters after it). The variable of a FOR loop is slot 0 of the body.
+ * Names that are not defined by the program itself (natives from the
+ * environment) are given slots in the root frame, see
+ * {@link Resolution#globals()}.
+ *
+ * <p>The resolution is keyed by node identity, since Ir nodes are records and
+ * equal nodes can appear in different scopes. Transformed programs must be
+ * resolved again.
+ */
+public final class Resolver implements Ir.Visitor<Void, RuntimeException> {
+
+    /**
+     * The location of a variable: depth is the number of frames to walk up
+     * from the current frame, slot the index within that frame.
+     */
+    public record Slot(int depth, int index) {}
+
+    public static final class Resolution {
+
+        private final Map<Ir, Slot> slots = new IdentityHashMap<>();
+        private final Map<Ir, Integer> sizes = new IdentityHashMap<>();
+        private final Map<String, Integer> globals = new LinkedHashMap<>();
+        private CountedLoops loops;
+        private CaptureAnalysis.Result captures;
+        private TailCalls tailCalls;
+        private Operations operations;
+
+        /**
+         * Returns the slot of a resolved node, which is the variable for
+         * {@link Ir.Expr.Variable}, the defined variable for
+         * {@link Ir.Stmt.Let}/{@link Ir.Stmt.Def} (relative to the frame the
+         * definition is evaluated in), the loop variable for
+         * {@link Ir.Stmt.For} (relative to the body) and the callee for
+         * {@link Ir.Expr.Function}.
+         */
+        public Slot slot(Ir ir) {
+            var slot = slots.get(ir);
+            if (slot == null) {
+                throw new IllegalArgumentException("Unresolved node " + ir + ".");
+            }
+            return slot;
+        }
+
+        /**
+         * Returns the number of slots in the frame of a {@link Ir.Source},
+         * {@link Ir.Stmt.Def} (including methods) or {@link Ir.Stmt.For}.
+         */
+        public int size(Ir ir) {
+            var size = sizes.get(ir);
+            if (size == null) {
+                throw new IllegalArgumentException("Node " + ir + " has no frame.");
+            }
+            return size;
+        }
+
+        /**
+         * Returns the names referenced but not defined by the program, mapped
+         * to their slot in the root frame.
+         */
+        public Map<String, Integer> globals() {
+            return globals;
+        }
+
+        /**
+         * Returns the counted loops of the program (see {@link CountedLoops}).
+         */
+        public CountedLoops loops() {
+            return loops;
+        }
+
+        /**
+         * Returns the scopes of the program which are captured by closures
+         * (see {@link CaptureAnalysis}), whose frames can't be reused.
+         */
+        public CaptureAnalysis.Result captures() {
+            return captures;
+        }
+
+        /**
+         * Returns the tail calls of the program (see {@link TailCalls}).
+         */
+        public TailCalls tailCalls() {
+            return tailCalls;
+        }
+
+        /**
+         * Returns the resolved kinds of the binary expressions of the program
+         * (see {@link Operations}).
+         */
+        public Operations operations() {
+            return operations;
+        }
+
+    }
+
+    /**
+     * A frame under construction, tracking the number of slots allocated.
+     */
+    private static final class Frame {
+        int size = 0;
+    }
+
+    /**
+     * A lexical scope, mapping names to their frame (by level, the index
+     * within the frames stack) and slot.
+     */
+    private record Block(Map<String, int[]> variables) {}
+
+    private final Resolution resolution = new Resolution();
+    private final List<Frame> frames = new ArrayList<>();
+    private final List<Block> scopes = new ArrayList<>();
+
+    public static Resolution resolve(Ir.Source ir) {
+        var resolver = new Resolver();
+        resolver.visit(ir);
+        return resolver.resolution;
+    }
+
+    public Resolution resolution() {
+        return resolution;
+    }
+
+    @Override
+    public Void visit(Ir.Source ir) {
+        pushFrame();
+        for (var statement : ir.statements()) {
+            visit(statement);
+        }
+        //Globals are allocated lazily, so the root frame is sized last.
+        resolution.sizes.put(ir, popFrame());
+        resolution.loops = CountedLoops.analyze(ir);
+        resolution.captures = CaptureAnalysis.analyze(ir);
+        resolution.tailCalls = TailCalls.analyze(ir);
+        resolution.operations = Operations.analyze(ir);
+        return null;
+    }
+
+    @Override
+    public Void visit(Ir.Stmt.Let ir) {
+        //The value is resolved before the variable is defined, since it can't
+        //reference the variable itself.
+        if (ir.value().isPresent()) {
+            visit(ir.value().get());
+        }
+        resolution.slots.put(ir, define(ir.name()));
+        return null;
+    }
+
+    @Override
+    public Void visit(Ir.Stmt.Def ir) {
+        //Functions are defined before their body, allowing recursion.
+        resolution.slots.put(ir, define(ir.name()));
+        function(ir, false);
+        return null;
+    }
+
+    @Override
+    public Void visit(Ir.Stmt.If ir) {
+        visit(ir.condition());
+        block(ir.thenBody());
+        block(ir.elseBody());
+        return null;
+    }
+
+    @Override
+    public Void visit(Ir.Stmt.For ir) {
+        visit(ir.expression());
+        pushFrame();
+        resolution.slots.put(ir, define(ir.name()));
+        for (var statement : ir.body()) {
+            visit(statement);
+        }
+        resolution.sizes.put(ir, popFrame());
+        return null;
+    }
+
+    @Override
+    public Void visit(Ir.Stmt.Return ir) {
+        if (ir.value().isPresent()) {
+            visit(ir.value().get());
+        }
+        return null;
+    }
+
+    @Override
+    public Void visit(Ir.Stmt.Expression ir) {
+        visit(ir.expression());
+        return null;
+    }
+
+    @Override
+    public Void visit(Ir.Stmt.Assignment.Variable ir) {
+        visit(ir.value());
+        visit(ir.variable());
+        return null;
+    }
+
+    @Override
+    public Void visit(Ir.Stmt.Assignment.Property ir) {
+        visit(ir.property().receiver());
+        visit(ir.value());
+        return null;
+    }
+
+    @Override
+    public Void visit(Ir.Expr.Literal ir) {
+        return null;
+    }
+
+    @Override
+    public Void visit(Ir.Expr.Group ir) {
+        visit(ir.expression());
+        return null;
+    }
+
+    @Override
+    public Void visit(Ir.Expr.Binary ir) {
+        visit(ir.left());
+        visit(ir.right());
+        return null;
+    }
+
+    @Override
+    public Void visit(Ir.Expr.Variable ir) {
+        resolution.slots.put(ir, lookup(ir.name()));
+        return null;
+    }
+
+    @Override
+    public Void visit(Ir.Expr.Property ir) {
+        visit(ir.receiver());
+        return null;
+    }
+
+    @Override
+    public Void visit(Ir.Expr.Function ir) {
+        resolution.slots.put(ir, lookup(ir.name()));
+        for (var argument : ir.arguments()) {
+            visit(argument);
+        }
+        return null;
+    }
+
+    @Override
+    public Void visit(Ir.Expr.Method ir) {
+        visit(ir.receiver());
+        for (var argument : ir.arguments()) {
+            visit(argument);
+        }
+        return null;
+    }
+
+    @Override
+    public Void visit(Ir.Expr.ObjectExpr ir) {
+        //Fields are properties (looked up by name on the object), and their
+        //values are resolved in the enclosing scope like the Analyzer does.
+        for (var field : ir.fields()) {
+            if (field.value().isPresent()) {
+                visit(field.value().get());
+            }
+        }
+        for (var method : ir.methods()) {
+            function(method, true);
+        }
+        return null;
+    }
+
+    private void function(Ir.Stmt.Def ir, boolean method) {
+        pushFrame();
+        if (method) {
+            define("this");
+        }
+        for (var parameter : ir.parameters()) {
+            define(parameter.name());
+        }
+        for (var statement : ir.body()) {
+            visit(statement);
+        }
+        resolution.sizes.put(ir, popFrame());
+    }
+
+    private void block(List<Ir.Stmt> statements) {
+        scopes.add(new Block(new HashMap<>()));
+        for (var statement : statements) {
+            visit(statement);
+        }
+        scopes.removeLast();
+    }
+
+    private void pushFrame() {
+        frames.add(new Frame());
+        scopes.add(new Block(new HashMap<>()));
+    }
+
+    private int popFrame() {
+        scopes.removeLast();
+        return frames.removeLast().size;
+    }
+
+    private Slot define(String name) {
+        var level = frames.size() - 1;
+        var slot = frames.getLast().size++;
+        scopes.getLast().variables().put(name, new int[] {level, slot});
+        return new Slot(0, slot);
+    }
+
+    private Slot lookup(String name) {
+        var level = frames.size() - 1;
+        for (var scope : scopes.reversed()) {
+            var variable = scope.variables().get(name);
+            if (variable != null) {
+                return new Slot(level - variable[0], variable[1]);
+            }
+        }
+        var global = resolution.globals.get(name);
+        if (global == null) {
+            global = frames.getFirst().size++;
+            resolution.globals.put(name, global);
+        }
+        return new Slot(level, global);
+    }
+
+}
@@ -0,0 +1,97 @@
+package plc.project.analyzer;
+
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Replaces objects which don't escape (see {@link EscapeAnalysis}) with a
+ * LET for each field, so no object (and its scope) is allocated:
+ *
+ * <pre>{@code
+ * LET point = OBJECT DO LET x = 1; LET y = 2; END;
+ * point.x = point.x + point.y;
+ * }</pre>
+ *
+ * <p>becomes {@code LET point$x = 1; LET point$y = 2; point$x = point$x +
+ * point$y;}. Fields are evaluated in the same order as before, and reads
+ * and assignments of fields become reads and assignments of variables.
+ * Replacing an object can make objects stored in its fields local, so this
+ * is repeated until no local objects are left.
+ */
+public final class ScalarReplacement implements Pass {
+
+    @Override
+    public Ir.Source apply(Ir.Source ir) {
+        while (true) {
+            var result = EscapeAnalysis.analyze(ir);
+            if (result.local().isEmpty()) {
+                return ir;
+            }
+            ir = new Replacer(result, new FreshNames(ir)).visit(ir);
+        }
+    }
+
+    /**
+     * The binding of a replaced object's variable, mapping its fields to
+     * their variables.
+     */
+    private record Replaced(Map<String, String> fields) {}
+
+    private static final class Replacer extends ScopedTransformer {
+
+        private final EscapeAnalysis.Result result;
+        private final FreshNames names;
+
+        private Replacer(EscapeAnalysis.Result result, FreshNames names) {
+            this.result = result;
+            this.names = names;
+        }
+
+        @Override
+        protected void statement(Ir.Stmt statement, List<Ir.Stmt> block) {
+            if (!(statement instanceof Ir.Stmt.Let let) || !(let.value().orElse(null) instanceof Ir.Expr.ObjectExpr object)
+                    || result.escapes(object)) {
+                super.statement(statement, block);
+                return;
+            }
+            var fields = new HashMap<String, String>();
+            for (var field : object.fields()) {
+                var name = names.fresh(let.name() + "$" + field.name());
+                block.add(new Ir.Stmt.Let(name, field.type(), optional(field.value())));
+                fields.put(field.name(), name);
+            }
+            define(let.name(), new Replaced(fields));
+        }
+
+        @Override
+        public Ir.Stmt visit(Ir.Stmt.Assignment.Property ir) {
+            var variable = field(ir.property());
+            if (variable == null) {
+                return super.visit(ir);
+            }
+            return new Ir.Stmt.Assignment.Variable(variable, visit(ir.value()));
+        }
+
+        @Override
+        public Ir.Expr visit(Ir.Expr.Property ir) {
+            var variable = field(ir);
+            return variable != null ? variable : super.visit(ir);
+        }
+
+        /**
+         * Returns the variable replacing a property, or null if the receiver
+         * isn't a replaced object.
+         */
+        private Ir.Expr.@Nullable Variable field(Ir.Expr.Property ir) {
+            if (ir.receiver() instanceof Ir.Expr.Variable receiver && lookup(receiver.name()) instanceof Replaced replaced) {
+                return new Ir.Expr.Variable(replaced.fields().get(ir.name()), ir.type());
+            }
+            return null;
+        }
+
+    }
+
+}
@@ -1,6 +1,5 @@
 package plc.project.analyzer;
 
-import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
@@ -12,23 +11,22 @@ import java.util.Optional;
 public final class Scope {
 
     private final Scope parent;
-    private final Map<String, Type> variables = new LinkedHashMap<>();
+    private final SymbolTable variables = new SymbolTable();
 
     public Scope(Scope parent) {
         this.parent = parent;
     }
 
     public void define(String name, Type type) {
-        if (!variables.containsKey(name)) {
-            variables.put(name, type);
-        } else {
+        if (!variables.put(name, type)) {
             throw new IllegalStateException("Variable is already defined.");
         }
     }
 
     public Optional<Type> get(String name, boolean current) {
-        if (variables.containsKey(name)) {
-            return Optional.of(variables.get(name));
+        var type = variables.get(name);
+        if (type != null) {
+            return Optional.of(type);
         } else if (parent != null && !current) {
             return parent.get(name, false);
         } else {
@@ -49,10 +47,10 @@ public final class Scope {
 
     public Map<String, Type> collect(boolean current) {
         if (current || parent == null) {
-            return new LinkedHashMap<>(variables);
+            return variables.toMap();
         } else {
             var map = parent.collect(false);
-            map.putAll(variables);
+            variables.forEach(map::put);
             return map;
         }
     }
@@ -0,0 +1,192 @@
+package plc.project.analyzer;
+
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * An {@link IrTransformer} which tracks the variables in scope, following the
+ * same scoping rules as the Analyzer: the source, function/method bodies, IF
+ * branches and FOR bodies are scopes, and object fields are properties rather
+ * than variables.
+ *
+ * <p>Each variable is bound to an object identifying its definition, so two
+ * references refer to the same variable if and only if their bindings are
+ * the same: the (transformed) LET for variables, the (original) DEF for
+ * functions, which is defined before its body is transformed, the (original)
+ * FOR for its variable, a unique {@link This} for this (identifying the
+ * object), and a unique object for parameters. Names which are not bound are
+ * defined by the environment.
+ */
+public abstract class ScopedTransformer extends IrTransformer {
+
+    /**
+     * The binding of this in a method, identifying the (original) object
+     * expression the method belongs to. Each method gets its own binding.
+     */
+    public static final class This {
+
+        private final Ir.Expr.ObjectExpr object;
+
+        private This(Ir.Expr.ObjectExpr object) {
+            this.object = object;
+        }
+
+        public Ir.Expr.ObjectExpr object() {
+            return object;
+        }
+
+    }
+
+    private final List<Map<String, Object>> scopes = new ArrayList<>();
+    private final List<Ir.Expr.ObjectExpr> objects = new ArrayList<>();
+
+    /**
+     * Returns the binding of a name in the current scope, or null if it is
+     * not defined (and thus refers to the environment).
+     */
+    protected @Nullable Object lookup(String name) {
+        for (var scope : scopes.reversed()) {
+            var binding = scope.get(name);
+            if (binding != null) {
+                return binding;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Returns the index of the innermost scope defining a name, where 0 is
+     * the outermost scope, or -1 if it is not defined.
+     */
+    protected int depth(String name) {
+        for (int i = scopes.size() - 1; i >= 0; i--) {
+            if (scopes.get(i).containsKey(name)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Returns the number of scopes currently entered, which is the depth of
+     * names defined by the next scope (see {@link #depth(String)}).
+     */
+    protected int level() {
+        return scopes.size();
+    }
+
+    protected void define(String name, Object binding) {
+        scopes.getLast().put(name, binding);
+    }
+
+    @Override
+    public Ir.Source visit(Ir.Source ir) {
+        scopes.add(new HashMap<>());
+        try {
+            return super.visit(ir);
+        } finally {
+            scopes.removeLast();
+        }
+    }
+
+    @Override
+    public Ir.Stmt visit(Ir.Stmt.Let ir) {
+        var let = super.visit(ir);
+        define(ir.name(), let);
+        return let;
+    }
+
+    @Override
+    public Ir.Stmt visit(Ir.Stmt.Def ir) {
+        //Defined before the body, allowing recursion.
+        define(ir.name(), ir);
+        return function(ir, List.of());
+    }
+
+    @Override
+    public Ir.Stmt visit(Ir.Stmt.If ir) {
+        var condition = visit(ir.condition());
+        var thenBody = scoped(ir.thenBody(), List.of());
+        var elseBody = scoped(ir.elseBody(), List.of());
+        if (condition == ir.condition() && thenBody == ir.thenBody() && elseBody == ir.elseBody()) {
+            return ir;
+        }
+        return new Ir.Stmt.If(condition, thenBody, elseBody);
+    }
+
+    @Override
+    public Ir.Stmt visit(Ir.Stmt.For ir) {
+        var expression = visit(ir.expression());
+        var body = scoped(ir.body(), Map.of(ir.name(), ir));
+        if (expression == ir.expression() && body == ir.body()) {
+            return ir;
+        }
+        return new Ir.Stmt.For(ir.name(), ir.type(), expression, body);
+    }
+
+    @Override
+    public Ir.Expr visit(Ir.Expr.ObjectExpr ir) {
+        objects.add(ir);
+        try {
+            return super.visit(ir);
+        } finally {
+            objects.removeLast();
+        }
+    }
+
+    @Override
+    protected Ir.Stmt.Let field(Ir.Stmt.Let ir) {
+        var value = optional(ir.value());
+        return value == ir.value() ? ir : new Ir.Stmt.Let(ir.name(), ir.type(), value);
+    }
+
+    @Override
+    protected Ir.Stmt.Def method(Ir.Stmt.Def ir) {
+        return function(ir, List.of("this"));
+    }
+
+    /**
+     * Transforms the body of a function or method in a new scope, with the
+     * implicit variables (this) and parameters defined.
+     */
+    protected Ir.Stmt.Def function(Ir.Stmt.Def ir, List<String> implicit) {
+        var bindings = new HashMap<String, Object>();
+        for (var name : implicit) {
+            bindings.put(name, name.equals("this") && !objects.isEmpty() ? new This(objects.getLast()) : new Object());
+        }
+        for (var parameter : ir.parameters()) {
+            bindings.put(parameter.name(), new Object());
+        }
+        var body = scoped(ir.body(), bindings);
+        return body == ir.body() ? ir : new Ir.Stmt.Def(ir.name(), ir.parameters(), ir.returns(), body);
+    }
+
+    /**
+     * Transforms a block in a new scope, with the given variables defined
+     * (each bound to a unique object).
+     */
+    protected List<Ir.Stmt> scoped(List<Ir.Stmt> statements, List<String> variables) {
+        var bindings = new HashMap<String, Object>();
+        for (var variable : variables) {
+            bindings.put(variable, new Object());
+        }
+        return scoped(statements, bindings);
+    }
+
+    /**
+     * Transforms a block in a new scope, with the given bindings defined.
+     */
+    protected List<Ir.Stmt> scoped(List<Ir.Stmt> statements, Map<String, Object> bindings) {
+        scopes.add(new HashMap<>(bindings));
+        try {
+            return block(statements);
+        } finally {
+            scopes.removeLast();
+        }
+    }
+
+}
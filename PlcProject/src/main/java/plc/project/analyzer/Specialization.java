@@ -0,0 +1,282 @@
+package plc.project.analyzer;
+
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Specializes functions on constant arguments: calls passing literals for
+ * some parameters (of the parameter's type) call a clone of the function
+ * instead, which only has the other parameters and starts with a LET for
+ * each constant one. {@link ConstantFolding} then propagates the constants
+ * through the body, and {@link DeadCodeElimination} removes branches on
+ * them, so the clone no longer checks its configuration at runtime.
+ *
+ * <p>Each distinct function and tuple of constants gets one clone (with a
+ * fresh name, see {@link FreshNames}), in order of the first call, as long
+ * as the total size of the clones (see {@link Optimizer#size(Ir)}) stays
+ * within the budget. Clones are defined right after the original DEF, so
+ * free variables resolve to the same variables, and calls are only
+ * rewritten where the clone is in scope: not in the body of the function
+ * itself, except for recursive calls in the clone with the same constants.
+ *
+ * <p>Like {@link Inlining}, a function is only specialized if its name is
+ * never assigned anywhere in the program (checked by name, so this is
+ * conservative), so calls always invoke it. Methods aren't specialized.
+ */
+public final class Specialization implements Pass {
+
+    public static final int DEFAULT_BUDGET = 100;
+
+    private final int budget;
+
+    public Specialization() {
+        this(DEFAULT_BUDGET);
+    }
+
+    public Specialization(int budget) {
+        this.budget = budget;
+    }
+
+    @Override
+    public Ir.Source apply(Ir.Source ir) {
+        var assigned = Devirtualization.Assigned.of(ir).variables();
+        var collector = new Collector(assigned);
+        collector.visit(ir);
+        var names = new FreshNames(ir);
+        var specializations = new HashMap<Key, Ir.Stmt.Def>();
+        var clones = new IdentityHashMap<Ir.Stmt.Def, List<Ir.Stmt.Def>>();
+        var size = 0;
+        for (var key : collector.keys) {
+            var clone = key.clone(names.fresh(key.def().name()));
+            if (size + Optimizer.size(clone) > budget) {
+                continue;
+            }
+            size += Optimizer.size(clone);
+            specializations.put(key, clone);
+            clones.computeIfAbsent(key.def(), _ -> new ArrayList<>()).add(clone);
+        }
+        if (clones.isEmpty()) {
+            return ir;
+        }
+        return new Specializer(assigned, specializations, clones).visit(ir);
+    }
+
+    /**
+     * A function (by identity) with the constant arguments of a call, or
+     * empty for the arguments which aren't constant.
+     */
+    private record Key(Ir.Stmt.Def def, List<Optional<Ir.Expr.Literal>> constants) {
+
+        @Override
+        public boolean equals(Object object) {
+            return object instanceof Key key && key.def == def && key.constants.equals(constants);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * System.identityHashCode(def) + constants.hashCode();
+        }
+
+        /**
+         * Returns the key of a call to a function, or null if it has no
+         * constant arguments.
+         */
+        private static @Nullable Key of(Ir.Stmt.Def def, List<Ir.Expr> arguments) {
+            if (arguments.size() != def.parameters().size()) {
+                return null;
+            }
+            var constants = new ArrayList<Optional<Ir.Expr.Literal>>();
+            var any = false;
+            for (int i = 0; i < arguments.size(); i++) {
+                //Constants are only propagated if the LET has the same type.
+                if (arguments.get(i) instanceof Ir.Expr.Literal literal
+                        && TypeInterner.equal(literal.type(), def.parameters().get(i).type())) {
+                    constants.add(Optional.of(literal));
+                    any = true;
+                } else {
+                    constants.add(Optional.empty());
+                }
+            }
+            return any ? new Key(def, constants) : null;
+        }
+
+        private Ir.Stmt.Def clone(String name) {
+            var parameters = new ArrayList<Ir.Stmt.Def.Parameter>();
+            var body = new ArrayList<Ir.Stmt>();
+            for (int i = 0; i < constants.size(); i++) {
+                var parameter = def.parameters().get(i);
+                if (constants.get(i).isPresent()) {
+                    body.add(new Ir.Stmt.Let(parameter.name(), parameter.type(), Optional.of(constants.get(i).get())));
+                } else {
+                    parameters.add(parameter);
+                }
+            }
+            body.addAll(def.body());
+            return new Ir.Stmt.Def(name, parameters, def.returns(), body);
+        }
+
+        /**
+         * Returns the arguments of a call which aren't constant.
+         */
+        private List<Ir.Expr> arguments(List<Ir.Expr> arguments) {
+            var remaining = new ArrayList<Ir.Expr>();
+            for (int i = 0; i < arguments.size(); i++) {
+                if (constants.get(i).isEmpty()) {
+                    remaining.add(arguments.get(i));
+                }
+            }
+            return remaining;
+        }
+
+    }
+
+    /**
+     * Returns the function a call invokes, if it can be specialized.
+     */
+    private static Ir.Stmt.@Nullable Def target(ScopedTransformer scope, Set<String> assigned, Ir.Expr.Function ir) {
+        return scope.lookup(ir.name()) instanceof Ir.Stmt.Def def && !assigned.contains(def.name()) ? def : null;
+    }
+
+    /**
+     * Collects the keys of calls which can be specialized, in order.
+     */
+    private static final class Collector extends ScopedTransformer {
+
+        private final Set<String> assigned;
+        private final Set<Key> keys = Collections.newSetFromMap(new LinkedHashMap<>());
+        private final Set<Ir.Stmt.Def> enclosing = Collections.newSetFromMap(new IdentityHashMap<>());
+
+        private Collector(Set<String> assigned) {
+            this.assigned = assigned;
+        }
+
+        @Override
+        public Ir.Stmt visit(Ir.Stmt.Def ir) {
+            enclosing.add(ir);
+            try {
+                return super.visit(ir);
+            } finally {
+                enclosing.remove(ir);
+            }
+        }
+
+        @Override
+        public Ir.Expr visit(Ir.Expr.Function ir) {
+            var def = target(this, assigned, ir);
+            //The clone isn't in scope in the body of the function.
+            var key = def != null && !enclosing.contains(def) ? Key.of(def, ir.arguments()) : null;
+            if (key != null) {
+                keys.add(key);
+            }
+            return super.visit(ir);
+        }
+
+    }
+
+    /**
+     * Defines the clones after their functions and rewrites calls.
+     */
+    private static final class Specializer extends ScopedTransformer {
+
+        private final Set<String> assigned;
+        private final Map<Key, Ir.Stmt.Def> specializations;
+        private final Map<Ir.Stmt.Def, List<Ir.Stmt.Def>> clones;
+
+        private Specializer(Set<String> assigned, Map<Key, Ir.Stmt.Def> specializations, Map<Ir.Stmt.Def, List<Ir.Stmt.Def>> clones) {
+            this.assigned = assigned;
+            this.specializations = specializations;
+            this.clones = clones;
+        }
+
+        @Override
+        protected void statement(Ir.Stmt statement, List<Ir.Stmt> block) {
+            super.statement(statement, block);
+            if (statement instanceof Ir.Stmt.Def def) {
+                for (var clone : clones.getOrDefault(def, List.of())) {
+                    //The body is shared with the original, so the result is
+                    //copied (see Copier).
+                    block.add(new Copier().visit(visit((Ir.Stmt) clone)));
+                }
+            }
+        }
+
+        @Override
+        public Ir.Expr visit(Ir.Expr.Function ir) {
+            var function = (Ir.Expr.Function) super.visit(ir);
+            var def = target(this, assigned, ir);
+            var key = def != null ? Key.of(def, function.arguments()) : null;
+            var clone = key != null ? specializations.get(key) : null;
+            if (clone == null || lookup(clone.name()) != clone) {
+                return function;
+            }
+            return new Ir.Expr.Function(clone.name(), key.arguments(function.arguments()), function.type());
+        }
+
+    }
+
+    /**
+     * Copies every node of a tree, so nodes which are resolved by the
+     * {@link Resolver} (which are identified by identity) aren't shared.
+     * Since parents of changed nodes are rebuilt, it suffices to rebuild the
+     * leaves and nodes which may not have children.
+     */
+    private static final class Copier extends IrTransformer {
+
+        @Override
+        public Ir.Stmt visit(Ir.Stmt.Let ir) {
+            var let = (Ir.Stmt.Let) super.visit(ir);
+            return let != ir ? let : new Ir.Stmt.Let(ir.name(), ir.type(), ir.value());
+        }
+
+        @Override
+        public Ir.Stmt visit(Ir.Stmt.Def ir) {
+            var def = (Ir.Stmt.Def) super.visit(ir);
+            return def != ir ? def : new Ir.Stmt.Def(ir.name(), ir.parameters(), ir.returns(), ir.body());
+        }
+
+        @Override
+        public Ir.Stmt visit(Ir.Stmt.Return ir) {
+            var stmt = super.visit(ir);
+            return stmt != ir ? stmt : new Ir.Stmt.Return(ir.value());
+        }
+
+        @Override
+        public Ir.Stmt visit(Ir.Stmt.Assignment.Variable ir) {
+            var variable = (Ir.Expr.Variable) visit(ir.variable());
+            return new Ir.Stmt.Assignment.Variable(variable, visit(ir.value()));
+        }
+
+        @Override
+        public Ir.Expr visit(Ir.Expr.Literal ir) {
+            return new Ir.Expr.Literal(ir.value(), ir.type());
+        }
+
+        @Override
+        public Ir.Expr visit(Ir.Expr.Variable ir) {
+            return new Ir.Expr.Variable(ir.name(), ir.type());
+        }
+
+        @Override
+        public Ir.Expr visit(Ir.Expr.Function ir) {
+            var function = super.visit(ir);
+            return function != ir ? function : new Ir.Expr.Function(ir.name(), ir.arguments(), ir.type());
+        }
+
+        @Override
+        public Ir.Expr visit(Ir.Expr.ObjectExpr ir) {
+            var object = super.visit(ir);
+            return object != ir ? object : new Ir.Expr.ObjectExpr(ir.name(), ir.fields(), ir.methods(), ir.type());
+        }
+
+    }
+
+}
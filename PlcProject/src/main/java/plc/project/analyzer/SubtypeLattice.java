@@ -0,0 +1,112 @@
+package plc.project.analyzer;
+
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The subtype relation, precomputed so checks don't rebuild it with chains of
+ * equals calls.
+ *
+ * <p>Subtyping between primitives is a bit matrix: each primitive has an
+ * index, and {@code SUBTYPES[i]} has bit {@code j} set if primitive {@code i}
+ * is a subtype of primitive {@code j}. Function and object types are only
+ * subtypes of themselves (and Any), but comparing them structurally is not
+ * free (see {@link TypeInterner}), so results for these pairs are memoized.
+ *
+ * <p>The memo is a small direct-mapped cache keyed by identity, so it never
+ * holds more than {@link #MEMO_SIZE} pairs and never grows with the number
+ * of programs analyzed. Entries are immutable and replaced as a whole, so
+ * concurrent access (see {@link ParallelAnalyzer}) at worst misses.
+ */
+final class SubtypeLattice {
+
+    private static final List<Type.Primitive> PRIMITIVES = List.of(
+        Type.NIL, Type.BOOLEAN, Type.INTEGER, Type.DECIMAL, Type.STRING,
+        Type.ANY, Type.EQUATABLE, Type.COMPARABLE, Type.ITERABLE
+    );
+
+    private static final Map<Type.Primitive, Integer> IDENTITIES = new IdentityHashMap<>();
+    private static final int[] SUBTYPES = new int[PRIMITIVES.size()];
+    private static final int ANY = PRIMITIVES.indexOf(Type.ANY);
+
+    private static final int MEMO_SIZE = 256;
+
+    private record Entry(Type type, Type other, boolean subtype) {}
+
+    private static final Entry[] MEMO = new Entry[MEMO_SIZE];
+
+    static {
+        for (int i = 0; i < PRIMITIVES.size(); i++) {
+            IDENTITIES.put(PRIMITIVES.get(i), i);
+        }
+        for (var type : PRIMITIVES) {
+            // All types are subtypes of themselves and Any (similar to Java's Object).
+            relate(type, type);
+            relate(type, Type.ANY);
+        }
+        // Boolean, Integer, Decimal, String are subtypes of Comparable.
+        for (var type : List.of(Type.BOOLEAN, Type.INTEGER, Type.DECIMAL, Type.STRING)) {
+            relate(type, Type.COMPARABLE);
+        }
+        // Nil, Comparable (and all subtypes), Iterable are subtypes of Equatable.
+        for (var type : List.of(Type.NIL, Type.COMPARABLE, Type.ITERABLE)) {
+            relate(type, Type.EQUATABLE);
+        }
+        for (var type : PRIMITIVES) {
+            if (isSubtype(type, Type.COMPARABLE)) {
+                relate(type, Type.EQUATABLE);
+            }
+        }
+    }
+
+    private SubtypeLattice() {}
+
+    /**
+     * Returns whether type is a subtype of other.
+     */
+    static boolean isSubtype(Type type, Type other) {
+        if (type == other) {
+            return true;
+        }
+        if (other instanceof Type.Primitive primitive) {
+            var j = index(primitive);
+            if (type instanceof Type.Primitive subtype) {
+                var i = index(subtype);
+                if (i >= 0 && j >= 0) {
+                    return (SUBTYPES[i] & (1 << j)) != 0;
+                }
+                //Unknown primitives are only related to equal primitives.
+                return subtype.equals(primitive) || primitive.equals(Type.ANY);
+            }
+            return j == ANY;
+        }
+        if (type instanceof Type.Primitive) {
+            return false;
+        }
+        var slot = (31 * System.identityHashCode(type) + System.identityHashCode(other)) & (MEMO_SIZE - 1);
+        var entry = MEMO[slot];
+        if (entry != null && entry.type == type && entry.other == other) {
+            return entry.subtype;
+        }
+        var subtype = TypeInterner.equal(type, other);
+        MEMO[slot] = new Entry(type, other, subtype);
+        return subtype;
+    }
+
+    private static void relate(Type.Primitive type, Type.Primitive other) {
+        SUBTYPES[index(type)] |= 1 << index(other);
+    }
+
+    /**
+     * Returns the index of a primitive, or -1 if it isn't a known primitive.
+     * Primitives are the constants from {@link Type}, so they are looked up
+     * by identity; an equal primitive constructed elsewhere falls back to a
+     * scan of the (few) known primitives.
+     */
+    private static int index(Type.Primitive type) {
+        var index = IDENTITIES.get(type);
+        return index != null ? index : PRIMITIVES.indexOf(type);
+    }
+
+}
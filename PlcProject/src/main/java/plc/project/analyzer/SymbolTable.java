@@ -0,0 +1,164 @@
+package plc.project.analyzer;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.BiConsumer;
+
+/**
+ * A compact map of names to types for {@link Scope}s, which are mostly empty
+ * or hold a handful of variables. Entries are stored in insertion order in
+ * parallel arrays (allocated on the first definition), which are searched
+ * linearly while small. Above {@link #THRESHOLD} entries an open-addressing
+ * table of indices into the arrays is added (linear probing, at most half
+ * full), so lookups in large scopes (the environment, a program's top level)
+ * stay constant time.
+ *
+ * <p>Entries can't be removed, which is all scopes need.
+ */
+final class SymbolTable {
+
+    static final int THRESHOLD = 8;
+
+    private String[] names;
+    private Type[] types;
+    private int size = 0;
+
+    /**
+     * The index of each entry plus one (0 is empty), by the hash of its name,
+     * or null while the table is small.
+     */
+    private int[] table;
+
+    int size() {
+        return size;
+    }
+
+    /**
+     * Returns the type of a name, or null if it isn't defined.
+     */
+    Type get(String name) {
+        var index = indexOf(name);
+        return index >= 0 ? types[index] : null;
+    }
+
+    boolean containsKey(String name) {
+        return indexOf(name) >= 0;
+    }
+
+    /**
+     * Defines a name, returning false (without changing the table) if it is
+     * already defined.
+     */
+    boolean put(String name, Type type) {
+        if (indexOf(name) >= 0) {
+            return false;
+        }
+        if (names == null) {
+            names = new String[2];
+            types = new Type[2];
+        } else if (size == names.length) {
+            names = Arrays.copyOf(names, size * 2);
+            types = Arrays.copyOf(types, size * 2);
+        }
+        names[size] = name;
+        types[size] = type;
+        size++;
+        if (table != null && size * 2 > table.length) {
+            rehash(table.length * 2);
+        } else if (table != null) {
+            insert(table, name, size);
+        } else if (size > THRESHOLD) {
+            rehash(Integer.highestOneBit(size) * 4);
+        }
+        return true;
+    }
+
+    void forEach(BiConsumer<String, Type> action) {
+        for (int i = 0; i < size; i++) {
+            action.accept(names[i], types[i]);
+        }
+    }
+
+    /**
+     * Returns the entries as a (new) map, in insertion order.
+     */
+    Map<String, Type> toMap() {
+        var map = new LinkedHashMap<String, Type>();
+        forEach(map::put);
+        return map;
+    }
+
+    private int indexOf(String name) {
+        if (table == null) {
+            for (int i = 0; i < size; i++) {
+                if (names[i].equals(name)) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+        var mask = table.length - 1;
+        for (int slot = hash(name) & mask; table[slot] != 0; slot = (slot + 1) & mask) {
+            if (names[table[slot] - 1].equals(name)) {
+                return table[slot] - 1;
+            }
+        }
+        return -1;
+    }
+
+    private void rehash(int capacity) {
+        table = new int[capacity];
+        for (int i = 0; i < size; i++) {
+            insert(table, names[i], i + 1);
+        }
+    }
+
+    private static void insert(int[] table, String name, int entry) {
+        var mask = table.length - 1;
+        var slot = hash(name) & mask;
+        while (table[slot] != 0) {
+            slot = (slot + 1) & mask;
+        }
+        table[slot] = entry;
+    }
+
+    private static int hash(String name) {
+        var hash = name.hashCode();
+        return hash ^ (hash >>> 16);
+    }
+
+    /**
+     * Tables are equal if they have the same entries (like maps, regardless
+     * of order).
+     */
+    @Override
+    public boolean equals(Object obj) {
+        if (!(obj instanceof SymbolTable other) || size != other.size) {
+            return false;
+        }
+        for (int i = 0; i < size; i++) {
+            var index = other.indexOf(names[i]);
+            if (index < 0 || !Objects.equals(types[i], other.types[index])) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public int hashCode() {
+        var hash = 0;
+        for (int i = 0; i < size; i++) {
+            hash += names[i].hashCode() ^ Objects.hashCode(types[i]);
+        }
+        return hash;
+    }
+
+    @Override
+    public String toString() {
+        return toMap().toString();
+    }
+
+}
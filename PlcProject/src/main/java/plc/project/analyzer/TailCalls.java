@@ -0,0 +1,54 @@
+package plc.project.analyzer;
+
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+/**
+ * Finds tail calls, {@code RETURN f(...)} or {@code RETURN receiver.m(...)}
+ * (possibly grouped), where the result of the call is the result of the
+ * function returning it. A runtime can then return from the function before
+ * making the call (see IrEvaluator), so tail recursion runs in constant stack
+ * space.
+ *
+ * <p>Tail calls map each RETURN of a call to the call it returns. Every
+ * RETURN is in tail position, as it exits the function wherever it is in the
+ * body.
+ */
+public final class TailCalls {
+
+    private final Map<Ir.Stmt.Return, Ir.Expr> calls;
+
+    private TailCalls(Map<Ir.Stmt.Return, Ir.Expr> calls) {
+        this.calls = calls;
+    }
+
+    /**
+     * Returns the call (an {@link Ir.Expr.Function} or {@link Ir.Expr.Method},
+     * without groups) returned by a RETURN statement, or null if it doesn't
+     * return a call.
+     */
+    public Ir.@Nullable Expr call(Ir.Stmt.Return ir) {
+        return calls.get(ir);
+    }
+
+    public static TailCalls analyze(Ir.Source ir) {
+        var calls = new IdentityHashMap<Ir.Stmt.Return, Ir.Expr>();
+        new IrTransformer() {
+            @Override
+            public Ir.Stmt visit(Ir.Stmt.Return ir) {
+                var value = ir.value().orElse(null);
+                while (value instanceof Ir.Expr.Group group) {
+                    value = group.expression();
+                }
+                if (value instanceof Ir.Expr.Function || value instanceof Ir.Expr.Method) {
+                    calls.put(ir, value);
+                }
+                return super.visit(ir);
+            }
+        }.visit(ir);
+        return new TailCalls(calls);
+    }
+
+}
@@ -0,0 +1,224 @@
+package plc.project.analyzer;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Removes code which can't be reached from the program (see
+ * {@link CallGraph}):
+ *
+ * <ul>
+ *     <li>DEF statements (at any level) which aren't reachable, including
+ *     groups of functions which only reference each other, which
+ *     {@link DeadCodeElimination} keeps.</li>
+ *     <li>Unreachable methods and unused fields of closed objects: objects
+ *     bound to a LET which is never assigned, where the variable (and this
+ *     in its methods) is only ever used as the receiver of a property or
+ *     method call, and none of whose methods escape (see
+ *     {@link Devirtualization}). The object itself is then never observed as
+ *     a value (e.g. printed), so removing members doesn't change the
+ *     behavior. If a method which escapes uses this as a value, it may
+ *     observe any object, so none are closed. A field is
+ *     unused if no property or method of its name is accessed anywhere in
+ *     the program and its value has no side effects.</li>
+ * </ul>
+ *
+ * <p>Methods of objects which aren't closed are kept (they may still be
+ * observed), as are the last top-level statement, whose value is the value
+ * of the program (and the last statements of its branches if it is an IF),
+ * and the functions they reference. Removing members can make functions
+ * unreachable, so this is repeated until nothing changes.
+ */
+public final class TreeShaking implements Pass {
+
+    @Override
+    public Ir.Source apply(Ir.Source ir) {
+        while (true) {
+            var graph = CallGraph.build(ir);
+            var closed = Closed.analyze(ir);
+            //Methods of other objects are kept, as are DEFs in tail position,
+            //so the functions they reference must be kept too.
+            var roots = new ArrayList<Ir>(List.of(ir));
+            new IrTransformer() {
+                @Override
+                public Ir.Expr visit(Ir.Expr.ObjectExpr ir) {
+                    if (!closed.contains(ir)) {
+                        roots.addAll(ir.methods());
+                    }
+                    return super.visit(ir);
+                }
+            }.visit(ir);
+            tails(ir).stream().filter(s -> s instanceof Ir.Stmt.Def).forEach(roots::add);
+            var shaken = new Shaker(graph.reachable(roots), closed, accessed(ir), Definedness.analyze(ir)).visit(ir);
+            if (shaken == ir) {
+                return ir;
+            }
+            ir = shaken;
+        }
+    }
+
+    private static final class Shaker extends IrTransformer {
+
+        private final Set<Ir> reachable;
+        private final Set<Ir.Expr.ObjectExpr> closed;
+        private final Set<String> accessed;
+        private final Definedness definedness;
+
+        private Shaker(Set<Ir> reachable, Set<Ir.Expr.ObjectExpr> closed, Set<String> accessed, Definedness definedness) {
+            this.reachable = reachable;
+            this.closed = closed;
+            this.accessed = accessed;
+            this.definedness = definedness;
+        }
+
+        @Override
+        protected void statement(Ir.Stmt statement, List<Ir.Stmt> block) {
+            if (statement instanceof Ir.Stmt.Def def && !reachable.contains(def)) {
+                return;
+            }
+            super.statement(statement, block);
+        }
+
+        @Override
+        public Ir.Expr visit(Ir.Expr.ObjectExpr ir) {
+            if (!closed.contains(ir)) {
+                return super.visit(ir);
+            }
+            var fields = ir.fields().stream()
+                .filter(f -> accessed.contains(f.name()) || f.value().isPresent() && !DeadCodeElimination.pure(f.value().get(), definedness))
+                .toList();
+            var methods = ir.methods().stream().filter(reachable::contains).toList();
+            var object = fields.size() == ir.fields().size() && methods.size() == ir.methods().size()
+                ? ir
+                : new Ir.Expr.ObjectExpr(ir.name(), fields, methods, ir.type());
+            return super.visit(object);
+        }
+
+    }
+
+    /**
+     * Finds the closed objects of a program, see {@link TreeShaking}.
+     */
+    private static final class Closed extends ScopedTransformer {
+
+        private final Devirtualization.Assigned assigned;
+        private final Set<Ir.Expr.ObjectExpr> objects = Collections.newSetFromMap(new IdentityHashMap<>());
+        private final Set<Ir.Expr.ObjectExpr> open = Collections.newSetFromMap(new IdentityHashMap<>());
+        private boolean escaped;
+
+        private Closed(Devirtualization.Assigned assigned) {
+            this.assigned = assigned;
+        }
+
+        private static Set<Ir.Expr.ObjectExpr> analyze(Ir.Source ir) {
+            var closed = new Closed(Devirtualization.Assigned.of(ir));
+            closed.visit(ir);
+            //A method which escapes can be called on any object, so if it
+            //observes this, no object is closed.
+            if (closed.escaped) {
+                return Set.of();
+            }
+            closed.objects.removeAll(closed.open);
+            closed.objects.removeIf(closed.assigned::escapes);
+            return closed.objects;
+        }
+
+        @Override
+        public Ir.Stmt visit(Ir.Stmt.Let ir) {
+            if (ir.value().orElse(null) instanceof Ir.Expr.ObjectExpr object && !assigned.variables().contains(ir.name())) {
+                objects.add(object);
+            }
+            return super.visit(ir);
+        }
+
+        @Override
+        public Ir.Stmt visit(Ir.Stmt.Assignment.Property ir) {
+            if (ir.property().receiver() instanceof Ir.Expr.Variable) {
+                visit(ir.value());
+                return ir;
+            }
+            return super.visit(ir);
+        }
+
+        @Override
+        public Ir.Expr visit(Ir.Expr.Property ir) {
+            return ir.receiver() instanceof Ir.Expr.Variable ? ir : super.visit(ir);
+        }
+
+        @Override
+        public Ir.Expr visit(Ir.Expr.Method ir) {
+            if (ir.receiver() instanceof Ir.Expr.Variable) {
+                expressions(ir.arguments());
+                return ir;
+            }
+            return super.visit(ir);
+        }
+
+        @Override
+        public Ir.Expr visit(Ir.Expr.Variable ir) {
+            //Any other use of the variable (or this) observes the object.
+            switch (lookup(ir.name())) {
+                case Ir.Stmt.Let let when let.value().orElse(null) instanceof Ir.Expr.ObjectExpr object -> open.add(object);
+                case ScopedTransformer.This binding -> {
+                    open.add(binding.object());
+                    escaped |= assigned.escapes(binding.object());
+                }
+                case null, default -> {}
+            }
+            return ir;
+        }
+
+    }
+
+    /**
+     * Returns the names of all properties and methods accessed in a program.
+     */
+    private static Set<String> accessed(Ir.Source ir) {
+        var accessed = new HashSet<String>();
+        new IrTransformer() {
+            @Override
+            public Ir.Stmt visit(Ir.Stmt.Assignment.Property ir) {
+                accessed.add(ir.property().name());
+                return super.visit(ir);
+            }
+
+            @Override
+            public Ir.Expr visit(Ir.Expr.Property ir) {
+                accessed.add(ir.name());
+                return super.visit(ir);
+            }
+
+            @Override
+            public Ir.Expr visit(Ir.Expr.Method ir) {
+                accessed.add(ir.name());
+                return super.visit(ir);
+            }
+        }.visit(ir);
+        return accessed;
+    }
+
+    /**
+     * Returns the statements whose value may be the value of the program.
+     */
+    private static Set<Ir.Stmt> tails(Ir.Source ir) {
+        var tails = Collections.<Ir.Stmt>newSetFromMap(new IdentityHashMap<>());
+        var blocks = new ArrayList<List<Ir.Stmt>>(List.of(ir.statements()));
+        while (!blocks.isEmpty()) {
+            var block = blocks.removeLast();
+            if (block.isEmpty()) {
+                continue;
+            }
+            tails.add(block.getLast());
+            if (block.getLast() instanceof Ir.Stmt.If stmt) {
+                blocks.add(stmt.thenBody());
+                blocks.add(stmt.elseBody());
+            }
+        }
+        return tails;
+    }
+
+}
@@ -0,0 +1,132 @@
+package plc.project.analyzer;
+
+import com.google.common.collect.MapMaker;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Canonicalizes object types, so structurally equal types are represented by
+ * the same instance and can be compared by identity.
+ *
+ * <p>{@link Type.Object#equals} copies both scopes (and the scopes of nested
+ * object types) on every comparison. Instead, {@link #equal(Type, Type)}
+ * compares identity first, then a structural hash which is computed once per
+ * instance, and only falls back to a structural comparison for distinct
+ * instances with equal hashes (which, for interned types, means they were
+ * interned by different analyses).
+ *
+ * <p>Object types are considered frozen once they have been interned or
+ * hashed: their scope must not be modified afterwards. The Analyzer interns
+ * object types once all fields and methods have been defined, which is
+ * before any method body (and thus any use of this) is analyzed.
+ *
+ * <p>Interning is per instance (typically one per analysis), while hashes are
+ * cached globally in a weak identity map. Both are thread-safe, see
+ * {@link ParallelAnalyzer}.
+ */
+public final class TypeInterner {
+
+    private static final ConcurrentMap<Type.Object, Integer> HASHES = new MapMaker().weakKeys().makeMap();
+
+    /**
+     * A structural key for an object type, caching its hash.
+     */
+    private record Key(Type.Object type, int hash) {
+
+        @Override
+        public boolean equals(Object obj) {
+            return obj instanceof Key other && hash == other.hash && equal(type, other.type);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+    }
+
+    private final ConcurrentMap<Key, Type.Object> objects = new ConcurrentHashMap<>();
+
+    /**
+     * Returns the canonical instance of the given object type, which is the
+     * first structurally equal type interned by this interner.
+     */
+    public Type.Object intern(Type.Object type) {
+        var canonical = objects.putIfAbsent(new Key(type, hash(type)), type);
+        return canonical != null ? canonical : type;
+    }
+
+    /**
+     * Returns whether two types are equal, as defined by {@link Type#equals}.
+     */
+    public static boolean equal(Type type, Type other) {
+        if (type == other) {
+            return true;
+        }
+        return switch (type) {
+            case Type.Primitive _ -> type.equals(other);
+            case Type.Function function -> {
+                if (!(other instanceof Type.Function otherFunction)
+                    || function.parameters().size() != otherFunction.parameters().size()
+                    || !equal(function.returns(), otherFunction.returns())) {
+                    yield false;
+                }
+                for (int i = 0; i < function.parameters().size(); i++) {
+                    if (!equal(function.parameters().get(i), otherFunction.parameters().get(i))) {
+                        yield false;
+                    }
+                }
+                yield true;
+            }
+            case Type.Object object -> {
+                if (!(other instanceof Type.Object otherObject) || hash(object) != hash(otherObject)) {
+                    yield false;
+                }
+                var fields = object.scope().collect(true);
+                var otherFields = otherObject.scope().collect(true);
+                if (fields.size() != otherFields.size()) {
+                    yield false;
+                }
+                for (var field : fields.entrySet()) {
+                    var otherField = otherFields.get(field.getKey());
+                    if (otherField == null || !equal(field.getValue(), otherField)) {
+                        yield false;
+                    }
+                }
+                yield true;
+            }
+        };
+    }
+
+    /**
+     * Returns a structural hash of a type, consistent with
+     * {@link #equal(Type, Type)}. Object hashes are computed once and cached.
+     */
+    public static int hash(Type type) {
+        return switch (type) {
+            case Type.Primitive primitive -> primitive.hashCode();
+            case Type.Function function -> {
+                var hash = hash(function.returns());
+                for (var parameter : function.parameters()) {
+                    hash = 31 * hash + hash(parameter);
+                }
+                yield hash;
+            }
+            case Type.Object object -> {
+                var hash = HASHES.get(object);
+                if (hash == null) {
+                    //Scopes compare as maps, so the hash is independent of the
+                    //order fields were defined in (like Map#hashCode).
+                    hash = 0;
+                    for (var field : object.scope().collect(true).entrySet()) {
+                        hash += field.getKey().hashCode() ^ hash(field.getValue());
+                    }
+                    HASHES.putIfAbsent(object, hash);
+                }
+                yield hash;
+            }
+        };
+    }
+
+}
@@ -19,7 +19,6 @@ public final class Evaluator implements Ast.Visitor<RuntimeValue, EvaluateExcept
 
     @Override
     public RuntimeValue visit(Ast.Source ast) throws EvaluateException {
-        System.out.println("Starting Evaluation In Scope: " + this.scope);
         RuntimeValue value = new RuntimeValue.Primitive(null);
         try {
             for (var stmt : ast.statements()) {
@@ -99,7 +98,7 @@ public final class Evaluator implements Ast.Visitor<RuntimeValue, EvaluateExcept
         var function = new RuntimeValue.Function(ast.name(), (lambdaArguments) ->{
             // Within a new scope that is a child of the scope where the function
                 // was defined
-            Scope prevScope = definitionScope;
+            Scope prevScope = scope;
             Scope functionScope = new Scope(definitionScope);
             scope = functionScope;
             // Define variables for all parameters to the values in arguments,
@@ -124,7 +123,6 @@ public final class Evaluator implements Ast.Visitor<RuntimeValue, EvaluateExcept
                     returnStatement = returnValue.value;
                 }
             } finally {
-                System.out.println("\nIn Scope: " + scope.toString() + ".\nRestoring to: " + prevScope + ".\n");
                 scope = prevScope;
             }
             // Return the value resulting from RETURN, if present, or else NIL.
@@ -174,7 +172,6 @@ public final class Evaluator implements Ast.Visitor<RuntimeValue, EvaluateExcept
                     }
                 }
             }finally {
-                System.out.println("\nIn Scope: " + scope.toString() + ".\nRestoring to: " + currScope + ".\n");
                 scope = currScope;
             }
             return lastStatement;
@@ -220,7 +217,6 @@ public final class Evaluator implements Ast.Visitor<RuntimeValue, EvaluateExcept
                     visit(statement);
                 }
             }finally {
-                System.out.println("\nIn Scope: " + scope.toString() + ".\nRestoring to: " + currScope + ".\n");
                 scope = currScope;
             }
         }
@@ -791,7 +787,6 @@ public final class Evaluator implements Ast.Visitor<RuntimeValue, EvaluateExcept
                             returnStatement = returnedValue.value;
                         }
                     }finally {
-                        System.out.println("\nIn Scope: " + scope.toString() + ".\nRestoring to: " + prevScope + ".\n");
                         scope = prevScope;
                     }
                     // Return the value resulting from RETURN,
@@ -802,7 +797,6 @@ public final class Evaluator implements Ast.Visitor<RuntimeValue, EvaluateExcept
                 scope.define(method.name(), methodDefinition);
             }
         } finally {
-            System.out.println("\nIn Scope: " + scope.toString() + ".\nRestoring to: " + currScope + ".\n");
             scope = currScope;
         }
         return obj;
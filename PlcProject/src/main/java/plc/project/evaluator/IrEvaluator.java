@@ -0,0 +1,702 @@
+package plc.project.evaluator;
+
+import plc.project.analyzer.CaptureAnalysis;
+import plc.project.analyzer.CountedLoops;
+import plc.project.analyzer.Ir;
+import plc.project.analyzer.Operations;
+import plc.project.analyzer.PurityAnalysis;
+import plc.project.analyzer.Resolver;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Evaluates analyzed programs ({@link Ir}) with the same semantics as the
+ * {@link Evaluator}, but with variables stored in array frames at the slots
+ * assigned by the {@link Resolver} instead of in {@link Scope}s. Variable
+ * access is therefore a walk of a statically known number of frames and an
+ * array access, without any hashing or allocation.
+ *
+ * <p>Names not defined by the program (natives like print/range) are read from
+ * the given scope once when evaluation starts. Objects still use a Scope for
+ * their fields and methods, as these are looked up by name at runtime.
+ *
+ * <p>Since the analyzer already rejects ill-typed programs, the remaining
+ * checks are the ones which can fail at runtime (division by zero, argument
+ * counts for natives, ...), along with defensive type checks on values.
+ *
+ * <p>Calls to pure functions (see {@link PurityAnalysis}) can optionally be
+ * memoized: each closure of a pure function caches its primitive results by
+ * argument values, up to a capacity (evicting the least recently used). A
+ * closure has its own cache since it may read the variables it captured.
+ * Failed calls aren't cached, so they fail again.
+ *
+ * <p>Conditions, receivers and iterables are matched against the type the
+ * analyzer proved with a single pattern, falling back to the reflective
+ * check (and its error) only if it doesn't match, e.g. for NIL from
+ * {@code LET x: Integer;}. Binary operations go through the fast paths of
+ * their resolved {@link Operations.Kind}s.
+ */
+public final class IrEvaluator implements Ir.Visitor<RuntimeValue, EvaluateException> {
+
+    /**
+     * An activation record. Slots are null until defined, which can only be
+     * observed for globals missing from the environment.
+     *
+     * <p>Frames of scopes which aren't captured by a closure (see
+     * {@link CaptureAnalysis}) are reused by the next iteration or call, as
+     * nothing can reference them once exited. Their slots still hold the
+     * previous values, but every slot is defined before it can be read.
+     */
+    private static final class Frame {
+
+        private final RuntimeValue[] slots;
+        private final Frame parent;
+
+        private Frame(int size, Frame parent) {
+            this.slots = new RuntimeValue[size];
+            this.parent = parent;
+        }
+
+        private Frame ancestor(int depth) {
+            var frame = this;
+            for (int i = 0; i < depth; i++) {
+                frame = frame.parent;
+            }
+            return frame;
+        }
+
+    }
+
+    /**
+     * A user-defined function, which captures the frame it was defined in
+     * (static scoping).
+     */
+    private final class Closure implements RuntimeValue.Function.Definition {
+
+        private final Ir.Stmt.Def ir;
+        private final Frame frame;
+        private final boolean method;
+        private final Cache cache;
+
+        /**
+         * The frame of the last call if the body isn't captured, which the
+         * next call reuses (recursive calls allocate their own).
+         */
+        private Frame free;
+
+        private Closure(Ir.Stmt.Def ir, Frame frame, boolean method) {
+            this.ir = ir;
+            this.frame = frame;
+            this.method = method;
+            this.cache = !method && purity != null && purity.pure(ir) ? new Cache(capacity) : null;
+        }
+
+        @Override
+        public RuntimeValue invoke(List<RuntimeValue> arguments) throws EvaluateException {
+            //Tail calls return to this loop instead of being made by the
+            //callee (trampolining), so they don't grow the stack. The result
+            //of a tail call is the result of every call leading to it, so it
+            //is cached for each memoized closure along the way.
+            var closure = this;
+            List<Memo> memos = null;
+            RuntimeValue value = null;
+            while (value == null) {
+                var offset = closure.method ? 1 : 0;
+                if (arguments.size() != closure.ir.parameters().size() + offset) {
+                    throw new EvaluateException("Function Requires: " + closure.ir.parameters().size() + " Parameter(s)");
+                }
+                if (closure.cache != null) {
+                    var key = List.copyOf(arguments);
+                    value = closure.cache.get(key);
+                    if (value != null) {
+                        break;
+                    }
+                    memos = memos != null ? memos : new ArrayList<>();
+                    memos.add(new Memo(closure.cache, key));
+                    arguments = key;
+                }
+                var result = closure.call(arguments);
+                if (result instanceof TailCall tail) {
+                    closure = tail.closure();
+                    arguments = tail.arguments();
+                } else {
+                    value = (RuntimeValue) result;
+                }
+            }
+            if (memos != null && value instanceof RuntimeValue.Primitive) {
+                for (var memo : memos) {
+                    memo.cache().put(memo.key(), value);
+                }
+            }
+            return value;
+        }
+
+        /**
+         * Evaluates the body, returning either its result or the tail call it
+         * returned (which hasn't been made yet).
+         */
+        private Object call(List<RuntimeValue> arguments) throws EvaluateException {
+            var callee = free != null ? free : new Frame(resolution.size(ir), this.frame);
+            free = null;
+            for (int i = 0; i < arguments.size(); i++) {
+                callee.slots[i] = arguments.get(i);
+            }
+            var caller = IrEvaluator.this.frame;
+            IrEvaluator.this.frame = callee;
+            try {
+                for (var statement : ir.body()) {
+                    visit(statement);
+                }
+                return NIL;
+            } catch (Return returned) {
+                return returned.value != null ? returned.value : returned.tail;
+            } finally {
+                IrEvaluator.this.frame = caller;
+                if (!resolution.captures().captured(ir)) {
+                    free = callee;
+                }
+            }
+        }
+
+    }
+
+    /**
+     * A call to a closure in tail position, which is made by the closure that
+     * was originally invoked (see {@link Closure#invoke}).
+     */
+    private record TailCall(Closure closure, List<RuntimeValue> arguments) {}
+
+    /**
+     * A result to cache once a chain of tail calls returns.
+     */
+    private record Memo(Cache cache, List<RuntimeValue> key) {}
+
+    /**
+     * The results of a pure function by arguments, evicting the least
+     * recently used beyond its capacity.
+     */
+    private static final class Cache extends LinkedHashMap<List<RuntimeValue>, RuntimeValue> {
+
+        private final int capacity;
+
+        private Cache(int capacity) {
+            super(16, 0.75f, true);
+            this.capacity = capacity;
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<List<RuntimeValue>, RuntimeValue> eldest) {
+            return size() > capacity;
+        }
+
+    }
+
+    private static final RuntimeValue.Primitive NIL = new RuntimeValue.Primitive(null);
+
+    /**
+     * The definition of the native range, which counted loops replace (only
+     * if the function the loop calls has the same definition, whatever its
+     * name).
+     */
+    private static final RuntimeValue.Function.Definition RANGE =
+        ((RuntimeValue.Function) Environment.scope().get("range", false).orElseThrow()).definition();
+
+    private final Scope scope;
+    private Resolver.Resolution resolution;
+    private final PurityAnalysis.Purity purity;
+    private final int capacity;
+    private Frame frame;
+
+    public IrEvaluator(Scope scope) {
+        this(scope, null);
+    }
+
+    /**
+     * Creates an evaluator using an existing resolution of the program, which
+     * avoids resolving the same program again when it is evaluated repeatedly.
+     */
+    public IrEvaluator(Scope scope, Resolver.Resolution resolution) {
+        this(scope, resolution, null, 0);
+    }
+
+    /**
+     * Creates an evaluator which memoizes calls to the pure functions of the
+     * program, with up to capacity results cached per closure. The resolution
+     * may be null, in which case the program is resolved when evaluated.
+     */
+    public IrEvaluator(Scope scope, Resolver.Resolution resolution, PurityAnalysis.Purity purity, int capacity) {
+        this.scope = scope;
+        this.resolution = resolution;
+        this.purity = purity;
+        this.capacity = capacity;
+    }
+
+    @Override
+    public RuntimeValue visit(Ir.Source ir) throws EvaluateException {
+        if (resolution == null) {
+            resolution = Resolver.resolve(ir);
+        }
+        frame = new Frame(resolution.size(ir), null);
+        for (var global : resolution.globals().entrySet()) {
+            frame.slots[global.getValue()] = scope.get(global.getKey(), false).orElse(null);
+        }
+        RuntimeValue value = NIL;
+        try {
+            for (var statement : ir.statements()) {
+                value = visit(statement);
+            }
+        } catch (Return e) {
+            throw new EvaluateException("Cannot Return Outside of Function Definition");
+        }
+        return value;
+    }
+
+    @Override
+    public RuntimeValue visit(Ir.Stmt.Let ir) throws EvaluateException {
+        var value = ir.value().isPresent() ? visit(ir.value().get()) : NIL;
+        frame.slots[resolution.slot(ir).index()] = value;
+        return value;
+    }
+
+    @Override
+    public RuntimeValue visit(Ir.Stmt.Def ir) throws EvaluateException {
+        var function = new RuntimeValue.Function(ir.name(), new Closure(ir, frame, false));
+        frame.slots[resolution.slot(ir).index()] = function;
+        return function;
+    }
+
+    @Override
+    public RuntimeValue visit(Ir.Stmt.If ir) throws EvaluateException {
+        //Branch variables have their own slots in the current frame, so no
+        //scope has to be created (see Resolver).
+        var body = condition(visit(ir.condition())) ? ir.thenBody() : ir.elseBody();
+        RuntimeValue value = NIL;
+        for (var statement : body) {
+            value = visit(statement);
+        }
+        return value;
+    }
+
+    @Override
+    public RuntimeValue visit(Ir.Stmt.For ir) throws EvaluateException {
+        var loop = resolution.loops().loop(ir);
+        if (loop != null && callee(loop.range()).definition() == RANGE) {
+            return counted(ir, loop);
+        }
+        var iterable = iterable(visit(ir.expression()));
+        var size = resolution.size(ir);
+        var variable = resolution.slot(ir).index();
+        var reused = resolution.captures().captured(ir) ? null : new Frame(size, frame);
+        var enclosing = frame;
+        try {
+            for (var element : iterable) {
+                if (!(element instanceof RuntimeValue value)) {
+                    throw new EvaluateException("Not a RuntimeValue");
+                }
+                frame = reused != null ? reused : new Frame(size, enclosing);
+                frame.slots[variable] = value;
+                for (var statement : ir.body()) {
+                    visit(statement);
+                }
+            }
+        } finally {
+            frame = enclosing;
+        }
+        return NIL;
+    }
+
+    /**
+     * Evaluates a counted loop (see {@link CountedLoops}) with an int counter
+     * instead of the list built by the native range, with the same checks.
+     */
+    private RuntimeValue counted(Ir.Stmt.For ir, CountedLoops.Loop loop) throws EvaluateException {
+        var start = visit(loop.start());
+        var end = visit(loop.end());
+        if (!(start instanceof RuntimeValue.Primitive(BigInteger min)) || !(end instanceof RuntimeValue.Primitive(BigInteger max))) {
+            throw new EvaluateException("Expected range to be called with 2 Integer arguments.");
+        }
+        var first = min.intValueExact();
+        var last = max.intValueExact();
+        var size = resolution.size(ir);
+        var variable = resolution.slot(ir).index();
+        var reused = resolution.captures().captured(ir) ? null : new Frame(size, frame);
+        var enclosing = frame;
+        try {
+            for (var i = first; i < last; i++) {
+                frame = reused != null ? reused : new Frame(size, enclosing);
+                frame.slots[variable] = new RuntimeValue.Primitive(BigInteger.valueOf(i));
+                for (var statement : ir.body()) {
+                    visit(statement);
+                }
+            }
+        } finally {
+            frame = enclosing;
+        }
+        return NIL;
+    }
+
+    @Override
+    public RuntimeValue visit(Ir.Stmt.Return ir) throws EvaluateException {
+        var call = resolution.tailCalls().call(ir);
+        if (call == null) {
+            throw new Return(ir.value().isPresent() ? visit(ir.value().get()) : NIL);
+        }
+        //A tail call to a closure is made by the closure being returned from
+        //(see TailCalls), other functions (natives) are called directly.
+        RuntimeValue.Function function;
+        List<RuntimeValue> arguments;
+        switch (call) {
+            case Ir.Expr.Function expr -> {
+                function = callee(expr);
+                arguments = arguments(null, expr.arguments());
+            }
+            case Ir.Expr.Method expr -> {
+                var receiver = receiver(visit(expr.receiver()));
+                function = method(expr, receiver);
+                arguments = arguments(receiver, expr.arguments());
+            }
+            default -> throw new AssertionError(call);
+        }
+        if (function.definition() instanceof Closure closure) {
+            throw new Return(new TailCall(closure, arguments));
+        }
+        throw new Return(function.definition().invoke(arguments));
+    }
+
+    @Override
+    public RuntimeValue visit(Ir.Stmt.Expression ir) throws EvaluateException {
+        return visit(ir.expression());
+    }
+
+    @Override
+    public RuntimeValue visit(Ir.Stmt.Assignment.Variable ir) throws EvaluateException {
+        var value = visit(ir.value());
+        var slot = resolution.slot(ir.variable());
+        frame.ancestor(slot.depth()).slots[slot.index()] = value;
+        return value;
+    }
+
+    @Override
+    public RuntimeValue visit(Ir.Stmt.Assignment.Property ir) throws EvaluateException {
+        var receiver = receiver(visit(ir.property().receiver()));
+        if (receiver.scope().get(ir.property().name(), true).isEmpty()) {
+            throw new EvaluateException("Undefined Variable: " + ir.property().name() + ".");
+        }
+        var value = visit(ir.value());
+        receiver.scope().set(ir.property().name(), value);
+        return value;
+    }
+
+    @Override
+    public RuntimeValue visit(Ir.Expr.Literal ir) {
+        return new RuntimeValue.Primitive(ir.value());
+    }
+
+    @Override
+    public RuntimeValue visit(Ir.Expr.Group ir) throws EvaluateException {
+        return visit(ir.expression());
+    }
+
+    @Override
+    public RuntimeValue visit(Ir.Expr.Binary ir) throws EvaluateException {
+        var kind = resolution.operations().kind(ir);
+        if (kind == Operations.Kind.BOOL_AND || kind == Operations.Kind.BOOL_OR) {
+            //Short-circuiting, so the right operand is evaluated lazily.
+            var left = condition(visit(ir.left()));
+            if (left == (kind == Operations.Kind.BOOL_OR)) {
+                return new RuntimeValue.Primitive(left);
+            }
+            return new RuntimeValue.Primitive(condition(visit(ir.right())));
+        }
+        var left = visit(ir.left());
+        var right = visit(ir.right());
+        return operate(kind, ir.operator(), left, right);
+    }
+
+    /**
+     * Applies a (non-short-circuiting) binary operation, kept out of
+     * visit(Binary) so the stack frames of nested expressions stay small.
+     */
+    private static RuntimeValue operate(Operations.Kind kind, String operator, RuntimeValue left, RuntimeValue right) throws EvaluateException {
+        //The resolved kinds go straight to the operation for their types, but
+        //operands can still be NIL (e.g. LET x: Integer;), in which case they
+        //fall through to the generic operations for the error.
+        switch (kind) {
+            case INT_ADD, INT_SUB, INT_MUL, INT_DIV, INT_LT, INT_LE, INT_GT, INT_GE -> {
+                if (left instanceof RuntimeValue.Primitive(BigInteger a) && right instanceof RuntimeValue.Primitive(BigInteger b)) {
+                    return switch (kind) {
+                        case INT_ADD -> new RuntimeValue.Primitive(a.add(b));
+                        case INT_SUB -> new RuntimeValue.Primitive(a.subtract(b));
+                        case INT_MUL -> new RuntimeValue.Primitive(a.multiply(b));
+                        case INT_DIV -> {
+                            if (b.signum() == 0) {
+                                throw new EvaluateException("Evaluator Error: Division by zero is not allowed.");
+                            }
+                            yield new RuntimeValue.Primitive(a.divide(b));
+                        }
+                        default -> comparison(kind, a.compareTo(b));
+                    };
+                }
+            }
+            case DEC_ADD, DEC_SUB, DEC_MUL, DEC_DIV, DEC_LT, DEC_LE, DEC_GT, DEC_GE -> {
+                if (left instanceof RuntimeValue.Primitive(BigDecimal a) && right instanceof RuntimeValue.Primitive(BigDecimal b)) {
+                    return switch (kind) {
+                        case DEC_ADD -> new RuntimeValue.Primitive(a.add(b));
+                        case DEC_SUB -> new RuntimeValue.Primitive(a.subtract(b));
+                        case DEC_MUL -> new RuntimeValue.Primitive(a.multiply(b));
+                        case DEC_DIV -> {
+                            if (b.compareTo(BigDecimal.ZERO) == 0) {
+                                throw new EvaluateException("Evaluator Error: Division by zero is not allowed.");
+                            }
+                            yield new RuntimeValue.Primitive(a.divide(b, RoundingMode.HALF_EVEN));
+                        }
+                        default -> comparison(kind, a.compareTo(b));
+                    };
+                }
+            }
+            case STR_LT, STR_LE, STR_GT, STR_GE -> {
+                if (left instanceof RuntimeValue.Primitive(String a) && right instanceof RuntimeValue.Primitive(String b)) {
+                    return comparison(kind, a.compareTo(b));
+                }
+            }
+            case EQ -> {
+                return new RuntimeValue.Primitive(Objects.equals(primitive(left), primitive(right)));
+            }
+            case NE -> {
+                return new RuntimeValue.Primitive(!Objects.equals(primitive(left), primitive(right)));
+            }
+            default -> {}
+        }
+        return switch (operator) {
+            case "+" -> {
+                if (left instanceof RuntimeValue.Primitive(String _) || right instanceof RuntimeValue.Primitive(String _)) {
+                    yield new RuntimeValue.Primitive(left.print() + right.print());
+                }
+                yield arithmetic(operator, left, right);
+            }
+            case "-", "*", "/" -> arithmetic(operator, left, right);
+            case "<", "<=", ">", ">=" -> comparison(kind, compare(primitive(left), primitive(right)));
+            default -> throw new EvaluateException("Evaluated Error: Unsupported Operation");
+        };
+    }
+
+    @Override
+    public RuntimeValue visit(Ir.Expr.Variable ir) throws EvaluateException {
+        var slot = resolution.slot(ir);
+        var value = frame.ancestor(slot.depth()).slots[slot.index()];
+        if (value == null) {
+            throw new EvaluateException("Undefined Variable: " + ir.name() + ".");
+        }
+        return value;
+    }
+
+    @Override
+    public RuntimeValue visit(Ir.Expr.Property ir) throws EvaluateException {
+        var receiver = receiver(visit(ir.receiver()));
+        return receiver.scope().get(ir.name(), true)
+            .orElseThrow(() -> new EvaluateException("Undefined Variable: " + ir.name() + "."));
+    }
+
+    @Override
+    public RuntimeValue visit(Ir.Expr.Function ir) throws EvaluateException {
+        var function = callee(ir);
+        return function.definition().invoke(arguments(null, ir.arguments()));
+    }
+
+    private RuntimeValue.Function callee(Ir.Expr.Function ir) throws EvaluateException {
+        var slot = resolution.slot(ir);
+        var value = frame.ancestor(slot.depth()).slots[slot.index()];
+        if (value == null) {
+            throw new EvaluateException("Undefined Function: " + ir.name() + ".");
+        }
+        if (!(value instanceof RuntimeValue.Function function)) {
+            throw new EvaluateException("Not a Function: " + ir.name() + ".");
+        }
+        return function;
+    }
+
+    @Override
+    public RuntimeValue visit(Ir.Expr.Method ir) throws EvaluateException {
+        var receiver = receiver(visit(ir.receiver()));
+        return method(ir, receiver).definition().invoke(arguments(receiver, ir.arguments()));
+    }
+
+    private RuntimeValue.Function method(Ir.Expr.Method ir, RuntimeValue.ObjectValue receiver) throws EvaluateException {
+        var value = receiver.scope().get(ir.name(), false)
+            .orElseThrow(() -> new EvaluateException("Undefined Function: " + ir.name() + "."));
+        if (!(value instanceof RuntimeValue.Function function)) {
+            throw new EvaluateException("Not a Function: " + ir.name() + ".");
+        }
+        return function;
+    }
+
+    /**
+     * Evaluates the arguments of a call, preceded by the receiver for methods
+     * (which is passed as this).
+     */
+    private List<RuntimeValue> arguments(RuntimeValue receiver, List<Ir.Expr> expressions) throws EvaluateException {
+        var arguments = new ArrayList<RuntimeValue>(expressions.size() + 1);
+        if (receiver != null) {
+            arguments.add(receiver);
+        }
+        for (var argument : expressions) {
+            arguments.add(visit(argument));
+        }
+        return arguments;
+    }
+
+    @Override
+    public RuntimeValue visit(Ir.Expr.ObjectExpr ir) throws EvaluateException {
+        var object = new RuntimeValue.ObjectValue(ir.name(), new Scope(null));
+        for (var field : ir.fields()) {
+            if (object.scope().get(field.name(), true).isPresent()) {
+                throw new EvaluateException("Variable Name already Defined Somewhere Else: " + field.name() + ".");
+            }
+            object.scope().define(field.name(), field.value().isPresent() ? visit(field.value().get()) : NIL);
+        }
+        for (var method : ir.methods()) {
+            if (object.scope().get(method.name(), true).isPresent()) {
+                throw new EvaluateException("Function Name already Defined Somewhere Else: " + method.name() + "().");
+            }
+            object.scope().define(method.name(), new RuntimeValue.Function(method.name(), new Closure(method, frame, true)));
+        }
+        return object;
+    }
+
+    private static RuntimeValue arithmetic(String operator, RuntimeValue left, RuntimeValue right) throws EvaluateException {
+        var l = primitive(left);
+        var r = primitive(right);
+        if (l instanceof BigInteger a && r instanceof BigInteger b) {
+            return new RuntimeValue.Primitive(switch (operator) {
+                case "+" -> a.add(b);
+                case "-" -> a.subtract(b);
+                case "*" -> a.multiply(b);
+                default -> {
+                    if (b.signum() == 0) {
+                        throw new EvaluateException("Evaluator Error: Division by zero is not allowed.");
+                    }
+                    yield a.divide(b);
+                }
+            });
+        } else if (l instanceof BigDecimal a && r instanceof BigDecimal b) {
+            return new RuntimeValue.Primitive(switch (operator) {
+                case "+" -> a.add(b);
+                case "-" -> a.subtract(b);
+                case "*" -> a.multiply(b);
+                default -> {
+                    if (b.compareTo(BigDecimal.ZERO) == 0) {
+                        throw new EvaluateException("Evaluator Error: Division by zero is not allowed.");
+                    }
+                    yield a.divide(b, RoundingMode.HALF_EVEN);
+                }
+            });
+        }
+        throw new EvaluateException("Evaluator Error: Incorrect matching types for " + operator + ": " + left + ", " + right + ".");
+    }
+
+    /**
+     * Returns the result of a comparison kind, given the result of compareTo.
+     */
+    private static RuntimeValue comparison(Operations.Kind kind, int comparison) {
+        return new RuntimeValue.Primitive(switch (kind) {
+            case INT_LT, DEC_LT, STR_LT, LT -> comparison < 0;
+            case INT_LE, DEC_LE, STR_LE, LE -> comparison <= 0;
+            case INT_GT, DEC_GT, STR_GT, GT -> comparison > 0;
+            default -> comparison >= 0;
+        });
+    }
+
+    /**
+     * Returns the value of a condition (of IF or AND/OR), see
+     * {@link IrEvaluator}.
+     */
+    private boolean condition(RuntimeValue value) throws EvaluateException {
+        if (value instanceof RuntimeValue.Primitive(Boolean b)) {
+            return b;
+        }
+        return requireType(value, Boolean.class);
+    }
+
+    /**
+     * Returns the receiver of a property or method.
+     */
+    private RuntimeValue.ObjectValue receiver(RuntimeValue value) throws EvaluateException {
+        if (value instanceof RuntimeValue.ObjectValue object) {
+            return object;
+        }
+        return requireType(value, RuntimeValue.ObjectValue.class);
+    }
+
+    /**
+     * Returns the iterable of a FOR loop.
+     */
+    private Iterable<?> iterable(RuntimeValue value) throws EvaluateException {
+        if (value instanceof RuntimeValue.Primitive(Iterable<?> iterable)) {
+            return iterable;
+        }
+        return requireType(value, Iterable.class);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static int compare(Object left, Object right) throws EvaluateException {
+        if (!(left instanceof Comparable<?>) || right == null || !left.getClass().equals(right.getClass())) {
+            throw new EvaluateException("Evaluator Error: Objects not comparable");
+        }
+        return ((Comparable<Object>) left).compareTo(right);
+    }
+
+    private static Object primitive(RuntimeValue value) throws EvaluateException {
+        return requireType(value, RuntimeValue.Primitive.class).value();
+    }
+
+    /**
+     * See Evaluator#requireType.
+     */
+    @SuppressWarnings("unchecked")
+    private static <T> T requireType(RuntimeValue value, Class<T> type) throws EvaluateException {
+        if (RuntimeValue.class.isAssignableFrom(type)) {
+            if (!type.isInstance(value)) {
+                throw new EvaluateException("Expected value to be of type " + type + ", received " + value.getClass() + ".");
+            }
+            return (T) value;
+        } else {
+            var primitive = requireType(value, RuntimeValue.Primitive.class);
+            if (!type.isInstance(primitive.value())) {
+                var received = primitive.value() != null ? primitive.value().getClass() : null;
+                throw new EvaluateException("Expected value to be of type " + type + ", received " + received + ".");
+            }
+            return (T) primitive.value();
+        }
+    }
+
+    /**
+     * Unwinds a function body on RETURN, with either the returned value or a
+     * tail call to make instead.
+     */
+    private static final class Return extends RuntimeException {
+
+        private final RuntimeValue value;
+        private final TailCall tail;
+
+        private Return(RuntimeValue value) {
+            super(null, null, false, false);
+            this.value = value;
+            this.tail = null;
+        }
+
+        private Return(TailCall tail) {
+            super(null, null, false, false);
+            this.value = null;
+            this.tail = tail;
+        }
+
+    }
+
+}
@@ -1,15 +1,58 @@
 package plc.project.generator;
 
+import plc.project.analyzer.CallGraph;
+import plc.project.analyzer.CountedLoops;
 import plc.project.analyzer.Ir;
+import plc.project.analyzer.Operations;
+import plc.project.analyzer.PurityAnalysis;
+import plc.project.analyzer.TreeShaking;
 import plc.project.analyzer.Type;
 
 import java.math.BigDecimal;
 import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.regex.Pattern;
 
 public class Generator implements Ir.Visitor<StringBuilder, RuntimeException> {
 
+    private static final List<Type> MEMOIZED_RETURNS = List.of(Type.BOOLEAN, Type.INTEGER, Type.DECIMAL, Type.STRING);
+    private static final Pattern PRELUDE_MEMBER = Pattern.compile("class\\s+(\\w+)|(\\w+)\\s*[(=]");
+
     private final StringBuilder builder = new StringBuilder();
     private int indent = 0;
+    private final PurityAnalysis.Purity purity;
+    private final int capacity;
+    private final boolean shake;
+    private CountedLoops loops;
+
+    public Generator() {
+        this(null, 0);
+    }
+
+    /**
+     * Creates a generator which memoizes the pure (see {@link PurityAnalysis})
+     * functions hoisted to static methods, if they return a primitive value:
+     * results are cached by arguments in a static map, keeping up to capacity
+     * results (evicting the least recently used).
+     */
+    public Generator(PurityAnalysis.Purity purity, int capacity) {
+        this(purity, capacity, false);
+    }
+
+    /**
+     * Creates a generator which, if shake is set, only emits the members of
+     * the prelude ({@link Environment#definitions()}) referenced by the
+     * program (see {@link CallGraph#globals()}). Unreachable code of the
+     * program itself is removed by {@link TreeShaking}, which should run
+     * first so it doesn't keep members either.
+     */
+    public Generator(PurityAnalysis.Purity purity, int capacity, boolean shake) {
+        this.purity = purity;
+        this.capacity = capacity;
+        this.shake = shake;
+    }
 
     private void newline(int indent) {
         builder.append("\n");
@@ -18,9 +61,13 @@ public class Generator implements Ir.Visitor<StringBuilder, RuntimeException> {
 
     @Override
     public StringBuilder visit(Ir.Source ir) {
+        loops = CountedLoops.analyze(ir);
         builder.append(Environment.imports()).append("\n\n");
-        builder.append("public final class Main {").append("\n\n");
-        builder.append(Environment.definitions()).append("\n");
+        builder.append("public final class Main {").append("\n");
+        var prelude = shake ? prelude(CallGraph.build(ir).globals()) : Environment.definitions();
+        if (!prelude.isEmpty()) {
+            builder.append("\n").append(prelude).append("\n");
+        }
         //Java doesn't allow for nested functions, but we will pretend it does.
         //To support simple programs involving functions, we will "hoist" any
         //variable/function declaration at the start of the program to allow
@@ -30,7 +77,11 @@ public class Generator implements Ir.Visitor<StringBuilder, RuntimeException> {
         for (var statement : ir.statements()) {
             newline(indent);
             if (!main) {
-                if (statement instanceof Ir.Stmt.Let || statement instanceof Ir.Stmt.Def) {
+                if (statement instanceof Ir.Stmt.Def def && memoized(def)) {
+                    builder.append("static ");
+                    memoize(def);
+                    continue;
+                } else if (statement instanceof Ir.Stmt.Let || statement instanceof Ir.Stmt.Def) {
                     builder.append("static ");
                 } else {
                     builder.append("public static void main(String[] args) {");
@@ -99,6 +150,115 @@ public class Generator implements Ir.Visitor<StringBuilder, RuntimeException> {
         return builder;
     }
 
+    private boolean memoized(Ir.Stmt.Def ir) {
+        return purity != null && purity.pure(ir) && MEMOIZED_RETURNS.contains(ir.returns());
+    }
+
+    /**
+     * Returns the members of the prelude with the given names, and the
+     * classes they reference (EnvironmentObject for object). Members start at
+     * the first level of indentation, with any deeper lines (and the closing
+     * brace of a class) belonging to the member before them.
+     */
+    private static String prelude(Set<String> names) {
+        var members = new ArrayList<String>();
+        for (var line : Environment.definitions().split("\n")) {
+            if (members.isEmpty() || line.startsWith("    ") && !line.startsWith("     ") && !line.equals("    }")) {
+                members.add(line);
+            } else {
+                members.set(members.size() - 1, members.getLast() + "\n" + line);
+            }
+        }
+        var used = new boolean[members.size()];
+        var changed = true;
+        while (changed) {
+            changed = false;
+            for (int i = 0; i < members.size(); i++) {
+                if (used[i]) {
+                    continue;
+                }
+                var matcher = PRELUDE_MEMBER.matcher(members.get(i));
+                if (!matcher.find()) {
+                    continue;
+                }
+                var name = matcher.group(1) != null ? matcher.group(1) : matcher.group(2);
+                used[i] = matcher.group(1) == null ? names.contains(name) : referenced(name, members, used);
+                changed |= used[i];
+            }
+        }
+        var prelude = new ArrayList<String>();
+        for (int i = 0; i < members.size(); i++) {
+            if (used[i]) {
+                prelude.add(members.get(i));
+            }
+        }
+        return String.join("\n", prelude);
+    }
+
+    private static boolean referenced(String name, List<String> members, boolean[] used) {
+        var pattern = Pattern.compile("\\b" + name + "\\b");
+        for (int i = 0; i < members.size(); i++) {
+            if (used[i] && pattern.matcher(members.get(i)).find()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * static final Map<List<Object>, <ReturnType>> <name>$cache = <LRU map>;
+     * static <ReturnType> <name>(<parameters...>) {
+     *     <cached result, or result of <name>$uncached>
+     * }
+     * static <ReturnType> <name>$uncached(<parameters...>) {
+     *     <statements...>
+     * }
+     */
+    private void memoize(Ir.Stmt.Def ir) {
+        var returns = ir.returns().jvmName();
+        var cache = ir.name() + "$cache";
+        var entry = "List<Object>, " + returns;
+        builder.append("final java.util.Map<" + entry + "> " + cache + " = new java.util.LinkedHashMap<>(16, 0.75f, true) {");
+        newline(indent + 1);
+        builder.append("@Override protected boolean removeEldestEntry(java.util.Map.Entry<" + entry + "> eldest) { return size() > " + capacity + "; }");
+        newline(indent);
+        builder.append("};");
+        newline(indent);
+        builder.append("static " + returns + " " + ir.name() + "(");
+        var arguments = new StringBuilder();
+        for (int i = 0; i < ir.parameters().size(); i++) {
+            builder.append(ir.parameters().get(i).type().jvmName() + " " + ir.parameters().get(i).name());
+            arguments.append(ir.parameters().get(i).name());
+            if (i < ir.parameters().size() - 1) {
+                builder.append(", ");
+                arguments.append(", ");
+            }
+        }
+        builder.append(") {");
+        ++indent;
+        newline(indent);
+        builder.append("var key = java.util.Arrays.<Object>asList(" + arguments + ");");
+        newline(indent);
+        builder.append("var cached = " + cache + ".get(key);");
+        newline(indent);
+        builder.append("if (cached != null) {");
+        newline(indent + 1);
+        builder.append("return cached;");
+        newline(indent);
+        builder.append("}");
+        newline(indent);
+        builder.append("var value = " + ir.name() + "$uncached(" + arguments + ");");
+        newline(indent);
+        builder.append(cache + ".put(key, value);");
+        newline(indent);
+        builder.append("return value;");
+        newline(--indent);
+        builder.append("}");
+        newline(indent);
+        builder.append("static ");
+        visit(new Ir.Stmt.Def(ir.name() + "$uncached", ir.parameters(), ir.returns(), ir.body()));
+    }
+
     @Override
     public StringBuilder visit(Ir.Stmt.If ir) {
         builder.append("if (");
@@ -131,10 +291,31 @@ public class Generator implements Ir.Visitor<StringBuilder, RuntimeException> {
          *     <statements...> (separated by newlines)
          * }
          * */
-        builder.append("for (" + ir.type().jvmName() + " " + ir.name() + " : ");
-        visit(ir.expression());
-        builder.append(") {");
-        ++indent;
+        var loop = loops != null ? loops.loop(ir) : null;
+        if (loop != null) {
+            /**
+             * for (int <name>$index = (<start>).intValueExact(), <name>$end = (<end>).intValueExact(); <name>$index < <name>$end; <name>$index++) {
+             *     BigInteger <name> = BigInteger.valueOf(<name>$index);
+             *     <statements...>
+             * }
+             * (counted loops, see CountedLoops)
+             */
+            var index = ir.name() + "$index";
+            var end = ir.name() + "$end";
+            builder.append("for (int " + index + " = (");
+            visit(loop.start());
+            builder.append(").intValueExact(), " + end + " = (");
+            visit(loop.end());
+            builder.append(").intValueExact(); " + index + " < " + end + "; " + index + "++) {");
+            ++indent;
+            newline(indent);
+            builder.append(ir.type().jvmName() + " " + ir.name() + " = BigInteger.valueOf(" + index + ");");
+        } else {
+            builder.append("for (" + ir.type().jvmName() + " " + ir.name() + " : ");
+            visit(ir.expression());
+            builder.append(") {");
+            ++indent;
+        }
         for(var statement : ir.body()) {
             newline(indent);
             visit(statement);
@@ -213,23 +394,23 @@ public class Generator implements Ir.Visitor<StringBuilder, RuntimeException> {
     @Override
     public StringBuilder visit(Ir.Expr.Binary ir) {
         /***/
-        switch(ir.operator()){
-            case "+": {
-                if(ir.type().equals(Type.STRING)){
-                    visit(ir.left());
-                    builder.append(" + ");
-                    visit(ir.right());
-                }else{
-                    builder.append("(");
-                    visit(ir.left());
-                    builder.append(")");
-                    builder.append(".add(");
-                    visit(ir.right());
-                    builder.append(")");
-                }
+        switch(Operations.resolve(ir)){
+            case STR_CONCAT: {
+                visit(ir.left());
+                builder.append(" + ");
+                visit(ir.right());
+                break;
+            }
+            case INT_ADD, DEC_ADD, ADD: {
+                builder.append("(");
+                visit(ir.left());
+                builder.append(")");
+                builder.append(".add(");
+                visit(ir.right());
+                builder.append(")");
                 break;
             }
-            case "-": {
+            case INT_SUB, DEC_SUB, SUB: {
                 builder.append("(");
                 visit(ir.left());
                 builder.append(")");
@@ -238,7 +419,7 @@ public class Generator implements Ir.Visitor<StringBuilder, RuntimeException> {
                 builder.append(")");
                 break;
             }
-            case "*": {
+            case INT_MUL, DEC_MUL, MUL: {
                 builder.append("(");
                 visit(ir.left());
                 builder.append(")");
@@ -247,25 +428,26 @@ public class Generator implements Ir.Visitor<StringBuilder, RuntimeException> {
                 builder.append(")");
                 break;
             }
-            case "/": {
-                if(ir.type().equals(Type.INTEGER)){
-                    builder.append("(");
-                    visit(ir.left());
-                    builder.append(")");
-                    builder.append(".divide(");
-                    visit(ir.right());
-                    builder.append(")");
-                }else{
-                    builder.append("(");
-                    visit(ir.left());
-                    builder.append(")");
-                    builder.append(".divide(");
-                    visit(ir.right());
-                    builder.append(", RoundingMode.HALF_EVEN)");
-                }
+            case INT_DIV: {
+                builder.append("(");
+                visit(ir.left());
+                builder.append(")");
+                builder.append(".divide(");
+                visit(ir.right());
+                builder.append(")");
+                break;
+            }
+            case DEC_DIV, DIV: {
+                builder.append("(");
+                visit(ir.left());
+                builder.append(")");
+                builder.append(".divide(");
+                visit(ir.right());
+                builder.append(", RoundingMode.HALF_EVEN)");
                 break;
             }
-            case "<", "<=", ">", ">=": {
+            case INT_LT, INT_LE, INT_GT, INT_GE, DEC_LT, DEC_LE, DEC_GT, DEC_GE,
+                    STR_LT, STR_LE, STR_GT, STR_GE, LT, LE, GT, GE: {
                 //(<left>).compareTo(<right>) <op> 0
                 builder.append("(");
                 visit(ir.left());
@@ -275,7 +457,7 @@ public class Generator implements Ir.Visitor<StringBuilder, RuntimeException> {
                 builder.append(") " + ir.operator() + " 0");
                 break;
             }
-            case "==": {
+            case EQ: {
                 //Objects.equals(<left>, <right>)
                 builder.append("Objects.equals(");
                 visit(ir.left());
@@ -284,7 +466,7 @@ public class Generator implements Ir.Visitor<StringBuilder, RuntimeException> {
                 builder.append(")");
                 break;
             }
-            case "!=": {
+            case NE: {
                 //!Objects.equals(<left>, <right>)
                 builder.append("!Objects.equals(");
                 visit(ir.left());
@@ -293,7 +475,7 @@ public class Generator implements Ir.Visitor<StringBuilder, RuntimeException> {
                 builder.append(")");
                 break;
             }
-            case "AND": {
+            case BOOL_AND: {
                 // If left is binary OR (<left>) && <right>
                 if(ir.left() instanceof Ir.Expr.Binary leftBin
                         && leftBin.operator().equals("OR")){
@@ -310,7 +492,7 @@ public class Generator implements Ir.Visitor<StringBuilder, RuntimeException> {
                 }
                 break;
             }
-            case "OR": {
+            case BOOL_OR: {
                 visit(ir.left());
                 builder.append(" || ");
                 visit(ir.right());
@@ -0,0 +1,641 @@
+package plc.project.ssa;
+
+import org.checkerframework.checker.nullness.qual.Nullable;
+import plc.project.analyzer.Ir;
+import plc.project.analyzer.Type;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * A lowered form of analyzed programs ({@link Ir}) in static single
+ * assignment form, as a substrate for dataflow optimizations. Each function
+ * is a control-flow graph of basic blocks, with phis at the start of a block
+ * merging values from its predecessors and a terminator at its end.
+ *
+ * <p>Local variables are values, except for variables referenced by a nested
+ * function or method: these are captured, so they live in a {@link
+ * Instruction.Cell} (allocated when the variable is defined, e.g. once per
+ * iteration of a FOR body) which is accessed through explicit loads and
+ * stores and passed to closures as a {@link Capture}. Object properties and
+ * globals (names defined by the environment) are always accessed through
+ * loads and stores, as calls can change them.
+ *
+ * <p>Unlike {@link Ir}, the graph is mutable: passes are expected to rewrite
+ * operands, instructions and blocks in place.
+ */
+public final class Ssa {
+
+    private Ssa() {}
+
+    /**
+     * The functions of a program, where the first is the program itself (its
+     * statements, returning the value of the last one).
+     */
+    public record Program(List<Function> functions) {
+
+        public Function main() {
+            return functions.getFirst();
+        }
+
+    }
+
+    /**
+     * A function, method (with this as the first parameter) or the program
+     * itself. The first block is the entry block, which has no predecessors.
+     */
+    public static final class Function {
+
+        private final String name;
+        private final Type returns;
+        private final boolean method;
+        private final List<Parameter> parameters = new ArrayList<>();
+        private final List<Capture> captures = new ArrayList<>();
+        private final List<Block> blocks = new ArrayList<>();
+
+        public Function(String name, Type returns, boolean method) {
+            this.name = name;
+            this.returns = returns;
+            this.method = method;
+        }
+
+        /**
+         * Returns the name of the function, which is unique in the program.
+         */
+        public String name() {
+            return name;
+        }
+
+        public Type returns() {
+            return returns;
+        }
+
+        public boolean method() {
+            return method;
+        }
+
+        public List<Parameter> parameters() {
+            return parameters;
+        }
+
+        /**
+         * Returns the cells captured by the function, which correspond to the
+         * values passed by {@link Instruction.Closure}.
+         */
+        public List<Capture> captures() {
+            return captures;
+        }
+
+        public List<Block> blocks() {
+            return blocks;
+        }
+
+        public Block entry() {
+            return blocks.getFirst();
+        }
+
+        /**
+         * Creates a new (empty) block at the end of the function.
+         */
+        public Block block() {
+            var block = new Block();
+            blocks.add(block);
+            return block;
+        }
+
+    }
+
+    public static final class Block {
+
+        private final List<Block> predecessors = new ArrayList<>();
+        private final List<Phi> phis = new ArrayList<>();
+        private final List<Instruction> instructions = new ArrayList<>();
+        private @Nullable Terminator terminator;
+
+        private Block() {}
+
+        /**
+         * Returns the predecessors of the block, in the order of the operands
+         * of its phis.
+         */
+        public List<Block> predecessors() {
+            return predecessors;
+        }
+
+        public List<Phi> phis() {
+            return phis;
+        }
+
+        public List<Instruction> instructions() {
+            return instructions;
+        }
+
+        /**
+         * Returns the terminator of the block, which is only null while the
+         * block is being built.
+         */
+        public @Nullable Terminator terminator() {
+            return terminator;
+        }
+
+        public void terminate(Terminator terminator) {
+            this.terminator = terminator;
+        }
+
+        public List<Block> successors() {
+            return terminator == null ? List.of() : terminator.targets();
+        }
+
+    }
+
+    /**
+     * A value, identified by identity. Values which are instructions are used
+     * by the instructions, phis and terminators which have them as operands.
+     */
+    public abstract static sealed class Value permits Parameter, Capture, Phi, Instruction {
+
+        private final Type type;
+
+        private Value(Type type) {
+            this.type = type;
+        }
+
+        public Type type() {
+            return type;
+        }
+
+    }
+
+    public static final class Parameter extends Value {
+
+        private final String name;
+
+        public Parameter(String name, Type type) {
+            super(type);
+            this.name = name;
+        }
+
+        public String name() {
+            return name;
+        }
+
+    }
+
+    /**
+     * A cell captured by a function from the function (or program) defining
+     * it. The type is the type of the variable in the cell.
+     */
+    public static final class Capture extends Value {
+
+        private final String name;
+
+        public Capture(String name, Type type) {
+            super(type);
+            this.name = name;
+        }
+
+        public String name() {
+            return name;
+        }
+
+    }
+
+    /**
+     * Merges values from the predecessors of a block, with one operand for
+     * each predecessor (in the same order).
+     */
+    public static final class Phi extends Value {
+
+        private final Block block;
+        private final List<Value> operands = new ArrayList<>();
+
+        public Phi(Block block, Type type) {
+            super(type);
+            this.block = block;
+        }
+
+        public Block block() {
+            return block;
+        }
+
+        public List<Value> operands() {
+            return operands;
+        }
+
+    }
+
+    /**
+     * An instruction, which is a value even if it has no result (stores, which
+     * have the type Nil). The operands can be replaced by passes, but their
+     * number is fixed.
+     */
+    public abstract static sealed class Instruction extends Value {
+
+        private final List<Value> operands;
+
+        private Instruction(Type type, Value... operands) {
+            super(type);
+            this.operands = Arrays.asList(operands);
+        }
+
+        private Instruction(Type type, List<Value> operands) {
+            super(type);
+            this.operands = Arrays.asList(operands.toArray(Value[]::new));
+        }
+
+        public List<Value> operands() {
+            return operands;
+        }
+
+        public static final class Constant extends Instruction {
+
+            private final @Nullable Object value;
+
+            public Constant(@Nullable Object value, Type type) {
+                super(type);
+                this.value = value;
+            }
+
+            public @Nullable Object value() {
+                return value;
+            }
+
+        }
+
+        /**
+         * A binary operation, except for AND/OR, which short-circuit and are
+         * therefore lowered to branches.
+         */
+        public static final class Binary extends Instruction {
+
+            private final String operator;
+
+            public Binary(String operator, Value left, Value right, Type type) {
+                super(type, left, right);
+                this.operator = operator;
+            }
+
+            public String operator() {
+                return operator;
+            }
+
+            public Value left() {
+                return operands().get(0);
+            }
+
+            public Value right() {
+                return operands().get(1);
+            }
+
+        }
+
+        public static final class LoadGlobal extends Instruction {
+
+            private final String name;
+
+            public LoadGlobal(String name, Type type) {
+                super(type);
+                this.name = name;
+            }
+
+            public String name() {
+                return name;
+            }
+
+        }
+
+        public static final class StoreGlobal extends Instruction {
+
+            private final String name;
+
+            public StoreGlobal(String name, Value value) {
+                super(Type.NIL, value);
+                this.name = name;
+            }
+
+            public String name() {
+                return name;
+            }
+
+            public Value value() {
+                return operands().getFirst();
+            }
+
+        }
+
+        /**
+         * Allocates a cell for a captured variable, which is uninitialized
+         * until stored.
+         */
+        public static final class Cell extends Instruction {
+
+            private final String name;
+
+            public Cell(String name, Type type) {
+                super(type);
+                this.name = name;
+            }
+
+            public String name() {
+                return name;
+            }
+
+        }
+
+        public static final class LoadVariable extends Instruction {
+
+            public LoadVariable(Value cell) {
+                super(cell.type(), cell);
+            }
+
+            public Value cell() {
+                return operands().getFirst();
+            }
+
+        }
+
+        public static final class StoreVariable extends Instruction {
+
+            public StoreVariable(Value cell, Value value) {
+                super(Type.NIL, cell, value);
+            }
+
+            public Value cell() {
+                return operands().get(0);
+            }
+
+            public Value value() {
+                return operands().get(1);
+            }
+
+        }
+
+        public static final class LoadProperty extends Instruction {
+
+            private final String name;
+
+            public LoadProperty(Value receiver, String name, Type type) {
+                super(type, receiver);
+                this.name = name;
+            }
+
+            public Value receiver() {
+                return operands().getFirst();
+            }
+
+            public String name() {
+                return name;
+            }
+
+        }
+
+        /**
+         * Stores a property, which also defines the fields and methods of a
+         * new object.
+         */
+        public static final class StoreProperty extends Instruction {
+
+            private final String name;
+
+            public StoreProperty(Value receiver, String name, Value value) {
+                super(Type.NIL, receiver, value);
+                this.name = name;
+            }
+
+            public Value receiver() {
+                return operands().get(0);
+            }
+
+            public String name() {
+                return name;
+            }
+
+            public Value value() {
+                return operands().get(1);
+            }
+
+        }
+
+        /**
+         * Allocates an object without any properties, which are then defined
+         * by {@link StoreProperty}.
+         */
+        public static final class NewObject extends Instruction {
+
+            private final Optional<String> name;
+
+            public NewObject(Optional<String> name, Type type) {
+                super(type);
+                this.name = name;
+            }
+
+            public Optional<String> name() {
+                return name;
+            }
+
+        }
+
+        /**
+         * Creates a function value, with the operands being the cells for the
+         * function's captures.
+         */
+        public static final class Closure extends Instruction {
+
+            private final Function function;
+
+            public Closure(Function function, List<Value> captures, Type type) {
+                super(type, captures);
+                this.function = function;
+            }
+
+            public Function function() {
+                return function;
+            }
+
+        }
+
+        /**
+         * Calls a function value, with the operands being the function
+         * followed by the arguments.
+         */
+        public static final class Call extends Instruction {
+
+            public Call(Value function, List<Value> arguments, Type type) {
+                super(type, prepend(function, arguments));
+            }
+
+            public Value function() {
+                return operands().getFirst();
+            }
+
+            public List<Value> arguments() {
+                return operands().subList(1, operands().size());
+            }
+
+        }
+
+        /**
+         * Calls a method of an object, with the operands being the receiver
+         * followed by the arguments.
+         */
+        public static final class CallMethod extends Instruction {
+
+            private final String name;
+
+            public CallMethod(Value receiver, String name, List<Value> arguments, Type type) {
+                super(type, prepend(receiver, arguments));
+                this.name = name;
+            }
+
+            public Value receiver() {
+                return operands().getFirst();
+            }
+
+            public String name() {
+                return name;
+            }
+
+            public List<Value> arguments() {
+                return operands().subList(1, operands().size());
+            }
+
+        }
+
+        /**
+         * Starts iterating over an iterable (for FOR loops), see {@link
+         * HasNext} and {@link Next}.
+         */
+        public static final class Iterator extends Instruction {
+
+            public Iterator(Value iterable) {
+                super(Type.ANY, iterable);
+            }
+
+            public Value iterable() {
+                return operands().getFirst();
+            }
+
+        }
+
+        public static final class HasNext extends Instruction {
+
+            public HasNext(Value iterator) {
+                super(Type.BOOLEAN, iterator);
+            }
+
+            public Value iterator() {
+                return operands().getFirst();
+            }
+
+        }
+
+        public static final class Next extends Instruction {
+
+            public Next(Value iterator, Type type) {
+                super(type, iterator);
+            }
+
+            public Value iterator() {
+                return operands().getFirst();
+            }
+
+        }
+
+        private static List<Value> prepend(Value first, List<Value> rest) {
+            var values = new ArrayList<Value>(rest.size() + 1);
+            values.add(first);
+            values.addAll(rest);
+            return values;
+        }
+
+    }
+
+    /**
+     * The end of a block, transferring control to its targets (the successors
+     * of the block) or returning from the function.
+     */
+    public abstract static sealed class Terminator {
+
+        private final List<Value> operands;
+
+        private Terminator(Value... operands) {
+            this.operands = Arrays.asList(operands);
+        }
+
+        public List<Value> operands() {
+            return operands;
+        }
+
+        public abstract List<Block> targets();
+
+        public static final class Jump extends Terminator {
+
+            private final Block target;
+
+            public Jump(Block target) {
+                this.target = target;
+            }
+
+            public Block target() {
+                return target;
+            }
+
+            @Override
+            public List<Block> targets() {
+                return List.of(target);
+            }
+
+        }
+
+        public static final class Branch extends Terminator {
+
+            private final Block then;
+            private final Block otherwise;
+
+            public Branch(Value condition, Block then, Block otherwise) {
+                super(condition);
+                this.then = then;
+                this.otherwise = otherwise;
+            }
+
+            public Value condition() {
+                return operands().getFirst();
+            }
+
+            public Block then() {
+                return then;
+            }
+
+            public Block otherwise() {
+                return otherwise;
+            }
+
+            @Override
+            public List<Block> targets() {
+                return List.of(then, otherwise);
+            }
+
+        }
+
+        public static final class Return extends Terminator {
+
+            public Return(Value value) {
+                super(value);
+            }
+
+            public Value value() {
+                return operands().getFirst();
+            }
+
+            @Override
+            public List<Block> targets() {
+                return List.of();
+            }
+
+        }
+
+    }
+
+}
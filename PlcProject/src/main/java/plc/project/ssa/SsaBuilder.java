@@ -0,0 +1,648 @@
+package plc.project.ssa;
+
+import org.checkerframework.checker.nullness.qual.Nullable;
+import plc.project.analyzer.Ir;
+import plc.project.analyzer.ScopedTransformer;
+import plc.project.analyzer.Type;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Builds the {@link Ssa} form of an analyzed program, using the algorithm of
+ * Braun et al. (Simple and Efficient Construction of Static Single Assignment
+ * Form): variables are read by looking up their definition in the current
+ * block and recursively in its predecessors, placing phis where control flow
+ * merges. Blocks are sealed once all of their predecessors are known (loop
+ * headers only after the body); reads in unsealed blocks create phis whose
+ * operands are filled in when the block is sealed.
+ *
+ * <p>Phis which turn out to be trivial (merging a single value, possibly with
+ * themselves) are removed once a function is complete, replacing their uses.
+ *
+ * <p>Variables are first resolved to their definitions (bindings) following
+ * the Analyzer's scoping, which also determines the variables referenced by
+ * nested functions and methods. These are captured and stored in cells (see
+ * {@link Ssa}), as closures may read or assign them at any point.
+ */
+public final class SsaBuilder implements Ir.Visitor<Ssa.@Nullable Value, RuntimeException> {
+
+    /**
+     * The state of the function being built.
+     */
+    private static final class Context {
+
+        private final Ssa.Function function;
+        private Ssa.@Nullable Block block;
+        private final Map<Object, Map<Ssa.Block, Ssa.Value>> definitions = new IdentityHashMap<>();
+        private final Set<Ssa.Block> sealed = Collections.newSetFromMap(new IdentityHashMap<>());
+        private final Map<Ssa.Block, Map<Object, Ssa.Phi>> incomplete = new IdentityHashMap<>();
+        private final Map<Object, Ssa.Value> cells = new IdentityHashMap<>();
+
+        private Context(Ssa.Function function) {
+            this.function = function;
+        }
+
+    }
+
+    private final Bindings bindings;
+    private final List<Ssa.Function> functions = new ArrayList<>();
+    private final Set<String> names = new HashSet<>();
+    private Context context;
+    private boolean needed;
+
+    private SsaBuilder(Bindings bindings) {
+        this.bindings = bindings;
+    }
+
+    public static Ssa.Program build(Ir.Source ir) {
+        var bindings = new Bindings();
+        bindings.visit(ir);
+        var builder = new SsaBuilder(bindings);
+        builder.visit(ir);
+        return new Ssa.Program(List.copyOf(builder.functions));
+    }
+
+    @Override
+    public Ssa.@Nullable Value visit(Ir.Source ir) {
+        context = new Context(function("main", Type.ANY, false));
+        seal(context.function.block());
+        context.block = context.function.entry();
+        var value = block(ir.statements(), true);
+        if (context.block != null) {
+            context.block.terminate(new Ssa.Terminator.Return(value));
+        }
+        finish();
+        return null;
+    }
+
+    @Override
+    public Ssa.@Nullable Value visit(Ir.Stmt.Let ir) {
+        var value = ir.value().isPresent() ? value(ir.value().get()) : nil();
+        define(ir, value);
+        return value;
+    }
+
+    @Override
+    public Ssa.@Nullable Value visit(Ir.Stmt.Def ir) {
+        //The variable is defined before the closure is created, so a
+        //recursive function captures its own cell.
+        Ssa.@Nullable Value cell = null;
+        if (bindings.captured.contains(ir)) {
+            cell = emit(new Ssa.Instruction.Cell(ir.name(), bindings.types.get(ir)));
+            context.cells.put(ir, cell);
+        }
+        var closure = closure(ir, false, bindings.types.get(ir));
+        if (cell != null) {
+            emit(new Ssa.Instruction.StoreVariable(cell, closure));
+        } else {
+            write(ir, context.block, closure);
+        }
+        return closure;
+    }
+
+    @Override
+    public Ssa.@Nullable Value visit(Ir.Stmt.If ir) {
+        var needed = this.needed;
+        var condition = value(ir.condition());
+        var then = context.function.block();
+        var otherwise = context.function.block();
+        branch(condition, then, otherwise);
+        seal(then);
+        seal(otherwise);
+        context.block = then;
+        var thenValue = block(ir.thenBody(), needed);
+        var thenEnd = context.block;
+        context.block = otherwise;
+        var elseValue = block(ir.elseBody(), needed);
+        var elseEnd = context.block;
+        if (thenEnd == null && elseEnd == null) {
+            context.block = null;
+            return null;
+        }
+        var merge = context.function.block();
+        context.block = thenEnd;
+        jump(merge);
+        context.block = elseEnd;
+        jump(merge);
+        seal(merge);
+        context.block = merge;
+        if (!needed || thenEnd == null || elseEnd == null) {
+            return thenEnd != null ? thenValue : elseValue;
+        }
+        return phi(merge, Type.ANY, thenValue, elseValue);
+    }
+
+    @Override
+    public Ssa.@Nullable Value visit(Ir.Stmt.For ir) {
+        var needed = this.needed;
+        var iterator = emit(new Ssa.Instruction.Iterator(value(ir.expression())));
+        var header = context.function.block();
+        jump(header);
+        context.block = header;
+        var condition = emit(new Ssa.Instruction.HasNext(iterator));
+        var body = context.function.block();
+        var exit = context.function.block();
+        branch(condition, body, exit);
+        seal(body);
+        seal(exit);
+        context.block = body;
+        define(ir, emit(new Ssa.Instruction.Next(iterator, ir.type())));
+        block(ir.body(), false);
+        jump(header);
+        seal(header);
+        context.block = exit;
+        return needed ? nil() : null;
+    }
+
+    @Override
+    public Ssa.@Nullable Value visit(Ir.Stmt.Return ir) {
+        var value = ir.value().isPresent() ? value(ir.value().get()) : nil();
+        context.block.terminate(new Ssa.Terminator.Return(value));
+        context.block = null;
+        return null;
+    }
+
+    @Override
+    public Ssa.@Nullable Value visit(Ir.Stmt.Expression ir) {
+        return value(ir.expression());
+    }
+
+    @Override
+    public Ssa.@Nullable Value visit(Ir.Stmt.Assignment.Variable ir) {
+        var value = value(ir.value());
+        var binding = bindings.references.get(ir.variable());
+        if (binding == null) {
+            emit(new Ssa.Instruction.StoreGlobal(ir.variable().name(), value));
+        } else if (bindings.captured.contains(binding)) {
+            emit(new Ssa.Instruction.StoreVariable(context.cells.get(binding), value));
+        } else {
+            write(binding, context.block, value);
+        }
+        return value;
+    }
+
+    @Override
+    public Ssa.@Nullable Value visit(Ir.Stmt.Assignment.Property ir) {
+        var receiver = value(ir.property().receiver());
+        var value = value(ir.value());
+        emit(new Ssa.Instruction.StoreProperty(receiver, ir.property().name(), value));
+        return value;
+    }
+
+    @Override
+    public Ssa.@Nullable Value visit(Ir.Expr.Literal ir) {
+        return emit(new Ssa.Instruction.Constant(ir.value(), ir.type()));
+    }
+
+    @Override
+    public Ssa.@Nullable Value visit(Ir.Expr.Group ir) {
+        return value(ir.expression());
+    }
+
+    @Override
+    public Ssa.@Nullable Value visit(Ir.Expr.Binary ir) {
+        var left = value(ir.left());
+        if (!ir.operator().equals("AND") && !ir.operator().equals("OR")) {
+            return emit(new Ssa.Instruction.Binary(ir.operator(), left, value(ir.right()), ir.type()));
+        }
+        //The right operand is only evaluated if the left doesn't determine
+        //the result, which is then the value of the left operand.
+        var right = context.function.block();
+        var merge = context.function.block();
+        if (ir.operator().equals("AND")) {
+            branch(left, right, merge);
+        } else {
+            branch(left, merge, right);
+        }
+        seal(right);
+        context.block = right;
+        var value = value(ir.right());
+        jump(merge);
+        seal(merge);
+        context.block = merge;
+        return phi(merge, ir.type(), left, value);
+    }
+
+    @Override
+    public Ssa.@Nullable Value visit(Ir.Expr.Variable ir) {
+        return read(ir, ir.name(), ir.type());
+    }
+
+    @Override
+    public Ssa.@Nullable Value visit(Ir.Expr.Property ir) {
+        return emit(new Ssa.Instruction.LoadProperty(value(ir.receiver()), ir.name(), ir.type()));
+    }
+
+    @Override
+    public Ssa.@Nullable Value visit(Ir.Expr.Function ir) {
+        //The function is read before the arguments are evaluated.
+        var function = read(ir, ir.name(), bindings.types.getOrDefault(bindings.references.get(ir), Type.ANY));
+        return emit(new Ssa.Instruction.Call(function, values(ir.arguments()), ir.type()));
+    }
+
+    @Override
+    public Ssa.@Nullable Value visit(Ir.Expr.Method ir) {
+        var receiver = value(ir.receiver());
+        return emit(new Ssa.Instruction.CallMethod(receiver, ir.name(), values(ir.arguments()), ir.type()));
+    }
+
+    @Override
+    public Ssa.@Nullable Value visit(Ir.Expr.ObjectExpr ir) {
+        var object = emit(new Ssa.Instruction.NewObject(ir.name(), ir.type()));
+        for (var field : ir.fields()) {
+            var value = field.value().isPresent() ? value(field.value().get()) : nil();
+            emit(new Ssa.Instruction.StoreProperty(object, field.name(), value));
+        }
+        for (var method : ir.methods()) {
+            var closure = closure(method, true, bindings.types.get(method));
+            emit(new Ssa.Instruction.StoreProperty(object, method.name(), closure));
+        }
+        return object;
+    }
+
+    /**
+     * Builds the statements of a block, returning the value of the last one
+     * (or Nil if there are none) if needed. Statements after a RETURN are
+     * unreachable, and thus skipped. Whether the value of the statement being
+     * built is needed is available as {@link #needed}.
+     */
+    private Ssa.@Nullable Value block(List<Ir.Stmt> statements, boolean needed) {
+        Ssa.@Nullable Value value = null;
+        for (int i = 0; i < statements.size() && context.block != null; i++) {
+            this.needed = needed && i == statements.size() - 1;
+            value = visit(statements.get(i));
+        }
+        if (needed && statements.isEmpty()) {
+            value = nil();
+        }
+        return value;
+    }
+
+    private Ssa.Value value(Ir.Expr ir) {
+        return visit(ir);
+    }
+
+    private List<Ssa.Value> values(List<Ir.Expr> expressions) {
+        var values = new ArrayList<Ssa.Value>(expressions.size());
+        for (var expression : expressions) {
+            values.add(value(expression));
+        }
+        return values;
+    }
+
+    /**
+     * Builds a function or method and returns the closure creating it, which
+     * captures the cells of its free variables from the current function.
+     */
+    private Ssa.Value closure(Ir.Stmt.Def ir, boolean method, Type type) {
+        var enclosing = context;
+        var function = function(ir.name(), ir.returns(), method);
+        context = new Context(function);
+        seal(function.block());
+        context.block = function.entry();
+        var free = bindings.free.getOrDefault(ir, List.of());
+        for (var binding : free) {
+            var capture = new Ssa.Capture(bindings.names.get(binding), bindings.types.get(binding));
+            function.captures().add(capture);
+            context.cells.put(binding, capture);
+        }
+        var parameters = bindings.parameters.get(ir);
+        for (var binding : parameters) {
+            var parameter = new Ssa.Parameter(bindings.names.get(binding), bindings.types.get(binding));
+            function.parameters().add(parameter);
+            define(binding, parameter);
+        }
+        block(ir.body(), false);
+        if (context.block != null) {
+            context.block.terminate(new Ssa.Terminator.Return(nil()));
+        }
+        finish();
+        context = enclosing;
+        var captures = new ArrayList<Ssa.Value>(free.size());
+        for (var binding : free) {
+            captures.add(context.cells.get(binding));
+        }
+        return emit(new Ssa.Instruction.Closure(function, captures, type));
+    }
+
+    private Ssa.Function function(String name, Type returns, boolean method) {
+        var unique = name;
+        for (int i = 1; !names.add(unique); i++) {
+            unique = name + "$" + i;
+        }
+        var function = new Ssa.Function(unique, returns, method);
+        functions.add(function);
+        return function;
+    }
+
+    /**
+     * Defines a variable in the current block, allocating its cell if it is
+     * captured.
+     */
+    private void define(Object binding, Ssa.Value value) {
+        if (bindings.captured.contains(binding)) {
+            var cell = emit(new Ssa.Instruction.Cell(bindings.names.get(binding), bindings.types.get(binding)));
+            context.cells.put(binding, cell);
+            emit(new Ssa.Instruction.StoreVariable(cell, value));
+        } else {
+            write(binding, context.block, value);
+        }
+    }
+
+    /**
+     * Reads the variable referenced by a node, which is a global if it isn't
+     * defined by the program.
+     */
+    private Ssa.Value read(Ir ir, String name, Type type) {
+        var binding = bindings.references.get(ir);
+        if (binding == null) {
+            return emit(new Ssa.Instruction.LoadGlobal(name, type));
+        } else if (bindings.captured.contains(binding)) {
+            return emit(new Ssa.Instruction.LoadVariable(context.cells.get(binding)));
+        }
+        return read(binding, context.block);
+    }
+
+    private void write(Object binding, Ssa.Block block, Ssa.Value value) {
+        context.definitions.computeIfAbsent(binding, _ -> new IdentityHashMap<>()).put(block, value);
+    }
+
+    private Ssa.Value read(Object binding, Ssa.Block block) {
+        var definitions = context.definitions.get(binding);
+        var value = definitions != null ? definitions.get(block) : null;
+        if (value != null) {
+            return value;
+        }
+        if (!context.sealed.contains(block)) {
+            var phi = new Ssa.Phi(block, bindings.types.get(binding));
+            block.phis().add(phi);
+            context.incomplete.computeIfAbsent(block, _ -> new IdentityHashMap<>()).put(binding, phi);
+            value = phi;
+        } else if (block.predecessors().size() == 1) {
+            value = read(binding, block.predecessors().getFirst());
+        } else if (block.predecessors().isEmpty()) {
+            throw new IllegalStateException("Variable " + bindings.names.get(binding) + " is read before it is defined.");
+        } else {
+            //The phi is defined before its operands are read to break cycles.
+            var phi = new Ssa.Phi(block, bindings.types.get(binding));
+            block.phis().add(phi);
+            write(binding, block, phi);
+            operands(binding, phi);
+            value = phi;
+        }
+        write(binding, block, value);
+        return value;
+    }
+
+    private void operands(Object binding, Ssa.Phi phi) {
+        for (var predecessor : phi.block().predecessors()) {
+            phi.operands().add(read(binding, predecessor));
+        }
+    }
+
+    /**
+     * Marks a block as having all of its predecessors, completing the phis
+     * created while it wasn't.
+     */
+    private void seal(Ssa.Block block) {
+        var phis = context.incomplete.remove(block);
+        if (phis != null) {
+            for (var entry : phis.entrySet()) {
+                operands(entry.getKey(), entry.getValue());
+            }
+        }
+        context.sealed.add(block);
+    }
+
+    private Ssa.Phi phi(Ssa.Block block, Type type, Ssa.Value... operands) {
+        var phi = new Ssa.Phi(block, type);
+        phi.operands().addAll(List.of(operands));
+        block.phis().add(phi);
+        return phi;
+    }
+
+    /**
+     * Removes trivial phis from the current function, which merge a single
+     * value (besides themselves), replacing them with that value until no
+     * trivial phis remain.
+     */
+    private void finish() {
+        var replacements = new IdentityHashMap<Ssa.Value, Ssa.Value>();
+        var changed = true;
+        while (changed) {
+            changed = false;
+            for (var block : context.function.blocks()) {
+                var iterator = block.phis().iterator();
+                while (iterator.hasNext()) {
+                    var phi = iterator.next();
+                    Ssa.@Nullable Value same = null;
+                    var trivial = true;
+                    for (var operand : phi.operands()) {
+                        operand = resolve(replacements, operand);
+                        if (operand == phi || operand == same) {
+                            continue;
+                        } else if (same != null) {
+                            trivial = false;
+                            break;
+                        }
+                        same = operand;
+                    }
+                    if (trivial && same != null) {
+                        replacements.put(phi, same);
+                        iterator.remove();
+                        changed = true;
+                    }
+                }
+            }
+        }
+        for (var block : context.function.blocks()) {
+            for (var phi : block.phis()) {
+                phi.operands().replaceAll(operand -> resolve(replacements, operand));
+            }
+            for (var instruction : block.instructions()) {
+                instruction.operands().replaceAll(operand -> resolve(replacements, operand));
+            }
+            block.terminator().operands().replaceAll(operand -> resolve(replacements, operand));
+        }
+    }
+
+    private static Ssa.Value resolve(Map<Ssa.Value, Ssa.Value> replacements, Ssa.Value value) {
+        while (replacements.containsKey(value)) {
+            value = replacements.get(value);
+        }
+        return value;
+    }
+
+    private <T extends Ssa.Instruction> T emit(T instruction) {
+        context.block.instructions().add(instruction);
+        return instruction;
+    }
+
+    private Ssa.Value nil() {
+        return emit(new Ssa.Instruction.Constant(null, Type.NIL));
+    }
+
+    /**
+     * Jumps from the current block to a target, unless the current block is
+     * unreachable (has already returned).
+     */
+    private void jump(Ssa.Block target) {
+        if (context.block != null) {
+            context.block.terminate(new Ssa.Terminator.Jump(target));
+            target.predecessors().add(context.block);
+        }
+    }
+
+    private void branch(Ssa.Value condition, Ssa.Block then, Ssa.Block otherwise) {
+        context.block.terminate(new Ssa.Terminator.Branch(condition, then, otherwise));
+        then.predecessors().add(context.block);
+        otherwise.predecessors().add(context.block);
+    }
+
+    /**
+     * Resolves variables to their definitions (bindings) following the
+     * Analyzer's scoping, see {@link ScopedTransformer}, and finds the
+     * variables referenced by nested functions (captured), along with the
+     * free variables of each function (including those of the functions
+     * nested in it).
+     */
+    private static final class Bindings extends ScopedTransformer {
+
+        private final Map<Ir, Object> references = new IdentityHashMap<>();
+        private final Map<Object, String> names = new IdentityHashMap<>();
+        private final Map<Object, Type> types = new IdentityHashMap<>();
+        private final Map<Ir.Stmt.Def, List<Object>> parameters = new IdentityHashMap<>();
+        private final Map<Ir.Stmt.Def, List<Object>> free = new IdentityHashMap<>();
+        private final Set<Object> captured = Collections.newSetFromMap(new IdentityHashMap<>());
+
+        /**
+         * The function defining each binding, as an index in the stack of
+         * functions (where 0 is the source).
+         */
+        private final Map<Object, Integer> owners = new IdentityHashMap<>();
+        private final List<Ir.Stmt.@Nullable Def> functions = new ArrayList<>();
+        private final List<Type> objects = new ArrayList<>();
+
+        private Bindings() {
+            functions.add(null);
+        }
+
+        @Override
+        public Ir.Stmt visit(Ir.Stmt.Let ir) {
+            var let = super.visit(ir);
+            bind(let, ir.name(), ir.type());
+            return let;
+        }
+
+        @Override
+        public Ir.Stmt visit(Ir.Stmt.Def ir) {
+            bind(ir, ir.name(), type(ir));
+            return super.visit(ir);
+        }
+
+        @Override
+        public Ir.Stmt visit(Ir.Stmt.For ir) {
+            visit(ir.expression());
+            bind(ir, ir.name(), ir.type());
+            scoped(ir.body(), Map.of(ir.name(), ir));
+            return ir;
+        }
+
+        @Override
+        public Ir.Stmt visit(Ir.Stmt.Assignment.Variable ir) {
+            reference(ir.variable(), ir.variable().name());
+            return super.visit(ir);
+        }
+
+        @Override
+        public Ir.Expr visit(Ir.Expr.Variable ir) {
+            reference(ir, ir.name());
+            return ir;
+        }
+
+        @Override
+        public Ir.Expr visit(Ir.Expr.Function ir) {
+            reference(ir, ir.name());
+            return super.visit(ir);
+        }
+
+        @Override
+        public Ir.Expr visit(Ir.Expr.ObjectExpr ir) {
+            objects.add(ir.type());
+            try {
+                return super.visit(ir);
+            } finally {
+                objects.removeLast();
+            }
+        }
+
+        @Override
+        protected Ir.Stmt.Def method(Ir.Stmt.Def ir) {
+            types.put(ir, type(ir));
+            return function(ir, List.of("this"));
+        }
+
+        @Override
+        protected Ir.Stmt.Def function(Ir.Stmt.Def ir, List<String> implicit) {
+            functions.add(ir);
+            try {
+                var scope = new LinkedHashMap<String, Object>();
+                var list = new ArrayList<Object>();
+                for (var name : implicit) {
+                    var binding = new Object();
+                    bind(binding, name, objects.getLast());
+                    scope.put(name, binding);
+                    list.add(binding);
+                }
+                for (var parameter : ir.parameters()) {
+                    var binding = new Object();
+                    bind(binding, parameter.name(), parameter.type());
+                    scope.put(parameter.name(), binding);
+                    list.add(binding);
+                }
+                parameters.put(ir, list);
+                scoped(ir.body(), scope);
+                return ir;
+            } finally {
+                functions.removeLast();
+            }
+        }
+
+        private void bind(Object binding, String name, Type type) {
+            names.put(binding, name);
+            types.put(binding, type);
+            owners.put(binding, functions.size() - 1);
+        }
+
+        private void reference(Ir ir, String name) {
+            var binding = lookup(name);
+            if (binding == null) {
+                return;
+            }
+            references.put(ir, binding);
+            var owner = owners.get(binding);
+            if (owner < functions.size() - 1) {
+                captured.add(binding);
+                for (int i = owner + 1; i < functions.size(); i++) {
+                    var list = free.computeIfAbsent(functions.get(i), _ -> new ArrayList<>());
+                    if (list.stream().noneMatch(b -> b == binding)) {
+                        list.add(binding);
+                    }
+                }
+            }
+        }
+
+        private static Type type(Ir.Stmt.Def ir) {
+            return new Type.Function(ir.parameters().stream().map(Ir.Stmt.Def.Parameter::type).toList(), ir.returns());
+        }
+
+    }
+
+}
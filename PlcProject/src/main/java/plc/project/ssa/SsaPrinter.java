@@ -0,0 +1,198 @@
+package plc.project.ssa;
+
+import plc.project.analyzer.Type;
+
+import java.math.BigDecimal;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Prints the {@link Ssa} form of a program in a textual format, for example:
+ *
+ * <pre>{@code
+ * function @main(): Any {
+ * b0:
+ *     %0 = constant 1
+ *     %1 = global print
+ *     %2 = call %1(%0)
+ *     return %2
+ * }
+ * }</pre>
+ *
+ * <p>Values are numbered in order within each function (parameters, captures,
+ * then the phis and instructions of each block), skipping stores, which have
+ * no result. Blocks are numbered in order, with their predecessors listed
+ * after the label if there are any.
+ */
+public final class SsaPrinter {
+
+    private final StringBuilder builder = new StringBuilder();
+    private final Map<Ssa.Value, Integer> numbers = new IdentityHashMap<>();
+    private final Map<Ssa.Block, Integer> blocks = new IdentityHashMap<>();
+
+    private SsaPrinter() {}
+
+    public static String print(Ssa.Program program) {
+        var printer = new SsaPrinter();
+        for (var function : program.functions()) {
+            if (!printer.builder.isEmpty()) {
+                printer.builder.append("\n");
+            }
+            printer.function(function);
+        }
+        return printer.builder.toString();
+    }
+
+    public static String print(Ssa.Function function) {
+        var printer = new SsaPrinter();
+        printer.function(function);
+        return printer.builder.toString();
+    }
+
+    private void function(Ssa.Function function) {
+        numbers.clear();
+        blocks.clear();
+        for (var parameter : function.parameters()) {
+            number(parameter);
+        }
+        for (var capture : function.captures()) {
+            number(capture);
+        }
+        for (var block : function.blocks()) {
+            blocks.put(block, blocks.size());
+            block.phis().forEach(this::number);
+            for (var instruction : block.instructions()) {
+                if (!store(instruction)) {
+                    number(instruction);
+                }
+            }
+        }
+        builder.append("function @").append(function.name()).append("(");
+        declarations(function.parameters().stream().map(p -> (Ssa.Value) p).toList(),
+            function.parameters().stream().map(Ssa.Parameter::name).toList());
+        builder.append("): ").append(type(function.returns()));
+        if (!function.captures().isEmpty()) {
+            builder.append(" [");
+            declarations(function.captures().stream().map(c -> (Ssa.Value) c).toList(),
+                function.captures().stream().map(Ssa.Capture::name).toList());
+            builder.append("]");
+        }
+        builder.append(" {\n");
+        for (var block : function.blocks()) {
+            block(block);
+        }
+        builder.append("}\n");
+    }
+
+    private void declarations(List<Ssa.Value> values, List<String> names) {
+        for (int i = 0; i < values.size(); i++) {
+            if (i != 0) {
+                builder.append(", ");
+            }
+            builder.append(value(values.get(i))).append(" ").append(names.get(i))
+                .append(": ").append(type(values.get(i).type()));
+        }
+    }
+
+    private void block(Ssa.Block block) {
+        builder.append(label(block)).append(":");
+        if (!block.predecessors().isEmpty()) {
+            builder.append(" ; ").append(String.join(", ", block.predecessors().stream().map(this::label).toList()));
+        }
+        builder.append("\n");
+        for (var phi : block.phis()) {
+            builder.append("    ").append(value(phi)).append(" = phi ");
+            for (int i = 0; i < phi.operands().size(); i++) {
+                if (i != 0) {
+                    builder.append(", ");
+                }
+                builder.append("[").append(label(block.predecessors().get(i))).append(": ")
+                    .append(value(phi.operands().get(i))).append("]");
+            }
+            builder.append("\n");
+        }
+        for (var instruction : block.instructions()) {
+            builder.append("    ");
+            if (!store(instruction)) {
+                builder.append(value(instruction)).append(" = ");
+            }
+            builder.append(instruction(instruction)).append("\n");
+        }
+        builder.append("    ").append(block.terminator() == null ? "<unterminated>" : terminator(block.terminator())).append("\n");
+    }
+
+    private String instruction(Ssa.Instruction instruction) {
+        return switch (instruction) {
+            case Ssa.Instruction.Constant constant -> "constant " + literal(constant.value());
+            case Ssa.Instruction.Binary binary -> value(binary.left()) + " " + binary.operator() + " " + value(binary.right());
+            case Ssa.Instruction.LoadGlobal load -> "global " + load.name();
+            case Ssa.Instruction.StoreGlobal store -> "store global " + store.name() + ", " + value(store.value());
+            case Ssa.Instruction.Cell cell -> "cell " + cell.name() + ": " + type(cell.type());
+            case Ssa.Instruction.LoadVariable load -> "load " + value(load.cell());
+            case Ssa.Instruction.StoreVariable store -> "store " + value(store.cell()) + ", " + value(store.value());
+            case Ssa.Instruction.LoadProperty load -> "load " + value(load.receiver()) + "." + load.name();
+            case Ssa.Instruction.StoreProperty store -> "store " + value(store.receiver()) + "." + store.name() + ", " + value(store.value());
+            case Ssa.Instruction.NewObject object -> "object" + object.name().map(name -> " " + name).orElse("");
+            case Ssa.Instruction.Closure closure -> "closure @" + closure.function().name() + values(closure.operands(), " [", "]");
+            case Ssa.Instruction.Call call -> "call " + value(call.function()) + values(call.arguments(), "(", ")");
+            case Ssa.Instruction.CallMethod call -> "call " + value(call.receiver()) + "." + call.name() + values(call.arguments(), "(", ")");
+            case Ssa.Instruction.Iterator iterator -> "iterator " + value(iterator.iterable());
+            case Ssa.Instruction.HasNext hasNext -> "hasNext " + value(hasNext.iterator());
+            case Ssa.Instruction.Next next -> "next " + value(next.iterator());
+        };
+    }
+
+    private String terminator(Ssa.Terminator terminator) {
+        return switch (terminator) {
+            case Ssa.Terminator.Jump jump -> "jump " + label(jump.target());
+            case Ssa.Terminator.Branch branch -> "branch " + value(branch.condition()) + ", " + label(branch.then()) + ", " + label(branch.otherwise());
+            case Ssa.Terminator.Return ret -> "return " + value(ret.value());
+        };
+    }
+
+    private String values(List<Ssa.Value> values, String open, String close) {
+        if (values.isEmpty() && open.equals(" [")) {
+            return "";
+        }
+        return open + String.join(", ", values.stream().map(this::value).toList()) + close;
+    }
+
+    private void number(Ssa.Value value) {
+        numbers.put(value, numbers.size());
+    }
+
+    private String value(Ssa.Value value) {
+        var number = numbers.get(value);
+        return number != null ? "%" + number : "%?";
+    }
+
+    private String label(Ssa.Block block) {
+        var number = blocks.get(block);
+        return number != null ? "b" + number : "b?";
+    }
+
+    private static boolean store(Ssa.Instruction instruction) {
+        return instruction instanceof Ssa.Instruction.StoreGlobal
+            || instruction instanceof Ssa.Instruction.StoreVariable
+            || instruction instanceof Ssa.Instruction.StoreProperty;
+    }
+
+    private static String literal(Object value) {
+        return switch (value) {
+            case null -> "nil";
+            case String string -> "\"" + string.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n") + "\"";
+            case BigDecimal decimal -> decimal.toPlainString();
+            default -> value.toString();
+        };
+    }
+
+    private static String type(Type type) {
+        return switch (type) {
+            case Type.Primitive primitive -> primitive.name();
+            case Type.Function _ -> "Function";
+            case Type.Object _ -> "Object";
+        };
+    }
+
+}
@@ -0,0 +1,536 @@
+package plc.project.workload;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Generates random but valid programs for benchmarks and stress tests. The
+ * output is plain source text, so it exercises the whole pipeline: every
+ * program lexes, parses, passes the {@link plc.project.analyzer.Analyzer} and
+ * runs in the {@link plc.project.evaluator.Evaluator} without errors.
+ *
+ * <p>Validity is maintained by tracking every binding the program has defined
+ * so far (with its static type), so expressions only reference names that are
+ * in scope. Evaluation cost is kept bounded with a budget: loops divide the
+ * budget of their body and calls are only emitted when the callee's estimated
+ * cost fits, which also rules out recursion and keeps call depth small.
+ */
+public final class ProgramGenerator {
+
+    public enum Kind {
+        LET,
+        DEF,
+        IF,
+        FOR,
+        OBJECT,
+        EXPRESSION
+    }
+
+    /**
+     * @param statements number of top-level statements
+     * @param depth maximum nesting depth of blocks (DEF/IF/FOR/OBJECT bodies)
+     * @param expressionDepth maximum nesting depth of expressions
+     * @param blockSize maximum number of statements in a nested block
+     * @param loopBound maximum number of iterations of a generated FOR loop
+     * @param budget maximum estimated evaluation cost of a single top-level
+     *               statement, which bounds loops and calls
+     * @param weights relative frequency of each statement kind
+     * @param seed random seed; equal options always generate equal programs
+     */
+    public record Options(
+        int statements,
+        int depth,
+        int expressionDepth,
+        int blockSize,
+        int loopBound,
+        int budget,
+        Map<Kind, Integer> weights,
+        long seed
+    ) {
+
+        public Options {
+            weights = Map.copyOf(weights);
+        }
+
+        public static Options defaults() {
+            var weights = new EnumMap<Kind, Integer>(Kind.class);
+            weights.put(Kind.LET, 4);
+            weights.put(Kind.DEF, 2);
+            weights.put(Kind.IF, 2);
+            weights.put(Kind.FOR, 1);
+            weights.put(Kind.OBJECT, 1);
+            weights.put(Kind.EXPRESSION, 3);
+            return new Options(100, 3, 3, 4, 4, 256, weights, 0);
+        }
+
+        public Options withStatements(int statements) {
+            return new Options(statements, depth, expressionDepth, blockSize, loopBound, budget, weights, seed);
+        }
+
+        public Options withDepth(int depth) {
+            return new Options(statements, depth, expressionDepth, blockSize, loopBound, budget, weights, seed);
+        }
+
+        public Options withExpressionDepth(int expressionDepth) {
+            return new Options(statements, depth, expressionDepth, blockSize, loopBound, budget, weights, seed);
+        }
+
+        public Options withBlockSize(int blockSize) {
+            return new Options(statements, depth, expressionDepth, blockSize, loopBound, budget, weights, seed);
+        }
+
+        public Options withLoopBound(int loopBound) {
+            return new Options(statements, depth, expressionDepth, blockSize, loopBound, budget, weights, seed);
+        }
+
+        public Options withBudget(int budget) {
+            return new Options(statements, depth, expressionDepth, blockSize, loopBound, budget, weights, seed);
+        }
+
+        public Options withWeight(Kind kind, int weight) {
+            var weights = new EnumMap<Kind, Integer>(Kind.class);
+            weights.putAll(this.weights);
+            weights.put(kind, weight);
+            return new Options(statements, depth, expressionDepth, blockSize, loopBound, budget, weights, seed);
+        }
+
+        public Options withSeed(long seed) {
+            return new Options(statements, depth, expressionDepth, blockSize, loopBound, budget, weights, seed);
+        }
+
+    }
+
+    private static final List<String> TYPES = List.of("Integer", "Decimal", "String", "Boolean");
+
+    /**
+     * A name visible to the generated program. Functions and methods carry
+     * their parameter types and an estimate of their evaluation cost, objects
+     * carry their fields and methods (which are bindings themselves).
+     */
+    private record Binding(
+        String name,
+        String type,
+        List<String> parameters,
+        int cost,
+        List<Binding> fields,
+        List<Binding> methods
+    ) {
+
+        static Binding variable(String name, String type) {
+            return new Binding(name, type, List.of(), 0, List.of(), List.of());
+        }
+
+        boolean isFunction() {
+            return type.startsWith("->");
+        }
+
+        boolean isObject() {
+            return type.equals("Object");
+        }
+
+        String returns() {
+            return type.substring(2);
+        }
+
+    }
+
+    private final Options options;
+    private final Random random;
+    private final StringBuilder builder = new StringBuilder();
+    //Visible bindings, bucketed so lookups don't scan the whole program.
+    //Scopes are strictly nested, so each bucket behaves as a stack.
+    private final Map<String, List<Binding>> variables = new HashMap<>();
+    private final Map<String, List<Binding>> functions = new HashMap<>();
+    private final List<Binding> objects = new ArrayList<>();
+    private final List<List<Binding>> scopes = new ArrayList<>();
+    private int names = 0;
+    private int indent = 0;
+    //Return type of the enclosing DEF, or null at the top level.
+    private String returns = null;
+    //Estimated cost of the statements generated so far, see call/forStmt.
+    private int cost = 0;
+    //Whether this is inside a method, see kind.
+    private boolean method = false;
+    //Whether the last line ended an IF without an ELSE, see ifStmt.
+    private boolean dangling = false;
+
+    public ProgramGenerator(Options options) {
+        this.options = options;
+        this.random = new Random(options.seed());
+    }
+
+    public static String generate(int statements, long seed) {
+        return new ProgramGenerator(Options.defaults().withStatements(statements).withSeed(seed)).generate();
+    }
+
+    public String generate() {
+        builder.setLength(0);
+        variables.clear();
+        functions.clear();
+        objects.clear();
+        scopes.clear();
+        scopes.add(new ArrayList<>());
+        for (int i = 0; i < options.statements(); i++) {
+            statement(0, options.budget());
+        }
+        return builder.toString();
+    }
+
+    private void statement(int depth, int budget) {
+        var kind = kind(depth);
+        switch (kind) {
+            case LET -> let(budget);
+            case DEF -> def(depth);
+            case IF -> ifStmt(depth, budget);
+            case FOR -> forStmt(depth, budget);
+            case OBJECT -> object(depth, budget);
+            case EXPRESSION -> expressionStmt(budget);
+        }
+    }
+
+    private Kind kind(int depth) {
+        //Blocks can only be nested up to the configured depth, and objects
+        //nest twice (the object itself and its method bodies). Objects aren't
+        //nested in methods, since the inner this would shadow the outer one.
+        var weights = new EnumMap<Kind, Integer>(Kind.class);
+        for (var kind : Kind.values()) {
+            var nested = switch (kind) {
+                case DEF, IF, FOR -> depth + 1 > options.depth();
+                case OBJECT -> depth + 2 > options.depth() || method;
+                case LET, EXPRESSION -> false;
+            };
+            var weight = options.weights().getOrDefault(kind, 0);
+            if (!nested && weight > 0) {
+                weights.put(kind, weight);
+            }
+        }
+        if (weights.isEmpty()) {
+            return Kind.LET;
+        }
+        var total = weights.values().stream().mapToInt(Integer::intValue).sum();
+        var choice = random.nextInt(total);
+        for (var entry : weights.entrySet()) {
+            choice -= entry.getValue();
+            if (choice < 0) {
+                return entry.getKey();
+            }
+        }
+        throw new AssertionError();
+    }
+
+    private void let(int budget) {
+        var type = type();
+        var name = name("v");
+        line("LET " + name + (random.nextBoolean() ? ": " + type : "") + " = " + expression(type, options.expressionDepth(), budget) + ";");
+        define(Binding.variable(name, type));
+    }
+
+    private void def(int depth) {
+        var name = name("f");
+        var parameters = new ArrayList<String>();
+        for (int i = random.nextInt(4); i > 0; i--) {
+            parameters.add(type());
+        }
+        var returns = type();
+        var signature = new StringBuilder("DEF " + name + "(");
+        var bindings = new ArrayList<Binding>();
+        for (int i = 0; i < parameters.size(); i++) {
+            var parameter = Binding.variable(name("p"), parameters.get(i));
+            bindings.add(parameter);
+            signature.append(i == 0 ? "" : ", ").append(parameter.name()).append(": ").append(parameter.type());
+        }
+        line(signature.append("): ").append(returns).append(" DO").toString());
+        var cost = body(depth, returns, bindings, this.returns == null ? options.budget() / 4 : 0);
+        line("END");
+        define(new Binding(name, "->" + returns, parameters, cost, List.of(), List.of()));
+    }
+
+    /**
+     * Generates a function/method body, which always ends in a RETURN, and
+     * returns its estimated cost. A budget of 0 forbids calls and loops, which
+     * keeps nested definitions cheap.
+     */
+    private int body(int depth, String returns, List<Binding> parameters, int budget) {
+        var enclosing = this.returns;
+        var enclosingCost = cost;
+        this.returns = returns;
+        cost = 1;
+        push(parameters);
+        for (int i = random.nextInt(options.blockSize()); i > 0; i--) {
+            statement(depth + 1, budget);
+        }
+        line("RETURN " + expression(returns, options.expressionDepth(), budget) + ";");
+        pop();
+        var bodyCost = cost;
+        this.returns = enclosing;
+        cost = enclosingCost;
+        return bodyCost;
+    }
+
+    private void ifStmt(int depth, int budget) {
+        line("IF " + expression("Boolean", options.expressionDepth(), budget) + " DO");
+        var otherwise = random.nextBoolean();
+        block(depth, budget);
+        if (otherwise) {
+            //The parser attaches an ELSE to the innermost IF, so a then
+            //block can't end with an IF that has no ELSE of its own.
+            if (dangling) {
+                expressionStmt(budget);
+            }
+            line("ELSE");
+            block(depth, budget);
+        }
+        line("END");
+        dangling = !otherwise;
+    }
+
+    private void block(int depth, int budget) {
+        push(List.of());
+        for (int i = 1 + random.nextInt(options.blockSize()); i > 0; i--) {
+            statement(depth + 1, budget);
+        }
+        //Early returns are only valid as the last statement of a block.
+        if (returns != null && random.nextInt(4) == 0) {
+            line("RETURN " + expression(returns, options.expressionDepth(), budget) + ";");
+        }
+        pop();
+    }
+
+    private void forStmt(int depth, int budget) {
+        var iterations = 1 + random.nextInt(Math.max(1, options.loopBound()));
+        var name = name("i");
+        line("FOR " + name + " IN range(0, " + iterations + ") DO");
+        var outer = cost;
+        cost = 0;
+        push(List.of(Binding.variable(name, "Integer")));
+        for (int i = 1 + random.nextInt(options.blockSize()); i > 0; i--) {
+            statement(depth + 1, budget / iterations);
+        }
+        pop();
+        cost = outer + iterations * (cost + 1);
+        line("END");
+    }
+
+    private void object(int depth, int budget) {
+        var name = name("o");
+        line("LET " + name + " = OBJECT DO");
+        indent++;
+        var fields = new ArrayList<Binding>();
+        for (int i = 1 + random.nextInt(3); i > 0; i--) {
+            var field = Binding.variable(name("x"), type());
+            line("LET " + field.name() + ": " + field.type() + " = " + expression(field.type(), 1, 0) + ";");
+            fields.add(field);
+        }
+        //The analyzer types all methods of an object with the return type of
+        //the last one, so methods share a return type and take no parameters.
+        var methods = new ArrayList<Binding>();
+        var returns = type();
+        var self = new Binding("this", "Object", List.of(), 0, fields, List.of());
+        method = true;
+        for (int i = random.nextInt(3); i > 0; i--) {
+            var methodName = name("m");
+            line("DEF " + methodName + "(): " + returns + " DO");
+            var cost = body(depth + 1, returns, List.of(self), 0);
+            line("END");
+            methods.add(new Binding(methodName, "->" + returns, List.of(), cost, List.of(), List.of()));
+        }
+        method = false;
+        indent--;
+        line("END;");
+        define(new Binding(name, "Object", List.of(), 0, fields, methods));
+    }
+
+    private void expressionStmt(int budget) {
+        var choice = random.nextInt(3);
+        if (choice == 0) {
+            var variable = pick(variables.getOrDefault(type(), List.of()));
+            if (variable != null) {
+                line(variable.name() + " = " + assignment(variable.type(), budget) + ";");
+                return;
+            }
+        } else if (choice == 1) {
+            var object = pick(objects);
+            if (object != null && !object.fields().isEmpty()) {
+                var field = pick(object.fields());
+                line(object.name() + "." + field.name() + " = " + assignment(field.type(), budget) + ";");
+                return;
+            }
+        }
+        var call = call(type(), budget);
+        line((call != null ? call : "range(0, 1)") + ";");
+    }
+
+    /**
+     * Assigned values are restricted to avoid unbounded growth when the same
+     * variables are reassigned repeatedly (in loops especially): numbers only
+     * grow additively and strings are only ever reset to literals.
+     */
+    private String assignment(String type, int budget) {
+        return switch (type) {
+            case "Integer", "Decimal" -> {
+                var variable = pick(variables.getOrDefault(type, List.of()));
+                yield variable != null ? variable.name() + " + " + literal(type) : literal(type);
+            }
+            case "String" -> literal(type);
+            default -> expression(type, options.expressionDepth(), budget);
+        };
+    }
+
+    private String expression(String type, int depth, int budget) {
+        if (depth > 0) {
+            var choice = random.nextInt(6);
+            if (choice == 0) {
+                var call = call(type, budget);
+                if (call != null) {
+                    return call;
+                }
+            } else if (choice == 1 || choice == 2) {
+                return binary(type, depth - 1, budget);
+            } else if (choice == 3) {
+                return "(" + expression(type, depth - 1, budget) + ")";
+            }
+        }
+        var choice = random.nextInt(4);
+        if (choice == 1 || choice == 2) {
+            var variable = pick(variables.getOrDefault(type, List.of()));
+            if (variable != null) {
+                return variable.name();
+            }
+        } else if (choice == 3) {
+            var object = pick(objects);
+            var field = object != null ? pick(object.fields()) : null;
+            if (field != null && field.type().equals(type)) {
+                return object.name() + "." + field.name();
+            }
+        }
+        return literal(type);
+    }
+
+    private String binary(String type, int depth, int budget) {
+        return switch (type) {
+            case "Integer" -> switch (random.nextInt(4)) {
+                case 0 -> expression(type, depth, budget) + " + " + expression(type, depth, budget);
+                case 1 -> expression(type, depth, budget) + " - " + expression(type, depth, budget);
+                //Multiplication/division always use a (non-zero) literal,
+                //bounding growth and ruling out division by zero.
+                case 2 -> expression(type, depth, budget) + " * " + (1 + random.nextInt(9));
+                default -> expression(type, depth, budget) + " / " + (1 + random.nextInt(9));
+            };
+            case "Decimal" -> switch (random.nextInt(3)) {
+                case 0 -> expression(type, depth, budget) + " + " + expression(type, depth, budget);
+                case 1 -> expression(type, depth, budget) + " - " + expression(type, depth, budget);
+                default -> expression(type, depth, budget) + " / " + (1 + random.nextInt(9)) + ".0";
+            };
+            //At most one non-literal operand, so strings can't double in size.
+            //The Integer operand is grouped, since "s" + 1 - 1 is ("s" + 1) - 1.
+            case "String" -> random.nextBoolean()
+                ? expression(type, depth, budget) + " + " + literal(type)
+                : literal(type) + " + (" + expression("Integer", depth, budget) + ")";
+            case "Boolean" -> switch (random.nextInt(4)) {
+                case 0 -> expression(type, depth, budget) + (random.nextBoolean() ? " AND " : " OR ") + expression(type, depth, budget);
+                case 1 -> {
+                    var operand = TYPES.get(random.nextInt(3));
+                    yield expression(operand, depth, budget) + (random.nextBoolean() ? " == " : " != ") + expression(operand, depth, budget);
+                }
+                default -> {
+                    var operand = TYPES.get(random.nextInt(3));
+                    var operator = List.of(" < ", " <= ", " > ", " >= ").get(random.nextInt(4));
+                    yield expression(operand, depth, budget) + operator + expression(operand, depth, budget);
+                }
+            };
+            default -> throw new AssertionError(type);
+        };
+    }
+
+    /**
+     * Returns a call to a function/method returning the given type that fits
+     * in the budget, or null if none was found. Candidates are sampled rather
+     * than searched, since large programs define thousands of functions.
+     */
+    private String call(String type, int budget) {
+        for (int attempt = 0; attempt < 4; attempt++) {
+            if (random.nextBoolean()) {
+                var function = pick(functions.getOrDefault(type, List.of()));
+                if (function != null && function.cost() <= budget) {
+                    var arguments = new ArrayList<String>();
+                    for (var parameter : function.parameters()) {
+                        arguments.add(expression(parameter, 1, 0));
+                    }
+                    cost += function.cost() + 1;
+                    return function.name() + "(" + String.join(", ", arguments) + ")";
+                }
+            } else {
+                var object = pick(objects);
+                var method = object != null ? pick(object.methods()) : null;
+                if (method != null && method.cost() <= budget && method.returns().equals(type)) {
+                    cost += method.cost() + 1;
+                    return object.name() + "." + method.name() + "()";
+                }
+            }
+        }
+        return null;
+    }
+
+    private String literal(String type) {
+        return switch (type) {
+            case "Integer" -> String.valueOf(random.nextInt(100));
+            case "Decimal" -> random.nextInt(100) + "." + random.nextInt(10);
+            case "String" -> "\"s" + random.nextInt(100) + "\"";
+            case "Boolean" -> random.nextBoolean() ? "TRUE" : "FALSE";
+            default -> throw new AssertionError(type);
+        };
+    }
+
+    private String type() {
+        return TYPES.get(random.nextInt(TYPES.size()));
+    }
+
+    private String name(String prefix) {
+        //Names are globally unique, so there is never any shadowing.
+        return prefix + names++;
+    }
+
+    private void define(Binding binding) {
+        scopes.getLast().add(binding);
+        bucket(binding).add(binding);
+        cost++;
+    }
+
+    private void push(List<Binding> bindings) {
+        indent++;
+        scopes.add(new ArrayList<>());
+        bindings.forEach(this::define);
+    }
+
+    private void pop() {
+        indent--;
+        var scope = scopes.removeLast();
+        for (var binding : scope.reversed()) {
+            bucket(binding).removeLast();
+        }
+    }
+
+    private List<Binding> bucket(Binding binding) {
+        if (binding.isObject()) {
+            return objects;
+        } else if (binding.isFunction()) {
+            return functions.computeIfAbsent(binding.returns(), k -> new ArrayList<>());
+        } else {
+            return variables.computeIfAbsent(binding.type(), k -> new ArrayList<>());
+        }
+    }
+
+    private <T> T pick(List<T> list) {
+        return list.isEmpty() ? null : list.get(random.nextInt(list.size()));
+    }
+
+    private void line(String line) {
+        dangling = false;
+        builder.append("    ".repeat(indent)).append(line).append("\n");
+    }
+
+}
@@ -0,0 +1,106 @@
+package plc.project;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.params.provider.Arguments;
+import plc.project.analyzer.Analyzer;
+import plc.project.analyzer.Environment;
+import plc.project.analyzer.Ir;
+import plc.project.analyzer.Pass;
+import plc.project.analyzer.Scope;
+import plc.project.analyzer.Type;
+import plc.project.evaluator.EvaluateException;
+import plc.project.evaluator.Evaluator;
+import plc.project.evaluator.IrEvaluator;
+import plc.project.evaluator.RuntimeValue;
+import plc.project.lexer.Lexer;
+import plc.project.parser.Ast;
+import plc.project.parser.Parser;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.util.List;
+import java.util.stream.LongStream;
+import java.util.stream.Stream;
+
+/**
+ * Shared helpers for tests, mainly those of passes, which check that
+ * transformed programs behave exactly like the original program in the (AST)
+ * Evaluator. Programs are analyzed with a log function taking Any in scope,
+ * which the environment defines for evaluation.
+ */
+public final class Programs {
+
+    private Programs() {}
+
+    /**
+     * The seeds of generated programs (see
+     * {@link plc.project.workload.ProgramGenerator}), as arguments named by
+     * their seed for {@code @MethodSource("plc.project.Programs#seeds")}.
+     */
+    public static Stream<Arguments> seeds() {
+        return LongStream.range(0, 10).mapToObj(seed -> Arguments.of("Seed " + seed, seed));
+    }
+
+    public static Ast.Source parse(String program) {
+        return Assertions.assertDoesNotThrow(() -> new Parser(new Lexer(program).lex()).parseSource());
+    }
+
+    public static Ir.Source analyze(String program) {
+        return analyze(parse(program));
+    }
+
+    public static Ir.Source analyze(Ast.Source ast) {
+        var scope = new Scope(Environment.scope());
+        scope.define("log", new Type.Function(List.of(Type.ANY), Type.ANY));
+        return Assertions.assertDoesNotThrow(() -> new Analyzer(scope).visit(ast));
+    }
+
+    /**
+     * Analyzes a program and transforms it, which must have the same result
+     * and output as evaluating the program with the Evaluator, returning the
+     * transformed program.
+     */
+    public static Ir.Source test(String program, Pass pass) {
+        var ast = parse(program);
+        var transformed = pass.apply(analyze(ast));
+        Assertions.assertEquals(evaluate(ast), evaluate(transformed));
+        return transformed;
+    }
+
+    /**
+     * Returns the result of evaluating a program with the Evaluator and its
+     * output, see {@link #evaluate(Ir.Source)}.
+     */
+    public static List<Object> evaluate(Ast.Source ast) {
+        return evaluate(scope -> new Evaluator(scope).visit(ast));
+    }
+
+    /**
+     * Returns the result of evaluating a program with the IrEvaluator and its
+     * output. The result is the exception class if an EvaluateException was
+     * thrown, since messages differ between evaluators.
+     */
+    public static List<Object> evaluate(Ir.Source ir) {
+        return evaluate(scope -> new IrEvaluator(scope).visit(ir));
+    }
+
+    private interface Evaluation {
+        RuntimeValue evaluate(plc.project.evaluator.Scope scope) throws EvaluateException;
+    }
+
+    private static List<Object> evaluate(Evaluation evaluation) {
+        var out = System.out;
+        var output = new ByteArrayOutputStream();
+        System.setOut(new PrintStream(output));
+        Object result;
+        try {
+            result = evaluation.evaluate(new plc.project.evaluator.Scope(plc.project.evaluator.Environment.scope()));
+        } catch (EvaluateException e) {
+            result = e.getClass();
+        } finally {
+            System.setOut(out);
+        }
+        return List.of(result, output.toString());
+    }
+
+}
@@ -0,0 +1,160 @@
+package plc.project.analyzer;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+import plc.project.Programs;
+import plc.project.workload.ProgramGenerator;
+
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Standard JUnit5 parameterized tests. See the RegexTests file from Homework 1
+ * or the LexerTests file from the earlier project part for more information.
+ *
+ * <p>Expressions are simplified with the variables of {@link #PRELUDE} in
+ * scope, and compared to the analyzed expected expression.
+ */
+final class AlgebraicSimplificationTests {
+
+    private static final String PRELUDE = """
+        LET x = 5;
+        LET y = 6;
+        LET d = 2.5;
+        LET s = "s";
+        LET b = x < y;
+        LET u: Integer;
+        LET c = count();
+        LET a = 1;
+        a = count();
+        """;
+
+    @ParameterizedTest
+    @MethodSource
+    void testSimplify(String test, String expression, String expected) {
+        Assertions.assertEquals(result(expected, false), result(expression, true));
+    }
+
+    private static Stream<Arguments> testSimplify() {
+        return Stream.of(
+            Arguments.of("Integer Add Zero", "x + 0", "x"),
+            Arguments.of("Integer Zero Add", "0 + x", "x"),
+            Arguments.of("Integer Subtract Zero", "x - 0", "x"),
+            Arguments.of("Integer Subtract Self", "x - x", "0"),
+            Arguments.of("Integer Multiply One", "1 * x", "x"),
+            Arguments.of("Integer Multiply Zero", "x * 0", "0"),
+            Arguments.of("Integer Multiply Two", "x * 2", "x + x"),
+            Arguments.of("Integer Divide One", "x / 1", "x"),
+            Arguments.of("Nested", "(x * 1 + 0) * y", "(x) * y"),
+            Arguments.of("Binary Operand", "(x + y) * 1", "(x + y)"),
+            Arguments.of("Decimal Multiply One", "d * 0.1e1", "d"),
+            Arguments.of("Decimal Multiply Two", "0.2e1 * d", "d + d"),
+            Arguments.of("Decimal Divide One", "d / 1.00", "d"),
+            Arguments.of("String Concatenation", "s + \"\"", "s"),
+            Arguments.of("Equals True", "b == TRUE", "b"),
+            Arguments.of("True Equals", "TRUE == b", "b"),
+            Arguments.of("Not Equals False", "b != FALSE", "b"),
+            Arguments.of("Equals Self", "x + 1 == x + 1", "TRUE"),
+            Arguments.of("Not Equals Self", "s != s", "FALSE"),
+            Arguments.of("And True", "b AND TRUE", "b"),
+            Arguments.of("And False", "b AND FALSE", "FALSE"),
+            Arguments.of("Or Self", "b OR b", "b"),
+            Arguments.of("Less Than Self", "x < x", "FALSE"),
+            Arguments.of("Greater Equals Self", "s >= s", "TRUE")
+        );
+    }
+
+    @ParameterizedTest
+    @MethodSource
+    void testNotSimplified(String test, String expression) {
+        Assertions.assertEquals(result(expression, false), result(expression, true));
+    }
+
+    private static Stream<Arguments> testNotSimplified() {
+        return Stream.of(
+            Arguments.of("Decimal Add Zero", "d + 0.0"),
+            Arguments.of("Decimal Multiply One Scale", "d * 1.0"),
+            Arguments.of("Decimal Subtract Self", "d - d"),
+            Arguments.of("Integer Multiply Three", "x * 3"),
+            Arguments.of("Uninitialized", "u + 0"),
+            Arguments.of("Uninitialized Equals Self", "u + 1 == u + 1"),
+            Arguments.of("Uninitialized Not Equals Self", "u * 2 != u * 2"),
+            Arguments.of("Call Equals Self", "c == c"),
+            Arguments.of("Assigned", "a * 1"),
+            Arguments.of("Call", "c * 1"),
+            Arguments.of("Call Multiply Zero", "count() * 0"),
+            Arguments.of("Call Multiply Two", "count() * 2"),
+            Arguments.of("Not Boolean", "x == TRUE"),
+            Arguments.of("Or True Call", "flag() OR TRUE")
+        );
+    }
+
+    @ParameterizedTest
+    @MethodSource
+    void testBehavior(String test, String program) {
+        //Behavior is checked by evaluation, see testGenerated.
+        Programs.test(program, new AlgebraicSimplification());
+    }
+
+    private static Stream<Arguments> testBehavior() {
+        return Stream.of(
+            Arguments.of("Decimal Scale", """
+                LET d = 1.5;
+                log(d * 1.00);
+                log(d + 0.00);
+                log(d / 1.00);
+                log(d * 0.1e1);
+                """),
+            Arguments.of("Uninitialized", """
+                LET x: Integer;
+                log(x * 1);
+                """),
+            Arguments.of("Uninitialized Equals Self", """
+                LET x: Integer;
+                log(x + 1 == x + 1);
+                """),
+            Arguments.of("Shadowing", """
+                LET x = 1;
+                IF x == 1 DO
+                    LET x: Integer;
+                    log(x + 0);
+                END
+                """),
+            Arguments.of("Loop", """
+                LET total = 0;
+                FOR i IN range(0, 3) DO
+                    LET n = i * 2;
+                    total = total + n * 1 + 0;
+                END
+                log(total);
+                """)
+        );
+    }
+
+    @ParameterizedTest
+    @MethodSource("plc.project.Programs#seeds")
+    void testGenerated(String test, long seed) {
+        Programs.test(ProgramGenerator.generate(100, seed), new AlgebraicSimplification());
+    }
+
+    /**
+     * Returns the value of the last LET of a program defining result as the
+     * given expression, after the prelude, simplified if requested. The
+     * program isn't evaluated so flag/count are only defined for analysis.
+     */
+    private static Ir.Expr result(String expression, boolean simplify) {
+        var program = PRELUDE + "LET result = " + expression + ";";
+        var ast = Programs.parse(program);
+        var scope = new Scope(Environment.scope());
+        scope.define("flag", new Type.Function(List.of(), Type.BOOLEAN));
+        scope.define("count", new Type.Function(List.of(), Type.INTEGER));
+        var ir = Assertions.assertDoesNotThrow(() -> new Analyzer(scope).visit(ast));
+        if (simplify) {
+            ir = new AlgebraicSimplification().apply(ir);
+        }
+        return ((Ir.Stmt.Let) ir.statements().getLast()).value().orElseThrow();
+    }
+
+}
@@ -1252,6 +1252,12 @@ final class AnalyzerTests {
         );
     }
 
+    @ParameterizedTest
+    @MethodSource("testRequireSubtype")
+    void testIsSubtype(String test, Type type, Type other, boolean expected) {
+        Assertions.assertEquals(expected, Analyzer.isSubtype(type, other));
+    }
+
     interface ParserMethod<T extends Ast> {
         T invoke(Parser parser) throws ParseException;
     }
@@ -0,0 +1,140 @@
+package plc.project.analyzer;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+import plc.project.Programs;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Stream;
+
+/**
+ * Standard JUnit5 parameterized tests. See the RegexTests file from Homework 1
+ * or the LexerTests file from the earlier project part for more information.
+ *
+ * <p>The expected list is the names of the reachable DEFs (including
+ * methods), in the order they appear in the program, followed by the names
+ * of the environment referenced anywhere in the program.
+ */
+final class CallGraphTests {
+
+    @ParameterizedTest
+    @MethodSource
+    void testReachable(String test, String program, List<String> reachable, Set<String> globals) {
+        var ir = Programs.analyze(program);
+        var graph = CallGraph.build(ir);
+        Assertions.assertEquals(reachable, defs(ir).stream().filter(graph::reachable).map(Ir.Stmt.Def::name).toList());
+        Assertions.assertEquals(globals, graph.globals());
+    }
+
+    private static Stream<Arguments> testReachable() {
+        return Stream.of(
+            Arguments.of("Call", """
+                DEF f(): Integer DO
+                    RETURN 1;
+                END
+                DEF g(): Integer DO
+                    RETURN 2;
+                END
+                print(f());
+                """, List.of("f"), Set.of("print")),
+            Arguments.of("Transitive", """
+                DEF f(): Integer DO
+                    RETURN 1;
+                END
+                DEF g(): Integer DO
+                    debug(1);
+                    RETURN f();
+                END
+                DEF h(): Integer DO
+                    print(1);
+                    RETURN g();
+                END
+                h();
+                """, List.of("f", "g", "h"), Set.of("debug", "print")),
+            Arguments.of("Unreachable", """
+                DEF f() DO
+                    print(1);
+                END
+                debug(range(0, 1));
+                """, List.of(), Set.of("print", "debug", "range")),
+            Arguments.of("Mutual Recursion", """
+                DEF even(n: Integer): Boolean DO
+                    DEF odd(n: Integer): Boolean DO
+                        RETURN even(n - 1);
+                    END
+                    RETURN odd(n - 1);
+                END
+                print(1);
+                """, List.of(), Set.of("print")),
+            Arguments.of("Value", """
+                DEF f(): Integer DO
+                    RETURN 1;
+                END
+                LET g = f;
+                """, List.of("f"), Set.of()),
+            Arguments.of("Devirtualized", """
+                LET a = OBJECT DO
+                    DEF get(): Integer DO
+                        RETURN 1;
+                    END
+                END;
+                LET b = OBJECT DO
+                    DEF get(): Integer DO
+                        RETURN 2;
+                    END
+                END;
+                a.get();
+                """, List.of("get"), Set.of()),
+            Arguments.of("Virtual", """
+                LET a = OBJECT DO
+                    DEF get(): Integer DO
+                        RETURN 1;
+                    END
+                END;
+                LET b = OBJECT DO
+                    LET object = a;
+                END;
+                b.object.get();
+                """, List.of("get"), Set.of()),
+            Arguments.of("Escaped Method", """
+                LET o = OBJECT DO
+                    DEF k(): Integer DO
+                        RETURN 1;
+                    END
+                    DEF get(): Integer DO
+                        RETURN this.k();
+                    END
+                END;
+                LET q = OBJECT DO
+                    LET fn = o.get;
+                    DEF k(): Integer DO
+                        RETURN 2;
+                    END
+                END;
+                q.fn();
+                """, List.of("k", "get", "k"), Set.of()),
+            Arguments.of("Environment Object", """
+                object.method();
+                variable = "value";
+                """, List.of(), Set.of("object", "variable"))
+        );
+    }
+
+    private static List<Ir.Stmt.Def> defs(Ir.Source ir) {
+        var defs = new ArrayList<Ir.Stmt.Def>();
+        new IrTransformer() {
+            @Override
+            public Ir.Stmt visit(Ir.Stmt.Def ir) {
+                //Methods are visited as DEFs too.
+                defs.add(ir);
+                return super.visit(ir);
+            }
+        }.visit(ir);
+        return defs;
+    }
+
+}
@@ -0,0 +1,140 @@
+package plc.project.analyzer;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+import plc.project.Programs;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Standard JUnit5 parameterized tests. See the RegexTests file from Homework 1
+ * or the LexerTests file from the earlier project part for more information.
+ *
+ * <p>The expected list is whether each scope is captured, in the order the
+ * scopes appear in the program (starting with the source).
+ */
+final class CaptureAnalysisTests {
+
+    @ParameterizedTest
+    @MethodSource
+    void testCaptured(String test, String program, List<Boolean> expected) {
+        var ir = Programs.analyze(program);
+        var result = CaptureAnalysis.analyze(ir);
+        Assertions.assertEquals(expected, scopes(ir).stream().map(result::captured).toList());
+    }
+
+    private static Stream<Arguments> testCaptured() {
+        return Stream.of(
+            Arguments.of("Empty", """
+                log(1);
+                """, List.of(false)),
+            Arguments.of("Loop", """
+                LET total = 0;
+                FOR i IN range(0, 3) DO
+                    LET square = i * i;
+                    total = total + square;
+                END
+                """, List.of(false, false)),
+            Arguments.of("Function", """
+                DEF f(x: Integer): Integer DO
+                    IF x > 0 DO
+                        RETURN x;
+                    END
+                    RETURN 0;
+                END
+                """, List.of(true, false, false)),
+            Arguments.of("Loop Closure", """
+                FOR i IN range(0, 3) DO
+                    DEF get(): Integer DO
+                        RETURN i;
+                    END
+                    log(get());
+                END
+                """, List.of(true, true, false)),
+            Arguments.of("Nested Closure", """
+                DEF f(n: Integer): Integer DO
+                    FOR i IN range(0, n) DO
+                        IF i > 1 DO
+                            DEF get(): Integer DO
+                                RETURN i;
+                            END
+                            log(get());
+                        END
+                    END
+                    RETURN n;
+                END
+                """, List.of(true, true, true, true, false)),
+            Arguments.of("Sibling Scopes", """
+                FOR i IN range(0, 3) DO
+                    IF i > 1 DO
+                        log(i);
+                    ELSE
+                        DEF get(): Integer DO
+                            RETURN i;
+                        END
+                    END
+                END
+                FOR j IN range(0, 3) DO
+                    log(j);
+                END
+                """, List.of(true, true, true, false, false)),
+            Arguments.of("Method", """
+                FOR i IN range(0, 3) DO
+                    LET object = OBJECT DO
+                        DEF get(): Integer DO
+                            RETURN i;
+                        END
+                    END;
+                    log(object.get());
+                END
+                """, List.of(true, true, false)),
+            Arguments.of("Object Without Methods", """
+                FOR i IN range(0, 3) DO
+                    LET object = OBJECT DO
+                        LET x = i;
+                    END;
+                    log(object.x);
+                END
+                """, List.of(false, false))
+        );
+    }
+
+    /**
+     * Returns the source, DEF (including methods), IF and FOR nodes in the
+     * order they appear.
+     */
+    private static List<Ir> scopes(Ir.Source ir) {
+        var scopes = new ArrayList<Ir>();
+        new IrTransformer() {
+            @Override
+            public Ir.Source visit(Ir.Source ir) {
+                scopes.add(ir);
+                return super.visit(ir);
+            }
+
+            @Override
+            public Ir.Stmt visit(Ir.Stmt.Def ir) {
+                scopes.add(ir);
+                return super.visit(ir);
+            }
+
+            @Override
+            public Ir.Stmt visit(Ir.Stmt.If ir) {
+                scopes.add(ir);
+                return super.visit(ir);
+            }
+
+            @Override
+            public Ir.Stmt visit(Ir.Stmt.For ir) {
+                scopes.add(ir);
+                return super.visit(ir);
+            }
+        }.visit(ir);
+        return scopes;
+    }
+
+}
@@ -0,0 +1,210 @@
+package plc.project.analyzer;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+import plc.project.Programs;
+import plc.project.workload.ProgramGenerator;
+
+import java.util.stream.Stream;
+
+/**
+ * Standard JUnit5 parameterized tests. See the RegexTests file from Homework 1
+ * or the LexerTests file from the earlier project part for more information.
+ *
+ * <p>Programs are also evaluated after elimination, and must behave like the
+ * original program (see {@link Programs#test}).
+ */
+final class CommonSubexpressionEliminationTests {
+
+    @ParameterizedTest
+    @MethodSource
+    void testEliminate(String test, String program, int expected) {
+        var eliminated = Programs.test(program, new CommonSubexpressionElimination());
+        Assertions.assertEquals(expected, evaluations(eliminated), "Evaluations.");
+    }
+
+    private static Stream<Arguments> testEliminate() {
+        return Stream.of(
+            Arguments.of("Binary", """
+                DEF f() DO
+                    LET x = 2;
+                    LET y = 3;
+                    log(x * y);
+                    log(x * y + 1);
+                END
+                f();
+                """, 2),
+            Arguments.of("Parameters", """
+                DEF f(x: Integer, y: Integer) DO
+                    log(x * y);
+                    log(x * y + 1);
+                END
+                f(2, 3);
+                """, 3),
+            Arguments.of("Same Statement", """
+                LET x = 2;
+                LET y = 3;
+                log(x * y - x * y);
+                """, 2),
+            Arguments.of("Nested", """
+                LET x = 2;
+                LET y = 3;
+                LET a = (x * y) + x;
+                LET b = (x * y) + x;
+                log(x * y + a + b);
+                """, 4),
+            Arguments.of("Property", """
+                LET point = OBJECT DO
+                    LET inner = OBJECT DO
+                        LET x = 1;
+                    END;
+                END;
+                LET a = point.inner.x + 1;
+                LET b = point.inner.x + 2;
+                log(a + b);
+                """, 6),
+            Arguments.of("Assignment", """
+                LET x = 2;
+                LET a = x * 3;
+                x = 5;
+                LET b = x * 3;
+                log(a + b);
+                """, 3),
+            Arguments.of("Assignment In Branch", """
+                LET x = 2;
+                LET a = x * 3;
+                IF a > 0 DO
+                    x = 5;
+                END
+                LET b = x * 3;
+                log(a + b);
+                """, 4),
+            Arguments.of("Property Assignment", """
+                LET point = OBJECT DO
+                    LET x = 1;
+                END;
+                LET a = point.x + 1;
+                point.x = 5;
+                LET b = point.x + 1;
+                log(a + b);
+                """, 5),
+            Arguments.of("Method Call", """
+                LET point = OBJECT DO
+                    LET x = 1;
+                    DEF set(): Integer DO
+                        this.x = 5;
+                        RETURN 0;
+                    END
+                END;
+                LET a = point.x + 1;
+                point.set();
+                LET b = point.x + 1;
+                log(a + b);
+                """, 5),
+            Arguments.of("Call Assigning Variable", """
+                LET x = 2;
+                DEF set(): Integer DO
+                    x = 5;
+                    RETURN 0;
+                END
+                LET a = x * 3;
+                set();
+                LET b = x * 3;
+                log(a + b);
+                """, 3),
+            Arguments.of("Call Not Assigning Variable", """
+                LET x = 2;
+                LET a = x * 3;
+                log(a);
+                LET b = x * 3;
+                log(a + b);
+                """, 2),
+            Arguments.of("After Call", """
+                LET x = 2;
+                LET numbers = OBJECT DO
+                    DEF id(value: Integer): Integer DO
+                        RETURN value;
+                    END
+                END;
+                log(numbers.id(x * 3) + x * 3);
+                """, 3),
+            Arguments.of("Shadowing", """
+                DEF f(x: Integer) DO
+                    log(x * 2);
+                    IF TRUE DO
+                        LET a = x * 2;
+                        LET x = 5;
+                        log(x * 2 + a);
+                    END
+                END
+                f(1);
+                """, 4),
+            Arguments.of("Loop Body", """
+                FOR i IN range(0, 3) DO
+                    LET a = i * i;
+                    log(i * i + a);
+                END
+                """, 2),
+            Arguments.of("Division", """
+                DEF f(x: Integer, y: Integer) DO
+                    log(x / y);
+                    log(x / y);
+                END
+                f(6, 0);
+                """, 2),
+            Arguments.of("Expression Statement", """
+                LET x = 2;
+                x * 3;
+                x * 3;
+                """, 2),
+            Arguments.of("Short Circuit Left", """
+                LET x = 2;
+                LET ok = FALSE;
+                log(x * 3 > 0 AND ok);
+                log(x * 3 > 1 OR ok);
+                """, 5),
+            Arguments.of("Short Circuit Right", """
+                LET x = 2;
+                LET ok = FALSE;
+                log(ok AND x * 3 > 0);
+                log(ok AND x * 3 > 1);
+                """, 6),
+            Arguments.of("Uninitialized Short Circuit", """
+                LET x: Integer;
+                LET ok = FALSE;
+                log(ok AND x + 1 > 0);
+                log(ok AND x + 1 > 1);
+                """, 6)
+        );
+    }
+
+    @ParameterizedTest
+    @MethodSource("plc.project.Programs#seeds")
+    void testGenerated(String test, long seed) {
+        Programs.test(ProgramGenerator.generate(100, seed), new CommonSubexpressionElimination());
+    }
+
+    /**
+     * Returns the number of binary and property expressions in a program.
+     */
+    private static int evaluations(Ir.Source ir) {
+        var evaluations = new int[] {0};
+        new IrTransformer() {
+            @Override
+            public Ir.Expr visit(Ir.Expr.Binary ir) {
+                evaluations[0]++;
+                return super.visit(ir);
+            }
+
+            @Override
+            public Ir.Expr visit(Ir.Expr.Property ir) {
+                evaluations[0]++;
+                return super.visit(ir);
+            }
+        }.visit(ir);
+        return evaluations[0];
+    }
+
+}
@@ -0,0 +1,208 @@
+package plc.project.analyzer;
+
+import org.checkerframework.checker.nullness.qual.Nullable;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+import plc.project.Programs;
+import plc.project.workload.ProgramGenerator;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Standard JUnit5 parameterized tests. See the RegexTests file from Homework 1
+ * or the LexerTests file from the earlier project part for more information.
+ */
+final class ConstantFoldingTests {
+
+    @ParameterizedTest
+    @MethodSource
+    void testFold(String test, String expression, @Nullable Object expected) {
+        var value = value(analyze("LET result = " + expression + ";"));
+        Assertions.assertInstanceOf(Ir.Expr.Literal.class, value);
+        Assertions.assertEquals(expected, ((Ir.Expr.Literal) value).value());
+    }
+
+    private static Stream<Arguments> testFold() {
+        return Stream.of(
+            Arguments.of("Integer Addition", "1 + 2", new BigInteger("3")),
+            Arguments.of("Integer Division", "7 / 2", new BigInteger("3")),
+            Arguments.of("Decimal Division", "1.0 / 3.0", new BigDecimal("0.3")),
+            Arguments.of("Decimal Division Half Even", "2.5 / 2.0", new BigDecimal("1.2")),
+            Arguments.of("Nested", "(1 + 2) * (3 - 4)", new BigInteger("-3")),
+            Arguments.of("String Concatenation", "\"a\" + 1 + TRUE + NIL", "a1TRUENIL"),
+            Arguments.of("Comparison", "1 < 2", true),
+            Arguments.of("String Comparison", "\"b\" >= \"a\"", true),
+            Arguments.of("Equality", "1.0 == 1.00", false),
+            Arguments.of("Nil Equality", "NIL != NIL", false),
+            Arguments.of("And", "TRUE AND FALSE", false),
+            Arguments.of("Or Short Circuit", "TRUE OR flag()", true),
+            Arguments.of("And Short Circuit", "FALSE AND flag()", false)
+        );
+    }
+
+    @ParameterizedTest
+    @MethodSource
+    void testNotFolded(String test, String expression) {
+        var value = value(analyze("LET result = " + expression + ";"));
+        Assertions.assertFalse(value instanceof Ir.Expr.Literal, "Unexpected literal " + value + ".");
+    }
+
+    private static Stream<Arguments> testNotFolded() {
+        return Stream.of(
+            Arguments.of("Integer Division By Zero", "1 / 0"),
+            Arguments.of("Decimal Division By Zero", "1.0 / 0.0"),
+            Arguments.of("Function", "1 + count()"),
+            Arguments.of("And Right Operand", "TRUE AND flag()")
+        );
+    }
+
+    @ParameterizedTest
+    @MethodSource
+    void testPropagate(String test, String program, boolean expected) {
+        var ir = analyze(program);
+        var last = (Ir.Stmt.Expression) ir.statements().getLast();
+        var argument = ((Ir.Expr.Function) last.expression()).arguments().getFirst();
+        Assertions.assertEquals(expected, argument instanceof Ir.Expr.Literal, "Argument " + argument + ".");
+    }
+
+    private static Stream<Arguments> testPropagate() {
+        return Stream.of(
+            Arguments.of("Constant", """
+                LET x = 1;
+                log(x);
+                """, true),
+            Arguments.of("Folded", """
+                LET x = 1 + 2;
+                LET y = x * 2;
+                log(y);
+                """, true),
+            Arguments.of("Assigned", """
+                LET x = 1;
+                x = 2;
+                log(x);
+                """, false),
+            Arguments.of("Assigned Elsewhere", """
+                LET x = 1;
+                DEF f() DO
+                    LET x = 2;
+                    x = 3;
+                END
+                log(x);
+                """, false),
+            Arguments.of("Not Literal", """
+                LET x = log(1);
+                log(x);
+                """, false),
+            Arguments.of("Declared Type", """
+                LET x: Any = 1;
+                log(x);
+                """, false),
+            Arguments.of("Parameter Shadowing", """
+                LET x = 1;
+                DEF f(x: Integer) DO
+                    log(x);
+                END
+                log(x);
+                """, true),
+            Arguments.of("Function Body", """
+                LET x = 1;
+                DEF f(): Integer DO
+                    RETURN x;
+                END
+                log(f());
+                """, false)
+        );
+    }
+
+    @ParameterizedTest
+    @MethodSource
+    void testScope(String test, String program) {
+        //Behavior is checked by evaluation, see testGenerated.
+        Programs.test(program, new ConstantFolding());
+    }
+
+    private static Stream<Arguments> testScope() {
+        return Stream.of(
+            Arguments.of("If Shadowing", """
+                LET x = 1;
+                IF x == 1 DO
+                    LET x = "inner";
+                    log(x);
+                END
+                log(x);
+                """),
+            Arguments.of("For Shadowing", """
+                LET i = 10;
+                FOR i IN range(0, 3) DO
+                    log(i);
+                END
+                log(i);
+                """),
+            Arguments.of("Parameter", """
+                LET x = 1;
+                DEF f(x: Integer): Integer DO
+                    RETURN x + 1;
+                END
+                log(f(5));
+                """),
+            Arguments.of("Method", """
+                LET x = 1;
+                LET object = OBJECT DO
+                    LET x = 2;
+                    DEF get(): Integer DO
+                        RETURN x + this.x;
+                    END
+                END;
+                log(object.get());
+                """),
+            Arguments.of("Division By Zero", """
+                log(1);
+                log(1 / 0);
+                """),
+            Arguments.of("Uninitialized Short Circuit", """
+                LET b: Boolean;
+                log(FALSE AND b);
+                log(TRUE AND b);
+                """),
+            Arguments.of("No Return Short Circuit", """
+                DEF f(): Boolean DO END
+                LET b = f();
+                log(TRUE OR b);
+                log(FALSE OR b);
+                """)
+        );
+    }
+
+    @ParameterizedTest
+    @MethodSource("plc.project.Programs#seeds")
+    void testGenerated(String test, long seed) {
+        Programs.test(ProgramGenerator.generate(100, seed), new ConstantFolding());
+    }
+
+    /**
+     * Returns the optimized value of the first statement (a LET).
+     */
+    private static Ir.Expr value(Ir.Source ir) {
+        return ((Ir.Stmt.Let) ir.statements().getFirst()).value().orElseThrow();
+    }
+
+    /**
+     * Analyzes and folds a program, which isn't evaluated so flag/count are
+     * only defined for analysis.
+     */
+    private static Ir.Source analyze(String program) {
+        var ast = Programs.parse(program);
+        var scope = new Scope(Environment.scope());
+        scope.define("log", new Type.Function(List.of(Type.ANY), Type.ANY));
+        scope.define("flag", new Type.Function(List.of(), Type.BOOLEAN));
+        scope.define("count", new Type.Function(List.of(), Type.INTEGER));
+        var ir = Assertions.assertDoesNotThrow(() -> new Analyzer(scope).visit(ast));
+        return new ConstantFolding().apply(ir);
+    }
+
+}
@@ -0,0 +1,92 @@
+package plc.project.analyzer;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+import plc.project.Programs;
+
+import java.util.ArrayList;
+import java.util.stream.Stream;
+
+/**
+ * Standard JUnit5 parameterized tests. See the RegexTests file from Homework 1
+ * or the LexerTests file from the earlier project part for more information.
+ */
+final class CountedLoopsTests {
+
+    @ParameterizedTest
+    @MethodSource
+    void testLoop(String test, String program, boolean expected) {
+        var ir = Programs.analyze(program);
+        var loops = CountedLoops.analyze(ir);
+        var loop = loops.loop(loop(ir));
+        Assertions.assertEquals(expected, loop != null);
+        if (loop != null) {
+            Assertions.assertSame(loop(ir).expression(), loop.range());
+            Assertions.assertSame(loop.range().arguments().get(0), loop.start());
+            Assertions.assertSame(loop.range().arguments().get(1), loop.end());
+        }
+    }
+
+    private static Stream<Arguments> testLoop() {
+        return Stream.of(
+            Arguments.of("Range", """
+                FOR i IN range(0, 10) DO
+                    print(i);
+                END
+                """, true),
+            Arguments.of("Expression Bounds", """
+                LET n = 5;
+                FOR i IN range(n - 1, n * 2) DO
+                    print(i);
+                END
+                """, true),
+            Arguments.of("Nested", """
+                DEF f(n: Integer) DO
+                    FOR j IN range(0, 2) DO
+                        FOR i IN range(j, n) DO
+                            print(i);
+                        END
+                    END
+                END
+                """, true),
+            Arguments.of("Iterable", """
+                FOR i IN iterable DO
+                    print(i);
+                END
+                """, false),
+            Arguments.of("Shadowed", """
+                DEF range(start: Integer, end: Integer): Iterable DO
+                    RETURN iterable;
+                END
+                FOR i IN range(0, 10) DO
+                    print(i);
+                END
+                """, false),
+            Arguments.of("Shadowed Parameter", """
+                DEF f(range: Any) DO
+                    FOR i IN iterable DO
+                        print(range);
+                    END
+                END
+                """, false)
+        );
+    }
+
+    /**
+     * Returns the innermost (last) FOR statement.
+     */
+    private static Ir.Stmt.For loop(Ir.Source ir) {
+        var loops = new ArrayList<Ir.Stmt.For>();
+        new IrTransformer() {
+            @Override
+            public Ir.Stmt visit(Ir.Stmt.For ir) {
+                loops.add(ir);
+                return super.visit(ir);
+            }
+        }.visit(ir);
+        return loops.getLast();
+    }
+
+}
@@ -0,0 +1,188 @@
+package plc.project.analyzer;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+import plc.project.Programs;
+
+import java.util.stream.Stream;
+
+/**
+ * Standard JUnit5 parameterized tests. See the RegexTests file from Homework 1
+ * or the LexerTests file from the earlier project part for more information.
+ *
+ * <p>The expected result is given as a program, which is analyzed (but not
+ * transformed) and compared to the result of the pass.
+ */
+final class DeadCodeEliminationTests {
+
+    @ParameterizedTest
+    @MethodSource
+    void testEliminate(String test, String program, String expected, int removed) {
+        var result = new DeadCodeElimination().eliminate(Programs.analyze(program));
+        Assertions.assertEquals(Programs.analyze(expected), result.source());
+        Assertions.assertEquals(removed, result.removed());
+    }
+
+    private static Stream<Arguments> testEliminate() {
+        return Stream.of(
+            Arguments.of("Nothing", """
+                LET x = 1;
+                log(x);
+                """, """
+                LET x = 1;
+                log(x);
+                """, 0),
+            Arguments.of("After Return", """
+                DEF f(): Integer DO
+                    RETURN 1;
+                    log(2);
+                END
+                log(f());
+                """, """
+                DEF f(): Integer DO
+                    RETURN 1;
+                END
+                log(f());
+                """, 3),
+            Arguments.of("After If Return", """
+                DEF f(x: Boolean): Integer DO
+                    IF x DO RETURN 1; ELSE RETURN 2; END
+                    log(3);
+                END
+                log(f(TRUE));
+                """, """
+                DEF f(x: Boolean): Integer DO
+                    IF x DO RETURN 1; ELSE RETURN 2; END
+                END
+                log(f(TRUE));
+                """, 3),
+            Arguments.of("If True", """
+                IF TRUE DO log(1); ELSE log(2); END
+                log(3);
+                """, """
+                log(1);
+                log(3);
+                """, 5),
+            Arguments.of("If False", """
+                IF FALSE DO log(1); END
+                log(2);
+                """, """
+                log(2);
+                """, 5),
+            Arguments.of("If True Return", """
+                DEF f(): Integer DO
+                    IF TRUE DO RETURN 1; END
+                    RETURN 2;
+                END
+                log(f());
+                """, """
+                DEF f(): Integer DO
+                    RETURN 1;
+                END
+                log(f());
+                """, 4),
+            Arguments.of("If Definitions", """
+                LET x = 1;
+                IF FALSE DO ELSE LET x = 2; log(x); END
+                log(x);
+                """, """
+                LET x = 1;
+                IF TRUE DO LET x = 2; log(x); END
+                log(x);
+                """, 0),
+            Arguments.of("Unused Let", """
+                LET x = 1 + 2;
+                LET y = log(1);
+                log(3);
+                """, """
+                LET y = log(1);
+                log(3);
+                """, 4),
+            Arguments.of("Unused Division", """
+                LET x = 1 / 0;
+                LET y = 1 / 2;
+                log(3);
+                """, """
+                LET x = 1 / 0;
+                log(3);
+                """, 4),
+            Arguments.of("Unused Small Division", "LET x = 1.0 / 0." + "0".repeat(400) + "1;\nlog(3);\n", """
+                log(3);
+                """, 4),
+            Arguments.of("Defined Operand", """
+                LET x = 1;
+                LET y = x + 1;
+                log(3);
+                """, """
+                log(3);
+                """, 6),
+            Arguments.of("Uninitialized Operand", """
+                LET x: Integer;
+                LET y = x + 1;
+                log(3);
+                """, """
+                LET x: Integer;
+                LET y = x + 1;
+                log(3);
+                """, 0),
+            Arguments.of("No Return Operand", """
+                DEF f(): Integer DO END
+                LET x = f();
+                LET y = x + 1;
+                log(3);
+                """, """
+                DEF f(): Integer DO END
+                LET x = f();
+                LET y = x + 1;
+                log(3);
+                """, 0),
+            Arguments.of("Assigned Let", """
+                LET x = 1;
+                x = 2;
+                log(3);
+                """, """
+                LET x = 1;
+                x = 2;
+                log(3);
+                """, 0),
+            Arguments.of("Unused Def", """
+                DEF f(): Integer DO RETURN 1; END
+                log(2);
+                """, """
+                log(2);
+                """, 3),
+            Arguments.of("Unused Recursive Def", """
+                DEF f(n: Integer): Integer DO RETURN f(n - 1); END
+                log(2);
+                """, """
+                log(2);
+                """, 6),
+            Arguments.of("Transitively Unused", """
+                DEF f(): Integer DO RETURN 1; END
+                DEF g(): Integer DO RETURN f(); END
+                LET x = 1;
+                LET y = x;
+                log(2);
+                """, """
+                log(2);
+                """, 10),
+            Arguments.of("Used Def", """
+                DEF f(): Integer DO RETURN 1; END
+                log(f());
+                """, """
+                DEF f(): Integer DO RETURN 1; END
+                log(f());
+                """, 0),
+            Arguments.of("Last Statement", """
+                log(1);
+                LET x = 1;
+                """, """
+                log(1);
+                LET x = 1;
+                """, 0)
+        );
+    }
+
+}
@@ -0,0 +1,232 @@
+package plc.project.analyzer;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+import plc.project.Programs;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Standard JUnit5 parameterized tests. See the RegexTests file from Homework 1
+ * or the LexerTests file from the earlier project part for more information.
+ *
+ * <p>The expected list is whether each method call is devirtualized, in the
+ * order they appear in the program. Targets must be a method of the same
+ * name.
+ */
+final class DevirtualizationTests {
+
+    /**
+     * An object whose method is copied into a field of another object, so
+     * this is q when it is called as q.fn().
+     */
+    private static final String ESCAPED = """
+        LET o = OBJECT DO
+            DEF k(): Integer DO
+                RETURN 1;
+            END
+            DEF get(): Integer DO
+                RETURN this.k();
+            END
+        END;
+        LET q = OBJECT DO
+            LET fn = o.get;
+            DEF k(): Integer DO
+                RETURN 2;
+            END
+        END;
+        """;
+
+    /**
+     * An object whose method is assigned to a property of another object.
+     */
+    private static final String COPIED = """
+        LET o = OBJECT DO
+            DEF k(): Integer DO
+                RETURN 1;
+            END
+            DEF get(): Integer DO
+                RETURN this.k();
+            END
+        END;
+        LET p = OBJECT DO
+            DEF k(): Integer DO
+                RETURN 2;
+            END
+            DEF get(): Integer DO
+                RETURN 3;
+            END
+        END;
+        p.get = o.get;
+        """;
+
+    @ParameterizedTest
+    @MethodSource
+    void testTarget(String test, String program, List<Boolean> expected) {
+        var ir = Programs.analyze(program);
+        var devirtualization = Devirtualization.analyze(ir);
+        var calls = calls(ir);
+        Assertions.assertEquals(expected, calls.stream().map(c -> devirtualization.target(c) != null).toList());
+        for (var call : calls) {
+            var target = devirtualization.target(call);
+            Assertions.assertTrue(target == null || target.name().equals(call.name()), "Wrong target.");
+        }
+    }
+
+    private static Stream<Arguments> testTarget() {
+        return Stream.of(
+            Arguments.of("Variable", """
+                LET object = OBJECT DO
+                    DEF get(): Integer DO
+                        RETURN 1;
+                    END
+                END;
+                object.get();
+                (object).get();
+                """, List.of(true, true)),
+            Arguments.of("This", """
+                LET object = OBJECT DO
+                    DEF get(): Integer DO
+                        RETURN 1;
+                    END
+                    DEF twice(): Integer DO
+                        RETURN this.get() + this.get();
+                    END
+                END;
+                """, List.of(true, true)),
+            Arguments.of("Object Expression", """
+                OBJECT DO
+                    DEF get(): Integer DO
+                        RETURN 1;
+                    END
+                END.get();
+                """, List.of(true)),
+            Arguments.of("Assigned Variable", """
+                LET object = OBJECT DO
+                    DEF get(): Integer DO
+                        RETURN 1;
+                    END
+                END;
+                object = OBJECT DO
+                    DEF get(): Integer DO
+                        RETURN 2;
+                    END
+                END;
+                object.get();
+                """, List.of(false)),
+            Arguments.of("Assigned Property", """
+                DEF other(): Integer DO
+                    RETURN 2;
+                END
+                LET object = OBJECT DO
+                    DEF get(): Integer DO
+                        RETURN 1;
+                    END
+                END;
+                object.get = other;
+                object.get();
+                """, List.of(false)),
+            Arguments.of("Property Receiver", """
+                LET holder = OBJECT DO
+                    LET object = OBJECT DO
+                        DEF get(): Integer DO
+                            RETURN 1;
+                        END
+                    END;
+                END;
+                holder.object.get();
+                """, List.of(false)),
+            Arguments.of("Nested This", """
+                LET outer = OBJECT DO
+                    DEF get(): Integer DO
+                        LET inner = OBJECT DO
+                            DEF value(): Integer DO
+                                RETURN 1;
+                            END
+                            DEF get(): Integer DO
+                                RETURN this.value();
+                            END
+                        END;
+                        RETURN inner.get();
+                    END
+                END;
+                """, List.of(true, true)),
+            Arguments.of("Escaped Method", ESCAPED + """
+                log(q.fn());
+                """, List.of(false, false)),
+            Arguments.of("Copied Method", COPIED + """
+                log(p.get());
+                """, List.of(false, false))
+        );
+    }
+
+    @ParameterizedTest
+    @MethodSource
+    void testBehavior(String test, String program) {
+        Programs.test(program, Optimizer.standard()::optimize);
+    }
+
+    private static Stream<Arguments> testBehavior() {
+        return Stream.of(
+            Arguments.of("Escaped Method", ESCAPED + """
+                log(q.fn());
+                """),
+            Arguments.of("Copied Method", COPIED + """
+                log(p.get());
+                """)
+        );
+    }
+
+    @ParameterizedTest
+    @MethodSource
+    void testTargetDefinition(String test, String program, String expected) {
+        //Distinguishes shadowed objects by the literal their method returns.
+        var ir = Programs.analyze(program);
+        var devirtualization = Devirtualization.analyze(ir);
+        var targets = calls(ir).stream().map(devirtualization::target).toList();
+        Assertions.assertEquals(expected, String.join(",", targets.stream().map(DevirtualizationTests::returned).toList()));
+    }
+
+    private static Stream<Arguments> testTargetDefinition() {
+        return Stream.of(
+            Arguments.of("Shadowed", """
+                LET object = OBJECT DO
+                    DEF get(): Integer DO
+                        RETURN 1;
+                    END
+                END;
+                IF TRUE DO
+                    LET object = OBJECT DO
+                        DEF get(): Integer DO
+                            RETURN 2;
+                        END
+                    END;
+                    object.get();
+                END
+                object.get();
+                """, "2,1")
+        );
+    }
+
+    private static String returned(Ir.Stmt.Def def) {
+        var ret = (Ir.Stmt.Return) def.body().getLast();
+        return String.valueOf(((Ir.Expr.Literal) ret.value().orElseThrow()).value());
+    }
+
+    private static List<Ir.Expr.Method> calls(Ir.Source ir) {
+        var calls = new ArrayList<Ir.Expr.Method>();
+        new IrTransformer() {
+            @Override
+            public Ir.Expr visit(Ir.Expr.Method ir) {
+                calls.add(ir);
+                return super.visit(ir);
+            }
+        }.visit(ir);
+        return calls;
+    }
+
+}
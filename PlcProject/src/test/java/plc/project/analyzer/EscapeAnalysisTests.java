@@ -0,0 +1,125 @@
+package plc.project.analyzer;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+import plc.project.Programs;
+
+import java.util.ArrayList;
+import java.util.stream.Stream;
+
+/**
+ * Standard JUnit5 parameterized tests. See the RegexTests file from Homework 1
+ * or the LexerTests file from the earlier project part for more information.
+ */
+final class EscapeAnalysisTests {
+
+    @ParameterizedTest
+    @MethodSource
+    void testEscapes(String test, String program, boolean expected) {
+        var ir = Programs.analyze(program);
+        var objects = new ArrayList<Ir.Expr.ObjectExpr>();
+        new IrTransformer() {
+            @Override
+            public Ir.Expr visit(Ir.Expr.ObjectExpr ir) {
+                objects.add(ir);
+                return super.visit(ir);
+            }
+        }.visit(ir);
+        Assertions.assertEquals(expected, EscapeAnalysis.analyze(ir).escapes(objects.getFirst()));
+    }
+
+    private static Stream<Arguments> testEscapes() {
+        return Stream.of(
+            Arguments.of("Field Reads", """
+                LET point = OBJECT DO
+                    LET x = 1;
+                    LET y = 2;
+                END;
+                log(point.x + point.y);
+                """, false),
+            Arguments.of("Field Assignment", """
+                LET point = OBJECT DO
+                    LET x = 1;
+                END;
+                point.x = point.x + 1;
+                log(point.x);
+                """, false),
+            Arguments.of("In Function", """
+                DEF f(): Integer DO
+                    LET point = OBJECT DO
+                        LET x = 1;
+                    END;
+                    RETURN point.x;
+                END
+                log(f());
+                """, false),
+            Arguments.of("Passed", """
+                LET point = OBJECT DO
+                    LET x = 1;
+                END;
+                log(point);
+                """, true),
+            Arguments.of("Returned", """
+                DEF f(): Any DO
+                    LET point = OBJECT DO
+                        LET x = 1;
+                    END;
+                    RETURN point;
+                END
+                log(f());
+                """, true),
+            Arguments.of("Stored", """
+                LET point = OBJECT DO
+                    LET x = 1;
+                END;
+                LET other = point;
+                log(other.x);
+                """, true),
+            Arguments.of("Assigned", """
+                LET point = OBJECT DO
+                    LET x = 1;
+                END;
+                point = OBJECT DO
+                    LET x = 2;
+                END;
+                log(point.x);
+                """, true),
+            Arguments.of("Captured", """
+                LET point = OBJECT DO
+                    LET x = 1;
+                END;
+                DEF f(): Integer DO
+                    RETURN point.x;
+                END
+                log(f());
+                """, true),
+            Arguments.of("Methods", """
+                LET point = OBJECT DO
+                    LET x = 1;
+                    DEF get(): Integer DO
+                        RETURN this.x;
+                    END
+                END;
+                log(point.x);
+                """, true),
+            Arguments.of("Program Value", """
+                LET point = OBJECT DO
+                    LET x = 1;
+                END;
+                """, true),
+            Arguments.of("Shadowed", """
+                LET point = OBJECT DO
+                    LET x = 1;
+                END;
+                IF TRUE DO
+                    LET point = 1;
+                    log(point);
+                END
+                log(point.x);
+                """, false)
+        );
+    }
+
+}
@@ -0,0 +1,147 @@
+package plc.project.analyzer;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+import plc.project.Programs;
+import plc.project.lexer.Lexer;
+import plc.project.parser.Ast;
+import plc.project.parser.Parser;
+import plc.project.workload.ProgramGenerator;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Stream;
+
+/**
+ * Standard JUnit5 parameterized tests. See the RegexTests file from Homework 1
+ * or the LexerTests file from the earlier project part for more information.
+ *
+ * <p>Re-analysis must produce the same result as analyzing the edited program
+ * with the Analyzer, so both results (or errors) are compared. Statements
+ * which are not affected by an edit must reuse their previous Ir.
+ */
+final class IncrementalAnalyzerTests {
+
+    @ParameterizedTest
+    @MethodSource
+    void testReanalyze(String test, String program, Map<Integer, String> changes, boolean valid, Set<Integer> reused) {
+        var ast = Programs.parse(program);
+        var statements = new HashMap<Integer, Ast.Stmt>();
+        changes.forEach((index, statement) -> statements.put(index, Assertions.assertDoesNotThrow(
+            () -> new Parser(new Lexer(statement).lex()).parseStmt()
+        )));
+        test(ast, statements, valid, reused);
+    }
+
+    private static Stream<Arguments> testReanalyze() {
+        return Stream.of(
+            Arguments.of("Body", """
+                DEF f(): Integer DO RETURN 1; END
+                DEF g(): Integer DO RETURN f(); END
+                LET x = g();
+                """, Map.of(0, "DEF f(): Integer DO RETURN 2; END"), true, Set.of(1, 2)),
+            Arguments.of("Signature", """
+                DEF f(): Integer DO RETURN 1; END
+                DEF g(): Integer DO RETURN f(); END
+                LET x = 1;
+                """, Map.of(0, "DEF f(): Decimal DO RETURN 1.0; END"), false, Set.of()),
+            Arguments.of("Transitive", """
+                LET x = 1;
+                LET y = x;
+                LET z = y;
+                LET w = 1;
+                """, Map.of(0, "LET x = 1.0;"), true, Set.of(3)),
+            Arguments.of("Same Type", """
+                LET x = 1;
+                LET y = x;
+                LET z = y;
+                """, Map.of(0, "LET x = 2;"), true, Set.of(1, 2)),
+            Arguments.of("Renamed", """
+                LET x = 1;
+                LET y = x;
+                LET z = 1;
+                """, Map.of(0, "LET w = 1;"), false, Set.of()),
+            Arguments.of("Redefined", """
+                LET x = 1;
+                LET y = 1;
+                """, Map.of(0, "LET y = 2;"), false, Set.of()),
+            Arguments.of("Before Definition", """
+                DEF f() DO print(1); END
+                LET print = 1;
+                """, Map.of(1, "LET print = 1.0;"), true, Set.of(0)),
+            Arguments.of("Object", """
+                LET o = OBJECT DO LET x = 1; END;
+                LET y = o.x;
+                """, Map.of(0, "LET o = OBJECT DO LET x = 2; END;"), true, Set.of(1)),
+            Arguments.of("Object Field Type", """
+                LET o = OBJECT DO LET x = 1; END;
+                LET y: Integer = o.x;
+                """, Map.of(0, "LET o = OBJECT DO LET x = 1.0; END;"), false, Set.of()),
+            Arguments.of("Statement", """
+                LET x = 1;
+                print(x);
+                LET y = x;
+                """, Map.of(1, "print(x + 1);"), true, Set.of(0, 2))
+        );
+    }
+
+    @ParameterizedTest
+    @MethodSource("plc.project.Programs#seeds")
+    void testGenerated(String test, long seed) {
+        var program = ProgramGenerator.generate(100, seed);
+        var ast = Programs.parse(program);
+        //Re-analyzing a statement unchanged must not affect any other.
+        var index = (int) (seed * 7 % ast.statements().size());
+        var reused = new HashSet<Integer>();
+        for (int i = 0; i < ast.statements().size(); i++) {
+            if (i != index) {
+                reused.add(i);
+            }
+        }
+        test(ast, Map.of(index, ast.statements().get(index)), true, reused);
+        //Replacing a statement with one from another program may be valid or not.
+        var other = Assertions.assertDoesNotThrow(
+            () -> new Parser(new Lexer(ProgramGenerator.generate(100, seed + 100)).lex()).parseSource()
+        );
+        var statements = new ArrayList<>(ast.statements());
+        statements.set(index, other.statements().get(index));
+        var valid = analyze(new Ast.Source(statements)) instanceof Ir.Source;
+        test(ast, Map.of(index, other.statements().get(index)), valid, Set.of());
+    }
+
+    private static void test(Ast.Source ast, Map<Integer, Ast.Stmt> changes, boolean valid, Set<Integer> reused) {
+        var analyzer = new IncrementalAnalyzer(Environment.scope());
+        var previous = Assertions.assertDoesNotThrow(() -> analyzer.analyze(ast));
+        Assertions.assertEquals(analyze(ast), previous);
+        var statements = new ArrayList<>(ast.statements());
+        changes.forEach(statements::set);
+        var expected = analyze(new Ast.Source(statements));
+        Assertions.assertEquals(valid, expected instanceof Ir.Source);
+        Object actual;
+        try {
+            actual = analyzer.reanalyze(previous, changes);
+        } catch (AnalyzeException e) {
+            actual = e.getMessage();
+        }
+        Assertions.assertEquals(expected, actual);
+        if (actual instanceof Ir.Source source) {
+            for (var index : reused) {
+                Assertions.assertSame(previous.statements().get(index), source.statements().get(index), "Statement " + index);
+            }
+        }
+    }
+
+    private static Object analyze(Ast.Source ast) {
+        try {
+            return new Analyzer(new Scope(Environment.scope())).visit(ast);
+        } catch (AnalyzeException e) {
+            return e.getMessage();
+        }
+    }
+
+}
@@ -0,0 +1,381 @@
+package plc.project.analyzer;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+import plc.project.Programs;
+import plc.project.workload.ProgramGenerator;
+
+import java.util.stream.Stream;
+
+/**
+ * Standard JUnit5 parameterized tests. See the RegexTests file from Homework 1
+ * or the LexerTests file from the earlier project part for more information.
+ *
+ * <p>Inlined programs are also evaluated, and must behave like the original
+ * program (see {@link Programs#test}).
+ */
+final class InliningTests {
+
+    @ParameterizedTest
+    @MethodSource
+    void testInline(String test, String program, int expected) {
+        var inlined = Programs.test(program, new Inlining());
+        Assertions.assertEquals(expected, calls(inlined, "f"), "Calls to f.");
+    }
+
+    private static Stream<Arguments> testInline() {
+        return Stream.of(
+            Arguments.of("Expression", """
+                DEF f(x: Integer): Integer DO
+                    RETURN x * x;
+                END
+                log(f(3));
+                """, 0),
+            Arguments.of("Statement", """
+                DEF f(x: Integer) DO
+                    log(x);
+                END
+                f(1);
+                f(2);
+                """, 0),
+            Arguments.of("Body", """
+                DEF f(x: Integer): Integer DO
+                    LET y = x + 1;
+                    log(y);
+                    RETURN y * 2;
+                END
+                LET y = f(1);
+                log(y);
+                """, 0),
+            Arguments.of("Nested Calls", """
+                DEF f(x: Integer): Integer DO
+                    RETURN x + 1;
+                END
+                log(f(f(f(1))));
+                """, 0),
+            Arguments.of("Transitive", """
+                DEF f(x: Integer): Integer DO
+                    RETURN x + 1;
+                END
+                DEF g(x: Integer): Integer DO
+                    RETURN f(x) * 2;
+                END
+                log(g(1) + g(2));
+                """, 0),
+            Arguments.of("Argument Order", """
+                DEF f(x: Any, y: Any): Any DO
+                    RETURN y;
+                END
+                log(f(log(1), log(2)));
+                """, 0),
+            Arguments.of("Parameter Shadowing", """
+                LET x = 10;
+                DEF f(x: Integer): Integer DO
+                    RETURN x + 1;
+                END
+                log(f(1) + x);
+                """, 0),
+            Arguments.of("Free Variable", """
+                LET base = 10;
+                DEF f(x: Integer): Integer DO
+                    RETURN x + base;
+                END
+                log(f(1));
+                """, 0),
+            Arguments.of("Nested Scope", """
+                DEF f(x: Integer): Integer DO
+                    IF x > 0 DO
+                        LET x = "positive";
+                        log(x);
+                    END
+                    RETURN x;
+                END
+                log(f(1));
+                """, 0),
+            Arguments.of("Closure", """
+                DEF f(x: Integer): Integer DO
+                    LET object = OBJECT DO
+                        DEF get(): Integer DO
+                            RETURN x;
+                        END
+                    END;
+                    RETURN object.get();
+                END
+                log(f(1) + f(2));
+                """, 0),
+            Arguments.of("Method", """
+                LET object = OBJECT DO
+                    LET x = 1;
+                    DEF f(y: Integer): Integer DO
+                        log(this.x);
+                        RETURN this.x + y;
+                    END
+                END;
+                log(object.f(2));
+                object.x = 3;
+                log(object.f(object.x));
+                """, 0),
+            Arguments.of("Method This", """
+                LET object = OBJECT DO
+                    LET x = 1;
+                    DEF f(): Integer DO
+                        RETURN this.x + 1;
+                    END
+                    DEF g(): Integer DO
+                        RETURN this.f() * 2;
+                    END
+                END;
+                log(object.g());
+                """, 0),
+            Arguments.of("Method Receiver Order", """
+                DEF make(): Any DO
+                    log("make");
+                    RETURN 1;
+                END
+                LET object = OBJECT DO
+                    DEF f(x: Any): Any DO
+                        RETURN x;
+                    END
+                END;
+                log((object).f(make()));
+                """, 0),
+            Arguments.of("Loop", """
+                DEF f(x: Integer): Integer DO
+                    RETURN x * 2;
+                END
+                FOR i IN range(0, 3) DO
+                    log(f(i));
+                END
+                """, 0),
+            Arguments.of("Condition", """
+                DEF f(x: Integer): Boolean DO
+                    RETURN x > 0;
+                END
+                IF f(1) DO
+                    log(1);
+                END
+                """, 0),
+            Arguments.of("No Return", """
+                DEF f() DO
+                    log(1);
+                END
+                log(f());
+                """, 0),
+            Arguments.of("Program Value", """
+                DEF f(x: Integer): Integer DO
+                    RETURN x + 1;
+                END
+                f(1);
+                """, 0)
+        );
+    }
+
+    @ParameterizedTest
+    @MethodSource
+    void testNotInlined(String test, String program) {
+        var inlined = Programs.test(program, new Inlining());
+        Assertions.assertEquals(calls(Programs.analyze(program), "f"), calls(inlined, "f"), "Calls to f.");
+    }
+
+    private static Stream<Arguments> testNotInlined() {
+        return Stream.of(
+            Arguments.of("Recursive", """
+                DEF f(n: Integer): Integer DO
+                    IF n <= 0 DO
+                        RETURN 0;
+                    END
+                    RETURN f(n - 1);
+                END
+                log(f(3));
+                """),
+            Arguments.of("Early Return", """
+                DEF f(n: Integer): Integer DO
+                    IF n < 0 DO
+                        RETURN 0;
+                    END
+                    RETURN n;
+                END
+                log(f(1));
+                """),
+            Arguments.of("Assigned", """
+                DEF f(): Integer DO RETURN 1; END
+                DEF g(): Integer DO RETURN 2; END
+                log(f());
+                f = g;
+                log(f());
+                """),
+            Arguments.of("Threshold", """
+                DEF f(x: Integer): Integer DO
+                    LET a = x + 1;
+                    LET b = a + 2;
+                    LET c = b + 3;
+                    LET d = c + 4;
+                    LET e = d + 5;
+                    RETURN a + b + c + d + e;
+                END
+                log(f(1));
+                """),
+            Arguments.of("Shadowed Free Variable", """
+                LET x = 1;
+                DEF f(): Integer DO
+                    RETURN x;
+                END
+                IF TRUE DO
+                    LET x = 2;
+                    log(f());
+                END
+                """),
+            Arguments.of("Short Circuit", """
+                DEF f(): Boolean DO
+                    log("called");
+                    RETURN TRUE;
+                END
+                log(FALSE AND f());
+                """),
+            Arguments.of("Side Effect Before", """
+                LET holder = OBJECT DO
+                    LET object = OBJECT DO
+                        DEF get(): Integer DO
+                            log("get");
+                            RETURN 0;
+                        END
+                    END;
+                END;
+                DEF f(): Integer DO
+                    log("f");
+                    RETURN 1;
+                END
+                log(holder.object.get() + f());
+                """),
+            Arguments.of("Nested Function", """
+                DEF f(x: Integer): Any DO
+                    DEF get(): Integer DO
+                        RETURN x;
+                    END
+                    RETURN get;
+                END
+                log(f(1));
+                """),
+            Arguments.of("Assigned Variable Before", """
+                LET x = 1;
+                DEF f(): Integer DO
+                    x = 2;
+                    RETURN 0;
+                END
+                log(x + f());
+                """),
+            Arguments.of("Object", """
+                DEF f(): Integer DO RETURN 1; END
+                LET object = OBJECT DO
+                    LET x = f();
+                END;
+                log(object.x);
+                """),
+            Arguments.of("Recursive Method", """
+                LET object = OBJECT DO
+                    DEF f(n: Integer): Integer DO
+                        IF n <= 0 DO
+                            RETURN 0;
+                        END
+                        RETURN this.f(n - 1);
+                    END
+                END;
+                log(object.f(3));
+                """),
+            Arguments.of("Assigned Receiver", """
+                LET object = OBJECT DO
+                    DEF f(): Integer DO RETURN 1; END
+                END;
+                object = OBJECT DO
+                    DEF f(): Integer DO RETURN 2; END
+                END;
+                log(object.f());
+                """),
+            Arguments.of("Property Receiver", """
+                LET holder = OBJECT DO
+                    LET object = OBJECT DO
+                        DEF f(): Integer DO RETURN 1; END
+                    END;
+                END;
+                log(holder.object.f());
+                """),
+            Arguments.of("Escaped Method This", """
+                LET o = OBJECT DO
+                    DEF f(): Integer DO RETURN 1; END
+                    DEF get(): Integer DO RETURN this.f(); END
+                END;
+                LET q = OBJECT DO
+                    LET fn = o.get;
+                    DEF f(): Integer DO RETURN 2; END
+                END;
+                log(q.fn());
+                """),
+            Arguments.of("Copied Method This", """
+                LET o = OBJECT DO
+                    DEF f(): Integer DO RETURN 1; END
+                    DEF get(): Integer DO RETURN this.f(); END
+                END;
+                LET p = OBJECT DO
+                    DEF f(): Integer DO RETURN 2; END
+                    DEF get(): Integer DO RETURN 3; END
+                END;
+                p.get = o.get;
+                log(p.get());
+                """)
+        );
+    }
+
+    @ParameterizedTest
+    @MethodSource
+    void testThreshold(String test, int threshold, int expected) {
+        var ir = Programs.analyze("""
+            DEF f(x: Integer): Integer DO
+                RETURN x * x;
+            END
+            log(f(3));
+            """);
+        Assertions.assertEquals(expected, calls(new Inlining(threshold).apply(ir), "f"));
+    }
+
+    private static Stream<Arguments> testThreshold() {
+        return Stream.of(
+            Arguments.of("Below", 4, 1),
+            Arguments.of("Equal", 5, 0),
+            Arguments.of("Above", 20, 0)
+        );
+    }
+
+    @ParameterizedTest
+    @MethodSource("plc.project.Programs#seeds")
+    void testGenerated(String test, long seed) {
+        Programs.test(ProgramGenerator.generate(100, seed), new Inlining());
+    }
+
+    /**
+     * Returns the number of calls to a function or method in a program.
+     */
+    private static int calls(Ir.Source ir, String name) {
+        var calls = new int[] {0};
+        new IrTransformer() {
+            @Override
+            public Ir.Expr visit(Ir.Expr.Function ir) {
+                if (ir.name().equals(name)) {
+                    calls[0]++;
+                }
+                return super.visit(ir);
+            }
+
+            @Override
+            public Ir.Expr visit(Ir.Expr.Method ir) {
+                if (ir.name().equals(name)) {
+                    calls[0]++;
+                }
+                return super.visit(ir);
+            }
+        }.visit(ir);
+        return calls[0];
+    }
+
+}
@@ -0,0 +1,229 @@
+package plc.project.analyzer;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+import plc.project.Programs;
+import plc.project.workload.ProgramGenerator;
+
+import java.util.stream.Stream;
+
+/**
+ * Standard JUnit5 parameterized tests. See the RegexTests file from Homework 1
+ * or the LexerTests file from the earlier project part for more information.
+ *
+ * <p>Programs are also evaluated after hoisting, and must behave like the
+ * original program (see {@link Programs#test}).
+ */
+final class LoopInvariantCodeMotionTests {
+
+    @ParameterizedTest
+    @MethodSource
+    void testHoist(String test, String program, int expected) {
+        var hoisted = Programs.test(program, new LoopInvariantCodeMotion());
+        Assertions.assertEquals(expected, evaluations(hoisted), "Evaluations.");
+    }
+
+    private static Stream<Arguments> testHoist() {
+        return Stream.of(
+            Arguments.of("Invariant", """
+                LET n = 10;
+                LET total = 0;
+                FOR i IN range(0, 5) DO
+                    total = total + n * 2;
+                END
+                log(total);
+                """, 1),
+            Arguments.of("Shared", """
+                LET n = 10;
+                LET total = 0;
+                FOR i IN range(0, 5) DO
+                    total = total + n * 2 - n * 2;
+                END
+                log(total);
+                """, 2),
+            Arguments.of("Loop Variable", """
+                LET total = 0;
+                FOR i IN range(0, 5) DO
+                    total = total + i * 2;
+                END
+                log(total);
+                """, 2),
+            Arguments.of("Assigned", """
+                LET n = 1;
+                LET total = 0;
+                FOR i IN range(0, 5) DO
+                    total = total + n * 2;
+                    n = n + 1;
+                END
+                log(total);
+                """, 3),
+            Arguments.of("Nested Loops", """
+                LET n = 3;
+                LET total = 0;
+                FOR i IN range(0, 4) DO
+                    FOR j IN range(0, 4) DO
+                        total = total + n * n + i * 2 + j;
+                    END
+                END
+                log(total);
+                """, 4),
+            Arguments.of("Branch", """
+                LET n = 3;
+                LET total = 0;
+                FOR i IN range(0, 4) DO
+                    IF i > n - 1 DO
+                        total = total + 1;
+                    END
+                END
+                log(total);
+                """, 2),
+            Arguments.of("Property", """
+                LET point = OBJECT DO
+                    LET x = 3;
+                END;
+                LET total = 0;
+                FOR i IN range(0, 5) DO
+                    total = total + point.x;
+                END
+                log(total);
+                """, 1),
+            Arguments.of("Property Assignment", """
+                LET point = OBJECT DO
+                    LET x = 3;
+                END;
+                LET total = 0;
+                FOR i IN range(0, 5) DO
+                    total = total + point.x;
+                    point.x = i;
+                END
+                log(total);
+                """, 2),
+            Arguments.of("Call", """
+                LET n = 10;
+                FOR i IN range(0, 3) DO
+                    log(n * 2);
+                END
+                """, 0),
+            Arguments.of("Call Assigning Variable", """
+                LET n = 10;
+                DEF step(): Integer DO
+                    n = n + 1;
+                    RETURN n;
+                END
+                LET total = 0;
+                FOR i IN range(0, 3) DO
+                    total = total + n * 2 + step();
+                END
+                log(total);
+                """, 3),
+            Arguments.of("Uninitialized", """
+                LET x: Integer;
+                FOR i IN range(0, 0) DO
+                    log(x + 1);
+                END
+                log(0);
+                """, 1),
+            Arguments.of("No Return", """
+                DEF f(): Integer DO END
+                LET x = f();
+                FOR i IN range(0, 0) DO
+                    log(x + 1);
+                END
+                log(2);
+                """, 1),
+            Arguments.of("Parameter", """
+                DEF f(n: Integer) DO
+                    FOR i IN range(0, 0) DO
+                        log(n + 1);
+                    END
+                END
+                LET u: Integer;
+                f(u);
+                """, 1),
+            Arguments.of("Division", """
+                LET n = 10;
+                LET d = 0;
+                LET total = 0;
+                FOR i IN range(0, 0) DO
+                    total = total + n / d;
+                END
+                log(total);
+                """, 2),
+            Arguments.of("Shadowing", """
+                LET n = 1;
+                LET total = 0;
+                FOR i IN range(0, 5) DO
+                    LET n = i;
+                    total = total + n * 2;
+                END
+                log(total);
+                """, 2),
+            Arguments.of("Function In Loop", """
+                LET n = 1;
+                LET total = 0;
+                FOR i IN range(0, 3) DO
+                    DEF twice(): Integer DO
+                        RETURN n * 2;
+                    END
+                    total = total + twice();
+                END
+                log(total);
+                """, 2),
+            Arguments.of("Function Body", """
+                DEF sum(n: Integer): Integer DO
+                    LET step = 3;
+                    LET total = 0;
+                    FOR i IN range(0, n) DO
+                        total = total + (step - 1) * i;
+                    END
+                    RETURN total;
+                END
+                log(sum(4));
+                """, 2)
+        );
+    }
+
+    @ParameterizedTest
+    @MethodSource("plc.project.Programs#seeds")
+    void testGenerated(String test, long seed) {
+        Programs.test(ProgramGenerator.generate(100, seed), new LoopInvariantCodeMotion());
+    }
+
+    /**
+     * Returns the number of binary and property expressions in loop bodies.
+     */
+    private static int evaluations(Ir.Source ir) {
+        var evaluations = new int[] {0};
+        new IrTransformer() {
+            private int loops = 0;
+
+            @Override
+            public Ir.Stmt visit(Ir.Stmt.For ir) {
+                visit(ir.expression());
+                loops++;
+                try {
+                    block(ir.body());
+                } finally {
+                    loops--;
+                }
+                return ir;
+            }
+
+            @Override
+            public Ir.Expr visit(Ir.Expr.Binary ir) {
+                evaluations[0] += loops > 0 ? 1 : 0;
+                return super.visit(ir);
+            }
+
+            @Override
+            public Ir.Expr visit(Ir.Expr.Property ir) {
+                evaluations[0] += loops > 0 ? 1 : 0;
+                return super.visit(ir);
+            }
+        }.visit(ir);
+        return evaluations[0];
+    }
+
+}
@@ -0,0 +1,100 @@
+package plc.project.analyzer;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+import plc.project.Programs;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Standard JUnit5 parameterized tests. See the RegexTests file from Homework 1
+ * or the LexerTests file from the earlier project part for more information.
+ *
+ * <p>The expected list is the kind of each binary expression, in the order
+ * they appear in the program (outer expressions first).
+ */
+final class OperationsTests {
+
+    @ParameterizedTest
+    @MethodSource
+    void testKind(String test, String program, List<Operations.Kind> expected) {
+        var ir = Programs.analyze(program);
+        var operations = Operations.analyze(ir);
+        Assertions.assertEquals(expected, binaries(ir).stream().map(operations::kind).toList());
+    }
+
+    private static Stream<Arguments> testKind() {
+        return Stream.of(
+            Arguments.of("Integer", """
+                1 + 2;
+                3 - 1;
+                2 * 3;
+                6 / 2;
+                """, List.of(Operations.Kind.INT_ADD, Operations.Kind.INT_SUB, Operations.Kind.INT_MUL, Operations.Kind.INT_DIV)),
+            Arguments.of("Decimal", """
+                1.0 + 2.0;
+                3.0 - 1.0;
+                2.0 * 3.0;
+                6.0 / 2.0;
+                """, List.of(Operations.Kind.DEC_ADD, Operations.Kind.DEC_SUB, Operations.Kind.DEC_MUL, Operations.Kind.DEC_DIV)),
+            Arguments.of("Concatenation", """
+                "a" + 1;
+                1 + "a";
+                """, List.of(Operations.Kind.STR_CONCAT, Operations.Kind.STR_CONCAT)),
+            Arguments.of("Comparison", """
+                1 < 2;
+                1.0 <= 2.0;
+                "a" > "b";
+                TRUE >= FALSE;
+                """, List.of(Operations.Kind.INT_LT, Operations.Kind.DEC_LE, Operations.Kind.STR_GT, Operations.Kind.GE)),
+            Arguments.of("Equality", """
+                1 == 2;
+                "a" != NIL;
+                """, List.of(Operations.Kind.EQ, Operations.Kind.NE)),
+            Arguments.of("Logical", """
+                TRUE AND FALSE OR TRUE;
+                """, List.of(Operations.Kind.BOOL_OR, Operations.Kind.BOOL_AND)),
+            Arguments.of("Nested", """
+                LET x = 1;
+                x * 2 + 1 < x;
+                """, List.of(Operations.Kind.INT_LT, Operations.Kind.INT_ADD, Operations.Kind.INT_MUL))
+        );
+    }
+
+    @ParameterizedTest
+    @MethodSource
+    void testResolve(String test, Ir.Expr.Binary ir, Operations.Kind expected) {
+        Assertions.assertEquals(expected, Operations.resolve(ir));
+        //Expressions which weren't analyzed are resolved when requested.
+        Assertions.assertEquals(expected, Operations.analyze(new Ir.Source(List.of())).kind(ir));
+    }
+
+    private static Stream<Arguments> testResolve() {
+        var integer = new Ir.Expr.Literal(BigInteger.ONE, Type.INTEGER);
+        var any = new Ir.Expr.Variable("x", Type.ANY);
+        return Stream.of(
+            Arguments.of("Integer", new Ir.Expr.Binary("+", integer, integer, Type.INTEGER), Operations.Kind.INT_ADD),
+            Arguments.of("Generic Add", new Ir.Expr.Binary("+", any, any, Type.ANY), Operations.Kind.ADD),
+            Arguments.of("Generic Divide", new Ir.Expr.Binary("/", any, integer, Type.ANY), Operations.Kind.DIV),
+            Arguments.of("Generic Comparison", new Ir.Expr.Binary("<", any, any, Type.BOOLEAN), Operations.Kind.LT)
+        );
+    }
+
+    private static List<Ir.Expr.Binary> binaries(Ir.Source ir) {
+        var binaries = new ArrayList<Ir.Expr.Binary>();
+        new IrTransformer() {
+            @Override
+            public Ir.Expr visit(Ir.Expr.Binary ir) {
+                binaries.add(ir);
+                return super.visit(ir);
+            }
+        }.visit(ir);
+        return binaries;
+    }
+
+}
@@ -0,0 +1,133 @@
+package plc.project.analyzer;
+
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+import plc.project.Programs;
+import plc.project.workload.ProgramGenerator;
+
+import java.util.stream.Stream;
+
+/**
+ * Standard JUnit5 parameterized tests. See the RegexTests file from Homework 1
+ * or the LexerTests file from the earlier project part for more information.
+ *
+ * <p>Optimized programs must behave exactly like the original, so programs
+ * are evaluated after the standard passes and compared to the original (see
+ * {@link Programs#test}).
+ */
+final class OptimizerTests {
+
+    @ParameterizedTest
+    @MethodSource
+    void testProgram(String test, String program) {
+        Programs.test(program, Optimizer.standard()::optimize);
+    }
+
+    private static Stream<Arguments> testProgram() {
+        return Stream.of(
+            Arguments.of("Constants", """
+                LET rate = 0.25;
+                LET base = 100.0;
+                LET total = base + base * rate;
+                log(total);
+                """),
+            Arguments.of("Dead Branches", """
+                LET debug = FALSE;
+                IF debug DO
+                    log("debug");
+                ELSE
+                    log("release");
+                END
+                IF debug == FALSE DO
+                    LET x = 1;
+                    log(x);
+                END
+                """),
+            Arguments.of("Unreachable", """
+                DEF f(n: Integer): Integer DO
+                    IF n < 0 DO
+                        RETURN 0;
+                    ELSE
+                        RETURN n;
+                    END
+                    log("unreachable");
+                END
+                log(f(1));
+                """),
+            Arguments.of("Unused", """
+                LET unused = 1 + 2;
+                DEF helper(): Integer DO RETURN unused; END
+                LET kept = log(3);
+                log(kept);
+                """),
+            Arguments.of("Division By Zero", """
+                LET x = 1 / 0;
+                log(1);
+                """),
+            Arguments.of("Calls", """
+                DEF square(x: Integer): Integer DO
+                    RETURN x * x;
+                END
+                DEF sum(n: Integer): Integer DO
+                    LET total = 0;
+                    FOR i IN range(0, n) DO
+                        total = total + square(i);
+                    END
+                    RETURN total;
+                END
+                log(sum(4) + square(2));
+                """),
+            Arguments.of("Objects", """
+                DEF length(x: Integer, y: Integer): Integer DO
+                    LET vector = OBJECT DO
+                        LET x = x;
+                        LET y = y;
+                    END;
+                    vector.x = vector.x * vector.x;
+                    RETURN vector.x + vector.y * vector.y;
+                END
+                log(length(3, 4));
+                """),
+            Arguments.of("Common Subexpressions", """
+                DEF area(width: Integer, height: Integer): Integer DO
+                    LET inner = (width - 2) * (height - 2);
+                    log((width - 2) * (height - 2) - inner);
+                    RETURN width * height - (width - 2) * (height - 2);
+                END
+                log(area(5, 4));
+                """),
+            Arguments.of("Loop Invariants", """
+                DEF grid(rows: Integer, columns: Integer): Integer DO
+                    LET total = 0;
+                    FOR y IN range(0, rows) DO
+                        FOR x IN range(0, columns) DO
+                            total = total + (rows * columns - 1) * x + (columns - 1) * y;
+                        END
+                    END
+                    RETURN total;
+                END
+                log(grid(3, 4));
+                """),
+            Arguments.of("Undefined Invariant", """
+                DEF f(): Integer DO END
+                LET x = f();
+                FOR i IN range(0, 0) DO
+                    log(x + 1);
+                END
+                log(2);
+                """),
+            Arguments.of("Program Value", """
+                log(1);
+                IF TRUE DO log(2); END
+                """)
+        );
+    }
+
+    @ParameterizedTest
+    @MethodSource("plc.project.Programs#seeds")
+    void testGenerated(String test, long seed) {
+        Programs.test(ProgramGenerator.generate(100, seed), Optimizer.standard()::optimize);
+    }
+
+}
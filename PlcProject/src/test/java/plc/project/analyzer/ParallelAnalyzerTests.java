@@ -0,0 +1,111 @@
+package plc.project.analyzer;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+import plc.project.Programs;
+import plc.project.workload.ProgramGenerator;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Stream;
+
+/**
+ * Standard JUnit5 parameterized tests. See the RegexTests file from Homework 1
+ * or the LexerTests file from the earlier project part for more information.
+ *
+ * <p>The ParallelAnalyzer must produce the same result as the Analyzer, so
+ * programs are analyzed with both and the results (or errors) are compared.
+ */
+final class ParallelAnalyzerTests {
+
+    @ParameterizedTest
+    @MethodSource
+    void testProgram(String test, String program, boolean valid) {
+        test(program, valid);
+    }
+
+    private static Stream<Arguments> testProgram() {
+        return Stream.of(
+            Arguments.of("Functions", """
+                DEF f(x: Integer): Integer DO
+                    RETURN x + 1;
+                END
+                DEF g(): Integer DO
+                    RETURN f(1);
+                END
+                LET x = g();
+                """, true),
+            Arguments.of("Recursion", """
+                DEF f(n: Integer): Integer DO
+                    RETURN f(n - 1);
+                END
+                """, true),
+            Arguments.of("Forward Reference", """
+                DEF f(): Integer DO
+                    RETURN g();
+                END
+                DEF g(): Integer DO
+                    RETURN 1;
+                END
+                """, false),
+            Arguments.of("Later Shadowing", """
+                DEF f(): Nil DO
+                    RETURN print("value");
+                END
+                LET print = 1;
+                """, true),
+            Arguments.of("Invalid Body", """
+                DEF f(): Integer DO
+                    RETURN "string";
+                END
+                """, false),
+            Arguments.of("First Error Body", """
+                DEF f(): Integer DO
+                    RETURN "body";
+                END
+                LET x: Integer = "statement";
+                """, false),
+            Arguments.of("First Error Statement", """
+                LET x: Integer = "statement";
+                DEF f(): Integer DO
+                    RETURN "body";
+                END
+                """, false),
+            Arguments.of("Redefined", """
+                DEF f() DO END
+                DEF f() DO END
+                """, false)
+        );
+    }
+
+    @ParameterizedTest
+    @MethodSource("plc.project.Programs#seeds")
+    void testGenerated(String test, long seed) {
+        test(ProgramGenerator.generate(100, seed), true);
+    }
+
+    private static void test(String program, boolean valid) {
+        var ast = Programs.parse(program);
+        Object expected;
+        try {
+            expected = new Analyzer(new Scope(Environment.scope())).visit(ast);
+        } catch (AnalyzeException e) {
+            expected = e.getMessage();
+        }
+        Assertions.assertEquals(valid, expected instanceof Ir.Source);
+        //Uses a separate pool so bodies are analyzed concurrently even if the
+        //common pool is unavailable (single core).
+        var pool = new ForkJoinPool(4);
+        Object actual;
+        try {
+            actual = new ParallelAnalyzer(new Scope(Environment.scope()), pool).analyze(ast);
+        } catch (AnalyzeException e) {
+            actual = e.getMessage();
+        } finally {
+            pool.shutdown();
+        }
+        Assertions.assertEquals(expected, actual);
+    }
+
+}
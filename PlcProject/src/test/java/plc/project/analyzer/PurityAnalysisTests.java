@@ -0,0 +1,180 @@
+package plc.project.analyzer;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+import plc.project.Programs;
+
+import java.util.ArrayList;
+import java.util.stream.Stream;
+
+/**
+ * Standard JUnit5 parameterized tests. See the RegexTests file from Homework 1
+ * or the LexerTests file from the earlier project part for more information.
+ */
+final class PurityAnalysisTests {
+
+    @ParameterizedTest
+    @MethodSource
+    void testPure(String test, String program, boolean expected) {
+        var ir = Programs.analyze(program);
+        var purity = PurityAnalysis.analyze(ir);
+        Assertions.assertEquals(expected, purity.pure(function(ir)));
+    }
+
+    private static Stream<Arguments> testPure() {
+        return Stream.of(
+            Arguments.of("Arithmetic", """
+                DEF f(x: Integer, y: Integer): Integer DO
+                    LET z = x * y;
+                    z = z + 1;
+                    RETURN z;
+                END
+                """, true),
+            Arguments.of("Recursive", """
+                DEF f(n: Integer): Integer DO
+                    IF n < 2 DO
+                        RETURN n;
+                    END
+                    RETURN f(n - 1) + f(n - 2);
+                END
+                """, true),
+            Arguments.of("Pure Callee", """
+                DEF square(x: Integer): Integer DO
+                    RETURN x * x;
+                END
+                DEF f(x: Integer, y: Integer): Integer DO
+                    RETURN square(x) + square(y);
+                END
+                """, true),
+            Arguments.of("Loop", """
+                DEF f(n: Integer): Integer DO
+                    LET total = 0;
+                    FOR i IN range(0, n) DO
+                        total = total + i;
+                    END
+                    RETURN total;
+                END
+                """, true),
+            Arguments.of("Constant", """
+                LET scale = 10;
+                DEF f(x: Integer): Integer DO
+                    RETURN x * scale;
+                END
+                """, true),
+            Arguments.of("Print", """
+                DEF f(x: Integer): Integer DO
+                    print(x);
+                    RETURN x;
+                END
+                """, false),
+            Arguments.of("Log", """
+                DEF f(x: Integer): Integer DO
+                    log(x);
+                    RETURN x;
+                END
+                """, false),
+            Arguments.of("Outer Assignment", """
+                LET count = 0;
+                DEF f(x: Integer): Integer DO
+                    count = count + 1;
+                    RETURN x;
+                END
+                """, false),
+            Arguments.of("Outer Variable Assigned", """
+                LET scale = 10;
+                DEF f(x: Integer): Integer DO
+                    RETURN x * scale;
+                END
+                scale = 20;
+                """, false),
+            Arguments.of("Property", """
+                LET point = OBJECT DO
+                    LET x = 1;
+                END;
+                DEF f(): Integer DO
+                    RETURN point.x;
+                END
+                """, false),
+            Arguments.of("Method", """
+                LET point = OBJECT DO
+                    DEF get(): Integer DO
+                        RETURN 1;
+                    END
+                END;
+                DEF f(): Integer DO
+                    RETURN point.get();
+                END
+                """, false),
+            Arguments.of("Impure Callee", """
+                DEF g(x: Integer): Integer DO
+                    print(x);
+                    RETURN x;
+                END
+                DEF f(x: Integer): Integer DO
+                    RETURN g(x) + 1;
+                END
+                """, false),
+            Arguments.of("Recursive Impure Callee", """
+                DEF g(x: Integer): Integer DO
+                    print(x);
+                    RETURN x;
+                END
+                DEF f(n: Integer): Integer DO
+                    IF n == 0 DO
+                        RETURN g(n);
+                    END
+                    RETURN f(n - 1);
+                END
+                """, false),
+            Arguments.of("Nested Assignment", """
+                DEF f(x: Integer): Integer DO
+                    LET total = x;
+                    DEF add(): Integer DO
+                        total = total + 1;
+                        RETURN total;
+                    END
+                    RETURN add();
+                END
+                """, false),
+            Arguments.of("Uncalled Nested Assignment", """
+                DEF f(x: Integer): Integer DO
+                    LET total = x;
+                    DEF add(): Integer DO
+                        total = total + 1;
+                        RETURN total;
+                    END
+                    RETURN total;
+                END
+                """, true),
+            Arguments.of("Shadowed Range", """
+                DEF range(a: Integer, b: Integer): Integer DO
+                    print(a);
+                    RETURN b;
+                END
+                DEF f(x: Integer): Integer DO
+                    RETURN range(x, x);
+                END
+                """, false)
+        );
+    }
+
+    /**
+     * Returns the last DEF named f.
+     */
+    private static Ir.Stmt.Def function(Ir.Source ir) {
+        var functions = new ArrayList<Ir.Stmt.Def>();
+        new IrTransformer() {
+            @Override
+            public Ir.Stmt visit(Ir.Stmt.Def ir) {
+                if (ir.name().equals("f")) {
+                    functions.add(ir);
+                }
+                return super.visit(ir);
+            }
+        }.visit(ir);
+        return functions.getLast();
+    }
+
+}
@@ -0,0 +1,183 @@
+package plc.project.analyzer;
+
+import org.checkerframework.checker.nullness.qual.Nullable;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+import plc.project.Programs;
+import plc.project.workload.ProgramGenerator;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Standard JUnit5 parameterized tests. See the RegexTests file from Homework 1
+ * or the LexerTests file from the earlier project part for more information.
+ */
+final class RangeAnalysisTests {
+
+    @ParameterizedTest
+    @MethodSource
+    void testRange(String test, String program, @Nullable Long min, @Nullable Long max) {
+        var ir = analyze(program);
+        var result = result(ir);
+        var ranges = RangeAnalysis.analyze(ir);
+        var expected = new RangeAnalysis.Range(
+            min != null ? BigInteger.valueOf(min) : null,
+            max != null ? BigInteger.valueOf(max) : null
+        );
+        Assertions.assertEquals(expected, ranges.range(result));
+        Assertions.assertEquals(expected, ranges.range(result.value().orElseThrow()));
+    }
+
+    private static Stream<Arguments> testRange() {
+        return Stream.of(
+            Arguments.of("Literal", """
+                LET result = 5;
+                """, 5L, 5L),
+            Arguments.of("Arithmetic", """
+                LET x = 3;
+                LET result = x * 2 - (1 + x);
+                """, 2L, 2L),
+            Arguments.of("Division", """
+                LET x = 100;
+                LET result = x / 7;
+                """, 14L, 14L),
+            Arguments.of("Division Range", """
+                FOR i IN range(-2, 3) DO
+                    LET result = 100 / i;
+                END
+                """, -100L, 100L),
+            Arguments.of("Division By Zero", """
+                LET result = 1 + 1 / 1;
+                """, 2L, 2L),
+            Arguments.of("Loop Counter", """
+                FOR i IN range(0, 10) DO
+                    LET result = i * 2;
+                END
+                """, 0L, 18L),
+            Arguments.of("Nested Loops", """
+                FOR i IN range(0, 10) DO
+                    FOR j IN range(i, 20) DO
+                        LET result = i * j;
+                    END
+                END
+                """, 0L, 171L),
+            Arguments.of("Unknown Loop Bound", """
+                FOR i IN range(0, count()) DO
+                    LET result = i;
+                END
+                """, 0L, (long) Integer.MAX_VALUE - 1),
+            Arguments.of("Branches", """
+                LET x = 1;
+                IF flag() DO
+                    x = 5;
+                ELSE
+                    x = -5;
+                END
+                LET result = x;
+                """, -5L, 5L),
+            Arguments.of("Accumulator", """
+                LET total = 0;
+                FOR i IN range(0, 10) DO
+                    total = total + i;
+                END
+                LET result = total;
+                """, 0L, null),
+            Arguments.of("Decrement", """
+                LET total = 0;
+                FOR i IN range(0, 10) DO
+                    total = total - 1;
+                END
+                LET result = total;
+                """, null, 0L),
+            Arguments.of("Function Assignment", """
+                LET x = 0;
+                DEF f() DO
+                    x = x + 1;
+                END
+                LET result = x;
+                """, 0L, null),
+            Arguments.of("Parameter", """
+                DEF f(x: Integer): Integer DO
+                    LET result = x + 1;
+                    RETURN result;
+                END
+                """, null, null),
+            Arguments.of("Call", """
+                LET result = count() * 2;
+                """, null, null)
+        );
+    }
+
+    @ParameterizedTest
+    @MethodSource
+    void testFits(String test, String expression, boolean isInt, boolean isLong) {
+        var ir = analyze("LET result = " + expression + ";");
+        var ranges = RangeAnalysis.analyze(ir);
+        Assertions.assertEquals(isInt, ranges.fitsInt(result(ir)), "Int.");
+        Assertions.assertEquals(isLong, ranges.fitsLong(result(ir)), "Long.");
+    }
+
+    private static Stream<Arguments> testFits() {
+        return Stream.of(
+            Arguments.of("Small", "1 + 2", true, true),
+            Arguments.of("Int Max", "2147483647", true, true),
+            Arguments.of("Int Overflow", "2147483647 + 1", false, true),
+            Arguments.of("Long Max", "9223372036854775807", false, true),
+            Arguments.of("Long Overflow", "9223372036854775807 + 1", false, false),
+            Arguments.of("Unbounded", "count()", false, false)
+        );
+    }
+
+    @ParameterizedTest
+    @MethodSource("plc.project.Programs#seeds")
+    void testGenerated(String test, long seed) {
+        //Checks that the analysis terminates and every literal is exact.
+        var ir = analyze(ProgramGenerator.generate(100, seed));
+        var ranges = RangeAnalysis.analyze(ir);
+        var literals = new ArrayList<Ir.Expr.Literal>();
+        new IrTransformer() {
+            @Override
+            public Ir.Expr visit(Ir.Expr.Literal ir) {
+                if (ir.value() instanceof BigInteger) {
+                    literals.add(ir);
+                }
+                return ir;
+            }
+        }.visit(ir);
+        for (var literal : literals) {
+            Assertions.assertEquals(RangeAnalysis.Range.of((BigInteger) literal.value()), ranges.range(literal));
+        }
+    }
+
+    /**
+     * Returns the LET named result, which may be nested.
+     */
+    private static Ir.Stmt.Let result(Ir.Source ir) {
+        var result = new ArrayList<Ir.Stmt.Let>();
+        new IrTransformer() {
+            @Override
+            public Ir.Stmt visit(Ir.Stmt.Let ir) {
+                if (ir.name().equals("result")) {
+                    result.add(ir);
+                }
+                return super.visit(ir);
+            }
+        }.visit(ir);
+        return result.getFirst();
+    }
+
+    private static Ir.Source analyze(String program) {
+        var ast = Programs.parse(program);
+        var scope = new Scope(Environment.scope());
+        scope.define("log", new Type.Function(List.of(Type.ANY), Type.ANY));
+        scope.define("flag", new Type.Function(List.of(), Type.BOOLEAN));
+        scope.define("count", new Type.Function(List.of(), Type.INTEGER));
+        return Assertions.assertDoesNotThrow(() -> new Analyzer(scope).visit(ast));
+    }
+
+}
@@ -0,0 +1,163 @@
+package plc.project.analyzer;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import java.math.BigInteger;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+/**
+ * Standard JUnit5 parameterized tests. See the RegexTests file from Homework 1
+ * or the LexerTests file from the earlier project part for more information.
+ */
+final class ResolverTests {
+
+    @ParameterizedTest
+    @MethodSource
+    void testSlot(String test, Ir.Source source, Ir node, Resolver.Slot expected) {
+        Assertions.assertEquals(expected, Resolver.resolve(source).slot(node));
+    }
+
+    private static Stream<Arguments> testSlot() {
+        var literal = new Ir.Expr.Literal(BigInteger.ONE, Type.INTEGER);
+        var let = new Ir.Stmt.Let("x", Type.INTEGER, Optional.of(literal));
+        var variable = new Ir.Expr.Variable("x", Type.INTEGER);
+        var parameter = new Ir.Expr.Variable("parameter", Type.INTEGER);
+        var def = new Ir.Stmt.Def("f", List.of(new Ir.Stmt.Def.Parameter("parameter", Type.INTEGER)), Type.INTEGER, List.of(
+            new Ir.Stmt.Return(Optional.of(parameter))
+        ));
+        var enclosing = new Ir.Expr.Variable("x", Type.INTEGER);
+        var shadowed = new Ir.Stmt.Let("x", Type.INTEGER, Optional.of(literal));
+        var inner = new Ir.Expr.Variable("x", Type.INTEGER);
+        var outer = new Ir.Expr.Variable("x", Type.INTEGER);
+        var range = new Ir.Expr.Function("range", List.of(literal, literal), Type.ITERABLE);
+        var loop = new Ir.Stmt.For("i", Type.INTEGER, range, List.of());
+        var self = new Ir.Expr.Variable("this", Type.ANY);
+        var method = new Ir.Stmt.Def("method", List.of(), Type.ANY, List.of(
+            new Ir.Stmt.Return(Optional.of(self))
+        ));
+        var recursive = new Ir.Expr.Function("f", List.of(), Type.NIL);
+        return Stream.of(
+            Arguments.of("Variable",
+                new Ir.Source(List.of(let, new Ir.Stmt.Expression(variable))),
+                variable,
+                new Resolver.Slot(0, 0)
+            ),
+            Arguments.of("Second Definition",
+                new Ir.Source(List.of(let, def)),
+                def,
+                new Resolver.Slot(0, 1)
+            ),
+            Arguments.of("Parameter",
+                new Ir.Source(List.of(let, def)),
+                parameter,
+                new Resolver.Slot(0, 0)
+            ),
+            Arguments.of("Enclosing Frame",
+                new Ir.Source(List.of(let, new Ir.Stmt.Def("g", List.of(), Type.INTEGER, List.of(
+                    new Ir.Stmt.Return(Optional.of(enclosing))
+                )))),
+                enclosing,
+                new Resolver.Slot(1, 0)
+            ),
+            Arguments.of("If Shadowing",
+                new Ir.Source(List.of(
+                    let,
+                    new Ir.Stmt.If(new Ir.Expr.Literal(true, Type.BOOLEAN), List.of(shadowed, new Ir.Stmt.Expression(inner)), List.of())
+                )),
+                inner,
+                new Resolver.Slot(0, 1)
+            ),
+            Arguments.of("If Restored",
+                new Ir.Source(List.of(
+                    let,
+                    new Ir.Stmt.If(new Ir.Expr.Literal(true, Type.BOOLEAN), List.of(shadowed), List.of()),
+                    new Ir.Stmt.Expression(outer)
+                )),
+                outer,
+                new Resolver.Slot(0, 0)
+            ),
+            Arguments.of("Global",
+                new Ir.Source(List.of(let, loop)),
+                range,
+                new Resolver.Slot(0, 1)
+            ),
+            Arguments.of("For Variable",
+                new Ir.Source(List.of(let, loop)),
+                loop,
+                new Resolver.Slot(0, 0)
+            ),
+            Arguments.of("Method This",
+                new Ir.Source(List.of(new Ir.Stmt.Expression(
+                    new Ir.Expr.ObjectExpr(Optional.empty(), List.of(), List.of(method), Type.ANY)
+                ))),
+                self,
+                new Resolver.Slot(0, 0)
+            ),
+            Arguments.of("Recursion",
+                new Ir.Source(List.of(new Ir.Stmt.Def("f", List.of(), Type.NIL, List.of(
+                    new Ir.Stmt.Expression(recursive)
+                )))),
+                recursive,
+                new Resolver.Slot(1, 0)
+            )
+        );
+    }
+
+    @ParameterizedTest
+    @MethodSource
+    void testSize(String test, Ir.Source source, Ir node, int expected) {
+        Assertions.assertEquals(expected, Resolver.resolve(source).size(node));
+    }
+
+    private static Stream<Arguments> testSize() {
+        var literal = new Ir.Expr.Literal(BigInteger.ONE, Type.INTEGER);
+        var def = new Ir.Stmt.Def("f", List.of(new Ir.Stmt.Def.Parameter("parameter", Type.INTEGER)), Type.NIL, List.of(
+            new Ir.Stmt.If(new Ir.Expr.Literal(true, Type.BOOLEAN),
+                List.of(new Ir.Stmt.Let("x", Type.INTEGER, Optional.of(literal))),
+                List.of(new Ir.Stmt.Let("y", Type.INTEGER, Optional.of(literal)))
+            )
+        ));
+        var loop = new Ir.Stmt.For("i", Type.INTEGER, new Ir.Expr.Variable("iterable", Type.ITERABLE), List.of(
+            new Ir.Stmt.Let("x", Type.INTEGER, Optional.of(literal))
+        ));
+        var source = new Ir.Source(List.of(def, loop));
+        return Stream.of(
+            Arguments.of("Function", source, def, 3),
+            Arguments.of("For", source, loop, 2),
+            Arguments.of("Source", source, source, 2)
+        );
+    }
+
+    @ParameterizedTest
+    @MethodSource
+    void testGlobals(String test, Ir.Source source, Map<String, Integer> expected) {
+        Assertions.assertEquals(expected, Resolver.resolve(source).globals());
+    }
+
+    private static Stream<Arguments> testGlobals() {
+        var string = new Ir.Expr.Literal("string", Type.STRING);
+        return Stream.of(
+            Arguments.of("Native",
+                new Ir.Source(List.of(
+                    new Ir.Stmt.Let("x", Type.STRING, Optional.of(string)),
+                    new Ir.Stmt.Expression(new Ir.Expr.Function("print", List.of(new Ir.Expr.Variable("x", Type.STRING)), Type.NIL))
+                )),
+                Map.of("print", 1)
+            ),
+            Arguments.of("Shadowed",
+                new Ir.Source(List.of(
+                    new Ir.Stmt.Let("print", Type.STRING, Optional.of(string)),
+                    new Ir.Stmt.Expression(new Ir.Expr.Variable("print", Type.STRING))
+                )),
+                Map.of()
+            )
+        );
+    }
+
+}
@@ -0,0 +1,121 @@
+package plc.project.analyzer;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+import plc.project.Programs;
+import plc.project.workload.ProgramGenerator;
+
+import java.util.stream.Stream;
+
+/**
+ * Standard JUnit5 parameterized tests. See the RegexTests file from Homework 1
+ * or the LexerTests file from the earlier project part for more information.
+ *
+ * <p>Replaced programs are also evaluated, and must behave like the original
+ * program (see {@link Programs#test}).
+ */
+final class ScalarReplacementTests {
+
+    @ParameterizedTest
+    @MethodSource
+    void testReplace(String test, String program, int expected) {
+        var replaced = Programs.test(program, new ScalarReplacement());
+        Assertions.assertEquals(expected, objects(replaced), "Objects.");
+    }
+
+    private static Stream<Arguments> testReplace() {
+        return Stream.of(
+            Arguments.of("Fields", """
+                LET point = OBJECT DO
+                    LET x = 1;
+                    LET y = 2;
+                END;
+                point.x = point.x + point.y;
+                log(point.x);
+                """, 0),
+            Arguments.of("Uninitialized Field", """
+                LET point = OBJECT DO
+                    LET x: Any;
+                END;
+                log(point.x);
+                """, 0),
+            Arguments.of("Field Order", """
+                LET point = OBJECT DO
+                    LET x = log(1);
+                    LET y = log(2);
+                END;
+                log(point.y);
+                """, 0),
+            Arguments.of("Nested", """
+                LET line = OBJECT DO
+                    LET start = OBJECT DO
+                        LET x = 1;
+                    END;
+                END;
+                line.start.x = 2;
+                log(line.start.x);
+                """, 0),
+            Arguments.of("Loop", """
+                FOR i IN range(0, 3) DO
+                    LET point = OBJECT DO
+                        LET x = i;
+                    END;
+                    point.x = point.x * 2;
+                    log(point.x);
+                END
+                """, 0),
+            Arguments.of("Shadowing", """
+                LET point = OBJECT DO
+                    LET x = 1;
+                END;
+                IF TRUE DO
+                    LET point = OBJECT DO
+                        LET x = 2;
+                    END;
+                    log(point.x);
+                END
+                log(point.x);
+                """, 0),
+            Arguments.of("Escapes", """
+                LET point = OBJECT DO
+                    LET x = 1;
+                END;
+                log(point);
+                """, 1),
+            Arguments.of("Escapes Partially", """
+                LET point = OBJECT DO
+                    LET x = 1;
+                END;
+                LET other = OBJECT DO
+                    LET x = 2;
+                END;
+                log(point.x);
+                log(other);
+                """, 1)
+        );
+    }
+
+    @ParameterizedTest
+    @MethodSource("plc.project.Programs#seeds")
+    void testGenerated(String test, long seed) {
+        Programs.test(ProgramGenerator.generate(100, seed), new ScalarReplacement());
+    }
+
+    /**
+     * Returns the number of object expressions in a program.
+     */
+    private static int objects(Ir.Source ir) {
+        var objects = new int[] {0};
+        new IrTransformer() {
+            @Override
+            public Ir.Expr visit(Ir.Expr.ObjectExpr ir) {
+                objects[0]++;
+                return super.visit(ir);
+            }
+        }.visit(ir);
+        return objects[0];
+    }
+
+}
@@ -0,0 +1,232 @@
+package plc.project.analyzer;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+import plc.project.Programs;
+import plc.project.workload.ProgramGenerator;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Standard JUnit5 parameterized tests. See the RegexTests file from Homework 1
+ * or the LexerTests file from the earlier project part for more information.
+ *
+ * <p>Specialized programs are checked by the names of the functions called
+ * at the top level, and by evaluation (see {@link #test(String, int)}).
+ */
+final class SpecializationTests {
+
+    private static final String SCORE = """
+        DEF score(x: Integer, weight: Integer, mode: String): Integer DO
+            IF mode == "strict" DO
+                RETURN x * weight;
+            ELSE
+                RETURN x + weight;
+            END
+        END
+        """;
+
+    @ParameterizedTest
+    @MethodSource
+    void testSpecialize(String test, String program, List<String> expected) {
+        var ir = new Specialization().apply(Programs.analyze(program));
+        Assertions.assertEquals(expected, calls(ir));
+        test(program, Specialization.DEFAULT_BUDGET);
+    }
+
+    private static Stream<Arguments> testSpecialize() {
+        return Stream.of(
+            Arguments.of("Constant Arguments", SCORE + """
+                log(score(1, 10, "strict"));
+                """, List.of("log", "score$1")),
+            Arguments.of("Same Constants", SCORE + """
+                LET x = 1;
+                x = 2;
+                log(score(x, 10, "strict"));
+                log(score(x + 1, 10, "strict"));
+                """, List.of("log", "score$1", "log", "score$1")),
+            Arguments.of("Distinct Constants", SCORE + """
+                log(score(1, 10, "strict"));
+                log(score(2, 10, "lenient"));
+                """, List.of("log", "score$1", "log", "score$2")),
+            Arguments.of("No Constants", SCORE + """
+                LET w = 1;
+                w = 2;
+                log(score(w, w, "" + w));
+                """, List.of("log", "score")),
+            Arguments.of("Declared Type", """
+                DEF show(x: Any): Any DO
+                    RETURN log(x);
+                END
+                show(1);
+                """, List.of("show")),
+            Arguments.of("Assigned", """
+                DEF f(x: Integer): Integer DO
+                    RETURN x;
+                END
+                f(1);
+                f = f;
+                """, List.of("f")),
+            Arguments.of("Recursive", """
+                DEF f(n: Integer, k: Integer): Integer DO
+                    IF n == 0 DO
+                        RETURN k;
+                    END
+                    RETURN f(n - 1, k);
+                END
+                log(f(3, 2));
+                """, List.of("log", "f$1"))
+        );
+    }
+
+    @ParameterizedTest
+    @MethodSource
+    void testFolded(String test, String program) {
+        //Folding the clone's constants removes its branches.
+        var ir = new DeadCodeElimination().apply(new ConstantFolding().apply(new Specialization().apply(Programs.analyze(program))));
+        var clone = ir.statements().stream()
+            .filter(s -> s instanceof Ir.Stmt.Def def && def.name().contains("$"))
+            .map(s -> (Ir.Stmt.Def) s)
+            .findFirst().orElseThrow();
+        Assertions.assertTrue(clone.body().stream().noneMatch(s -> s instanceof Ir.Stmt.If), "Clone " + clone + ".");
+    }
+
+    private static Stream<Arguments> testFolded() {
+        return Stream.of(
+            Arguments.of("String Mode", SCORE + """
+                log(score(1, 10, "strict"));
+                """),
+            Arguments.of("Boolean Flag", """
+                DEF clamp(x: Integer, enabled: Boolean): Integer DO
+                    IF enabled AND x > 10 DO
+                        RETURN 10;
+                    END
+                    RETURN x;
+                END
+                LET x = 20;
+                x = 21;
+                log(clamp(x, FALSE));
+                """)
+        );
+    }
+
+    @ParameterizedTest
+    @MethodSource
+    void testBudget(String test, String program, int budget, List<String> expected) {
+        var ir = new Specialization(budget).apply(Programs.analyze(program));
+        Assertions.assertEquals(expected, calls(ir));
+        test(program, budget);
+    }
+
+    private static Stream<Arguments> testBudget() {
+        return Stream.of(
+            Arguments.of("Zero", SCORE + """
+                log(score(1, 10, "strict"));
+                """, 0, List.of("log", "score")),
+            Arguments.of("First Only", SCORE + """
+                log(score(1, 10, "strict"));
+                log(score(2, 10, "lenient"));
+                """, 30, List.of("log", "score$1", "log", "score"))
+        );
+    }
+
+    @ParameterizedTest
+    @MethodSource
+    void testBehavior(String test, String program) {
+        test(program, Specialization.DEFAULT_BUDGET);
+    }
+
+    private static Stream<Arguments> testBehavior() {
+        return Stream.of(
+            Arguments.of("Recursion", """
+                DEF f(n: Integer, k: Integer): Integer DO
+                    IF n == 0 DO
+                        RETURN k;
+                    END
+                    RETURN k + f(n - 1, k);
+                END
+                log(f(3, 2));
+                log(f(2, 5));
+                """),
+            Arguments.of("Free Variable", """
+                LET base = 100;
+                DEF f(x: Integer, k: Integer): Integer DO
+                    RETURN base + x * k;
+                END
+                base = 200;
+                log(f(1, 2));
+                """),
+            Arguments.of("Shadowed", """
+                DEF f(x: Integer): Integer DO
+                    RETURN x;
+                END
+                IF TRUE DO
+                    DEF f(x: Integer): Integer DO
+                        RETURN x * 2;
+                    END
+                    log(f(3));
+                END
+                log(f(3));
+                """),
+            Arguments.of("Assigned Parameter", """
+                DEF f(k: Integer): Integer DO
+                    k = k + 1;
+                    RETURN k;
+                END
+                log(f(1));
+                log(f(1));
+                """),
+            Arguments.of("Nested Function", """
+                DEF f(k: Integer): Integer DO
+                    DEF g(x: Integer, y: Integer): Integer DO
+                        RETURN x * y;
+                    END
+                    RETURN g(k, 2) + g(k, 3);
+                END
+                log(f(1));
+                log(f(2));
+                """)
+        );
+    }
+
+    @ParameterizedTest
+    @MethodSource("plc.project.Programs#seeds")
+    void testGenerated(String test, long seed) {
+        test(ProgramGenerator.generate(100, seed), Specialization.DEFAULT_BUDGET);
+    }
+
+    /**
+     * Returns the names of the functions called by the top-level statements,
+     * in order (outer calls before their arguments).
+     */
+    private static List<String> calls(Ir.Source ir) {
+        var calls = new ArrayList<String>();
+        var visitor = new IrTransformer() {
+            @Override
+            public Ir.Expr visit(Ir.Expr.Function ir) {
+                calls.add(ir.name());
+                return super.visit(ir);
+            }
+        };
+        ir.statements().stream().filter(s -> !(s instanceof Ir.Stmt.Def)).forEach(visitor::visit);
+        return calls;
+    }
+
+    /**
+     * Checks that the program behaves the same after specialization
+     * (followed by folding and dead code elimination), see
+     * {@link Programs#test}.
+     */
+    private static void test(String program, int budget) {
+        Programs.test(program, new Optimizer(List.of(
+            new Specialization(budget),
+            new ConstantFolding(),
+            new DeadCodeElimination()
+        ))::optimize);
+    }
+
+}
@@ -0,0 +1,81 @@
+package plc.project.analyzer;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Stream;
+
+/**
+ * Standard JUnit5 parameterized tests. See the RegexTests file from Homework 1
+ * or the LexerTests file from the earlier project part for more information.
+ */
+final class SubtypeLatticeTests {
+
+    private static final List<Type> PRIMITIVES = List.of(
+        Type.NIL, Type.BOOLEAN, Type.INTEGER, Type.DECIMAL, Type.STRING,
+        Type.ANY, Type.EQUATABLE, Type.COMPARABLE, Type.ITERABLE
+    );
+
+    @ParameterizedTest
+    @MethodSource
+    void testPrimitive(String test, Type type, Type other) {
+        var comparable = Set.of(Type.BOOLEAN, Type.INTEGER, Type.DECIMAL, Type.STRING);
+        var expected = type.equals(other)
+            || other.equals(Type.ANY)
+            || other.equals(Type.COMPARABLE) && comparable.contains(type)
+            || other.equals(Type.EQUATABLE) && (comparable.contains(type)
+                || Set.of(Type.NIL, Type.COMPARABLE, Type.ITERABLE).contains(type));
+        Assertions.assertEquals(expected, SubtypeLattice.isSubtype(type, other));
+    }
+
+    private static Stream<Arguments> testPrimitive() {
+        return PRIMITIVES.stream().flatMap(type -> PRIMITIVES.stream().map(other ->
+            Arguments.of(type + " " + other, type, other)
+        ));
+    }
+
+    @ParameterizedTest
+    @MethodSource
+    void testSubtype(String test, Type type, Type other, boolean expected) {
+        //Repeated to also check memoized results.
+        Assertions.assertEquals(expected, SubtypeLattice.isSubtype(type, other));
+        Assertions.assertEquals(expected, SubtypeLattice.isSubtype(type, other));
+    }
+
+    private static Stream<Arguments> testSubtype() {
+        return Stream.of(
+            Arguments.of("Equal Primitive Instance", new Type.Primitive("Integer", "BigInteger"), Type.INTEGER, true),
+            Arguments.of("Equal Primitive Instance Supertype", new Type.Primitive("Integer", "BigInteger"), Type.COMPARABLE, true),
+            Arguments.of("Unknown Primitive", new Type.Primitive("Unknown", "Object"), Type.EQUATABLE, false),
+            Arguments.of("Unknown Primitive Any", new Type.Primitive("Unknown", "Object"), Type.ANY, true),
+            Arguments.of("Function",
+                new Type.Function(List.of(Type.INTEGER), Type.STRING),
+                new Type.Function(List.of(Type.INTEGER), Type.STRING),
+                true
+            ),
+            Arguments.of("Function Parameter Subtype",
+                new Type.Function(List.of(Type.INTEGER), Type.STRING),
+                new Type.Function(List.of(Type.ANY), Type.STRING),
+                false
+            ),
+            Arguments.of("Function Any", new Type.Function(List.of(), Type.NIL), Type.ANY, true),
+            Arguments.of("Function Equatable", new Type.Function(List.of(), Type.NIL), Type.EQUATABLE, false),
+            Arguments.of("Object", object("x", Type.INTEGER), object("x", Type.INTEGER), true),
+            Arguments.of("Different Object", object("x", Type.INTEGER), object("x", Type.STRING), false),
+            Arguments.of("Object Any", object("x", Type.INTEGER), Type.ANY, true),
+            Arguments.of("Any Object", Type.ANY, object("x", Type.INTEGER), false),
+            Arguments.of("Object Function", object("x", Type.INTEGER), new Type.Function(List.of(), Type.NIL), false)
+        );
+    }
+
+    private static Type.Object object(String name, Type type) {
+        var object = new Type.Object(new Scope(null));
+        object.scope().define(name, type);
+        return object;
+    }
+
+}
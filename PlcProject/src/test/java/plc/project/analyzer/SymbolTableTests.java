@@ -0,0 +1,83 @@
+package plc.project.analyzer;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Standard JUnit5 parameterized tests. See the RegexTests file from Homework 1
+ * or the LexerTests file from the earlier project part for more information.
+ *
+ * <p>Tables are compared against a LinkedHashMap with the same definitions,
+ * at sizes around {@link SymbolTable#THRESHOLD} (where the hash table is
+ * added) and beyond several resizes.
+ */
+final class SymbolTableTests {
+
+    private static final List<Type> TYPES = List.of(Type.INTEGER, Type.STRING, Type.BOOLEAN, Type.ANY);
+
+    @ParameterizedTest
+    @MethodSource
+    void testTable(String test, int size) {
+        var table = new SymbolTable();
+        var expected = new LinkedHashMap<String, Type>();
+        for (int i = 0; i < size; i++) {
+            //Names are defined out of order, so the order isn't sorted.
+            var name = "v" + (i * 7919 % (size + 1));
+            var type = TYPES.get(i % TYPES.size());
+            Assertions.assertEquals(expected.putIfAbsent(name, type) == null, table.put(name, type), name);
+            Assertions.assertFalse(table.put(name, Type.NIL), "Redefined " + name + ".");
+        }
+        Assertions.assertEquals(expected.size(), table.size());
+        for (var entry : expected.entrySet()) {
+            Assertions.assertTrue(table.containsKey(entry.getKey()), entry.getKey());
+            Assertions.assertEquals(entry.getValue(), table.get(entry.getKey()), entry.getKey());
+        }
+        Assertions.assertNull(table.get("undefined"));
+        Assertions.assertFalse(table.containsKey("v" + (size + 1)));
+        Assertions.assertEquals(List.copyOf(expected.entrySet()), List.copyOf(table.toMap().entrySet()));
+        Assertions.assertEquals(expected.toString(), table.toString());
+    }
+
+    private static Stream<Arguments> testTable() {
+        return Stream.of(
+            Arguments.of("Empty", 0),
+            Arguments.of("Single", 1),
+            Arguments.of("Threshold", SymbolTable.THRESHOLD),
+            Arguments.of("Above Threshold", SymbolTable.THRESHOLD + 1),
+            Arguments.of("Large", 1000)
+        );
+    }
+
+    @ParameterizedTest
+    @MethodSource
+    void testEquals(String test, List<String> left, List<String> right, boolean expected) {
+        var first = new SymbolTable();
+        left.forEach(name -> first.put(name, Type.INTEGER));
+        var second = new SymbolTable();
+        right.forEach(name -> second.put(name, Type.INTEGER));
+        Assertions.assertEquals(expected, first.equals(second));
+        if (expected) {
+            Assertions.assertEquals(first.hashCode(), second.hashCode());
+            Assertions.assertEquals(first.toMap().hashCode(), first.hashCode());
+        }
+    }
+
+    private static Stream<Arguments> testEquals() {
+        var large = Stream.iterate(0, i -> i + 1).limit(20).map(i -> "v" + i).toList();
+        return Stream.of(
+            Arguments.of("Empty", List.of(), List.of(), true),
+            Arguments.of("Same Order", List.of("x", "y"), List.of("x", "y"), true),
+            Arguments.of("Different Order", List.of("x", "y"), List.of("y", "x"), true),
+            Arguments.of("Different Names", List.of("x", "y"), List.of("x", "z"), false),
+            Arguments.of("Subset", List.of("x"), List.of("x", "y"), false),
+            Arguments.of("Large", large, large.reversed(), true)
+        );
+    }
+
+}
@@ -0,0 +1,100 @@
+package plc.project.analyzer;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+import plc.project.Programs;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Standard JUnit5 parameterized tests. See the RegexTests file from Homework 1
+ * or the LexerTests file from the earlier project part for more information.
+ *
+ * <p>The expected list is whether each RETURN statement is a tail call, in the
+ * order they appear in the program.
+ */
+final class TailCallsTests {
+
+    @ParameterizedTest
+    @MethodSource
+    void testCall(String test, String program, List<Boolean> expected) {
+        var ir = Programs.analyze(program);
+        var calls = TailCalls.analyze(ir);
+        var returns = returns(ir);
+        Assertions.assertEquals(expected, returns.stream().map(r -> calls.call(r) != null).toList());
+        for (var ret : returns) {
+            var call = calls.call(ret);
+            Assertions.assertTrue(call == null || call instanceof Ir.Expr.Function || call instanceof Ir.Expr.Method, "Not a call.");
+        }
+    }
+
+    private static Stream<Arguments> testCall() {
+        return Stream.of(
+            Arguments.of("Self", """
+                DEF count(n: Integer): Integer DO
+                    IF n == 0 DO
+                        RETURN 0;
+                    END
+                    RETURN count(n - 1);
+                END
+                """, List.of(false, true)),
+            Arguments.of("Group", """
+                DEF count(n: Integer): Integer DO
+                    RETURN ((count(n - 1)));
+                END
+                """, List.of(true)),
+            Arguments.of("Not Last", """
+                DEF count(n: Integer): Integer DO
+                    RETURN count(n - 1) + 1;
+                END
+                """, List.of(false)),
+            Arguments.of("Argument", """
+                DEF f(n: Integer): Integer DO
+                    RETURN n;
+                END
+                DEF g(n: Integer): Integer DO
+                    RETURN f(f(n));
+                END
+                """, List.of(false, true)),
+            Arguments.of("Loop", """
+                DEF find(n: Integer): Integer DO
+                    FOR i IN range(0, n) DO
+                        IF i * i > n DO
+                            RETURN find(i);
+                        END
+                    END
+                    RETURN n;
+                END
+                """, List.of(true, false)),
+            Arguments.of("Method", """
+                LET counter = OBJECT DO
+                    DEF count(n: Integer): Integer DO
+                        RETURN this.count(n - 1);
+                    END
+                END;
+                """, List.of(true)),
+            Arguments.of("Empty Return", """
+                DEF f() DO
+                    RETURN;
+                END
+                """, List.of(false))
+        );
+    }
+
+    private static List<Ir.Stmt.Return> returns(Ir.Source ir) {
+        var returns = new ArrayList<Ir.Stmt.Return>();
+        new IrTransformer() {
+            @Override
+            public Ir.Stmt visit(Ir.Stmt.Return ir) {
+                returns.add(ir);
+                return super.visit(ir);
+            }
+        }.visit(ir);
+        return returns;
+    }
+
+}
@@ -0,0 +1,332 @@
+package plc.project.analyzer;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+import plc.project.Programs;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Standard JUnit5 parameterized tests. See the RegexTests file from Homework 1
+ * or the LexerTests file from the earlier project part for more information.
+ *
+ * <p>The expected result is given as a program, which is analyzed (but not
+ * transformed) and compared to the result of the pass. Since object types
+ * keep their removed members, objects are instead compared by the names of
+ * their remaining members.
+ */
+final class TreeShakingTests {
+
+    @ParameterizedTest
+    @MethodSource
+    void testShake(String test, String program, String expected) {
+        Assertions.assertEquals(Programs.analyze(expected), new TreeShaking().apply(Programs.analyze(program)));
+    }
+
+    private static Stream<Arguments> testShake() {
+        return Stream.of(
+            Arguments.of("Nothing", """
+                DEF f(): Integer DO
+                    RETURN 1;
+                END
+                log(f());
+                """, """
+                DEF f(): Integer DO
+                    RETURN 1;
+                END
+                log(f());
+                """),
+            Arguments.of("Unreachable", """
+                DEF f(): Integer DO
+                    RETURN 1;
+                END
+                DEF g(): Integer DO
+                    RETURN f();
+                END
+                log(1);
+                """, """
+                log(1);
+                """),
+            Arguments.of("Mutual Recursion", """
+                DEF even(n: Integer): Boolean DO
+                    DEF odd(n: Integer): Boolean DO
+                        IF n == 0 DO RETURN FALSE; END
+                        RETURN even(n - 1);
+                    END
+                    IF n == 0 DO RETURN TRUE; END
+                    RETURN odd(n - 1);
+                END
+                log(1);
+                """, """
+                log(1);
+                """),
+            Arguments.of("Nested", """
+                DEF f(): Integer DO
+                    DEF unused(): Integer DO
+                        RETURN 2;
+                    END
+                    DEF used(): Integer DO
+                        RETURN 1;
+                    END
+                    RETURN used();
+                END
+                log(f());
+                """, """
+                DEF f(): Integer DO
+                    DEF used(): Integer DO
+                        RETURN 1;
+                    END
+                    RETURN used();
+                END
+                log(f());
+                """),
+            Arguments.of("Shadowed", """
+                DEF f(): Integer DO
+                    RETURN 1;
+                END
+                IF TRUE DO
+                    DEF f(): Integer DO
+                        RETURN 2;
+                    END
+                    log(f());
+                END
+                """, """
+                IF TRUE DO
+                    DEF f(): Integer DO
+                        RETURN 2;
+                    END
+                    log(f());
+                END
+                """),
+            Arguments.of("Value", """
+                DEF f(): Integer DO
+                    RETURN 1;
+                END
+                LET g = f;
+                log(g);
+                """, """
+                DEF f(): Integer DO
+                    RETURN 1;
+                END
+                LET g = f;
+                log(g);
+                """),
+            Arguments.of("Tail", """
+                DEF g(): Integer DO
+                    RETURN 1;
+                END
+                DEF f(): Integer DO
+                    RETURN g();
+                END
+                """, """
+                DEF g(): Integer DO
+                    RETURN 1;
+                END
+                DEF f(): Integer DO
+                    RETURN g();
+                END
+                """),
+            Arguments.of("Open Object Method", """
+                DEF f(): Integer DO
+                    RETURN 1;
+                END
+                LET object = OBJECT DO
+                    DEF get(): Integer DO
+                        RETURN f();
+                    END
+                END;
+                log(object);
+                """, """
+                DEF f(): Integer DO
+                    RETURN 1;
+                END
+                LET object = OBJECT DO
+                    DEF get(): Integer DO
+                        RETURN f();
+                    END
+                END;
+                log(object);
+                """)
+        );
+    }
+
+    @ParameterizedTest
+    @MethodSource
+    void testObject(String test, String program, List<String> expected) {
+        var shaken = new TreeShaking().apply(Programs.analyze(program));
+        var members = new ArrayList<String>();
+        new IrTransformer() {
+            @Override
+            public Ir.Expr visit(Ir.Expr.ObjectExpr ir) {
+                ir.fields().forEach(f -> members.add(f.name()));
+                ir.methods().forEach(m -> members.add(m.name()));
+                return super.visit(ir);
+            }
+        }.visit(shaken);
+        Assertions.assertEquals(expected, members);
+    }
+
+    private static Stream<Arguments> testObject() {
+        return Stream.of(
+            Arguments.of("Closed", """
+                LET object = OBJECT DO
+                    LET x = 1;
+                    LET unused = 2;
+                    DEF get(): Integer DO
+                        RETURN this.x;
+                    END
+                    DEF other(): Integer DO
+                        RETURN 2;
+                    END
+                END;
+                log(object.get());
+                """, List.of("x", "get")),
+            Arguments.of("Impure Field", """
+                LET object = OBJECT DO
+                    LET unused = log(1);
+                END;
+                log(2);
+                """, List.of("unused")),
+            Arguments.of("Observed", """
+                LET object = OBJECT DO
+                    LET unused = 2;
+                    DEF other(): Integer DO
+                        RETURN 2;
+                    END
+                END;
+                log(object);
+                """, List.of("unused", "other")),
+            Arguments.of("Observed This", """
+                LET object = OBJECT DO
+                    LET unused = 2;
+                    DEF self(): Any DO
+                        RETURN this;
+                    END
+                END;
+                log(object.self());
+                """, List.of("unused", "self")),
+            Arguments.of("Assigned", """
+                LET object = OBJECT DO
+                    LET unused = 2;
+                END;
+                object = OBJECT DO
+                    LET unused = 3;
+                END;
+                """, List.of("unused", "unused")),
+            Arguments.of("Escaped Method", """
+                LET o = OBJECT DO
+                    DEF k(): Integer DO
+                        RETURN 1;
+                    END
+                    DEF get(): Integer DO
+                        RETURN this.k();
+                    END
+                END;
+                LET q = OBJECT DO
+                    LET fn = o.get;
+                    DEF k(): Integer DO
+                        RETURN 2;
+                    END
+                END;
+                log(q.fn());
+                """, List.of("k", "get", "fn", "k")),
+            Arguments.of("Copied Method", """
+                LET o = OBJECT DO
+                    DEF k(): Integer DO
+                        RETURN 1;
+                    END
+                    DEF get(): Integer DO
+                        RETURN this.k();
+                    END
+                END;
+                LET p = OBJECT DO
+                    DEF k(): Integer DO
+                        RETURN 2;
+                    END
+                    DEF get(): Integer DO
+                        RETURN 3;
+                    END
+                END;
+                p.get = o.get;
+                log(p.get());
+                """, List.of("k", "get", "k", "get")),
+            Arguments.of("Escaped This", """
+                LET o = OBJECT DO
+                    DEF self(): Any DO
+                        RETURN this;
+                    END
+                END;
+                LET q = OBJECT DO
+                    LET unused = 2;
+                    LET fn = o.self;
+                END;
+                log(q.fn());
+                """, List.of("self", "unused", "fn"))
+        );
+    }
+
+    @ParameterizedTest
+    @MethodSource
+    void testBehavior(String test, String program) {
+        Programs.test(program, new TreeShaking());
+    }
+
+    private static Stream<Arguments> testBehavior() {
+        return Stream.of(
+            Arguments.of("Escaped Method", """
+                LET o = OBJECT DO
+                    DEF k(): Integer DO
+                        RETURN 1;
+                    END
+                    DEF get(): Integer DO
+                        RETURN this.k();
+                    END
+                END;
+                LET q = OBJECT DO
+                    LET fn = o.get;
+                    DEF k(): Integer DO
+                        RETURN 2;
+                    END
+                END;
+                log(q.fn());
+                """),
+            Arguments.of("Copied Method", """
+                LET o = OBJECT DO
+                    DEF k(): Integer DO
+                        RETURN 1;
+                    END
+                    DEF get(): Integer DO
+                        RETURN this.k();
+                    END
+                END;
+                LET p = OBJECT DO
+                    DEF k(): Integer DO
+                        RETURN 2;
+                    END
+                    DEF get(): Integer DO
+                        RETURN 3;
+                    END
+                END;
+                p.get = o.get;
+                log(p.get());
+                """),
+            Arguments.of("Escaped This", """
+                LET o = OBJECT DO
+                    DEF self(): Any DO
+                        RETURN this;
+                    END
+                END;
+                LET q = OBJECT DO
+                    LET unused = 2;
+                    LET fn = o.self;
+                END;
+                log(q.fn());
+                """)
+        );
+    }
+
+}
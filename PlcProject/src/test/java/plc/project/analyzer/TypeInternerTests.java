@@ -0,0 +1,147 @@
+package plc.project.analyzer;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+import plc.project.lexer.Lexer;
+import plc.project.parser.Parser;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+/**
+ * Standard JUnit5 parameterized tests. See the RegexTests file from Homework 1
+ * or the LexerTests file from the earlier project part for more information.
+ */
+final class TypeInternerTests {
+
+    @ParameterizedTest
+    @MethodSource
+    void testEqual(String test, Type type, Type other, boolean expected) {
+        //Must be consistent with Type#equals, including the hash.
+        Assertions.assertEquals(expected, type.equals(other));
+        Assertions.assertEquals(expected, TypeInterner.equal(type, other));
+        Assertions.assertEquals(expected, TypeInterner.equal(other, type));
+        if (expected) {
+            Assertions.assertEquals(TypeInterner.hash(type), TypeInterner.hash(other));
+        }
+    }
+
+    private static Stream<Arguments> testEqual() {
+        return Stream.of(
+            Arguments.of("Primitive", Type.INTEGER, Type.INTEGER, true),
+            Arguments.of("Different Primitive", Type.INTEGER, Type.DECIMAL, false),
+            Arguments.of("Function",
+                new Type.Function(List.of(Type.INTEGER), Type.STRING),
+                new Type.Function(List.of(Type.INTEGER), Type.STRING),
+                true
+            ),
+            Arguments.of("Different Function",
+                new Type.Function(List.of(Type.INTEGER), Type.STRING),
+                new Type.Function(List.of(Type.DECIMAL), Type.STRING),
+                false
+            ),
+            Arguments.of("Empty Object", object(Map.of()), object(Map.of()), true),
+            Arguments.of("Object",
+                object(Map.of("x", Type.INTEGER)),
+                object(Map.of("x", Type.INTEGER)),
+                true
+            ),
+            Arguments.of("Field Order",
+                object(ordered("x", Type.INTEGER, "y", Type.STRING)),
+                object(ordered("y", Type.STRING, "x", Type.INTEGER)),
+                true
+            ),
+            Arguments.of("Different Field Type",
+                object(Map.of("x", Type.INTEGER)),
+                object(Map.of("x", Type.DECIMAL)),
+                false
+            ),
+            Arguments.of("Different Field Name",
+                object(Map.of("x", Type.INTEGER)),
+                object(Map.of("y", Type.INTEGER)),
+                false
+            ),
+            Arguments.of("Additional Field",
+                object(Map.of("x", Type.INTEGER)),
+                object(ordered("x", Type.INTEGER, "y", Type.INTEGER)),
+                false
+            ),
+            Arguments.of("Nested Object",
+                object(Map.of("o", object(Map.of("x", Type.INTEGER)))),
+                object(Map.of("o", object(Map.of("x", Type.INTEGER)))),
+                true
+            ),
+            Arguments.of("Different Nested Object",
+                object(Map.of("o", object(Map.of("x", Type.INTEGER)))),
+                object(Map.of("o", object(Map.of("x", Type.STRING)))),
+                false
+            ),
+            Arguments.of("Object Primitive", object(Map.of()), Type.ANY, false)
+        );
+    }
+
+    @ParameterizedTest
+    @MethodSource
+    void testIntern(String test, List<Type.Object> types, boolean expected) {
+        var interner = new TypeInterner();
+        var canonical = types.stream().map(interner::intern).toList();
+        Assertions.assertSame(types.getFirst(), canonical.getFirst());
+        Assertions.assertEquals(expected, canonical.stream().allMatch(t -> t == canonical.getFirst()));
+    }
+
+    private static Stream<Arguments> testIntern() {
+        return Stream.of(
+            Arguments.of("Same", List.of(object(Map.of("x", Type.INTEGER)), object(Map.of("x", Type.INTEGER))), true),
+            Arguments.of("Field Order", List.of(
+                object(ordered("x", Type.INTEGER, "y", Type.STRING)),
+                object(ordered("y", Type.STRING, "x", Type.INTEGER))
+            ), true),
+            Arguments.of("Different", List.of(object(Map.of("x", Type.INTEGER)), object(Map.of("x", Type.STRING))), false)
+        );
+    }
+
+    @ParameterizedTest
+    @MethodSource
+    void testAnalyze(String test, String program, boolean expected) {
+        var ast = Assertions.assertDoesNotThrow(() -> new Parser(new Lexer(program).lex()).parseSource());
+        var ir = Assertions.assertDoesNotThrow(() -> new Analyzer(new Scope(Environment.scope())).visit(ast));
+        var first = ((Ir.Stmt.Let) ir.statements().getFirst()).type();
+        var second = ((Ir.Stmt.Let) ir.statements().getLast()).type();
+        Assertions.assertEquals(expected, first == second);
+    }
+
+    private static Stream<Arguments> testAnalyze() {
+        return Stream.of(
+            Arguments.of("Same Fields", """
+                LET a = OBJECT DO LET x = 1; END;
+                LET b = OBJECT DO LET x = 2; END;
+                """, true),
+            Arguments.of("Same Methods", """
+                LET a = OBJECT DO DEF f(): Integer DO RETURN 1; END END;
+                LET b = OBJECT DO DEF f(): Integer DO RETURN 2; END END;
+                """, true),
+            Arguments.of("Different Fields", """
+                LET a = OBJECT DO LET x = 1; END;
+                LET b = OBJECT DO LET x = "string"; END;
+                """, false)
+        );
+    }
+
+    private static Type.Object object(Map<String, Type> fields) {
+        var type = new Type.Object(new Scope(null));
+        fields.forEach(type.scope()::define);
+        return type;
+    }
+
+    private static Map<String, Type> ordered(String name, Type type, String otherName, Type otherType) {
+        var fields = new LinkedHashMap<String, Type>();
+        fields.put(name, type);
+        fields.put(otherName, otherType);
+        return fields;
+    }
+
+}
@@ -258,6 +258,18 @@ final class EvaluatorTests {
                     """),
                     new RuntimeValue.Primitive(null),
                     List.of(new RuntimeValue.Primitive("outer")) // x should remain 10 after function call
+            ),
+            Arguments.of("Caller Scope Restored",
+                    new Input.Program("""
+                    DEF function() DO END
+                    DEF main(parameter) DO
+                        function();
+                        log(parameter);
+                    END
+                    main(1);
+                    """),
+                    new RuntimeValue.Primitive(null),
+                    List.of(new RuntimeValue.Primitive(new BigInteger("1")))
             )
         );
     }
@@ -0,0 +1,521 @@
+package plc.project.evaluator;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+import plc.project.Programs;
+import plc.project.analyzer.Ir;
+import plc.project.analyzer.PurityAnalysis;
+import plc.project.workload.ProgramGenerator;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Standard JUnit5 parameterized tests. See the RegexTests file from Homework 1
+ * or the LexerTests file from the earlier project part for more information.
+ *
+ * <p>The IrEvaluator must behave exactly like the Evaluator, so programs are
+ * evaluated with both and the results (and logs) are compared.
+ */
+final class IrEvaluatorTests {
+
+    @ParameterizedTest
+    @MethodSource
+    void testProgram(String test, String program) {
+        test(program);
+    }
+
+    private static Stream<Arguments> testProgram() {
+        return Stream.of(
+            Arguments.of("Variable", """
+                LET x = 1;
+                log(x);
+                """),
+            Arguments.of("Assignment", """
+                LET x = 1;
+                x = x + 1;
+                log(x);
+                """),
+            Arguments.of("Function", """
+                DEF f(a: Integer, b: Integer): Integer DO
+                    RETURN a - b;
+                END
+                log(f(3, 1));
+                """),
+            Arguments.of("Recursion", """
+                DEF fib(n: Integer): Integer DO
+                    IF n < 2 DO
+                        RETURN n;
+                    END
+                    RETURN fib(n - 1) + fib(n - 2);
+                END
+                log(fib(10));
+                """),
+            Arguments.of("Static Scoping", """
+                LET scope = "outer";
+                DEF function() DO
+                    log(scope);
+                END
+                DEF main() DO
+                    LET scope = "inner";
+                    function();
+                    log(scope);
+                END
+                main();
+                """),
+            Arguments.of("Nested Function", """
+                DEF outer(x: Integer): Integer DO
+                    DEF inner(y: Integer): Integer DO
+                        RETURN x + y;
+                    END
+                    RETURN inner(2);
+                END
+                log(outer(1));
+                """),
+            Arguments.of("If Shadowing", """
+                LET x = 1;
+                IF TRUE DO
+                    LET x = 2;
+                    log(x);
+                ELSE
+                    log(x);
+                END
+                log(x);
+                """),
+            Arguments.of("For", """
+                LET sum = 0;
+                FOR i IN range(0, 5) DO
+                    LET square = i * i;
+                    sum = sum + square;
+                END
+                log(sum);
+                """),
+            Arguments.of("For Closure", """
+                FOR i IN range(0, 3) DO
+                    DEF get(): Integer DO
+                        RETURN i;
+                    END
+                    log(get());
+                END
+                """),
+            Arguments.of("Reused Frames", """
+                DEF sum(n: Integer): Integer DO
+                    LET total = 0;
+                    FOR i IN range(0, n) DO
+                        LET square = i * i;
+                        total = total + square;
+                    END
+                    RETURN total;
+                END
+                DEF down(n: Integer): Integer DO
+                    IF n == 0 DO
+                        RETURN 0;
+                    END
+                    LET x = n;
+                    LET y = down(n - 1);
+                    RETURN x * 10 + y;
+                END
+                log(sum(3));
+                log(sum(4));
+                log(down(4));
+                """),
+            Arguments.of("Tail Call", """
+                DEF count(n: Integer, total: Integer): Integer DO
+                    IF n == 0 DO
+                        RETURN total;
+                    END
+                    RETURN (count(n - 1, total + n));
+                END
+                log(count(50, 0));
+                """),
+            Arguments.of("Tail Call Method", """
+                LET counter = OBJECT DO
+                    LET step = 2;
+                    DEF count(n: Integer): Integer DO
+                        IF n <= 0 DO
+                            RETURN n;
+                        END
+                        RETURN this.count(n - this.step);
+                    END
+                END;
+                log(counter.count(7));
+                """),
+            Arguments.of("Tail Call Native", """
+                DEF f(x: Integer): Any DO
+                    RETURN log(x + 1);
+                END
+                log(f(1));
+                """),
+            Arguments.of("Mutual Tail Calls", """
+                DEF even(n: Integer): Boolean DO
+                    DEF odd(m: Integer): Boolean DO
+                        IF m == 0 DO
+                            RETURN FALSE;
+                        END
+                        RETURN even(m - 1);
+                    END
+                    IF n == 0 DO
+                        RETURN TRUE;
+                    END
+                    RETURN odd(n - 1);
+                END
+                log(even(10));
+                log(even(7));
+                """),
+            Arguments.of("Counted Loop", """
+                LET n = 4;
+                FOR i IN range(n - 2, n * 2) DO
+                    log(i);
+                END
+                """),
+            Arguments.of("Counted Loop Empty", """
+                FOR i IN range(5, 2) DO
+                    log(i);
+                END
+                log(0);
+                """),
+            Arguments.of("Counted Loop Nested", """
+                FOR i IN range(0, 3) DO
+                    FOR j IN range(i, 3) DO
+                        log(i * 10 + j);
+                    END
+                END
+                """),
+            Arguments.of("Counted Loop Bounds", """
+                LET n = 3;
+                FOR i IN range(0, n) DO
+                    n = n + 1;
+                    log(i);
+                END
+                log(n);
+                """),
+            Arguments.of("Object", """
+                LET object = OBJECT DO
+                    LET x = 1;
+                    DEF get(): Integer DO
+                        RETURN this.x;
+                    END
+                END;
+                object.x = 2;
+                log(object.get());
+                """),
+            Arguments.of("Short Circuit", """
+                DEF evaluated(): Boolean DO
+                    log("evaluated");
+                    RETURN TRUE;
+                END
+                log(FALSE AND evaluated());
+                log(TRUE OR evaluated());
+                log(TRUE AND evaluated());
+                """),
+            Arguments.of("String Concatenation", """
+                log("value: " + 1 + TRUE + NIL);
+                """),
+            Arguments.of("Division By Zero", """
+                log(1);
+                log(1 / 0);
+                """),
+            Arguments.of("Operations", """
+                log(7 / 2 - 3 * 2 + 1);
+                log(7.0 / 2.0 - 0.5 * 2.0 + 1.0);
+                log(1 < 2);
+                log(2.0 <= 1.0);
+                log("a" > "b");
+                log("b" >= "b");
+                log(TRUE > FALSE);
+                log(1 == 1.0);
+                log(NIL != NIL);
+                """),
+            Arguments.of("Uninitialized Operand", """
+                LET x: Integer;
+                log(x + 1);
+                """)
+        );
+    }
+
+    @ParameterizedTest
+    @MethodSource("plc.project.Programs#seeds")
+    void testGenerated(String test, long seed) {
+        test(ProgramGenerator.generate(100, seed));
+    }
+
+    @ParameterizedTest
+    @MethodSource
+    void testMemoized(String test, String program) {
+        test(program, ir -> scope -> new IrEvaluator(scope, null, PurityAnalysis.analyze(ir), 2).visit(ir));
+    }
+
+    private static Stream<Arguments> testMemoized() {
+        return Stream.of(
+            Arguments.of("Recursive", """
+                DEF fib(n: Integer): Integer DO
+                    IF n < 2 DO
+                        RETURN n;
+                    END
+                    RETURN fib(n - 1) + fib(n - 2);
+                END
+                log(fib(15));
+                log(fib(10));
+                """),
+            Arguments.of("Eviction", """
+                DEF square(x: Integer): Integer DO
+                    RETURN x * x;
+                END
+                FOR i IN range(0, 5) DO
+                    log(square(i) + square(4 - i) + square(2));
+                END
+                """),
+            Arguments.of("Closures", """
+                DEF adder(n: Integer): Any DO
+                    DEF add(x: Integer): Integer DO
+                        RETURN x + n;
+                    END
+                    log(add(1));
+                    RETURN add;
+                END
+                adder(1);
+                adder(2);
+                """),
+            Arguments.of("Failure", """
+                DEF divide(x: Integer, y: Integer): Integer DO
+                    RETURN x / y;
+                END
+                log(divide(4, 2));
+                log(divide(4, 2));
+                log(divide(1, 0));
+                """),
+            Arguments.of("Impure", """
+                LET count = 0;
+                DEF next(): Integer DO
+                    count = count + 1;
+                    RETURN count;
+                END
+                log(next());
+                log(next());
+                """)
+        );
+    }
+
+    @ParameterizedTest
+    @MethodSource("plc.project.Programs#seeds")
+    void testMemoizedGenerated(String test, long seed) {
+        var program = ProgramGenerator.generate(100, seed);
+        test(program, ir -> scope -> new IrEvaluator(scope, null, PurityAnalysis.analyze(ir), 2).visit(ir));
+    }
+
+    @ParameterizedTest
+    @MethodSource
+    void testChecks(String test, String program) {
+        test(program);
+    }
+
+    private static Stream<Arguments> testChecks() {
+        return Stream.of(
+            Arguments.of("Operations", """
+                log(7 / 2 - 3 * 2 + 1);
+                log(7.0 / 2.0 - 0.5 * 2.0 + 1.0);
+                log(1 < 2);
+                log(2.0 <= 1.0);
+                log("a" > "b");
+                log("value: " + 1 + TRUE + NIL);
+                log(1 == 1.0);
+                log(NIL != NIL);
+                """),
+            Arguments.of("Control Flow", """
+                LET total = 0;
+                FOR i IN range(0, 5) DO
+                    IF i > 1 AND i != 3 DO
+                        total = total + i;
+                    END
+                END
+                log(total);
+                """),
+            Arguments.of("Object", """
+                LET object = OBJECT DO
+                    LET x = 1;
+                    DEF get(): Integer DO
+                        RETURN this.x;
+                    END
+                END;
+                object.x = 2;
+                log(object.get());
+                """),
+            Arguments.of("Division By Zero", """
+                log(1);
+                log(1.0 / 0.0);
+                """),
+            Arguments.of("Uninitialized Operand", """
+                LET x: Integer;
+                log(x + 1);
+                """),
+            Arguments.of("Uninitialized String", """
+                LET s: String;
+                log(s + 1);
+                """),
+            Arguments.of("Uninitialized Condition", """
+                LET b: Boolean;
+                IF b DO
+                    log(1);
+                END
+                """),
+            Arguments.of("Uninitialized Short Circuit", """
+                LET b: Boolean;
+                log(TRUE AND b);
+                """),
+            Arguments.of("Comparable Operand", """
+                LET x: Comparable = 1;
+                LET y: Comparable = 2;
+                log(x < y);
+                """)
+        );
+    }
+
+    @ParameterizedTest
+    @MethodSource
+    void testRange(String test, RuntimeValue.Function range, List<Integer> expected) {
+        //Loops are only counted if range has the native's definition.
+        var ir = Programs.analyze("""
+            FOR i IN range(0, 3) DO
+                log(i);
+            END
+            """);
+        var log = new ArrayList<RuntimeValue>();
+        evaluate(log, scope -> {
+            scope.define("range", range);
+            return new IrEvaluator(scope).visit(ir);
+        });
+        var values = expected.stream().map(i -> (RuntimeValue) new RuntimeValue.Primitive(BigInteger.valueOf(i))).toList();
+        Assertions.assertEquals(values, log);
+    }
+
+    private static Stream<Arguments> testRange() {
+        var environment = (RuntimeValue.Function) Environment.scope().get("range", false).orElseThrow();
+        return Stream.of(
+            Arguments.of("Same Definition", new RuntimeValue.Function("range", environment.definition()), List.of(0, 1, 2)),
+            Arguments.of("Other Definition", new RuntimeValue.Function("range", _ ->
+                new RuntimeValue.Primitive(List.of(new RuntimeValue.Primitive(BigInteger.TEN)))), List.of(10))
+        );
+    }
+
+    @ParameterizedTest
+    @MethodSource
+    void testMemoizedLinear(String test, int n, String expected) {
+        //Exponential without memoization (too slow to finish), linear with.
+        var ir = Programs.analyze("""
+            DEF fib(n: Integer): Integer DO
+                IF n < 2 DO
+                    RETURN n;
+                END
+                RETURN fib(n - 1) + fib(n - 2);
+            END
+            fib(%d);
+            """.formatted(n));
+        var result = Assertions.assertDoesNotThrow(() ->
+            new IrEvaluator(new Scope(Environment.scope()), null, PurityAnalysis.analyze(ir), 1000).visit(ir));
+        Assertions.assertEquals(new RuntimeValue.Primitive(new BigInteger(expected)), result);
+    }
+
+    private static Stream<Arguments> testMemoizedLinear() {
+        return Stream.of(
+            Arguments.of("Fib 90", 90, "2880067194370816120"),
+            Arguments.of("Fib 500", 500, "139423224561697880139724382870407283950070256587697307264108962948325571622863290691557658876222521294125")
+        );
+    }
+
+    @ParameterizedTest
+    @MethodSource
+    void testTailCalls(String test, String program, boolean memoized, Object expected) {
+        //Deep enough to overflow the stack without tail calls.
+        var ir = Programs.analyze(program);
+        var purity = memoized ? PurityAnalysis.analyze(ir) : null;
+        var result = Assertions.assertDoesNotThrow(() ->
+            new IrEvaluator(new Scope(Environment.scope()), null, purity, 10).visit(ir));
+        Assertions.assertEquals(new RuntimeValue.Primitive(expected), result);
+    }
+
+    private static Stream<Arguments> testTailCalls() {
+        var count = """
+            DEF count(n: Integer, total: Integer): Integer DO
+                IF n == 0 DO
+                    RETURN total;
+                END
+                RETURN count(n - 1, total + 2);
+            END
+            count(100000, 0);
+            """;
+        return Stream.of(
+            Arguments.of("Self", count, false, BigInteger.valueOf(200000)),
+            Arguments.of("Self Memoized", count, true, BigInteger.valueOf(200000)),
+            Arguments.of("Mutual", """
+                DEF even(n: Integer): Boolean DO
+                    DEF odd(m: Integer): Boolean DO
+                        IF m == 0 DO
+                            RETURN FALSE;
+                        END
+                        RETURN even(m - 1);
+                    END
+                    IF n == 0 DO
+                        RETURN TRUE;
+                    END
+                    RETURN odd(n - 1);
+                END
+                even(100001);
+                """, false, false),
+            Arguments.of("Method", """
+                LET counter = OBJECT DO
+                    DEF count(n: Integer): Integer DO
+                        IF n == 0 DO
+                            RETURN 0;
+                        END
+                        RETURN this.count(n - 1);
+                    END
+                END;
+                counter.count(100000);
+                """, false, BigInteger.ZERO)
+        );
+    }
+
+    private static void test(String program) {
+        test(program, ir -> scope -> new IrEvaluator(scope).visit(ir));
+    }
+
+    private static void test(String program, java.util.function.Function<Ir.Source, Evaluation> evaluator) {
+        var ast = Programs.parse(program);
+        var ir = Programs.analyze(program);
+        var expectedLog = new ArrayList<RuntimeValue>();
+        var expected = evaluate(expectedLog, scope -> new Evaluator(scope).visit(ast));
+        var log = new ArrayList<RuntimeValue>();
+        var actual = evaluate(log, evaluator.apply(ir));
+        Assertions.assertEquals(expected, actual);
+        Assertions.assertEquals(expectedLog, log);
+    }
+
+    private interface Evaluation {
+        RuntimeValue evaluate(Scope scope) throws EvaluateException;
+    }
+
+    /**
+     * Returns the result of the evaluation, or the exception class if an
+     * EvaluateException was thrown (messages differ between evaluators).
+     */
+    private static Object evaluate(List<RuntimeValue> log, Evaluation evaluation) {
+        var scope = new Scope(Environment.scope());
+        scope.define("log", new RuntimeValue.Function("log", arguments -> {
+            if (arguments.size() != 1) {
+                throw new EvaluateException("Expected log to be called with 1 argument.");
+            }
+            log.add(arguments.getFirst());
+            return arguments.getFirst();
+        }));
+        try {
+            return evaluation.evaluate(scope);
+        } catch (EvaluateException e) {
+            return e.getClass();
+        }
+    }
+
+}
@@ -7,6 +7,7 @@ import org.junit.jupiter.params.provider.Arguments;
 import org.junit.jupiter.params.provider.MethodSource;
 import plc.project.analyzer.Analyzer;
 import plc.project.analyzer.Ir;
+import plc.project.analyzer.PurityAnalysis;
 import plc.project.analyzer.Scope;
 import plc.project.analyzer.Type;
 import plc.project.lexer.Lexer;
@@ -711,6 +712,201 @@ final class GeneratorTests {
                     "",
                     "}"
                 )
+            ),
+            Arguments.of("Counted Loop",
+                new Input.Program("""
+                    FOR i IN range(0, 3) DO
+                        print(i);
+                    END
+                    """),
+                String.join("\n",
+                    Environment.imports(),
+                    "\npublic final class Main {\n",
+                    Environment.definitions(),
+                    "",
+                    "    public static void main(String[] args) {",
+                    "        for (int i$index = (new BigInteger(\"0\")).intValueExact(), i$end = (new BigInteger(\"3\")).intValueExact(); i$index < i$end; i$index++) {",
+                    "            BigInteger i = BigInteger.valueOf(i$index);",
+                    "            print(i);",
+                    "        }",
+                    "    }",
+                    "",
+                    "}"
+                )
+            ),
+            Arguments.of("Shadowed Range",
+                new Input.Program("""
+                    DEF range(start: Integer, end: Integer): Iterable DO
+                        RETURN iterable;
+                    END
+                    FOR i IN range(0, 3) DO
+                        print(i);
+                    END
+                    """),
+                String.join("\n",
+                    Environment.imports(),
+                    "\npublic final class Main {\n",
+                    Environment.definitions(),
+                    "",
+                    "    static Iterable<BigInteger> range(BigInteger start, BigInteger end) {",
+                    "        return iterable;",
+                    "    }",
+                    "    public static void main(String[] args) {",
+                    "        for (BigInteger i : range(new BigInteger(\"0\"), new BigInteger(\"3\"))) {",
+                    "            print(i);",
+                    "        }",
+                    "    }",
+                    "",
+                    "}"
+                )
+            )
+        );
+    }
+
+    @ParameterizedTest
+    @MethodSource
+    void testMemoized(String test, String program, String expected) {
+        var ir = Assertions.assertDoesNotThrow(
+            () -> new Analyzer(new Scope(plc.project.analyzer.Environment.scope())).visit(new Parser(new Lexer(program).lex()).parseSource())
+        );
+        Assertions.assertEquals(expected, new Generator(PurityAnalysis.analyze(ir), 100).visit(ir).toString());
+    }
+
+    private static Stream<Arguments> testMemoized() {
+        return Stream.of(
+            Arguments.of("Pure",
+                """
+                DEF square(x: Integer): Integer DO
+                    RETURN x * x;
+                END
+                print(square(2));
+                """,
+                String.join("\n",
+                    Environment.imports(),
+                    "\npublic final class Main {\n",
+                    Environment.definitions(),
+                    "",
+                    "    static final java.util.Map<List<Object>, BigInteger> square$cache = new java.util.LinkedHashMap<>(16, 0.75f, true) {",
+                    "        @Override protected boolean removeEldestEntry(java.util.Map.Entry<List<Object>, BigInteger> eldest) { return size() > 100; }",
+                    "    };",
+                    "    static BigInteger square(BigInteger x) {",
+                    "        var key = java.util.Arrays.<Object>asList(x);",
+                    "        var cached = square$cache.get(key);",
+                    "        if (cached != null) {",
+                    "            return cached;",
+                    "        }",
+                    "        var value = square$uncached(x);",
+                    "        square$cache.put(key, value);",
+                    "        return value;",
+                    "    }",
+                    "    static BigInteger square$uncached(BigInteger x) {",
+                    "        return (x).multiply(x);",
+                    "    }",
+                    "    public static void main(String[] args) {",
+                    "        print(square(new BigInteger(\"2\")));",
+                    "    }",
+                    "",
+                    "}"
+                )
+            ),
+            Arguments.of("Impure",
+                """
+                DEF show(x: Integer): Integer DO
+                    print(x);
+                    RETURN x;
+                END
+                """,
+                String.join("\n",
+                    Environment.imports(),
+                    "\npublic final class Main {\n",
+                    Environment.definitions(),
+                    "",
+                    "    static BigInteger show(BigInteger x) {",
+                    "        print(x);",
+                    "        return x;",
+                    "    }",
+                    "",
+                    "}"
+                )
+            )
+        );
+    }
+
+    @ParameterizedTest
+    @MethodSource
+    void testTreeShaking(String test, String program, String expected) {
+        var ir = Assertions.assertDoesNotThrow(
+            () -> new Analyzer(new Scope(plc.project.analyzer.Environment.scope())).visit(new Parser(new Lexer(program).lex()).parseSource())
+        );
+        Assertions.assertEquals(expected, new Generator(null, 0, true).visit(ir).toString());
+    }
+
+    private static Stream<Arguments> testTreeShaking() {
+        return Stream.of(
+            Arguments.of("Unreachable Function",
+                """
+                DEF show(x: Integer) DO
+                    debug(x);
+                END
+                print(1);
+                """,
+                String.join("\n",
+                    Environment.imports(),
+                    "\npublic final class Main {\n",
+                    "    static Void debug(Object object) { System.out.println(object); return null; }",
+                    "    static Void print(Object object) { System.out.println(object); return null; }",
+                    "",
+                    "    static Object show(BigInteger x) {",
+                    "        debug(x);",
+                    "    }",
+                    "    public static void main(String[] args) {",
+                    "        print(new BigInteger(\"1\"));",
+                    "    }",
+                    "",
+                    "}"
+                )
+            ),
+            Arguments.of("Object",
+                """
+                print(object.property);
+                """,
+                String.join("\n",
+                    Environment.imports(),
+                    "\npublic final class Main {\n",
+                    "    static Void print(Object object) { System.out.println(object); return null; }",
+                    "    static class EnvironmentObject {",
+                    "        public String property = \"property\";",
+                    "        public Void method() { return null; }",
+                    "        public Object methodAny(Object object) { return object; }",
+                    "        public String methodString(String string) { return string; }",
+                    "    }",
+                    "    static EnvironmentObject object = new EnvironmentObject();",
+                    "",
+                    "    public static void main(String[] args) {",
+                    "        print(object.property);",
+                    "    }",
+                    "",
+                    "}"
+                )
+            ),
+            Arguments.of("Shadowed",
+                """
+                DEF print(x: Any) DO
+                END
+                print(1);
+                """,
+                String.join("\n",
+                    Environment.imports(),
+                    "\npublic final class Main {",
+                    "",
+                    "    static Object print(Object x) {",
+                    "    }",
+                    "    public static void main(String[] args) {",
+                    "        print(new BigInteger(\"1\"));",
+                    "    }",
+                    "",
+                    "}"
+                )
             )
         );
     }
@@ -0,0 +1,251 @@
+package plc.project.ssa;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+import plc.project.Programs;
+import plc.project.workload.ProgramGenerator;
+
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.stream.Stream;
+
+/**
+ * Standard JUnit5 parameterized tests. See the RegexTests file from Homework 1
+ * or the LexerTests file from the earlier project part for more information.
+ *
+ * <p>Programs are compared against their printed form, and generated programs
+ * are checked to be well-formed.
+ */
+final class SsaBuilderTests {
+
+    @ParameterizedTest
+    @MethodSource
+    void testBuild(String test, String program, String expected) {
+        var ssa = SsaBuilder.build(Programs.analyze(program));
+        verify(ssa);
+        Assertions.assertEquals(expected, SsaPrinter.print(ssa));
+    }
+
+    private static Stream<Arguments> testBuild() {
+        return Stream.of(
+            Arguments.of("Loop",
+                """
+                LET total = 0;
+                LET count = 0;
+                FOR i IN range(0, 3) DO
+                    IF i > 1 DO
+                        total = total + i;
+                    END
+                    count = count + 1;
+                END
+                total * count;
+                """,
+                """
+                function @main(): Any {
+                b0:
+                    %0 = constant 0
+                    %1 = constant 0
+                    %2 = global range
+                    %3 = constant 0
+                    %4 = constant 3
+                    %5 = call %2(%3, %4)
+                    %6 = iterator %5
+                    jump b1
+                b1: ; b0, b6
+                    %7 = phi [b0: %0], [b6: %15]
+                    %8 = phi [b0: %1], [b6: %17]
+                    %9 = hasNext %6
+                    branch %9, b2, b3
+                b2: ; b1
+                    %10 = next %6
+                    %11 = constant 1
+                    %12 = %10 > %11
+                    branch %12, b4, b5
+                b3: ; b1
+                    %13 = %7 * %8
+                    return %13
+                b4: ; b2
+                    %14 = %7 + %10
+                    jump b6
+                b5: ; b2
+                    jump b6
+                b6: ; b4, b5
+                    %15 = phi [b4: %14], [b5: %7]
+                    %16 = constant 1
+                    %17 = %8 + %16
+                    jump b1
+                }
+                """
+            ),
+            Arguments.of("If Value",
+                """
+                LET x = 1;
+                IF x > 0 DO
+                    x = 2;
+                ELSE
+                    x;
+                END
+                """,
+                """
+                function @main(): Any {
+                b0:
+                    %0 = constant 1
+                    %1 = constant 0
+                    %2 = %0 > %1
+                    branch %2, b1, b2
+                b1: ; b0
+                    %3 = constant 2
+                    jump b3
+                b2: ; b0
+                    jump b3
+                b3: ; b1, b2
+                    %4 = phi [b1: %3], [b2: %0]
+                    return %4
+                }
+                """
+            ),
+            Arguments.of("Short Circuit",
+                """
+                DEF check(x: Integer): Boolean DO
+                    RETURN x > 0 OR x == -1;
+                END
+                """,
+                """
+                function @main(): Any {
+                b0:
+                    %0 = closure @check
+                    return %0
+                }
+
+                function @check(%0 x: Integer): Boolean {
+                b0:
+                    %1 = constant 0
+                    %2 = %0 > %1
+                    branch %2, b2, b1
+                b1: ; b0
+                    %3 = constant -1
+                    %4 = %0 == %3
+                    jump b2
+                b2: ; b0, b1
+                    %5 = phi [b0: %2], [b1: %4]
+                    return %5
+                }
+                """
+            ),
+            Arguments.of("Object",
+                """
+                LET point = OBJECT Point DO
+                    LET x = 1;
+                    DEF get(): Integer DO
+                        RETURN this.x;
+                    END
+                END;
+                point.x = point.x + 1;
+                point.get();
+                """,
+                """
+                function @main(): Any {
+                b0:
+                    %0 = object Point
+                    %1 = constant 1
+                    store %0.x, %1
+                    %2 = closure @get
+                    store %0.get, %2
+                    %3 = load %0.x
+                    %4 = constant 1
+                    %5 = %3 + %4
+                    store %0.x, %5
+                    %6 = call %0.get()
+                    return %6
+                }
+
+                function @get(%0 this: Object): Integer {
+                b0:
+                    %1 = load %0.x
+                    return %1
+                }
+                """
+            ),
+            Arguments.of("Captured",
+                """
+                LET count = 0;
+                DEF increment(): Integer DO
+                    count = count + 1;
+                    RETURN count;
+                END
+                increment();
+                count;
+                """,
+                """
+                function @main(): Any {
+                b0:
+                    %0 = constant 0
+                    %1 = cell count: Integer
+                    store %1, %0
+                    %2 = closure @increment [%1]
+                    %3 = call %2()
+                    %4 = load %1
+                    return %4
+                }
+
+                function @increment(): Integer [%0 count: Integer] {
+                b0:
+                    %1 = load %0
+                    %2 = constant 1
+                    %3 = %1 + %2
+                    store %0, %3
+                    %4 = load %0
+                    return %4
+                }
+                """
+            )
+        );
+    }
+
+    @ParameterizedTest
+    @MethodSource("plc.project.Programs#seeds")
+    void testGenerated(String test, long seed) {
+        verify(SsaBuilder.build(Programs.analyze(ProgramGenerator.generate(100, seed))));
+    }
+
+    /**
+     * Checks that every block is terminated and consistent with the
+     * predecessors of its successors, that phis have an operand for each
+     * predecessor and aren't trivial, and that operands are values of the
+     * same function.
+     */
+    private static void verify(Ssa.Program program) {
+        for (var function : program.functions()) {
+            var values = Collections.newSetFromMap(new IdentityHashMap<Ssa.Value, Boolean>());
+            values.addAll(function.parameters());
+            values.addAll(function.captures());
+            for (var block : function.blocks()) {
+                values.addAll(block.phis());
+                values.addAll(block.instructions());
+            }
+            Assertions.assertTrue(function.entry().predecessors().isEmpty(), "Entry has predecessors.");
+            for (var block : function.blocks()) {
+                Assertions.assertNotNull(block.terminator(), "Unterminated block.");
+                for (var successor : block.successors()) {
+                    Assertions.assertTrue(successor.predecessors().contains(block), "Missing predecessor.");
+                }
+                for (var predecessor : block.predecessors()) {
+                    Assertions.assertTrue(predecessor.successors().contains(block), "Missing successor.");
+                }
+                for (var phi : block.phis()) {
+                    Assertions.assertSame(block, phi.block());
+                    Assertions.assertEquals(block.predecessors().size(), phi.operands().size(), "Phi operands.");
+                    Assertions.assertTrue(phi.operands().stream().filter(o -> o != phi).distinct().count() > 1, "Trivial phi.");
+                    Assertions.assertTrue(values.containsAll(phi.operands()), "Undefined phi operand.");
+                }
+                for (var instruction : block.instructions()) {
+                    Assertions.assertTrue(values.containsAll(instruction.operands()), "Undefined operand.");
+                }
+                Assertions.assertTrue(values.containsAll(block.terminator().operands()), "Undefined terminator operand.");
+            }
+        }
+    }
+
+}
@@ -0,0 +1,69 @@
+package plc.project.workload;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+import plc.project.analyzer.Analyzer;
+import plc.project.evaluator.Evaluator;
+import plc.project.lexer.Lexer;
+import plc.project.parser.Parser;
+
+import java.util.stream.LongStream;
+import java.util.stream.Stream;
+
+/**
+ * Standard JUnit5 parameterized tests. See the RegexTests file from Homework 1
+ * or the LexerTests file from the earlier project part for more information.
+ */
+final class ProgramGeneratorTests {
+
+    @ParameterizedTest
+    @MethodSource
+    void testValid(String test, ProgramGenerator.Options options) {
+        var program = new ProgramGenerator(options).generate();
+        Assertions.assertDoesNotThrow(() -> {
+            var ast = new Parser(new Lexer(program).lex()).parseSource();
+            new Analyzer(new plc.project.analyzer.Scope(plc.project.analyzer.Environment.scope())).visit(ast);
+            new Evaluator(new plc.project.evaluator.Scope(plc.project.evaluator.Environment.scope())).visit(ast);
+        }, program);
+    }
+
+    private static Stream<Arguments> testValid() {
+        var defaults = ProgramGenerator.Options.defaults();
+        return Stream.of(
+            LongStream.range(0, 20).mapToObj(seed -> Arguments.of("Seed " + seed, defaults.withSeed(seed))),
+            Stream.of(
+                Arguments.of("Flat", defaults.withDepth(0)),
+                Arguments.of("Deep", defaults.withStatements(20).withDepth(6)),
+                Arguments.of("Deep Expressions", defaults.withExpressionDepth(8)),
+                Arguments.of("Large Blocks", defaults.withStatements(20).withBlockSize(12)),
+                Arguments.of("Loops", defaults.withWeight(ProgramGenerator.Kind.FOR, 8).withLoopBound(16)),
+                Arguments.of("Objects", defaults.withWeight(ProgramGenerator.Kind.OBJECT, 8)),
+                Arguments.of("Functions Only", defaults
+                    .withWeight(ProgramGenerator.Kind.LET, 0)
+                    .withWeight(ProgramGenerator.Kind.IF, 0)
+                    .withWeight(ProgramGenerator.Kind.FOR, 0)
+                    .withWeight(ProgramGenerator.Kind.OBJECT, 0)
+                    .withWeight(ProgramGenerator.Kind.EXPRESSION, 0))
+            )
+        ).flatMap(s -> s);
+    }
+
+    @ParameterizedTest
+    @MethodSource
+    void testDeterministic(String test, ProgramGenerator.Options options) {
+        Assertions.assertEquals(
+            new ProgramGenerator(options).generate(),
+            new ProgramGenerator(options).generate()
+        );
+    }
+
+    private static Stream<Arguments> testDeterministic() {
+        return Stream.of(
+            Arguments.of("Default", ProgramGenerator.Options.defaults()),
+            Arguments.of("Seed", ProgramGenerator.Options.defaults().withSeed(42))
+        );
+    }
+
+}